@@ -0,0 +1,62 @@
+package com.nickferraro.bayesian.core.scoring;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A scoring kernel that combines categories a full SIMD register at a time with the incubating Vector API. It is only built by the
+ * vector profile on JDK 16 and later and needs the jdk.incubator.vector module at runtime, so get it from {@link ScoringKernels#fastest()},
+ * which falls back to the {@link ScalarScoringKernel} when it cannot load. Every element goes through the same operation as in the
+ * scalar kernel, so both kernels give the same scores.
+ * This class is stateless and Thread-safe.
+ * @author Nick Ferraro
+ */
+public class VectorScoringKernel implements IScoringKernel {
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	
+	@Override
+	public void multiply(double[] scores, double[] column, int length) {
+		int i = 0;
+		for(int end = SPECIES.loopBound(length); i < end; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, scores, i).mul(DoubleVector.fromArray(SPECIES, column, i)).intoArray(scores, i);
+		}
+		for(; i < length; ++i) {
+			scores[i] *= column[i];
+		}
+	}
+	
+	@Override
+	public void add(double[] scores, double[] column, int length) {
+		int i = 0;
+		for(int end = SPECIES.loopBound(length); i < end; i += SPECIES.length()) {
+			DoubleVector.fromArray(SPECIES, scores, i).add(DoubleVector.fromArray(SPECIES, column, i)).intoArray(scores, i);
+		}
+		for(; i < length; ++i) {
+			scores[i] += column[i];
+		}
+	}
+	
+	@Override
+	public double max(double[] values, int length) {
+		double max = Double.NEGATIVE_INFINITY;
+		int i = 0;
+		int end = SPECIES.loopBound(length);
+		if( end > 0 ) {
+			// A lane only takes a value greater than it, like the scalar comparison, so NaN values are skipped instead of spreading
+			DoubleVector lanes = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+			for(; i < end; i += SPECIES.length()) {
+				DoubleVector next = DoubleVector.fromArray(SPECIES, values, i);
+				lanes = lanes.blend(next, next.compare(VectorOperators.GT, lanes));
+			}
+			max = lanes.reduceLanes(VectorOperators.MAX);
+		}
+		for(; i < length; ++i) {
+			if( values[i] > max ) {
+				max = values[i];
+			}
+		}
+		
+		return max;
+	}
+}
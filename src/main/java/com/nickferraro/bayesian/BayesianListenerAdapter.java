@@ -0,0 +1,28 @@
+package com.nickferraro.bayesian;
+
+/**
+ * A listener that ignores every event. Extend it and override the events of interest.
+ * @author Nick Ferraro
+ */
+public abstract class BayesianListenerAdapter implements IBayesianListener {
+	@Override
+	public void classified(int words, int categories, int skippedWords, long durationNanos) {}
+	
+	@Override
+	public void pruned(int categories, int prunedCategories, long durationNanos) {}
+	
+	@Override
+	public void trained(int rows, int newWords, int newLinks, long lockWaitNanos, long durationNanos) {}
+	
+	@Override
+	public void snapshotTaken(int words, long freezeNanos) {}
+	
+	@Override
+	public void snapshotWritten(int words, long durationNanos) {}
+	
+	@Override
+	public void snapshotRead(int words, long durationNanos) {}
+	
+	@Override
+	public void compacted(int removedEntries, long releasedBytes, long durationNanos) {}
+}
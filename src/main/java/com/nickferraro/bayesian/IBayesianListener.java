@@ -0,0 +1,66 @@
+package com.nickferraro.bayesian;
+
+/**
+ * Receives an event for each classification, training call, snapshot, compaction and pruned top-k classification of a system or model,
+ * so they can be recorded next to the rest of a process's profile. Event arguments are primitives, so emitting one does not allocate.
+ * Events are emitted on the thread that did the work, after any lock is released. Implementations must be thread-safe and fast, they
+ * run on the classification and training paths. Extend {@link BayesianListenerAdapter} to receive only some of the events.
+ * @author Nick Ferraro
+ */
+public interface IBayesianListener {
+	/**
+	 * Called after a sentence is classified.
+	 * @param words The number of distinct words scored.
+	 * @param categories The number of categories scored.
+	 * @param skippedWords The number of words the model's vocabulary filter ruled out without any count lookups.
+	 * @param durationNanos The time spent classifying.
+	 */
+	public void classified(int words, int categories, int skippedWords, long durationNanos);
+	
+	/**
+	 * Called after a top-k classification that skipped categories which could not reach the top k.
+	 * @param categories The number of categories of the model.
+	 * @param prunedCategories The number of categories that were not scored in full.
+	 * @param durationNanos The time spent classifying.
+	 */
+	public void pruned(int categories, int prunedCategories, long durationNanos);
+	
+	/**
+	 * Called after a model is trained on one or more rows.
+	 * @param rows The number of rows added.
+	 * @param newWords The number of words the rows added to the vocabulary.
+	 * @param newLinks The number of word to category links the rows created.
+	 * @param lockWaitNanos The time spent waiting for the model's write lock.
+	 * @param durationNanos The time spent training once the lock was held.
+	 */
+	public void trained(int rows, int newWords, int newLinks, long lockWaitNanos, long durationNanos);
+	
+	/**
+	 * Called after a snapshot of a model is taken.
+	 * @param words The number of words in the snapshot.
+	 * @param freezeNanos The time the model was locked to take the snapshot.
+	 */
+	public void snapshotTaken(int words, long freezeNanos);
+	
+	/**
+	 * Called after a snapshot is written.
+	 * @param words The number of words written.
+	 * @param durationNanos The time spent writing.
+	 */
+	public void snapshotWritten(int words, long durationNanos);
+	
+	/**
+	 * Called after a model is loaded from a snapshot.
+	 * @param words The number of words read.
+	 * @param durationNanos The time spent reading.
+	 */
+	public void snapshotRead(int words, long durationNanos);
+	
+	/**
+	 * Called after a model is compacted.
+	 * @param removedEntries The number of removed words and categories whose table space was released.
+	 * @param releasedBytes The estimated bytes released.
+	 * @param durationNanos The time spent compacting.
+	 */
+	public void compacted(int removedEntries, long releasedBytes, long durationNanos);
+}
@@ -27,6 +27,27 @@ public interface IBayesianSystem<T> {
 	 */
 	public List<IClassification<T>> classifyRow(ISentenceInput sentenceInput, int maxResults) throws InvalidParameterException;
 	
+	/**
+	 * Classify a batch of sentences in one pass against the model. The model is held stable for the whole batch, 
+	 * so every result in the batch sees the same training data.
+	 * @param sentenceInputs The sentences to classify. Must not be NULL or contain NULL.
+	 * @param maxResults The max results to return in each list. 0 or less returns every category.
+	 * @return One list of ordered classifications per sentence, in the order of sentenceInputs. Will never be NULL.
+	 * @throws InvalidParameterException Thrown when sentenceInputs is NULL or contains NULL.
+	 */
+	public List<List<IClassification<T>>> classifyRows(List<? extends ISentenceInput> sentenceInputs, int maxResults) throws InvalidParameterException;
+	
+	/**
+	 * Get the k most probable classifications from greatest to least probability for the specified sentence.
+	 * Categories are ranked as {@link #classifyRow(ISentenceInput)} ranks them, but categories that cannot reach the top k are dropped
+	 * without being fully scored. The probabilities are normalized over the returned classifications only.
+	 * @param sentenceInput The sentence to classify. Must not be NULL.
+	 * @param k The max number of classifications to return. Must be at least 1.
+	 * @return A list of at most k ordered classifications from greatest to least probability. Will never be NULL.
+	 * @throws InvalidParameterException Thrown when sentenceInput is NULL or k is less than 1.
+	 */
+	public List<IClassification<T>> classifyRowTopK(ISentenceInput sentenceInput, int k) throws InvalidParameterException;
+	
 	/**
 	 * Train the bayesian system's model on the specified data row. 
 	 * This updates the model and any previously trained data will remain in the model.
@@ -1,43 +1,220 @@
 package com.nickferraro.bayesian.core;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import com.nickferraro.bayesian.IBayesianListener;
 import com.nickferraro.bayesian.IBayesianSystem;
 import com.nickferraro.bayesian.IClassification;
 import com.nickferraro.bayesian.IDataRow;
 import com.nickferraro.bayesian.ISentenceInput;
+import com.nickferraro.bayesian.core.filter.FilteredDataRow;
+import com.nickferraro.bayesian.core.filter.IWordFilter;
+import com.nickferraro.bayesian.core.scoring.IScoringKernel;
+import com.nickferraro.bayesian.core.scoring.PrunedTopKScorer;
+import com.nickferraro.bayesian.core.scoring.ScoringKernels;
+import com.nickferraro.bayesian.model.CategoryIndex;
 import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.IWordMembership;
+import com.nickferraro.bayesian.model.ModelMode;
 import com.nickferraro.bayesian.model.hashed.BayesianModel;
 
 public class BayesianSystem<T> implements IBayesianSystem<T> {
 	protected ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 	protected Lock readLock = readWriteLock.readLock();
 	protected Lock writeLock = readWriteLock.writeLock();
-	private IBayesianModel<T> bayesianModel = new BayesianModel<T>();
+	private volatile IBayesianModel<T> bayesianModel = new BayesianModel<T>();
+	private volatile ModelEpoch<T> modelEpoch = new ModelEpoch<T>(bayesianModel, 0);
+	private volatile IScoringKernel scoringKernel = ScoringKernels.fastest();
+	private volatile IWordFilter wordFilter = null;
+	private volatile IBayesianListener listener = null;
+	
+	// Working arrays reused by every classification on a thread
+	private final ThreadLocal<ClassificationScratch> scratch = new ThreadLocal<ClassificationScratch>() {
+		@Override
+		protected ClassificationScratch initialValue() {
+			return new ClassificationScratch();
+		}
+	};
 	
 	public BayesianSystem() {}
 	public BayesianSystem(IBayesianModel<T> bayesianModel) throws InvalidParameterException {
 		setBayesianModel(bayesianModel);
 	}
 	
+	/**
+	 * Replace the model of this system without warming it up. See {@link #swapBayesianModel(IBayesianModel, Collection)}.
+	 * @param bayesianModel The new model. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when bayesianModel is NULL.
+	 */
 	public final void setBayesianModel(IBayesianModel<T> bayesianModel) throws InvalidParameterException {
+		swapBayesianModel(bayesianModel, null);
+	}
+	
+	/**
+	 * Replace the model of this system. Classification and training never wait for a swap: calls already running finish on the old model
+	 * and calls that start after the swap use the new model. Concurrent swaps are applied one at a time.
+	 * <p>
+	 * When warm-up sentences are given, the new model is warmed up before it is published. Its categories and words are touched once and
+	 * each warm-up sentence is classified against it, so the first real requests do not pay for cold caches.
+	 * </p>
+	 * @param bayesianModel The new model. Cannot be NULL.
+	 * @param warmUpSentences Sentences to classify against the new model before it is published. NULL skips the warm-up, 
+	 * an empty collection only touches the model's structures.
+	 * @return The epoch of the replaced model. Wait for it to retire before releasing the old model's resources.
+	 * @throws InvalidParameterException Thrown when bayesianModel is NULL.
+	 */
+	public final ModelEpoch<T> swapBayesianModel(IBayesianModel<T> bayesianModel, Collection<? extends ISentenceInput> warmUpSentences)
+			throws InvalidParameterException {
 		if( bayesianModel == null ) {
 			throw new InvalidParameterException("Cannot set a NULL bayesian model");
 		}
 		
+		// Warm up outside of any lock, nothing can see the new model yet
+		if( warmUpSentences != null ) {
+			_warmUp(bayesianModel, warmUpSentences);
+		}
+		
+		// Lock against other swaps only
 		writeLock.lock();
 		
-		this.bayesianModel = bayesianModel;
+		try {
+			ModelEpoch<T> oldEpoch = modelEpoch;
+			modelEpoch = new ModelEpoch<T>(bayesianModel, oldEpoch.getVersion() + 1);
+			this.bayesianModel = bayesianModel;
+			oldEpoch.replace();
+			
+			return oldEpoch;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Get the model currently published by this system.
+	 * @return The bayesian model.
+	 */
+	public final IBayesianModel<T> getBayesianModel() {
+		return bayesianModel;
+	}
+	
+	/**
+	 * Get the epoch of the model currently published by this system.
+	 * @return The current model epoch.
+	 */
+	public final ModelEpoch<T> getModelEpoch() {
+		return modelEpoch;
+	}
+	
+	/**
+	 * Register with the current model epoch. Every call must be paired with {@link ModelEpoch#exit()}.
+	 * @return The epoch that was entered.
+	 */
+	private ModelEpoch<T> _enterEpoch() {
+		while( true ) {
+			ModelEpoch<T> epoch = modelEpoch;
+			epoch.enter();
+			
+			// If a swap happened before entering, leave and use the newer epoch
+			if( epoch == modelEpoch ) {
+				return epoch;
+			}
+			epoch.exit();
+		}
+	}
+	
+	/**
+	 * Touch a model's structures and classify sample sentences against it.
+	 * @param bayesianModel The model to warm up.
+	 * @param warmUpSentences The sentences to classify.
+	 */
+	private void _warmUp(IBayesianModel<T> bayesianModel, Collection<? extends ISentenceInput> warmUpSentences) {
+		// Touch every category and word count
+		Set<T> uniqueCategories = bayesianModel.getUniqueCategories();
+		if( uniqueCategories != null ) {
+			for(T category : uniqueCategories) {
+				bayesianModel.countRowsWithCategory(category);
+			}
+		}
+		Set<String> uniqueWords = bayesianModel.getUniqueWords();
+		if( uniqueWords != null ) {
+			for(String word : uniqueWords) {
+				bayesianModel.countRowsWithWord(word);
+			}
+		}
 		
-		writeLock.unlock();
+		// Run the sample queries
+		ClassificationResult<T> result = new ClassificationResult<T>();
+		for(ISentenceInput sentenceInput : warmUpSentences) {
+			if( sentenceInput == null ) {
+				continue;
+			}
+			_classify(bayesianModel, sentenceInput, result);
+		}
+	}
+	
+	/**
+	 * Set the kernel used to combine per-category likelihood columns while classifying. The default is {@link ScoringKernels#fastest()}.
+	 * @param scoringKernel The scoring kernel to use. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when scoringKernel is NULL.
+	 */
+	public final void setScoringKernel(IScoringKernel scoringKernel) throws InvalidParameterException {
+		if( scoringKernel == null ) {
+			throw new InvalidParameterException("Cannot set a NULL scoring kernel");
+		}
 		
+		this.scoringKernel = scoringKernel;
+	}
+	
+	/**
+	 * Set the filter words go through before training and classification. The filter is run once per word, before any category is scored,
+	 * and is applied the same way to training rows and to sentences being classified. Use a {@link com.nickferraro.bayesian.core.filter.WordFilterPipeline} to combine filters
+	 * and a {@link com.nickferraro.bayesian.core.filter.CompiledWordFilter} to evaluate one ahead of time over the model's vocabulary.
+	 * Words kept by the filter are still checked with {@link #isWordAllowed(String)} when classifying.
+	 * @param wordFilter The word filter to use. NULL keeps every word.
+	 */
+	public final void setWordFilter(IWordFilter wordFilter) {
+		this.wordFilter = wordFilter;
+	}
+	
+	/**
+	 * Get the filter words go through before training and classification.
+	 * @return The word filter, or NULL if every word is kept.
+	 */
+	public final IWordFilter getWordFilter() {
+		return wordFilter;
+	}
+	
+	/**
+	 * Set the listener that receives classification events. Classification is only timed while a listener is set.
+	 * Training events come from the model, see {@link BayesianModel#setListener(IBayesianListener)}.
+	 * @param listener The listener. NULL stops emitting events.
+	 */
+	public final void setListener(IBayesianListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Get the listener that receives classification events.
+	 * @return The listener, or NULL if there is none.
+	 */
+	public final IBayesianListener getListener() {
+		return listener;
 	}
 	
 	@Override
@@ -52,132 +229,623 @@ public class BayesianSystem<T> implements IBayesianSystem<T> {
 			throw new InvalidParameterException();
 		}
 		
-		// Lock
-		readLock.lock();
+		// Enter the current model epoch
+		ModelEpoch<T> epoch = _enterEpoch();
 		
 		try {
 			// Classify row with private thread unsafe method
-			return _classifyRow(sentenceInput.getUniqueSentenceWords(), maxResults);
+			return _classify(epoch.getBayesianModel(), sentenceInput, new ClassificationResult<T>()).toList(maxResults);
 		} finally {
-			// Unlock
-			readLock.unlock();
+			// Leave the model epoch
+			epoch.exit();
 		}
 	}
 	
-	protected List<IClassification<T>> _classifyRow(Set<String> uniqueWords, int maxResults) {
-		List<IClassification<T>> classifications = new ArrayList<IClassification<T>>();
+	/**
+	 * Classify a sentence into a reusable result holder. The probability of every category is written into the holder by category index,
+	 * and categories are only ranked when a ranked value is read. Scoring runs in per-thread working arrays, so once the holder and the
+	 * thread's arrays have grown to the model's category count this method does not allocate, as long as the word filter keeps words unchanged.
+	 * This method is thread-safe, but a result holder must not be shared between threads.
+	 * @param sentenceInput The sentence to classify. Cannot be NULL.
+	 * @param result The holder to write the classification into. Cannot be NULL.
+	 * @return The result holder.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 */
+	public final ClassificationResult<T> classifyRow(ISentenceInput sentenceInput, ClassificationResult<T> result) throws InvalidParameterException {
+		// Validate sentence input and result
+		if( sentenceInput == null || result == null ) {
+			throw new InvalidParameterException("Cannot classify with a NULL sentence or result");
+		}
 		
-		// Validate the unique categories set
-		Set<T> uniqueCategories = bayesianModel.getUniqueCategories();
-		if( uniqueCategories == null ) {
-			return classifications;
+		// Enter the current model epoch
+		ModelEpoch<T> epoch = _enterEpoch();
+		
+		try {
+			// Classify row with private thread unsafe method
+			return _classify(epoch.getBayesianModel(), sentenceInput, result);
+		} finally {
+			// Leave the model epoch
+			epoch.exit();
+		}
+	}
+	
+	@Override
+	public final List<List<IClassification<T>>> classifyRows(List<? extends ISentenceInput> sentenceInputs, int maxResults) throws InvalidParameterException {
+		// Validate sentence inputs before locking
+		if( sentenceInputs == null ) {
+			throw new InvalidParameterException("Cannot classify a NULL list of sentences");
+		}
+		for(ISentenceInput sentenceInput : sentenceInputs) {
+			if( sentenceInput == null ) {
+				throw new InvalidParameterException("Cannot classify a NULL sentence");
+			}
 		}
 		
-		// Makes sure uniqueWords is not NULL
-		if( uniqueWords == null ) {
-			uniqueWords = Collections.emptySet();
+		List<List<IClassification<T>>> results = new ArrayList<List<IClassification<T>>>(sentenceInputs.size());
+		
+		// Enter the current model epoch once for the whole batch
+		ModelEpoch<T> epoch = _enterEpoch();
+		
+		try {
+			IBayesianModel<T> model = epoch.getBayesianModel();
+			ClassificationResult<T> result = new ClassificationResult<T>();
+			for(ISentenceInput sentenceInput : sentenceInputs) {
+				results.add(_classify(model, sentenceInput, result).toList(maxResults));
+			}
+		} finally {
+			// Leave the model epoch
+			epoch.exit();
 		}
 		
-		// Remove a NULL entry if it exists and validate if the model has any categories
-		uniqueCategories.remove(null);
-		if( uniqueCategories.size() == 0 ) {
-			return classifications;
+		return results;
+	}
+	
+	/**
+	 * Classify a list of sentences into a reusable batch holder, one row per sentence in list order. The whole batch is scored against
+	 * one model epoch and every row shares the batch's category columns. Once the batch and the thread's working arrays have grown,
+	 * this method does not allocate for sentences the single row form classifies without allocating.
+	 * This method is thread-safe, but a batch holder must not be shared between threads.
+	 * @param sentenceInputs The sentences to classify. Cannot be NULL or contain NULL.
+	 * @param batch The holder to write the classifications into. Cannot be NULL.
+	 * @return The batch holder.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL or a sentence is NULL.
+	 */
+	public final ClassificationBatch<T> classifyRows(List<? extends ISentenceInput> sentenceInputs, ClassificationBatch<T> batch) throws InvalidParameterException {
+		// Validate sentence inputs and batch before entering the epoch
+		if( sentenceInputs == null || batch == null ) {
+			throw new InvalidParameterException("Cannot classify with a NULL list of sentences or batch");
+		}
+		int size = sentenceInputs.size();
+		for(int i = 0; i < size; ++i) {
+			if( sentenceInputs.get(i) == null ) {
+				throw new InvalidParameterException("Cannot classify a NULL sentence");
+			}
 		}
 		
-		// Get total training rows. 
-		// If the model has 0 training rows, evenly distribute probability over categories.
-		int totalRows = bayesianModel.getTotalRows();
-		if( totalRows == 0 ) {
-			double totalUniqueCategories = uniqueCategories.size();
-			for(T category : uniqueCategories) {
-				classifications.add(new Classification<T>(category, 1.0d / totalUniqueCategories));
+		// Enter the current model epoch once for the whole batch
+		ModelEpoch<T> epoch = _enterEpoch();
+		
+		try {
+			IBayesianModel<T> model = epoch.getBayesianModel();
+			batch.reset(size);
+			for(int i = 0; i < size; ++i) {
+				_classify(model, sentenceInputs.get(i), batch.rowResult());
+				batch.addRow();
+			}
+		} finally {
+			// Leave the model epoch
+			epoch.exit();
+		}
+		
+		return batch;
+	}
+	
+	/**
+	 * Classify a document read from a character stream into a reusable result holder, without building the document text or its word
+	 * collections. Words are read with {@link WordReader} and filtered as they arrive. Words the model knows are counted once each in
+	 * the thread's term table, and every other word is folded into a single term, since unknown words score the same for every
+	 * category. Memory is bounded by the model's categories and vocabulary rather than by the document size, and the result matches
+	 * {@link #classifyRow(ISentenceInput, ClassificationResult)} for the same text.
+	 * The model epoch is held until the stream ends, and the stream is not closed by this method.
+	 * This method is thread-safe, but a result holder must not be shared between threads.
+	 * @param reader The document to classify. Cannot be NULL.
+	 * @param result The holder to write the classification into. Cannot be NULL.
+	 * @return The result holder.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 * @throws IOException Thrown when the stream cannot be read.
+	 */
+	public final ClassificationResult<T> classifyStream(Reader reader, ClassificationResult<T> result) throws InvalidParameterException, IOException {
+		// Validate reader and result
+		if( reader == null || result == null ) {
+			throw new InvalidParameterException("Cannot classify with a NULL reader or result");
+		}
+		
+		// Enter the current model epoch
+		ModelEpoch<T> epoch = _enterEpoch();
+		
+		try {
+			// Classify stream with private thread unsafe method
+			return _classifyStream(epoch.getBayesianModel(), new WordReader(reader), result);
+		} finally {
+			// Leave the model epoch
+			epoch.exit();
+		}
+	}
+	
+	/**
+	 * Classify a document read from a byte channel into a reusable result holder. See {@link #classifyStream(Reader, ClassificationResult)}.
+	 * The channel is not closed by this method.
+	 * This method is thread-safe, but a result holder must not be shared between threads.
+	 * @param channel The document to classify. Cannot be NULL.
+	 * @param charset The character set the document is encoded in. Cannot be NULL.
+	 * @param result The holder to write the classification into. Cannot be NULL.
+	 * @return The result holder.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 * @throws IOException Thrown when the channel cannot be read or holds bytes that are not valid in the character set.
+	 */
+	public final ClassificationResult<T> classifyStream(ReadableByteChannel channel, Charset charset, ClassificationResult<T> result) throws InvalidParameterException, IOException {
+		// Validate channel and charset, the result is validated with the reader
+		if( channel == null || charset == null ) {
+			throw new InvalidParameterException("Cannot classify with a NULL channel or charset");
+		}
+		
+		return classifyStream(Channels.newReader(channel, charset.newDecoder(), -1), result);
+	}
+	
+	/**
+	 * Open a session that classifies words added and removed one at a time against the current model. See {@link ClassificationSession}.
+	 * The session holds the current model epoch until it is closed.
+	 * This method is thread-safe, but a session must not be shared between threads.
+	 * @return The open session. Must be closed when no longer used.
+	 */
+	public final ClassificationSession<T> openSession() {
+		// Enter the current model epoch, the session leaves it when closed
+		ModelEpoch<T> epoch = _enterEpoch();
+		
+		try {
+			return new ClassificationSession<T>(this, epoch);
+		} catch(RuntimeException e) {
+			epoch.exit();
+			throw e;
+		}
+	}
+	
+	@Override
+	public final List<IClassification<T>> classifyRowTopK(ISentenceInput sentenceInput, int k) throws InvalidParameterException {
+		// Validate sentence input and k
+		if( sentenceInput == null ) {
+			throw new InvalidParameterException();
+		}
+		if( k < 1 ) {
+			throw new InvalidParameterException("Cannot classify into less than 1 category");
+		}
+		
+		// Enter the current model epoch
+		ModelEpoch<T> epoch = _enterEpoch();
+		
+		try {
+			// Multinomial models are scored in full and cut down to k
+			IBayesianModel<T> model = epoch.getBayesianModel();
+			if( model.getMode() == ModelMode.MULTINOMIAL ) {
+				List<IClassification<T>> classifications = _classify(model, sentenceInput, new ClassificationResult<T>()).toList(k);
+				return _normalizeClassifications(classifications);
+			}
+			
+			// Remove words the system does not accept before scoring
+			IBayesianListener observer = listener;
+			long start = ( observer == null ? 0 : System.nanoTime() );
+			PrunedTopKScorer<T> scorer = new PrunedTopKScorer<T>(model);
+			List<IClassification<T>> classifications = scorer.score(_filterUniqueWords(sentenceInput.getUniqueSentenceWords()), k);
+			if( observer != null ) {
+				observer.pruned(model.getUniqueCategories().size(), scorer.getCategoriesPruned(), System.nanoTime() - start);
 			}
 			
 			return classifications;
+		} finally {
+			// Leave the model epoch
+			epoch.exit();
+		}
+	}
+	
+	/**
+	 * Classify a sentence into a result holder. Multinomial models score every word occurrence, other models score unique words.
+	 * This method is not thread-safe.
+	 * @param model The model to classify against.
+	 * @param sentenceInput The sentence to classify.
+	 * @param result The holder to write the probability of every category into.
+	 * @return The result holder.
+	 */
+	private ClassificationResult<T> _classify(IBayesianModel<T> model, ISentenceInput sentenceInput, ClassificationResult<T> result) {
+		IBayesianListener observer = listener;
+		long start = ( observer == null ? 0 : System.nanoTime() );
+		ClassificationScratch scratch = this.scratch.get();
+		if( model.getMode() == ModelMode.MULTINOMIAL ) {
+			_collectTerms(sentenceInput.getSentenceWords(), true, scratch);
+			_scoreTermFrequencies(model, scratch, result);
+		} else if( sentenceInput.getClass() == SentenceInput.class ) {
+			// The unique words of a SentenceInput are the distinct words of its word list, which is walked without an iterator
+			_collectTerms(sentenceInput.getSentenceWords(), true, scratch);
+			_scoreRow(model, scratch, result);
+		} else {
+			_collectTerms(sentenceInput.getUniqueSentenceWords(), true, scratch);
+			_scoreRow(model, scratch, result);
+		}
+		if( observer != null ) {
+			observer.classified(scratch.termCount, result.getCategoryCount(), scratch.skippedTerms, System.nanoTime() - start);
 		}
+		scratch.clearTerms();
 		
-		// Calculate the probability of each category
-		HashMap<T, Double> categoryProbabilityMap = new HashMap<T, Double>();
-		double sumOfCategoryProbabilities = 0.0d;
-		for(T category : uniqueCategories) {
-			int totalCategoryRows = bayesianModel.countRowsWithCategory(category);
-			double probabilityOfCategory = (double)totalCategoryRows / (double)totalRows;
+		return result;
+	}
+	
+	/**
+	 * Classify the words of a stream into a result holder. Each word is filtered as it is read. Known words go into the term table once
+	 * each, and unknown words all count toward the first unknown word, so the table never holds more than the model's vocabulary plus one.
+	 * This method is not thread-safe.
+	 * @param model The model to classify against.
+	 * @param words The words to classify.
+	 * @param result The holder to write the probability of every category into.
+	 * @return The result holder.
+	 * @throws IOException Thrown when the stream cannot be read.
+	 */
+	private ClassificationResult<T> _classifyStream(IBayesianModel<T> model, WordReader words, ClassificationResult<T> result) throws IOException {
+		IBayesianListener observer = listener;
+		long start = ( observer == null ? 0 : System.nanoTime() );
+		ClassificationScratch scratch = this.scratch.get();
+		scratch.clearTerms();
+		
+		try {
+			IWordFilter filter = wordFilter;
+			IWordMembership membership = _membershipOf(model);
+			String unknownWord = null;
+			for(String word = words.nextWord(); word != null; word = words.nextWord()) {
+				word = _filterWord(filter, word);
+				if( word == null ) {
+					continue;
+				}
+				
+				// Every unknown word has a count of 0 for every category, so one of them stands in for all of them
+				if( !scratch.containsTerm(word) && ((membership != null && !membership.mightContainWord(word)) || model.countRowsWithWord(word) == 0) ) {
+					unknownWord = ( unknownWord == null ? word : unknownWord );
+					word = unknownWord;
+				}
+				scratch.addTerm(word);
+			}
 			
-			// Calculate the probability of each word for the current category
-			boolean hasOneWord = false;
-			double probabilityOfWordsGivenCategory = 1.0d;
-			for(String word : uniqueWords) {
-				// Check that the current word is accepted by the system
-				if( isWordAllowed(word) ) {
+			if( model.getMode() == ModelMode.MULTINOMIAL ) {
+				_scoreTermFrequencies(model, scratch, result);
+			} else {
+				_scoreRow(model, scratch, result);
+			}
+			if( observer != null ) {
+				observer.classified(scratch.termCount, result.getCategoryCount(), scratch.skippedTerms, System.nanoTime() - start);
+			}
+		} finally {
+			scratch.clearTerms();
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Count the words of a sentence into the term table of the scratch state, in first seen order. Lists that support fast random
+	 * access are walked by index so no iterator is created.
+	 * @param words The words to count. NULL is treated as empty.
+	 * @param applyFilter TRUE to run each word through the word filter and {@link #isWordAllowed(String)}, FALSE if it already was.
+	 * @param scratch The scratch state of the calling thread.
+	 */
+	private void _collectTerms(Collection<String> words, boolean applyFilter, ClassificationScratch scratch) {
+		scratch.clearTerms();
+		if( words == null ) {
+			return;
+		}
+		
+		IWordFilter filter = ( applyFilter ? wordFilter : null );
+		if( words instanceof List && words instanceof RandomAccess ) {
+			List<String> wordList = (List<String>)words;
+			for(int i = 0; i < wordList.size(); ++i) {
+				String word = wordList.get(i);
+				word = ( applyFilter ? _filterWord(filter, word) : word );
+				if( word != null ) {
+					scratch.addTerm(word);
+				}
+			}
+		} else {
+			for(String word : words) {
+				word = ( applyFilter ? _filterWord(filter, word) : word );
+				if( word != null ) {
+					scratch.addTerm(word);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Score the unique words counted in the scratch state with the bernoulli event model into a result holder. Working arrays come from
+	 * the scratch state, so this does not allocate once they have grown to the model's category count. This method is not thread-safe.
+	 * @param model The model to classify against.
+	 * @param scratch The scratch state of the calling thread, holding the words to classify.
+	 * @param result The holder to write the probability of every category into.
+	 */
+	private void _scoreRow(IBayesianModel<T> model, ClassificationScratch scratch, ClassificationResult<T> result) {
+		// Index the categories densely, NULL entries are skipped. Models already hand out an index, so this does not copy.
+		CategoryIndex<T> categories = CategoryIndex.copyOf(model.getUniqueCategories());
+		double[] scores = result.reset(categories);
+		int categoryCount = categories.size();
+		if( categoryCount == 0 ) {
+			return;
+		}
+		
+		// Get total training rows. 
+		// If the model has 0 training rows, evenly distribute probability over categories.
+		int totalRows = model.getTotalRows();
+		if( totalRows == 0 ) {
+			Arrays.fill(scores, 0, categoryCount, 1.0d / categoryCount);
+			return;
+		}
+		
+		// Lay the category row counts out by category index
+		scratch.ensureCategories(categoryCount);
+		int[] categoryRows = scratch.categoryRows;
+		for(int i = 0; i < categoryCount; ++i) {
+			categoryRows[i] = model.countRowsWithCategory(categories.get(i));
+			scores[i] = 1.0d;
+		}
+		
+		// Calculate the probability of each word for every category as a column and multiply it into the scores.
+		// Words were filtered once before scoring, so every word here is accepted by the system.
+		// Words the model certainly does not hold have no rows with any category and skip the per category lookups.
+		boolean hasOneWord = false;
+		double[] column = scratch.column;
+		IWordMembership membership = _membershipOf(model);
+		for(int term = 0; term < scratch.termCount; ++term) {
+			String word = scratch.terms[term];
+			if( membership != null && !membership.mightContainWord(word) ) {
+				++scratch.skippedTerms;
+				Arrays.fill(column, 0, categoryCount, 1.0d / totalRows);
+			} else {
+				for(int i = 0; i < categoryCount; ++i) {
 					// Calculate the probability of the current word for the current category
-					int totalCategoryAndWordRows = bayesianModel.countRowsWithCategoryWithWord(category, word);
-					double probabilityOfWordGivenCategory = (totalCategoryAndWordRows == 0 ? (1.0d / totalRows) : ((double)totalCategoryAndWordRows / (double)totalCategoryRows));
-					
-					// Update the probability of all words
-					probabilityOfWordsGivenCategory *= probabilityOfWordGivenCategory;
-					
-					// Update flag for finding at least one word
-					hasOneWord = true;
+					int totalCategoryAndWordRows = model.countRowsWithCategoryWithWord(categories.get(i), word);
+					column[i] = (totalCategoryAndWordRows == 0 ? (1.0d / totalRows) : ((double)totalCategoryAndWordRows / (double)categoryRows[i]));
 				}
 			}
 			
-			// If no acceptable words were found, set the probability to 0%
-			if( !hasOneWord ) {
-				probabilityOfWordsGivenCategory = 0.0d;
-			}
+			// Update the probability of all words
+			scoringKernel.multiply(scores, column, categoryCount);
 			
-			// Calculate the probability of the current category given the set of words
-			double probabilityOfCategoryGivenWords = probabilityOfCategory * probabilityOfWordsGivenCategory;
-			categoryProbabilityMap.put(category, probabilityOfCategoryGivenWords);
+			// Update flag for finding at least one word
+			hasOneWord = true;
+		}
+		
+		// Calculate the probability of each category given the set of words
+		double sumOfCategoryProbabilities = 0.0d;
+		for(int i = 0; i < categoryCount; ++i) {
+			double probabilityOfCategory = (double)categoryRows[i] / (double)totalRows;
+			
+			// If no acceptable words were found, set the probability to 0%
+			scores[i] = ( hasOneWord ? probabilityOfCategory * scores[i] : 0.0d );
 			
 			// Update the normalization sum of all category probabilities
-			sumOfCategoryProbabilities += probabilityOfCategoryGivenWords;
+			sumOfCategoryProbabilities += scores[i];
 		}
 		
 		// If all category probabilities are 0%, use probability of category only (not considering words)
 		if( sumOfCategoryProbabilities == 0 ) {
-			// Create classifications from probabilityOfCategory
-			for(T category : uniqueCategories) {
-				int totalCategoryRows = bayesianModel.countRowsWithCategory(category);
-				double probabilityOfCategory = (double)totalCategoryRows / (double)totalRows;
-				
-				classifications.add(new Classification<T>(category, probabilityOfCategory));
+			for(int i = 0; i < categoryCount; ++i) {
+				scores[i] = (double)categoryRows[i] / (double)totalRows;
 			}
-		// Not all category probabilities are 0%, use mapped probability calculations
+		// Not all category probabilities are 0%, use calculated probabilities
 		} else {
-			// Create classifications from probabilityOfCategoryGivenWords
-			for(T category : uniqueCategories) {
-				double categoryProbability = categoryProbabilityMap.get(category) / sumOfCategoryProbabilities;
-				classifications.add(new Classification<T>(category, categoryProbability));
+			for(int i = 0; i < categoryCount; ++i) {
+				scores[i] /= sumOfCategoryProbabilities;
+			}
+		}
+	}
+	
+	/**
+	 * Score the term frequencies counted in the scratch state with the multinomial event model into a result holder. Working arrays come
+	 * from the scratch state, so this does not allocate once they have grown to the model's category count. This method is not thread-safe.
+	 * @param model The model to classify against.
+	 * @param scratch The scratch state of the calling thread, holding the words to classify and their frequencies.
+	 * @param result The holder to write the probability of every category into.
+	 */
+	private void _scoreTermFrequencies(IBayesianModel<T> model, ClassificationScratch scratch, ClassificationResult<T> result) {
+		// Index the categories densely, NULL entries are skipped. Models already hand out an index, so this does not copy.
+		CategoryIndex<T> categories = CategoryIndex.copyOf(model.getUniqueCategories());
+		double[] scores = result.reset(categories);
+		int categoryCount = categories.size();
+		if( categoryCount == 0 ) {
+			return;
+		}
+		
+		// If the model has 0 training rows, evenly distribute probability over categories.
+		int totalRows = model.getTotalRows();
+		if( totalRows == 0 ) {
+			Arrays.fill(scores, 0, categoryCount, 1.0d / categoryCount);
+			return;
+		}
+		
+		// Start each category score at the log probability of the category
+		scratch.ensureCategories(categoryCount);
+		double[] smoothingDenominators = scratch.smoothingDenominators;
+		int vocabularySize = Math.max(1, model.getUniqueWords().size());
+		for(int i = 0; i < categoryCount; ++i) {
+			T category = categories.get(i);
+			scores[i] = Math.log((double)model.countRowsWithCategory(category) / (double)totalRows);
+			smoothingDenominators[i] = model.countTokensWithCategory(category) + vocabularySize;
+		}
+		
+		// Add the log likelihood of each distinct word, scaled by its term frequency, as a column over all categories
+		// Words the model certainly does not hold score the smoothing term alone.
+		double[] column = scratch.column;
+		IWordMembership membership = _membershipOf(model);
+		for(int term = 0; term < scratch.termCount; ++term) {
+			String word = scratch.terms[term];
+			double frequency = scratch.termFrequencies[term];
+			boolean unknown = ( membership != null && !membership.mightContainWord(word) );
+			scratch.skippedTerms += ( unknown ? 1 : 0 );
+			for(int i = 0; i < categoryCount; ++i) {
+				int totalCategoryAndWordTokens = ( unknown ? 0 : model.countRowsWithCategoryWithWord(categories.get(i), word) );
+				column[i] = frequency * Math.log((totalCategoryAndWordTokens + 1.0d) / smoothingDenominators[i]);
 			}
+			
+			scoringKernel.add(scores, column, categoryCount);
+		}
+		
+		// Normalize the log scores into probabilities relative to the best score
+		double maxScore = scoringKernel.max(scores, categoryCount);
+		double sumOfCategoryProbabilities = 0.0d;
+		for(int i = 0; i < categoryCount; ++i) {
+			scores[i] = Math.exp(scores[i] - maxScore);
+			sumOfCategoryProbabilities += scores[i];
+		}
+		for(int i = 0; i < categoryCount; ++i) {
+			scores[i] /= sumOfCategoryProbabilities;
+		}
+	}
+	
+	/**
+	 * Get the word membership check of a model.
+	 * @param model The model to classify against.
+	 * @return The model as a membership check, or NULL if it cannot rule out words.
+	 */
+	private static IWordMembership _membershipOf(IBayesianModel<?> model) {
+		return ( model instanceof IWordMembership ? (IWordMembership)model : null );
+	}
+	
+	/**
+	 * Rescale classifications so their probabilities sum to 1.
+	 * @param classifications The classifications to rescale.
+	 * @return The rescaled classifications in the same order.
+	 */
+	private List<IClassification<T>> _normalizeClassifications(List<IClassification<T>> classifications) {
+		double sum = 0.0d;
+		for(IClassification<T> classification : classifications) {
+			sum += classification.getProbability();
+		}
+		if( sum <= 0 ) {
+			return classifications;
+		}
+		
+		List<IClassification<T>> normalized = new ArrayList<IClassification<T>>(classifications.size());
+		for(IClassification<T> classification : classifications) {
+			normalized.add(new Classification<T>(classification.getCategory(), Math.min(1.0d, classification.getProbability() / sum)));
 		}
 		
-		// Sort from highest to lowest probability
-		Collections.sort(classifications, Collections.reverseOrder(new ClassificationComparator()));
+		return normalized;
+	}
+	
+	/**
+	 * Filter a set of unique words for classification. Each word goes through the word filter and {@link #isWordAllowed(String)} once.
+	 * The given set is returned as is when every word is kept unchanged, so the common case does not allocate.
+	 * @param words The unique words of a sentence. NULL is treated as empty.
+	 * @return The words to score. Will never be NULL.
+	 */
+	private Set<String> _filterUniqueWords(Set<String> words) {
+		if( words == null ) {
+			return Collections.emptySet();
+		}
 		
-		// If maxResults is set, reduce list size
-		if( maxResults > 0 ) {
-			classifications.subList(0, maxResults + 1);
+		IWordFilter filter = wordFilter;
+		Set<String> filteredWords = null;
+		int index = 0;
+		for(String word : words) {
+			String kept = _filterWord(filter, word);
+			
+			// On the first change, copy the words before it, which were all kept unchanged
+			if( filteredWords == null && kept != word ) {
+				filteredWords = new LinkedHashSet<String>(words.size() * 2);
+				int copied = 0;
+				for(String previous : words) {
+					if( copied++ == index ) {
+						break;
+					}
+					filteredWords.add(previous);
+				}
+			}
+			if( filteredWords != null && kept != null ) {
+				filteredWords.add(kept);
+			}
+			++index;
+		}
+		
+		return ( filteredWords == null ? words : filteredWords );
+	}
+	
+	/**
+	 * Filter one word for classification with the current word filter.
+	 * @param word The word to filter.
+	 * @return The word to score, or NULL to drop it.
+	 */
+	String filterWord(String word) {
+		return _filterWord(wordFilter, word);
+	}
+	
+	/**
+	 * Filter one word for classification.
+	 * @param filter The word filter, or NULL to keep every word.
+	 * @param word The word to filter.
+	 * @return The word to score, or NULL to drop it.
+	 */
+	private String _filterWord(IWordFilter filter, String word) {
+		if( word == null ) {
+			return null;
+		}
+		if( filter != null ) {
+			word = filter.filter(word);
 		}
 		
-		return classifications;
+		return ( word != null && isWordAllowed(word) ? word : null );
 	}
 	
+	/**
+	 * Check if a word is accepted when classifying. Subclasses can override this to reject words, 
+	 * {@link #setWordFilter(IWordFilter)} is the reusable alternative that also applies to training.
+	 * @param word The word to check.
+	 * @return TRUE if the word is scored.
+	 */
 	public boolean isWordAllowed(String word) {
 		return true;
 	}
-
+	
 	@Override
 	public final void trainOnRow(IDataRow<T> dataRow) {
 		if( dataRow != null ) {
-			bayesianModel.addDataRow(dataRow);
+			// Filter the row the same way sentences are filtered when classifying
+			IWordFilter filter = wordFilter;
+			if( filter != null ) {
+				dataRow = new FilteredDataRow<T>(dataRow, filter);
+			}
+			
+			ModelEpoch<T> epoch = _enterEpoch();
+			try {
+				epoch.getBayesianModel().addDataRow(dataRow);
+			} finally {
+				epoch.exit();
+			}
 		}
 	}
-
+	
 	@Override
 	public final void trainOnRows(List<IDataRow<T>> dataRows) {
 		if( dataRows != null ) {
-			bayesianModel.addDataRows(dataRows);
+			// Filter the rows the same way sentences are filtered when classifying
+			IWordFilter filter = wordFilter;
+			if( filter != null ) {
+				List<IDataRow<T>> filteredRows = new ArrayList<IDataRow<T>>(dataRows.size());
+				for(IDataRow<T> dataRow : dataRows) {
+					filteredRows.add(( dataRow == null ? null : new FilteredDataRow<T>(dataRow, filter) ));
+				}
+				dataRows = filteredRows;
+			}
+			
+			ModelEpoch<T> epoch = _enterEpoch();
+			try {
+				epoch.getBayesianModel().addDataRows(dataRows);
+			} finally {
+				epoch.exit();
+			}
 		}
 	}
 }
@@ -0,0 +1,205 @@
+package com.nickferraro.bayesian.core;
+
+import com.nickferraro.bayesian.model.CategoryIndex;
+
+/**
+ * A reusable holder for the classification of many sentences. Probabilities are kept in one row-major double matrix with a row per
+ * sentence and a column per category of the model's {@link CategoryIndex}, so aggregation can read primitives without creating a
+ * classification object per category. The matrix grows to the largest batch seen and is then reused.
+ * See {@link BayesianSystem#classifyRows(java.util.List, ClassificationBatch)}.
+ * This class is not thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ClassificationBatch<T> {
+	private CategoryIndex<T> categories = CategoryIndex.empty();
+	private int categoryCount = 0;
+	private int rowCount = 0;
+	private int expectedRows = 0;
+	private double[] matrix = new double[0];
+	
+	// The holder each row is classified into before it is copied into the matrix
+	private final ClassificationResult<T> rowResult = new ClassificationResult<T>();
+	
+	/**
+	 * Get the categories this batch holds probabilities for. Every row shares the same columns.
+	 * @return The category index of the classified model. Empty if nothing was classified.
+	 */
+	public CategoryIndex<T> getCategories() {
+		return categories;
+	}
+	
+	/**
+	 * Get the number of categories, which is the number of columns of each row.
+	 * @return The category count.
+	 */
+	public int getCategoryCount() {
+		return categoryCount;
+	}
+	
+	/**
+	 * Get the number of classified sentences.
+	 * @return The row count.
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+	
+	/**
+	 * Get the probability of a category for one sentence.
+	 * @param row The row of the sentence.
+	 * @param index The index of the category in {@link #getCategories()}.
+	 * @return The probability.
+	 * @throws IndexOutOfBoundsException Thrown when row or index is out of range.
+	 */
+	public double getProbability(int row, int index) throws IndexOutOfBoundsException {
+		_checkRow(row);
+		if( index < 0 || index >= categoryCount ) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of range for " + categoryCount + " categories");
+		}
+		
+		return matrix[row * categoryCount + index];
+	}
+	
+	/**
+	 * Get the probability of a category for one sentence.
+	 * @param row The row of the sentence.
+	 * @param category The category to look up.
+	 * @return The probability, or 0 if the category is not one of {@link #getCategories()}.
+	 * @throws IndexOutOfBoundsException Thrown when row is out of range.
+	 */
+	public double probabilityOf(int row, Object category) throws IndexOutOfBoundsException {
+		_checkRow(row);
+		int index = categories.indexOf(category);
+		return ( index < 0 ? 0 : matrix[row * categoryCount + index] );
+	}
+	
+	/**
+	 * Get the index of the most probable category for one sentence. Equal probabilities resolve to the lowest index.
+	 * @param row The row of the sentence.
+	 * @return The index of the category in {@link #getCategories()}, or -1 if there are no categories.
+	 * @throws IndexOutOfBoundsException Thrown when row is out of range.
+	 */
+	public int argmax(int row) throws IndexOutOfBoundsException {
+		_checkRow(row);
+		return ClassificationResult.argmax(matrix, row * categoryCount, categoryCount);
+	}
+	
+	/**
+	 * Copy the category indices of the k most probable categories for one sentence, from greatest to least probability. Equal
+	 * probabilities keep index order. Selection costs k passes over the row at most, which suits small k.
+	 * @param row The row of the sentence.
+	 * @param k The number of categories to copy.
+	 * @param indices The array to copy the indices into. Must hold at least the smaller of k and the category count.
+	 * @return The number of indices copied.
+	 * @throws IndexOutOfBoundsException Thrown when row is out of range or indices is too short.
+	 */
+	public int topK(int row, int k, int[] indices) throws IndexOutOfBoundsException {
+		_checkRow(row);
+		int count = Math.max(0, Math.min(k, categoryCount));
+		if( count > indices.length ) {
+			throw new IndexOutOfBoundsException("Cannot copy " + count + " indices into an array of " + indices.length);
+		}
+		
+		// Insert each category into the sorted prefix when it beats the last kept category
+		int offset = row * categoryCount;
+		int kept = 0;
+		for(int index = 0; index < categoryCount; ++index) {
+			double probability = matrix[offset + index];
+			if( kept == count && Double.compare(probability, matrix[offset + indices[kept - 1]]) <= 0 ) {
+				continue;
+			}
+			
+			int position = ( kept < count ? kept++ : kept - 1 );
+			while( position > 0 && Double.compare(probability, matrix[offset + indices[position - 1]]) > 0 ) {
+				indices[position] = indices[position - 1];
+				--position;
+			}
+			indices[position] = index;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * Copy the probabilities of one sentence into an array, indexed like {@link #getCategories()}.
+	 * @param row The row of the sentence.
+	 * @param destination The array to copy into. Must hold at least the category count.
+	 * @throws IndexOutOfBoundsException Thrown when row is out of range or destination is too short.
+	 */
+	public void copyRow(int row, double[] destination) throws IndexOutOfBoundsException {
+		_checkRow(row);
+		System.arraycopy(matrix, row * categoryCount, destination, 0, categoryCount);
+	}
+	
+	/**
+	 * Remove every row from this batch. The matrix is kept for reuse.
+	 */
+	public void clear() {
+		categories = CategoryIndex.empty();
+		categoryCount = 0;
+		rowCount = 0;
+		rowResult.clear();
+	}
+	
+	/**
+	 * Prepare this batch to hold a number of rows. The columns are taken from the first row added.
+	 * @param rows The number of rows that will be added.
+	 */
+	void reset(int rows) {
+		clear();
+		this.expectedRows = rows;
+	}
+	
+	/**
+	 * Get the holder a row is classified into before it is added.
+	 * @return The row holder.
+	 */
+	ClassificationResult<T> rowResult() {
+		return rowResult;
+	}
+	
+	/**
+	 * Copy the row holder into the next row of the matrix. The first row fixes the columns of the batch. If the model's categories
+	 * changed since then, the row is mapped onto the batch columns, categories that were added are dropped and categories that were
+	 * removed read as 0.
+	 */
+	void addRow() {
+		if( rowCount == 0 ) {
+			categories = rowResult.getCategories();
+			categoryCount = categories.size();
+			int size = Math.max(1, expectedRows) * categoryCount;
+			if( matrix.length < size ) {
+				matrix = new double[Math.max(size, matrix.length * 2)];
+			}
+		} else if( (rowCount + 1) * categoryCount > matrix.length ) {
+			double[] grown = new double[Math.max((rowCount + 1) * categoryCount, matrix.length * 2)];
+			System.arraycopy(matrix, 0, grown, 0, rowCount * categoryCount);
+			matrix = grown;
+		}
+		
+		int offset = rowCount * categoryCount;
+		if( rowResult.getCategories() == categories ) {
+			for(int index = 0; index < categoryCount; ++index) {
+				matrix[offset + index] = rowResult.getProbability(index);
+			}
+		} else {
+			for(int index = 0; index < categoryCount; ++index) {
+				matrix[offset + index] = rowResult.probabilityOf(categories.get(index));
+			}
+		}
+		++rowCount;
+	}
+	
+	/**
+	 * Check that a row is within the row count.
+	 * @param row The row to check.
+	 * @throws IndexOutOfBoundsException Thrown when row is out of range.
+	 */
+	private void _checkRow(int row) throws IndexOutOfBoundsException {
+		if( row < 0 || row >= rowCount ) {
+			throw new IndexOutOfBoundsException("Row " + row + " is out of range for " + rowCount + " rows");
+		}
+	}
+}
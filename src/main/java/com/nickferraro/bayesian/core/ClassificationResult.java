@@ -0,0 +1,309 @@
+package com.nickferraro.bayesian.core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.model.CategoryIndex;
+
+/**
+ * A reusable holder for the classification of one sentence. Probabilities are kept in a double array parallel to the model's
+ * {@link CategoryIndex}, and are only ranked from greatest to least when a ranked value is read. The arrays grow to the largest category
+ * count seen and are then reused, so classifying into the same holder again does not allocate.
+ * <p>
+ * {@link #argmax()}, {@link #probabilityOf(Object)} and {@link #topK(int, int[])} read the primitives directly. {@link #topK(int)} returns
+ * {@link IClassification} views that read this holder when they are called, so they change when the holder is reused. Use
+ * {@link #toList(int)} for a copy that outlives the holder.
+ * </p>
+ * See {@link BayesianSystem#classifyRow(com.nickferraro.bayesian.ISentenceInput, ClassificationResult)}.
+ * This class is not thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ClassificationResult<T> {
+	private CategoryIndex<T> categories = CategoryIndex.empty();
+	private int categoryCount = 0;
+	private double[] probabilities;
+	private int[] ranking;
+	private int[] rankingBuffer;
+	private boolean ranked = true;
+	
+	/**
+	 * Create an empty result.
+	 */
+	public ClassificationResult() {
+		this(0);
+	}
+	
+	/**
+	 * Create an empty result with room for a number of categories.
+	 * @param capacity The number of categories to make room for.
+	 */
+	public ClassificationResult(int capacity) {
+		capacity = Math.max(0, capacity);
+		probabilities = new double[capacity];
+		ranking = new int[capacity];
+		rankingBuffer = new int[capacity];
+	}
+	
+	/**
+	 * Get the categories this result holds probabilities for.
+	 * @return The category index of the classified model. Empty if nothing was classified.
+	 */
+	public CategoryIndex<T> getCategories() {
+		return categories;
+	}
+	
+	/**
+	 * Get the number of categories this result holds probabilities for.
+	 * @return The category count.
+	 */
+	public int getCategoryCount() {
+		return categoryCount;
+	}
+	
+	/**
+	 * Get the probability of the category at an index of {@link #getCategories()}.
+	 * @param index The category index.
+	 * @return The probability of the category.
+	 * @throws IndexOutOfBoundsException Thrown when index is not less than the category count.
+	 */
+	public double getProbability(int index) throws IndexOutOfBoundsException {
+		_checkIndex(index);
+		return probabilities[index];
+	}
+	
+	/**
+	 * Get the probability of a category.
+	 * @param category The category to look up.
+	 * @return The probability of the category, or 0 if it is not one of {@link #getCategories()}.
+	 */
+	public double probabilityOf(Object category) {
+		int index = categories.indexOf(category);
+		return ( index < 0 || index >= categoryCount ? 0 : probabilities[index] );
+	}
+	
+	/**
+	 * Get the index of the most probable category without ranking the rest. Equal probabilities resolve to the lowest index.
+	 * @return The index of the most probable category in {@link #getCategories()}, or -1 if this result is empty.
+	 */
+	public int argmax() {
+		if( ranked ) {
+			return ( categoryCount == 0 ? -1 : ranking[0] );
+		}
+		
+		return argmax(probabilities, 0, categoryCount);
+	}
+	
+	/**
+	 * Copy the category indices of the k most probable categories, from greatest to least probability.
+	 * @param k The number of categories to copy.
+	 * @param indices The array to copy the indices into. Must hold at least the smaller of k and the category count.
+	 * @return The number of indices copied.
+	 * @throws IndexOutOfBoundsException Thrown when indices is too short.
+	 */
+	public int topK(int k, int[] indices) throws IndexOutOfBoundsException {
+		int count = Math.max(0, Math.min(k, categoryCount));
+		if( count > indices.length ) {
+			throw new IndexOutOfBoundsException("Cannot copy " + count + " indices into an array of " + indices.length);
+		}
+		
+		_rank();
+		System.arraycopy(ranking, 0, indices, 0, count);
+		return count;
+	}
+	
+	/**
+	 * Get a view of the k most probable categories, from greatest to least probability. The list and its classifications are created
+	 * lazily and read this holder when called, so they change when the holder is reused or cleared.
+	 * @param k The number of categories to view. 0 or less views every category.
+	 * @return A read-only list of ranked classification views. Will never be NULL.
+	 */
+	public List<IClassification<T>> topK(int k) {
+		final int count = ( k > 0 ? Math.min(k, categoryCount) : categoryCount );
+		return new AbstractList<IClassification<T>>() {
+			@Override
+			public IClassification<T> get(int rank) {
+				if( rank < 0 || rank >= count ) {
+					throw new IndexOutOfBoundsException("Rank " + rank + " is out of range for " + count + " classifications");
+				}
+				
+				return new RankedClassification(rank);
+			}
+			
+			@Override
+			public int size() {
+				return Math.min(count, categoryCount);
+			}
+		};
+	}
+	
+	/**
+	 * Get the category index at a rank, where rank 0 is the most probable category. Categories with equal probabilities keep index order.
+	 * @param rank The rank.
+	 * @return The index of the category in {@link #getCategories()}.
+	 * @throws IndexOutOfBoundsException Thrown when rank is not less than the category count.
+	 */
+	public int getRankedIndex(int rank) throws IndexOutOfBoundsException {
+		_checkIndex(rank);
+		_rank();
+		return ranking[rank];
+	}
+	
+	/**
+	 * Get the category at a rank, where rank 0 is the most probable category.
+	 * @param rank The rank.
+	 * @return The category.
+	 * @throws IndexOutOfBoundsException Thrown when rank is not less than the category count.
+	 */
+	public T getRankedCategory(int rank) throws IndexOutOfBoundsException {
+		return categories.get(getRankedIndex(rank));
+	}
+	
+	/**
+	 * Get the probability at a rank, where rank 0 is the most probable category.
+	 * @param rank The rank.
+	 * @return The probability.
+	 * @throws IndexOutOfBoundsException Thrown when rank is not less than the category count.
+	 */
+	public double getRankedProbability(int rank) throws IndexOutOfBoundsException {
+		return probabilities[getRankedIndex(rank)];
+	}
+	
+	/**
+	 * Copy the ranked categories into a list of classifications. This allocates the list and one classification per category.
+	 * @param maxResults The max results to return in the list. 0 or less returns every category.
+	 * @return A list of ordered classifications from greatest to least probability. Will never be NULL.
+	 */
+	public List<IClassification<T>> toList(int maxResults) {
+		int resultCount = ( maxResults > 0 ? Math.min(maxResults, categoryCount) : categoryCount );
+		List<IClassification<T>> classifications = new ArrayList<IClassification<T>>(resultCount);
+		for(int rank = 0; rank < resultCount; ++rank) {
+			int index = getRankedIndex(rank);
+			classifications.add(new Classification<T>(categories.get(index), probabilities[index]));
+		}
+		
+		return classifications;
+	}
+	
+	/**
+	 * Remove every category from this result. The arrays are kept for reuse.
+	 */
+	public void clear() {
+		categories = CategoryIndex.empty();
+		categoryCount = 0;
+		ranked = true;
+	}
+	
+	/**
+	 * Prepare this result to hold the probabilities of a set of categories. The probabilities are left to the caller to fill in.
+	 * @param categories The categories to hold probabilities for.
+	 * @return The probability array, indexed like categories. It may be longer than the category count.
+	 */
+	double[] reset(CategoryIndex<T> categories) {
+		int count = categories.size();
+		if( probabilities.length < count ) {
+			int capacity = Math.max(count, probabilities.length * 2);
+			probabilities = new double[capacity];
+			ranking = new int[capacity];
+			rankingBuffer = new int[capacity];
+		}
+		
+		this.categories = categories;
+		this.categoryCount = count;
+		this.ranked = false;
+		return probabilities;
+	}
+	
+	/**
+	 * Rank the categories by probability if they are not ranked yet. A bottom-up merge sort over the index arrays keeps equal
+	 * probabilities in index order without allocating.
+	 */
+	private void _rank() {
+		if( ranked ) {
+			return;
+		}
+		
+		int[] from = ranking;
+		int[] to = rankingBuffer;
+		for(int i = 0; i < categoryCount; ++i) {
+			from[i] = i;
+		}
+		for(int width = 1; width < categoryCount; width <<= 1) {
+			for(int low = 0; low < categoryCount; low += width << 1) {
+				int middle = Math.min(low + width, categoryCount);
+				int high = Math.min(low + (width << 1), categoryCount);
+				int left = low;
+				int right = middle;
+				for(int i = low; i < high; ++i) {
+					if( right >= high || (left < middle && Double.compare(probabilities[from[left]], probabilities[from[right]]) >= 0) ) {
+						to[i] = from[left++];
+					} else {
+						to[i] = from[right++];
+					}
+				}
+			}
+			
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		
+		// Keep the sorted array as the ranking
+		ranking = from;
+		rankingBuffer = to;
+		ranked = true;
+	}
+	
+	/**
+	 * Find the index of the greatest value in a range of probabilities. Equal values resolve to the lowest index.
+	 * @param probabilities The probabilities to search.
+	 * @param offset The first position of the range.
+	 * @param count The length of the range.
+	 * @return The index of the greatest value relative to offset, or -1 if count is 0.
+	 */
+	static int argmax(double[] probabilities, int offset, int count) {
+		int best = -1;
+		for(int i = 0; i < count; ++i) {
+			if( best < 0 || Double.compare(probabilities[offset + i], probabilities[offset + best]) > 0 ) {
+				best = i;
+			}
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Check that an index or rank is within the category count.
+	 * @param index The index to check.
+	 * @throws IndexOutOfBoundsException Thrown when index is out of range.
+	 */
+	private void _checkIndex(int index) throws IndexOutOfBoundsException {
+		if( index < 0 || index >= categoryCount ) {
+			throw new IndexOutOfBoundsException("Index " + index + " is out of range for " + categoryCount + " categories");
+		}
+	}
+	
+	/**
+	 * A classification view of one rank of the holder.
+	 */
+	private final class RankedClassification implements IClassification<T> {
+		private final int rank;
+		
+		private RankedClassification(int rank) {
+			this.rank = rank;
+		}
+		
+		@Override
+		public T getCategory() {
+			return getRankedCategory(rank);
+		}
+		
+		@Override
+		public double getProbability() {
+			return getRankedProbability(rank);
+		}
+	}
+}
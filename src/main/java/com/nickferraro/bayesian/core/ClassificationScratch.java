@@ -0,0 +1,131 @@
+package com.nickferraro.bayesian.core;
+
+/**
+ * Per-thread working arrays for classification. The arrays grow to the largest size seen and are then reused, so classifying does
+ * not allocate in steady state. Term frequencies are counted in an open-addressing table of words kept in first seen order.
+ * This class is not thread-safe, each thread holds its own instance.
+ * @author Nick Ferraro
+ */
+final class ClassificationScratch {
+	double[] column = new double[0];
+	int[] categoryRows = new int[0];
+	double[] smoothingDenominators = new double[0];
+	
+	// Distinct words in first seen order with their frequencies, and the table slot each word sits in
+	String[] terms = new String[16];
+	int[] termFrequencies = new int[16];
+	int termCount = 0;
+	
+	// Terms the model's vocabulary filter ruled out while scoring, reported to the listener
+	int skippedTerms = 0;
+	private int[] termSlotOf = new int[16];
+	
+	// Table slots holding a term index + 1, 0 marks an empty slot. The table is kept at most half full.
+	private int[] termSlots = new int[32];
+	
+	/**
+	 * Make room for a number of categories.
+	 * @param count The category count.
+	 */
+	void ensureCategories(int count) {
+		if( column.length < count ) {
+			int capacity = Math.max(count, column.length * 2);
+			column = new double[capacity];
+			categoryRows = new int[capacity];
+			smoothingDenominators = new double[capacity];
+		}
+	}
+	
+	/**
+	 * Remove every counted term. Only the slots in use are cleared.
+	 */
+	void clearTerms() {
+		for(int i = 0; i < termCount; ++i) {
+			termSlots[termSlotOf[i]] = 0;
+			terms[i] = null;
+		}
+		termCount = 0;
+		skippedTerms = 0;
+	}
+	
+	/**
+	 * Check if a word has been counted since the terms were last cleared.
+	 * @param word The word to look up. Cannot be NULL.
+	 * @return TRUE if the word is in the term table, FALSE otherwise.
+	 */
+	boolean containsTerm(String word) {
+		int mask = termSlots.length - 1;
+		int slot = _spread(word.hashCode()) & mask;
+		while( termSlots[slot] != 0 ) {
+			if( terms[termSlots[slot] - 1].equals(word) ) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Count one occurrence of a word.
+	 * @param word The word to count. Cannot be NULL.
+	 */
+	void addTerm(String word) {
+		int mask = termSlots.length - 1;
+		int slot = _spread(word.hashCode()) & mask;
+		while( termSlots[slot] != 0 ) {
+			int index = termSlots[slot] - 1;
+			if( terms[index].equals(word) ) {
+				++termFrequencies[index];
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		if( termCount == terms.length ) {
+			_growTerms();
+			addTerm(word);
+			return;
+		}
+		
+		terms[termCount] = word;
+		termFrequencies[termCount] = 1;
+		termSlotOf[termCount] = slot;
+		termSlots[slot] = ++termCount;
+	}
+	
+	/**
+	 * Double the term arrays and rebuild the table at twice their size.
+	 */
+	private void _growTerms() {
+		int capacity = terms.length * 2;
+		String[] grownTerms = new String[capacity];
+		int[] grownFrequencies = new int[capacity];
+		System.arraycopy(terms, 0, grownTerms, 0, termCount);
+		System.arraycopy(termFrequencies, 0, grownFrequencies, 0, termCount);
+		terms = grownTerms;
+		termFrequencies = grownFrequencies;
+		termSlotOf = new int[capacity];
+		termSlots = new int[capacity * 2];
+		
+		int mask = termSlots.length - 1;
+		for(int i = 0; i < termCount; ++i) {
+			int slot = _spread(terms[i].hashCode()) & mask;
+			while( termSlots[slot] != 0 ) {
+				slot = (slot + 1) & mask;
+			}
+			termSlots[slot] = i + 1;
+			termSlotOf[i] = slot;
+		}
+	}
+	
+	/**
+	 * Mix the high bits of a hash code into the low bits used to pick a slot.
+	 * @param hash The hash code.
+	 * @return The spread hash.
+	 */
+	private static int _spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
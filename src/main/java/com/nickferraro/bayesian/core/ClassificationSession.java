@@ -0,0 +1,347 @@
+package com.nickferraro.bayesian.core;
+
+import java.io.Closeable;
+import java.security.InvalidParameterException;
+import java.util.HashMap;
+import java.util.List;
+
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.model.CategoryIndex;
+import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.ILinkVisitor;
+import com.nickferraro.bayesian.model.IWordMembership;
+import com.nickferraro.bayesian.model.ModelMode;
+
+/**
+ * A classification that is updated one word at a time, for input that changes a little between classifications such as text being typed.
+ * The session keeps a running log score per category. Adding or removing a word only visits the categories linked to that word, so
+ * each update costs the same no matter how many words the session holds. Reading the classification costs one pass over the categories.
+ * <p>
+ * A session is opened with {@link BayesianSystem#openSession()} and classifies against the model that was published at that time. The
+ * category counts are read when the session opens and the links of a word are read when it is first added, so training after that is
+ * not reflected until a new session is opened. The session holds its model epoch until it is closed, so a replaced model is not retired
+ * while sessions on it are open.
+ * </p>
+ * Words go through the system's word filter like in any other classification. The results match
+ * {@link BayesianSystem#classifyRow(com.nickferraro.bayesian.ISentenceInput)} for the same words, up to rounding.
+ * This class is not thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ClassificationSession<T> implements Closeable {
+	private final BayesianSystem<T> system;
+	private final ModelEpoch<T> epoch;
+	private final IBayesianModel<T> model;
+	private final boolean multinomial;
+	private final CategoryIndex<T> categories;
+	private final int totalRows;
+	private final int[] categoryRows;
+	private final double[] logPriors;
+	private final double[] logSmoothingDenominators;
+	
+	// The running sum of link scores of every word added, by category index
+	private final double[] linkScores;
+	private final HashMap<String, SessionWord> words = new HashMap<String, SessionWord>();
+	private int wordCount = 0;
+	private final ClassificationResult<T> result = new ClassificationResult<T>();
+	private final LinkCollector linkCollector = new LinkCollector();
+	private boolean closed = false;
+	
+	/**
+	 * Open a session on an epoch the caller has entered. The session exits the epoch when it is closed.
+	 * @param system The system whose word filter is applied.
+	 * @param epoch The entered epoch to classify against.
+	 */
+	ClassificationSession(BayesianSystem<T> system, ModelEpoch<T> epoch) {
+		this.system = system;
+		this.epoch = epoch;
+		this.model = epoch.getBayesianModel();
+		this.multinomial = ( model.getMode() == ModelMode.MULTINOMIAL );
+		this.categories = CategoryIndex.copyOf(model.getUniqueCategories());
+		this.totalRows = model.getTotalRows();
+		
+		int categoryCount = categories.size();
+		this.categoryRows = new int[categoryCount];
+		this.logPriors = new double[categoryCount];
+		this.logSmoothingDenominators = new double[categoryCount];
+		this.linkScores = new double[categoryCount];
+		int vocabularySize = ( multinomial ? Math.max(1, model.getUniqueWords().size()) : 0 );
+		for(int i = 0; i < categoryCount; ++i) {
+			T category = categories.get(i);
+			categoryRows[i] = model.countRowsWithCategory(category);
+			logPriors[i] = Math.log((double)categoryRows[i] / (double)Math.max(1, totalRows));
+			if( multinomial ) {
+				logSmoothingDenominators[i] = Math.log(model.countTokensWithCategory(category) + vocabularySize);
+			}
+		}
+	}
+	
+	/**
+	 * Add a word to the session. In {@link ModelMode#BERNOULLI} mode a word counts once no matter how often it is added, in
+	 * {@link ModelMode#MULTINOMIAL} mode every occurrence counts.
+	 * @param word The word to add. Cannot be NULL.
+	 * @return TRUE if the word passed the word filter and was added, FALSE if it was filtered out.
+	 * @throws InvalidParameterException Thrown when word is NULL.
+	 * @throws IllegalStateException Thrown when the session is closed.
+	 */
+	public boolean addWord(String word) throws InvalidParameterException, IllegalStateException {
+		String filtered = _filter(word);
+		if( filtered == null ) {
+			return false;
+		}
+		
+		SessionWord sessionWord = words.get(filtered);
+		if( sessionWord == null ) {
+			sessionWord = _link(filtered);
+			words.put(filtered, sessionWord);
+		}
+		
+		// Bernoulli scores a word on its first occurrence only
+		if( multinomial || sessionWord.occurrences == 0 ) {
+			_apply(sessionWord, 1);
+		}
+		++sessionWord.occurrences;
+		++wordCount;
+		
+		return true;
+	}
+	
+	/**
+	 * Remove one occurrence of a word from the session.
+	 * @param word The word to remove. Cannot be NULL.
+	 * @return TRUE if an occurrence of the word was removed, FALSE if the session did not hold the word.
+	 * @throws InvalidParameterException Thrown when word is NULL.
+	 * @throws IllegalStateException Thrown when the session is closed.
+	 */
+	public boolean removeWord(String word) throws InvalidParameterException, IllegalStateException {
+		String filtered = _filter(word);
+		SessionWord sessionWord = ( filtered == null ? null : words.get(filtered) );
+		if( sessionWord == null ) {
+			return false;
+		}
+		
+		--sessionWord.occurrences;
+		--wordCount;
+		if( multinomial || sessionWord.occurrences == 0 ) {
+			_apply(sessionWord, -1);
+		}
+		if( sessionWord.occurrences == 0 ) {
+			words.remove(filtered);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Remove every word from the session.
+	 * @throws IllegalStateException Thrown when the session is closed.
+	 */
+	public void clear() throws IllegalStateException {
+		_checkOpen();
+		words.clear();
+		wordCount = 0;
+		for(int i = 0; i < linkScores.length; ++i) {
+			linkScores[i] = 0;
+		}
+	}
+	
+	/**
+	 * Get the number of word occurrences the session holds.
+	 * @return The word count.
+	 */
+	public int getWordCount() {
+		return wordCount;
+	}
+	
+	/**
+	 * Get the classification of the words the session holds.
+	 * @param maxResults The max results to return in the list. 0 or less returns every category.
+	 * @return A list of ordered classifications from greatest to least probability. Will never be NULL.
+	 * @throws IllegalStateException Thrown when the session is closed.
+	 */
+	public List<IClassification<T>> current(int maxResults) throws IllegalStateException {
+		return current(result).toList(maxResults);
+	}
+	
+	/**
+	 * Write the classification of the words the session holds into a result holder.
+	 * @param result The holder to write the classification into. Cannot be NULL.
+	 * @return The result holder.
+	 * @throws InvalidParameterException Thrown when result is NULL.
+	 * @throws IllegalStateException Thrown when the session is closed.
+	 */
+	public ClassificationResult<T> current(ClassificationResult<T> result) throws InvalidParameterException, IllegalStateException {
+		if( result == null ) {
+			throw new InvalidParameterException("Cannot write a classification into a NULL result");
+		}
+		_checkOpen();
+		
+		double[] scores = result.reset(categories);
+		int categoryCount = categories.size();
+		if( categoryCount == 0 ) {
+			return result;
+		}
+		
+		// If the model has 0 training rows, evenly distribute probability over categories
+		if( totalRows == 0 ) {
+			for(int i = 0; i < categoryCount; ++i) {
+				scores[i] = 1.0d / categoryCount;
+			}
+			return result;
+		}
+		
+		// Add the link scores to the priors. Words without a link to a category score the same for every category in bernoulli mode,
+		// so only multinomial mode adds their share, which depends on the category's smoothing.
+		double maxScore = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i < categoryCount; ++i) {
+			scores[i] = logPriors[i] + linkScores[i] - ( multinomial ? wordCount * logSmoothingDenominators[i] : 0 );
+			maxScore = Math.max(maxScore, scores[i]);
+		}
+		
+		// Without any bernoulli words, or when every category is impossible, use the probability of category only
+		if( (!multinomial && words.isEmpty()) || maxScore == Double.NEGATIVE_INFINITY ) {
+			for(int i = 0; i < categoryCount; ++i) {
+				scores[i] = (double)categoryRows[i] / (double)totalRows;
+			}
+			return result;
+		}
+		
+		// Normalize the log scores into probabilities relative to the best score
+		double sumOfCategoryProbabilities = 0.0d;
+		for(int i = 0; i < categoryCount; ++i) {
+			scores[i] = Math.exp(scores[i] - maxScore);
+			sumOfCategoryProbabilities += scores[i];
+		}
+		for(int i = 0; i < categoryCount; ++i) {
+			scores[i] /= sumOfCategoryProbabilities;
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Check if the model this session classifies against has been replaced in the system. A stale session keeps working on its model,
+	 * open a new session to classify against the current one.
+	 * @return TRUE if the system has published a newer model, FALSE otherwise.
+	 */
+	public boolean isStale() {
+		return epoch.isReplaced();
+	}
+	
+	/**
+	 * Close the session and leave its model epoch. Closing again does nothing.
+	 */
+	@Override
+	public void close() {
+		if( !closed ) {
+			closed = true;
+			words.clear();
+			epoch.exit();
+		}
+	}
+	
+	/**
+	 * Run a word through the system's word filter.
+	 * @param word The word to filter.
+	 * @return The word to score, or NULL if it was filtered out.
+	 * @throws InvalidParameterException Thrown when word is NULL.
+	 * @throws IllegalStateException Thrown when the session is closed.
+	 */
+	private String _filter(String word) throws InvalidParameterException, IllegalStateException {
+		if( word == null ) {
+			throw new InvalidParameterException("Cannot add or remove a NULL word");
+		}
+		_checkOpen();
+		
+		return system.filterWord(word);
+	}
+	
+	/**
+	 * Read the links of a word from the model and turn them into link scores.
+	 * In bernoulli mode a linked category scores the log of its word probability over the probability of an unlinked word.
+	 * In multinomial mode it scores the log of its smoothed word count, the smoothing denominator is accounted for per occurrence.
+	 * @param word The filtered word.
+	 * @return The session word, with no occurrences yet.
+	 */
+	private SessionWord _link(String word) {
+		// A word the model certainly does not hold has no links to visit
+		linkCollector.count = 0;
+		if( !(model instanceof IWordMembership) || ((IWordMembership)model).mightContainWord(word) ) {
+			model.visitWordLinks(word, linkCollector);
+		}
+		
+		SessionWord sessionWord = new SessionWord(linkCollector.count);
+		for(int link = 0; link < linkCollector.count; ++link) {
+			int index = linkCollector.indices[link];
+			int weight = linkCollector.weights[link];
+			sessionWord.indices[link] = index;
+			sessionWord.scores[link] = ( multinomial ? Math.log(weight + 1.0d) : Math.log((double)weight * totalRows / categoryRows[index]) );
+		}
+		
+		return sessionWord;
+	}
+	
+	/**
+	 * Add or subtract the link scores of a word.
+	 * @param sessionWord The word to apply.
+	 * @param sign 1 to add, -1 to subtract.
+	 */
+	private void _apply(SessionWord sessionWord, int sign) {
+		for(int link = 0; link < sessionWord.indices.length; ++link) {
+			linkScores[sessionWord.indices[link]] += sign * sessionWord.scores[link];
+		}
+	}
+	
+	/**
+	 * Check that the session is open.
+	 * @throws IllegalStateException Thrown when the session is closed.
+	 */
+	private void _checkOpen() throws IllegalStateException {
+		if( closed ) {
+			throw new IllegalStateException("The classification session is closed");
+		}
+	}
+	
+	/**
+	 * A word held by the session, with its occurrences and the link scores it contributes.
+	 */
+	private static final class SessionWord {
+		private final int[] indices;
+		private final double[] scores;
+		private int occurrences = 0;
+		
+		private SessionWord(int links) {
+			this.indices = new int[links];
+			this.scores = new double[links];
+		}
+	}
+	
+	/**
+	 * Collects the links of a word by category index. Links to categories the session does not know, or that have no rows, are skipped.
+	 */
+	private final class LinkCollector implements ILinkVisitor<T> {
+		private int[] indices = new int[8];
+		private int[] weights = new int[8];
+		private int count = 0;
+		
+		@Override
+		public void visitLink(T category, int weight) {
+			int index = categories.indexOf(category);
+			if( index < 0 || weight <= 0 || categoryRows[index] == 0 ) {
+				return;
+			}
+			
+			if( count == indices.length ) {
+				int[] grownIndices = new int[count * 2];
+				int[] grownWeights = new int[count * 2];
+				System.arraycopy(indices, 0, grownIndices, 0, count);
+				System.arraycopy(weights, 0, grownWeights, 0, count);
+				indices = grownIndices;
+				weights = grownWeights;
+			}
+			indices[count] = index;
+			weights[count++] = weight;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.nickferraro.bayesian.core;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.nickferraro.bayesian.model.IBayesianModel;
+
+/**
+ * One published version of a bayesian system's model. Every classification or training call registers with the epoch it started on
+ * and leaves it when done, so a replaced model can be released once the last call that saw it has finished.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ModelEpoch<T> {
+	private final IBayesianModel<T> bayesianModel;
+	private final long version;
+	private final AtomicInteger activeReaders = new AtomicInteger();
+	private final CountDownLatch retiredLatch = new CountDownLatch(1);
+	private volatile boolean replaced = false;
+	
+	/**
+	 * Create an epoch for a model.
+	 * @param bayesianModel The model published by this epoch.
+	 * @param version The version of the system's model this epoch publishes.
+	 */
+	ModelEpoch(IBayesianModel<T> bayesianModel, long version) {
+		this.bayesianModel = bayesianModel;
+		this.version = version;
+	}
+	
+	/**
+	 * Get the model published by this epoch.
+	 * @return The bayesian model.
+	 */
+	public IBayesianModel<T> getBayesianModel() {
+		return bayesianModel;
+	}
+	
+	/**
+	 * Get the version of this epoch. Each model swap publishes the next version.
+	 * @return The version.
+	 */
+	public long getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Get the number of calls currently using this epoch's model.
+	 * @return The active reader count.
+	 */
+	public int getActiveReaders() {
+		return activeReaders.get();
+	}
+	
+	/**
+	 * Check if this epoch was replaced by a newer model.
+	 * @return True once a newer model has been published.
+	 */
+	public boolean isReplaced() {
+		return replaced;
+	}
+	
+	/**
+	 * Check if this epoch was replaced and no call is using its model anymore.
+	 * @return True if the model can be released.
+	 */
+	public boolean isRetired() {
+		return retiredLatch.getCount() == 0;
+	}
+	
+	/**
+	 * Wait until this epoch is retired.
+	 * @param timeout The most time to wait.
+	 * @param unit The unit of timeout.
+	 * @return True if the epoch retired, false if the timeout elapsed first.
+	 * @throws InterruptedException Thrown when interrupted while waiting.
+	 */
+	public boolean awaitRetirement(long timeout, TimeUnit unit) throws InterruptedException {
+		return retiredLatch.await(timeout, unit);
+	}
+	
+	/**
+	 * Register a call with this epoch.
+	 */
+	void enter() {
+		activeReaders.incrementAndGet();
+	}
+	
+	/**
+	 * Unregister a call from this epoch, retiring it if it was replaced and this was the last call.
+	 */
+	void exit() {
+		if( activeReaders.decrementAndGet() == 0 && replaced ) {
+			retiredLatch.countDown();
+		}
+	}
+	
+	/**
+	 * Mark this epoch as replaced, retiring it right away if no call is using it.
+	 */
+	void replace() {
+		replaced = true;
+		if( activeReaders.get() == 0 ) {
+			retiredLatch.countDown();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.nickferraro.bayesian.core;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.nickferraro.bayesian.ISentenceInput;
+
+/**
+ * A sentence input built from raw text. Words are runs of letters and digits, lower cased with the english locale.
+ * The words are split once when the input is created and the returned collections are unmodifiable.
+ * @author Nick Ferraro
+ */
+public class SentenceInput implements ISentenceInput {
+	private final String sentence;
+	private final List<String> sentenceWords;
+	private final Set<String> uniqueSentenceWords;
+	
+	/**
+	 * Create a sentence input from raw text.
+	 * @param sentence The text of the sentence. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when sentence is NULL.
+	 */
+	public SentenceInput(String sentence) throws InvalidParameterException {
+		if( sentence == null ) {
+			throw new InvalidParameterException("Cannot create a SentenceInput with a NULL sentence");
+		}
+		
+		this.sentence = sentence;
+		
+		List<String> words = tokenize(sentence);
+		this.sentenceWords = Collections.unmodifiableList(words);
+		this.uniqueSentenceWords = Collections.unmodifiableSet(new LinkedHashSet<String>(words));
+	}
+	
+	/**
+	 * Split text into lower cased runs of letters and digits.
+	 * @param text The text to split. NULL returns an empty list.
+	 * @return The words in the order they appear, including repeats. Will never be NULL.
+	 */
+	public static List<String> tokenize(String text) {
+		List<String> words = new ArrayList<String>();
+		if( text == null ) {
+			return words;
+		}
+		
+		int start = -1;
+		for(int i = 0; i <= text.length(); ++i) {
+			boolean wordChar = ( i < text.length() && Character.isLetterOrDigit(text.charAt(i)) );
+			if( wordChar && start < 0 ) {
+				start = i;
+			} else if( !wordChar && start >= 0 ) {
+				words.add(text.substring(start, i).toLowerCase(Locale.ENGLISH));
+				start = -1;
+			}
+		}
+		
+		return words;
+	}
+	
+	@Override
+	public String getSentence() {
+		return sentence;
+	}
+	
+	@Override
+	public List<String> getSentenceWords() {
+		return sentenceWords;
+	}
+	
+	@Override
+	public Set<String> getUniqueSentenceWords() {
+		return uniqueSentenceWords;
+	}
+}
@@ -0,0 +1,82 @@
+package com.nickferraro.bayesian.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.security.InvalidParameterException;
+import java.util.Locale;
+
+/**
+ * Reads words from a character stream one at a time, with the same rules as {@link SentenceInput#tokenize(String)}: words are runs of
+ * letters and digits, lower cased with the english locale. Only a fixed character buffer and the current word are held, so long
+ * documents can be read without building the whole text. The reader is not closed by this class.
+ * This class is not thread-safe.
+ * @author Nick Ferraro
+ */
+public class WordReader {
+	private static final int BUFFER_SIZE = 8192;
+	
+	private final Reader reader;
+	private final char[] buffer = new char[BUFFER_SIZE];
+	private final StringBuilder word = new StringBuilder();
+	private int position = 0;
+	private int limit = 0;
+	private boolean ended = false;
+	
+	/**
+	 * Create a word reader over a character stream.
+	 * @param reader The stream to read words from. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when reader is NULL.
+	 */
+	public WordReader(Reader reader) throws InvalidParameterException {
+		if( reader == null ) {
+			throw new InvalidParameterException("Cannot read words from a NULL reader");
+		}
+		
+		this.reader = reader;
+	}
+	
+	/**
+	 * Read the next word of the stream.
+	 * @return The next word, or NULL when the stream has ended.
+	 * @throws IOException Thrown when the stream cannot be read.
+	 */
+	public String nextWord() throws IOException {
+		word.setLength(0);
+		while( _fill() ) {
+			while( position < limit ) {
+				char c = buffer[position++];
+				if( Character.isLetterOrDigit(c) ) {
+					word.append(c);
+				} else if( word.length() > 0 ) {
+					return word.toString().toLowerCase(Locale.ENGLISH);
+				}
+			}
+		}
+		
+		// The stream ended, return the word it ended in
+		return ( word.length() > 0 ? word.toString().toLowerCase(Locale.ENGLISH) : null );
+	}
+	
+	/**
+	 * Make sure the buffer has characters left to read, reading more from the stream when it is empty.
+	 * @return TRUE if characters are left to read, FALSE if the stream has ended.
+	 * @throws IOException Thrown when the stream cannot be read.
+	 */
+	private boolean _fill() throws IOException {
+		while( position >= limit ) {
+			if( ended ) {
+				return false;
+			}
+			
+			int read = reader.read(buffer, 0, buffer.length);
+			if( read < 0 ) {
+				ended = true;
+				return false;
+			}
+			position = 0;
+			limit = read;
+		}
+		
+		return true;
+	}
+}
@@ -0,0 +1,69 @@
+package com.nickferraro.bayesian.core.filter;
+
+import java.security.InvalidParameterException;
+import java.util.BitSet;
+import java.util.Collection;
+
+import com.nickferraro.bayesian.model.vocabulary.ArenaVocabulary;
+
+/**
+ * A word filter evaluated ahead of time over a known vocabulary, usually the words of a model.
+ * Each vocabulary word gets an id, and two bitsets over the ids record which words were evaluated and which were kept unchanged.
+ * Filtering a known word is then a vocabulary lookup and a bit test. Words outside the vocabulary, and words the filter rewrites,
+ * fall back to the wrapped filter.
+ * @author Nick Ferraro
+ */
+public class CompiledWordFilter implements IWordFilter {
+	private final IWordFilter wordFilter;
+	private final ArenaVocabulary vocabulary = new ArenaVocabulary();
+	private final BitSet evaluated = new BitSet();
+	private final BitSet kept = new BitSet();
+	
+	/**
+	 * Compile a filter over a vocabulary. The filter is run once for every word.
+	 * @param wordFilter The filter to compile. Cannot be NULL.
+	 * @param words The vocabulary to compile the filter for. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 */
+	public CompiledWordFilter(IWordFilter wordFilter, Collection<String> words) throws InvalidParameterException {
+		if( wordFilter == null || words == null ) {
+			throw new InvalidParameterException("Cannot compile a word filter with NULL values");
+		}
+		
+		this.wordFilter = wordFilter;
+		for(String word : words) {
+			if( word == null ) {
+				continue;
+			}
+			
+			String filtered = wordFilter.filter(word);
+			if( filtered == null || filtered.equals(word) ) {
+				int id = vocabulary.add(word);
+				evaluated.set(id);
+				kept.set(id, filtered != null);
+			}
+		}
+	}
+	
+	/**
+	 * Get the number of words answered from the bitsets.
+	 * @return The compiled word count.
+	 */
+	public int getCompiledWordCount() {
+		return evaluated.cardinality();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The vocabulary is never changed after compiling, so lookups are safe from any thread.
+	 */
+	@Override
+	public String filter(String word) {
+		int id = vocabulary.getId(word);
+		if( id >= 0 && evaluated.get(id) ) {
+			return ( kept.get(id) ? word : null );
+		}
+		
+		return wordFilter.filter(word);
+	}
+}
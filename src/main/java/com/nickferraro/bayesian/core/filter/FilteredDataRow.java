@@ -0,0 +1,107 @@
+package com.nickferraro.bayesian.core.filter;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.nickferraro.bayesian.IDataRow;
+
+/**
+ * A data row whose words have been run through a word filter. The words are filtered once, when the row is created.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class FilteredDataRow<T> implements IDataRow<T> {
+	private final IDataRow<T> dataRow;
+	private final List<String> sentenceWords;
+	private final Set<String> uniqueSentenceWords;
+	
+	/**
+	 * Filter the words of a data row.
+	 * @param dataRow The row to filter. Cannot be NULL.
+	 * @param wordFilter The filter to run the words through. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 */
+	public FilteredDataRow(IDataRow<T> dataRow, IWordFilter wordFilter) throws InvalidParameterException {
+		if( dataRow == null || wordFilter == null ) {
+			throw new InvalidParameterException("Cannot create a FilteredDataRow with NULL values");
+		}
+		
+		this.dataRow = dataRow;
+		this.sentenceWords = filterWords(dataRow.getSentenceWords(), wordFilter);
+		this.uniqueSentenceWords = filterUniqueWords(dataRow.getUniqueSentenceWords(), wordFilter);
+	}
+	
+	/**
+	 * Run a list of words through a filter.
+	 * @param words The words to filter. NULL stays NULL.
+	 * @param wordFilter The filter to use.
+	 * @return An unmodifiable list of the kept words in order, including repeats.
+	 */
+	public static List<String> filterWords(List<String> words, IWordFilter wordFilter) {
+		if( words == null ) {
+			return null;
+		}
+		
+		List<String> filteredWords = new ArrayList<String>(words.size());
+		for(String word : words) {
+			String filtered = ( word == null ? null : wordFilter.filter(word) );
+			if( filtered != null ) {
+				filteredWords.add(filtered);
+			}
+		}
+		
+		return Collections.unmodifiableList(filteredWords);
+	}
+	
+	/**
+	 * Run a set of words through a filter. Words that normalize to the same word are kept once.
+	 * @param words The words to filter. NULL stays NULL.
+	 * @param wordFilter The filter to use.
+	 * @return An unmodifiable set of the kept words.
+	 */
+	public static Set<String> filterUniqueWords(Set<String> words, IWordFilter wordFilter) {
+		if( words == null ) {
+			return null;
+		}
+		
+		Set<String> filteredWords = new LinkedHashSet<String>(words.size() * 2);
+		for(String word : words) {
+			String filtered = ( word == null ? null : wordFilter.filter(word) );
+			if( filtered != null ) {
+				filteredWords.add(filtered);
+			}
+		}
+		
+		return Collections.unmodifiableSet(filteredWords);
+	}
+	
+	@Override
+	public String getSentence() {
+		return dataRow.getSentence();
+	}
+	
+	@Override
+	public List<String> getSentenceWords() {
+		return sentenceWords;
+	}
+	
+	@Override
+	public Set<String> getUniqueSentenceWords() {
+		return uniqueSentenceWords;
+	}
+	
+	@Override
+	public long getId() {
+		return dataRow.getId();
+	}
+	
+	@Override
+	public T getCategory() {
+		return dataRow.getCategory();
+	}
+}
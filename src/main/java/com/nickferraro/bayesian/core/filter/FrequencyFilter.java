@@ -0,0 +1,57 @@
+package com.nickferraro.bayesian.core.filter;
+
+import java.security.InvalidParameterException;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.nickferraro.bayesian.model.IBayesianModel;
+
+/**
+ * Keeps only the words of a model whose row count falls within a range. The cutoffs are read from the model once when the filter is
+ * created, so training through the filter does not move them and words the model has never seen are dropped.
+ * Create a new filter to pick up a retrained model.
+ * @author Nick Ferraro
+ */
+public class FrequencyFilter implements IWordFilter {
+	private final Set<String> keptWords;
+	
+	/**
+	 * Create a frequency filter from the word counts of a model.
+	 * @param bayesianModel The model to read word counts from. Cannot be NULL.
+	 * @param minRows The fewest rows a kept word appears in.
+	 * @param maxRows The most rows a kept word appears in. Cannot be less than minRows.
+	 * @throws InvalidParameterException Thrown when bayesianModel is NULL or maxRows is less than minRows.
+	 */
+	public FrequencyFilter(IBayesianModel<?> bayesianModel, int minRows, int maxRows) throws InvalidParameterException {
+		if( bayesianModel == null ) {
+			throw new InvalidParameterException("Cannot create a FrequencyFilter with a NULL model");
+		}
+		if( maxRows < minRows ) {
+			throw new InvalidParameterException("Cannot create a FrequencyFilter with max rows less than its min rows");
+		}
+		
+		keptWords = new HashSet<String>();
+		Set<String> uniqueWords = bayesianModel.getUniqueWords();
+		if( uniqueWords != null ) {
+			for(String word : uniqueWords) {
+				int rows = bayesianModel.countRowsWithWord(word);
+				if( rows >= minRows && rows <= maxRows ) {
+					keptWords.add(word);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Get the number of words kept by this filter.
+	 * @return The kept word count.
+	 */
+	public int getKeptWordCount() {
+		return keptWords.size();
+	}
+	
+	@Override
+	public String filter(String word) {
+		return ( keptWords.contains(word) ? word : null );
+	}
+}
@@ -0,0 +1,16 @@
+package com.nickferraro.bayesian.core.filter;
+
+/**
+ * A word filter decides if a word takes part in training and classification, and can normalize the words it keeps.
+ * Filters are evaluated once per token, before any category is scored. Implementations must be thread-safe
+ * and must always give the same result for the same word.
+ * @author Nick Ferraro
+ */
+public interface IWordFilter {
+	/**
+	 * Filter a word.
+	 * @param word The word to filter. Never NULL.
+	 * @return The word to use in its place, usually the word itself, or NULL to drop the word.
+	 */
+	public String filter(String word);
+}
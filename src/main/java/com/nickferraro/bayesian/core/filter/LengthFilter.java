@@ -0,0 +1,32 @@
+package com.nickferraro.bayesian.core.filter;
+
+import java.security.InvalidParameterException;
+
+/**
+ * Drops words shorter or longer than a range of lengths, counted in chars.
+ * @author Nick Ferraro
+ */
+public class LengthFilter implements IWordFilter {
+	private final int minLength;
+	private final int maxLength;
+	
+	/**
+	 * Create a length filter.
+	 * @param minLength The shortest length kept.
+	 * @param maxLength The longest length kept. Cannot be less than minLength.
+	 * @throws InvalidParameterException Thrown when maxLength is less than minLength.
+	 */
+	public LengthFilter(int minLength, int maxLength) throws InvalidParameterException {
+		if( maxLength < minLength ) {
+			throw new InvalidParameterException("Cannot create a LengthFilter with a max length less than its min length");
+		}
+		
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+	}
+	
+	@Override
+	public String filter(String word) {
+		return ( word.length() < minLength || word.length() > maxLength ? null : word );
+	}
+}
@@ -0,0 +1,14 @@
+package com.nickferraro.bayesian.core.filter;
+
+import java.util.Locale;
+
+/**
+ * Normalizes words to lower case with the english locale. Never drops a word.
+ * @author Nick Ferraro
+ */
+public class LowerCaseFilter implements IWordFilter {
+	@Override
+	public String filter(String word) {
+		return word.toLowerCase(Locale.ENGLISH);
+	}
+}
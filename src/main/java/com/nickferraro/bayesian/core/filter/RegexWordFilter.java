@@ -0,0 +1,33 @@
+package com.nickferraro.bayesian.core.filter;
+
+import java.security.InvalidParameterException;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps or drops words that fully match a regular expression. The pattern is compiled once when the filter is created.
+ * @author Nick Ferraro
+ */
+public class RegexWordFilter implements IWordFilter {
+	private final Pattern pattern;
+	private final boolean keepMatches;
+	
+	/**
+	 * Create a regular expression filter.
+	 * @param pattern The pattern words are matched against. Cannot be NULL.
+	 * @param keepMatches TRUE to keep only matching words, FALSE to drop matching words.
+	 * @throws InvalidParameterException Thrown when pattern is NULL.
+	 */
+	public RegexWordFilter(Pattern pattern, boolean keepMatches) throws InvalidParameterException {
+		if( pattern == null ) {
+			throw new InvalidParameterException("Cannot create a RegexWordFilter with a NULL pattern");
+		}
+		
+		this.pattern = pattern;
+		this.keepMatches = keepMatches;
+	}
+	
+	@Override
+	public String filter(String word) {
+		return ( pattern.matcher(word).matches() == keepMatches ? word : null );
+	}
+}
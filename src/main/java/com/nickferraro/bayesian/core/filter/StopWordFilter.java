@@ -0,0 +1,32 @@
+package com.nickferraro.bayesian.core.filter;
+
+import java.security.InvalidParameterException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Drops words found in a list of stop words. Matching is exact, put a {@link LowerCaseFilter} first for case insensitive matching.
+ * @author Nick Ferraro
+ */
+public class StopWordFilter implements IWordFilter {
+	private final Set<String> stopWords;
+	
+	/**
+	 * Create a stop word filter. The stop words are copied.
+	 * @param stopWords The words to drop. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when stopWords is NULL.
+	 */
+	public StopWordFilter(Collection<String> stopWords) throws InvalidParameterException {
+		if( stopWords == null ) {
+			throw new InvalidParameterException("Cannot create a StopWordFilter with NULL stop words");
+		}
+		
+		this.stopWords = new HashSet<String>(stopWords);
+	}
+	
+	@Override
+	public String filter(String word) {
+		return ( stopWords.contains(word) ? null : word );
+	}
+}
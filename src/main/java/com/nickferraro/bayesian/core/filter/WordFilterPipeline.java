@@ -0,0 +1,57 @@
+package com.nickferraro.bayesian.core.filter;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs word filters one after another. Each filter sees the word returned by the previous one, and the first filter to drop a word
+ * stops the pipeline. Normalizing filters belong before the filters that match on the normalized form.
+ * @author Nick Ferraro
+ */
+public class WordFilterPipeline implements IWordFilter {
+	private final IWordFilter[] filters;
+	
+	/**
+	 * Create a pipeline.
+	 * @param filters The filters in the order they run. Cannot be NULL or contain NULL.
+	 * @throws InvalidParameterException Thrown when filters is or contains NULL.
+	 */
+	public WordFilterPipeline(List<? extends IWordFilter> filters) throws InvalidParameterException {
+		if( filters == null || filters.contains(null) ) {
+			throw new InvalidParameterException("Cannot create a WordFilterPipeline with NULL filters");
+		}
+		
+		this.filters = filters.toArray(new IWordFilter[filters.size()]);
+	}
+	
+	/**
+	 * Create a pipeline.
+	 * @param filters The filters in the order they run. Cannot contain NULL.
+	 * @throws InvalidParameterException Thrown when filters contains NULL.
+	 */
+	public WordFilterPipeline(IWordFilter...filters) throws InvalidParameterException {
+		this(( filters == null ? null : Arrays.asList(filters) ));
+	}
+	
+	/**
+	 * Get the filters of this pipeline.
+	 * @return An unmodifiable list of the filters in the order they run.
+	 */
+	public List<IWordFilter> getFilters() {
+		List<IWordFilter> filterList = new ArrayList<IWordFilter>(filters.length);
+		Collections.addAll(filterList, filters);
+		return Collections.unmodifiableList(filterList);
+	}
+	
+	@Override
+	public String filter(String word) {
+		for(int i = 0; i < filters.length && word != null; ++i) {
+			word = filters[i].filter(word);
+		}
+		
+		return word;
+	}
+}
@@ -0,0 +1,33 @@
+package com.nickferraro.bayesian.core.scoring;
+
+/**
+ * A scoring kernel combines per-category columns of word likelihoods into running per-category scores.
+ * Scores and columns are parallel primitive arrays indexed by category, so a kernel can process all categories at once.
+ * Implementations must combine each element independently so that results do not depend on how the loop is split.
+ * @author Nick Ferraro
+ */
+public interface IScoringKernel {
+	/**
+	 * Multiply each score by the matching column value: scores[i] *= column[i].
+	 * @param scores The running scores to update.
+	 * @param column The column of likelihoods to multiply in.
+	 * @param length The number of categories to process.
+	 */
+	public void multiply(double[] scores, double[] column, int length);
+	
+	/**
+	 * Add the matching column value to each score: scores[i] += column[i]. Used for log-space scoring.
+	 * @param scores The running scores to update.
+	 * @param column The column of log-likelihoods to add in.
+	 * @param length The number of categories to process.
+	 */
+	public void add(double[] scores, double[] column, int length);
+	
+	/**
+	 * Find the largest value in an array.
+	 * @param values The values to search.
+	 * @param length The number of values to search.
+	 * @return The largest value, or negative infinity if length is 0.
+	 */
+	public double max(double[] values, int length);
+}
@@ -0,0 +1,287 @@
+package com.nickferraro.bayesian.core.scoring;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.core.Classification;
+import com.nickferraro.bayesian.model.CategoryIndex;
+import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.ILinkVisitor;
+
+/**
+ * Finds the K most probable categories for a set of words without fully scoring every category.
+ * <p>
+ * A category's score is the same bernoulli score the system computes, rewritten relative to an unseen word. Every unseen word
+ * contributes 1/totalRows to every category, so that factor cancels and only linked words add a boost of
+ * log(count * totalRows / categoryRows) to the category's log score. Words are processed rarest first. Before each word, the remaining
+ * words bound the boost any category can still gain by min(log(totalRows), log(totalRows * wordRows / categoryRows)) per word.
+ * Once a category's score plus that bound falls below the current K-th best score it is dropped, and later words only probe the
+ * categories that are still alive instead of walking every link of the word.
+ * </p>
+ * Instances hold per-call state and are not thread-safe. The caller must hold any lock the model needs for consistent reads.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class PrunedTopKScorer<T> implements ILinkVisitor<T> {
+	// Slack allowed on the pruning comparison so rounding never drops a category that ties the K-th best score
+	private static final double PRUNE_SLACK = 1e-9d;
+	
+	private final IBayesianModel<T> bayesianModel;
+	private final CategoryIndex<T> categories;
+	private final double[] logCategoryRows;
+	private final double[] scores;
+	private final boolean[] alive;
+	private final int[] aliveIndices;
+	private int aliveCount;
+	private double logTotalRows;
+	private int categoriesPruned;
+	
+	/**
+	 * Create a scorer over the categories of a model.
+	 * @param bayesianModel The model to score against. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when bayesianModel is NULL.
+	 */
+	public PrunedTopKScorer(IBayesianModel<T> bayesianModel) throws InvalidParameterException {
+		if( bayesianModel == null ) {
+			throw new InvalidParameterException("Cannot score a NULL bayesian model");
+		}
+		
+		this.bayesianModel = bayesianModel;
+		
+		// Index the non-NULL categories, models already hand out an index
+		this.categories = CategoryIndex.copyOf(bayesianModel.getUniqueCategories());
+		
+		int categoryCount = categories.size();
+		this.logCategoryRows = new double[categoryCount];
+		this.scores = new double[categoryCount];
+		this.alive = new boolean[categoryCount];
+		this.aliveIndices = new int[categoryCount];
+	}
+	
+	/**
+	 * Score the words and return the K most probable categories from greatest to least probability.
+	 * Probabilities are normalized over the returned categories only, since pruned categories are never fully scored.
+	 * @param words The unique words to score. Words the system does not allow must already be removed. NULL is treated as empty.
+	 * @param k The max number of categories to return. Must be at least 1.
+	 * @return A list of at most k ordered classifications. Will never be NULL.
+	 * @throws InvalidParameterException Thrown when k is less than 1.
+	 */
+	public List<IClassification<T>> score(Collection<String> words, int k) throws InvalidParameterException {
+		if( k < 1 ) {
+			throw new InvalidParameterException("Cannot score less than 1 category");
+		}
+		
+		int categoryCount = categories.size();
+		if( categoryCount == 0 ) {
+			return new ArrayList<IClassification<T>>();
+		}
+		
+		// All categories start alive
+		aliveCount = categoryCount;
+		categoriesPruned = 0;
+		for(int i = 0; i < categoryCount; ++i) {
+			alive[i] = true;
+			aliveIndices[i] = i;
+		}
+		
+		// If the model has 0 training rows, every category is equally likely
+		int totalRows = bayesianModel.getTotalRows();
+		if( totalRows <= 0 ) {
+			Arrays.fill(scores, 0.0d);
+			return _select(k);
+		}
+		
+		// Start each category at its log prior
+		logTotalRows = Math.log(totalRows);
+		for(int i = 0; i < categoryCount; ++i) {
+			logCategoryRows[i] = Math.log(bayesianModel.countRowsWithCategory(categories.get(i)));
+			scores[i] = logCategoryRows[i] - logTotalRows;
+		}
+		
+		// Collect the seen words with their row counts, unseen words score every category the same
+		int wordCount = 0;
+		String[] seenWords = new String[( words == null ? 0 : words.size() )];
+		long[] order = new long[seenWords.length];
+		if( words != null ) {
+			for(String word : words) {
+				int wordRows = ( word == null ? 0 : bayesianModel.countRowsWithWord(word) );
+				if( wordRows > 0 ) {
+					seenWords[wordCount] = word;
+					order[wordCount] = ((long)wordRows << 32) | wordCount;
+					++wordCount;
+				}
+			}
+		}
+		
+		// Process the rarest, most discriminative words first
+		Arrays.sort(order, 0, wordCount);
+		
+		// Suffix sums of log(totalRows * wordRows) bound the boost of the words that remain
+		double[] remainingBound = new double[wordCount + 1];
+		for(int i = wordCount - 1; i >= 0; --i) {
+			remainingBound[i] = remainingBound[i + 1] + logTotalRows + Math.log(order[i] >>> 32);
+		}
+		
+		for(int i = 0; i < wordCount; ++i) {
+			String word = seenWords[(int)order[i]];
+			int wordRows = (int)(order[i] >>> 32);
+			
+			// Prune before any word that would cost more to walk than probing the alive categories
+			if( aliveCount > k && wordRows > aliveCount ) {
+				_prune(k, wordCount - i, remainingBound[i]);
+			}
+			
+			if( aliveCount < categoryCount && aliveCount <= wordRows ) {
+				// Probe only the alive categories
+				for(int a = 0; a < aliveCount; ++a) {
+					int index = aliveIndices[a];
+					int weight = bayesianModel.countRowsWithCategoryWithWord(categories.get(index), word);
+					if( weight > 0 ) {
+						scores[index] += logTotalRows + Math.log(weight) - logCategoryRows[index];
+					}
+				}
+			} else {
+				// Walk every link of the word
+				bayesianModel.visitWordLinks(word, this);
+			}
+		}
+		
+		return _select(k);
+	}
+	
+	/**
+	 * Get the number of categories dropped by the last call to score.
+	 * @return The number of pruned categories.
+	 */
+	public int getCategoriesPruned() {
+		return categoriesPruned;
+	}
+	
+	@Override
+	public void visitLink(T category, int weight) {
+		int index = categories.indexOf(category);
+		if( index >= 0 && alive[index] ) {
+			scores[index] += logTotalRows + Math.log(weight) - logCategoryRows[index];
+		}
+	}
+	
+	/**
+	 * Drop every alive category whose score can no longer reach the K-th best score.
+	 * @param k The number of categories to keep.
+	 * @param remainingWords The number of words not yet processed.
+	 * @param remainingBound The sum of log(totalRows * wordRows) over the words not yet processed.
+	 */
+	private void _prune(int k, int remainingWords, double remainingBound) {
+		// Scores only grow, so the current K-th best score is a floor for the final K-th best score
+		double threshold = _kthBestScore(k);
+		if( Double.isInfinite(threshold) ) {
+			return;
+		}
+		
+		int kept = 0;
+		double maxWordBound = remainingWords * logTotalRows;
+		for(int a = 0; a < aliveCount; ++a) {
+			int index = aliveIndices[a];
+			double bound = Math.min(maxWordBound, remainingBound - remainingWords * logCategoryRows[index]);
+			if( scores[index] + bound >= threshold - PRUNE_SLACK ) {
+				aliveIndices[kept++] = index;
+			} else {
+				alive[index] = false;
+			}
+		}
+		
+		categoriesPruned += aliveCount - kept;
+		aliveCount = kept;
+	}
+	
+	/**
+	 * Find the K-th best score among the alive categories with a small min-heap.
+	 * @param k The rank of the score to find.
+	 * @return The K-th best score, or negative infinity if fewer than k categories are alive.
+	 */
+	private double _kthBestScore(int k) {
+		if( aliveCount < k ) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		
+		double[] heap = new double[k];
+		int size = 0;
+		for(int a = 0; a < aliveCount; ++a) {
+			double score = scores[aliveIndices[a]];
+			if( size < k ) {
+				// Sift up
+				int child = size++;
+				while( child > 0 && heap[(child - 1) >> 1] > score ) {
+					heap[child] = heap[(child - 1) >> 1];
+					child = (child - 1) >> 1;
+				}
+				heap[child] = score;
+			} else if( score > heap[0] ) {
+				// Replace the root and sift down
+				int parent = 0;
+				while( true ) {
+					int child = (parent << 1) + 1;
+					if( child >= k ) {
+						break;
+					}
+					if( child + 1 < k && heap[child + 1] < heap[child] ) {
+						++child;
+					}
+					if( heap[child] >= score ) {
+						break;
+					}
+					heap[parent] = heap[child];
+					parent = child;
+				}
+				heap[parent] = score;
+			}
+		}
+		
+		return heap[0];
+	}
+	
+	/**
+	 * Select the K best alive categories and normalize their scores into probabilities.
+	 * @param k The max number of categories to return.
+	 * @return The ordered classifications.
+	 */
+	private List<IClassification<T>> _select(int k) {
+		// Sort the alive categories by score, highest first
+		Integer[] ranked = new Integer[aliveCount];
+		for(int a = 0; a < aliveCount; ++a) {
+			ranked[a] = aliveIndices[a];
+		}
+		Arrays.sort(ranked, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer left, Integer right) {
+				return Double.compare(scores[right], scores[left]);
+			}
+		});
+		
+		int resultCount = Math.min(k, aliveCount);
+		List<IClassification<T>> classifications = new ArrayList<IClassification<T>>(resultCount);
+		if( resultCount == 0 ) {
+			return classifications;
+		}
+		
+		// Normalize in log space by subtracting the best score. If every score is negative infinity, fall back to an even split.
+		double best = scores[ranked[0]];
+		double sum = 0.0d;
+		double[] weights = new double[resultCount];
+		for(int r = 0; r < resultCount; ++r) {
+			weights[r] = ( Double.isInfinite(best) ? 1.0d : Math.exp(scores[ranked[r]] - best) );
+			sum += weights[r];
+		}
+		for(int r = 0; r < resultCount; ++r) {
+			classifications.add(new Classification<T>(categories.get(ranked[r]), Math.min(1.0d, weights[r] / sum)));
+		}
+		
+		return classifications;
+	}
+}
@@ -0,0 +1,48 @@
+package com.nickferraro.bayesian.core.scoring;
+
+/**
+ * A portable scoring kernel written as plain loops unrolled by four, which the JIT compiler can auto-vectorize.
+ * This class is stateless and Thread-safe.
+ * @author Nick Ferraro
+ */
+public class ScalarScoringKernel implements IScoringKernel {
+	@Override
+	public void multiply(double[] scores, double[] column, int length) {
+		int i = 0;
+		for(int end = length & ~3; i < end; i += 4) {
+			scores[i] *= column[i];
+			scores[i + 1] *= column[i + 1];
+			scores[i + 2] *= column[i + 2];
+			scores[i + 3] *= column[i + 3];
+		}
+		for(; i < length; ++i) {
+			scores[i] *= column[i];
+		}
+	}
+	
+	@Override
+	public void add(double[] scores, double[] column, int length) {
+		int i = 0;
+		for(int end = length & ~3; i < end; i += 4) {
+			scores[i] += column[i];
+			scores[i + 1] += column[i + 1];
+			scores[i + 2] += column[i + 2];
+			scores[i + 3] += column[i + 3];
+		}
+		for(; i < length; ++i) {
+			scores[i] += column[i];
+		}
+	}
+	
+	@Override
+	public double max(double[] values, int length) {
+		double max = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i < length; ++i) {
+			if( values[i] > max ) {
+				max = values[i];
+			}
+		}
+		
+		return max;
+	}
+}
@@ -0,0 +1,57 @@
+package com.nickferraro.bayesian.core.scoring;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Picks the scoring kernel for the running JVM. The Vector API kernel is used when the vector profile built it and the JVM was started
+ * with --add-modules jdk.incubator.vector, otherwise the portable {@link ScalarScoringKernel} is used. The choice is made once.
+ * This class is thread-safe.
+ * @author Nick Ferraro
+ */
+public final class ScoringKernels {
+	private static final String VECTOR_KERNEL = "com.nickferraro.bayesian.core.scoring.VectorScoringKernel";
+	private static final IScoringKernel FASTEST = _loadFastest();
+	
+	private ScoringKernels() {}
+	
+	/**
+	 * Get the fastest scoring kernel that runs on this JVM. Kernels are stateless, so the same instance is returned every time.
+	 * @return The Vector API kernel if it can be loaded, otherwise the scalar kernel.
+	 */
+	public static IScoringKernel fastest() {
+		return FASTEST;
+	}
+	
+	/**
+	 * Load the Vector API kernel, falling back to the scalar kernel when it was not built, the JVM is older than the class, or the
+	 * vector module was not added.
+	 * @return The scoring kernel to use.
+	 */
+	private static IScoringKernel _loadFastest() {
+		try {
+			IScoringKernel kernel = (IScoringKernel)Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+			
+			// Run it once over more values than a register holds, so a Vector API class that cannot link fails here instead of while classifying
+			double[] values = new double[64];
+			kernel.add(values, values, values.length);
+			kernel.max(values, values.length);
+			return kernel;
+		} catch(ClassNotFoundException e) {
+			// The vector kernel was not built
+		} catch(NoSuchMethodException e) {
+			// The vector kernel has no public no-argument constructor
+		} catch(InstantiationException e) {
+			// The vector kernel cannot be created
+		} catch(IllegalAccessException e) {
+			// The vector kernel cannot be created
+		} catch(InvocationTargetException e) {
+			// The vector kernel failed while it was created
+		} catch(RuntimeException e) {
+			// The Vector API does not support this platform
+		} catch(LinkageError e) {
+			// The vector kernel was built, but cannot run on this JVM
+		}
+		
+		return new ScalarScoringKernel();
+	}
+}
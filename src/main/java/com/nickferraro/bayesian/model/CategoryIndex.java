@@ -0,0 +1,207 @@
+package com.nickferraro.bayesian.model;
+
+import java.security.InvalidParameterException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable, ordered set of categories interned to dense int indices from 0 to size - 1. Models hand one out from
+ * {@link IBayesianModel#getUniqueCategories()} and replace it when a category is added or removed, so it can be iterated and indexed
+ * without a lock. Scoring lays its per-category arrays out by these indices.
+ * <p>
+ * Indices belong to one index instance: removing a category shifts the indices of the categories after it.
+ * When every category is a constant of the same enum, lookups use an array indexed by ordinal instead of a hash map.
+ * </p>
+ * This class is thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class CategoryIndex<T> extends AbstractSet<T> {
+	private static final CategoryIndex<Object> EMPTY = new CategoryIndex<Object>(new Object[0]);
+	
+	private final Object[] categories;
+	private final HashMap<Object, Integer> indices;
+	
+	/**
+	 * Create an index over an array of distinct, non-NULL categories. The array is owned by the index.
+	 * @param categories The categories in index order.
+	 */
+	CategoryIndex(Object[] categories) {
+		this(categories, true);
+	}
+	
+	/**
+	 * Create an index over an array of distinct, non-NULL categories. The array is owned by the index.
+	 * @param categories The categories in index order.
+	 * @param hashed TRUE to build a hash map for lookups, FALSE when a subclass looks categories up itself.
+	 */
+	CategoryIndex(Object[] categories, boolean hashed) {
+		this.categories = categories;
+		if( hashed ) {
+			indices = new HashMap<Object, Integer>(categories.length * 2);
+			for(int i = 0; i < categories.length; ++i) {
+				indices.put(categories[i], i);
+			}
+		} else {
+			indices = null;
+		}
+	}
+	
+	/**
+	 * Get the index with no categories.
+	 * @return The empty index.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> CategoryIndex<T> empty() {
+		return (CategoryIndex<T>)EMPTY;
+	}
+	
+	/**
+	 * Create an index over a collection of categories. NULL and repeated categories are skipped, the rest keep their iteration order.
+	 * An index is returned as is.
+	 * @param categories The categories to index. NULL is treated as empty.
+	 * @return The category index.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> CategoryIndex<T> copyOf(Collection<? extends T> categories) {
+		if( categories instanceof CategoryIndex ) {
+			return (CategoryIndex<T>)categories;
+		}
+		if( categories == null || categories.isEmpty() ) {
+			return empty();
+		}
+		
+		Object[] distinct = new Object[categories.size()];
+		HashMap<Object, Boolean> seen = new HashMap<Object, Boolean>(distinct.length * 2);
+		int count = 0;
+		for(T category : categories) {
+			if( category != null && seen.put(category, Boolean.TRUE) == null ) {
+				distinct[count++] = category;
+			}
+		}
+		
+		return _create(( count == distinct.length ? distinct : Arrays.copyOf(distinct, count) ));
+	}
+	
+	/**
+	 * Get the index of a category.
+	 * @param category The category to look up.
+	 * @return The index of the category, or -1 if it is not in this index.
+	 */
+	public int indexOf(Object category) {
+		Integer index = ( category == null ? null : indices.get(category) );
+		return ( index == null ? -1 : index.intValue() );
+	}
+	
+	/**
+	 * Get the category at an index.
+	 * @param index The index of the category. Must be at least 0 and less than {@link #size()}.
+	 * @return The category.
+	 * @throws IndexOutOfBoundsException Thrown when index is out of range.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(int index) throws IndexOutOfBoundsException {
+		if( index < 0 || index >= categories.length ) {
+			throw new IndexOutOfBoundsException("Category index " + index + " is out of range for " + categories.length + " categories");
+		}
+		
+		return (T)categories[index];
+	}
+	
+	/**
+	 * Create an index with a category added at the end. The existing categories keep their indices. The index is copied on every call, so
+	 * build an index for many changes once with {@link #copyOf(Collection)}.
+	 * @param category The category to add. Cannot be NULL.
+	 * @return The new index, or this index if it already holds the category.
+	 * @throws InvalidParameterException Thrown when category is NULL.
+	 */
+	public CategoryIndex<T> with(T category) throws InvalidParameterException {
+		if( category == null ) {
+			throw new InvalidParameterException("Cannot index a NULL category");
+		}
+		if( indexOf(category) >= 0 ) {
+			return this;
+		}
+		
+		Object[] added = Arrays.copyOf(categories, categories.length + 1);
+		added[categories.length] = category;
+		return _create(added);
+	}
+	
+	/**
+	 * Create an index with a category removed. Categories after it move down one index. The index is copied on every call.
+	 * @param category The category to remove.
+	 * @return The new index, or this index if it does not hold the category.
+	 */
+	public CategoryIndex<T> without(Object category) {
+		int index = indexOf(category);
+		if( index < 0 ) {
+			return this;
+		}
+		
+		Object[] removed = new Object[categories.length - 1];
+		System.arraycopy(categories, 0, removed, 0, index);
+		System.arraycopy(categories, index + 1, removed, index, removed.length - index);
+		return _create(removed);
+	}
+	
+	@Override
+	public int size() {
+		return categories.length;
+	}
+	
+	@Override
+	public boolean contains(Object category) {
+		return indexOf(category) >= 0;
+	}
+	
+	@Override
+	public Object[] toArray() {
+		return categories.clone();
+	}
+	
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private int next = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return next < categories.length;
+			}
+			
+			@Override
+			public T next() {
+				if( next >= categories.length ) {
+					throw new NoSuchElementException();
+				}
+				
+				return get(next++);
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("A category index cannot be changed");
+			}
+		};
+	}
+	
+	/**
+	 * Create the index for an array of distinct, non-NULL categories, using ordinal lookups when they are constants of one enum.
+	 * @param categories The categories in index order.
+	 * @return The category index.
+	 */
+	private static <T> CategoryIndex<T> _create(Object[] categories) {
+		if( categories.length == 0 ) {
+			return empty();
+		}
+		
+		Class<?> enumClass = EnumCategoryIndex.enumClassOf(categories);
+		return ( enumClass != null ? new EnumCategoryIndex<T>(categories, enumClass) : new CategoryIndex<T>(categories) );
+	}
+}
@@ -0,0 +1,61 @@
+package com.nickferraro.bayesian.model;
+
+import java.util.Arrays;
+
+/**
+ * A category index over constants of one enum. Lookups read an array indexed by ordinal instead of hashing the category.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+final class EnumCategoryIndex<T> extends CategoryIndex<T> {
+	private final Class<?> enumClass;
+	private final int[] ordinalIndices;
+	
+	/**
+	 * Create an index over distinct constants of one enum. The array is owned by the index.
+	 * @param categories The categories in index order.
+	 * @param enumClass The enum the categories belong to.
+	 */
+	EnumCategoryIndex(Object[] categories, Class<?> enumClass) {
+		super(categories, false);
+		
+		this.enumClass = enumClass;
+		this.ordinalIndices = new int[enumClass.getEnumConstants().length];
+		Arrays.fill(ordinalIndices, -1);
+		for(int i = 0; i < categories.length; ++i) {
+			ordinalIndices[((Enum<?>)categories[i]).ordinal()] = i;
+		}
+	}
+	
+	/**
+	 * Find the enum every category belongs to.
+	 * @param categories The categories to check.
+	 * @return The enum class, or NULL if a category is not an enum constant or they belong to different enums.
+	 */
+	static Class<?> enumClassOf(Object[] categories) {
+		Class<?> enumClass = null;
+		for(Object category : categories) {
+			if( !(category instanceof Enum) ) {
+				return null;
+			}
+			
+			Class<?> categoryClass = ((Enum<?>)category).getDeclaringClass();
+			if( enumClass != null && enumClass != categoryClass ) {
+				return null;
+			}
+			enumClass = categoryClass;
+		}
+		
+		return enumClass;
+	}
+	
+	@Override
+	public int indexOf(Object category) {
+		if( category == null || !enumClass.isInstance(category) ) {
+			return -1;
+		}
+		
+		return ordinalIndices[((Enum<?>)category).ordinal()];
+	}
+}
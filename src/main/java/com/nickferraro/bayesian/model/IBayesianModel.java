@@ -76,7 +76,7 @@ public interface IBayesianModel<T> {
 	public int countRowsWithCategory(T category);
 	
 	/**
-	 * Counts the number of rows in the model with the specified word.
+	 * Counts the number of rows in the model with the specified word. In {@link ModelMode#MULTINOMIAL} mode this counts word occurrences instead.
 	 * @param word The word to look for and count.
 	 * @return The number of rows found to be associated with the specified word.
 	 */
@@ -84,13 +84,30 @@ public interface IBayesianModel<T> {
 	
 	/**
 	 * Count the number of rows in the model with the specified category and word.
-	 * For a row to be counted, it must have the category AND the word.
+	 * For a row to be counted, it must have the category AND the word. In {@link ModelMode#MULTINOMIAL} mode this counts word occurrences instead.
 	 * @param category The category to look for and count.
 	 * @param word The word to look for and count.
 	 * @return The number of rows found to have the specified category AND word.
 	 */
 	public int countRowsWithCategoryWithWord(T category, String word);
 	
+	/**
+	 * Visit every category linked to the specified word along with the link weight. 
+	 * The weight of each link is the value {@link #countRowsWithCategoryWithWord(Object, String)} returns for the pair.
+	 * @param word The word whose links to visit.
+	 * @param visitor The visitor to call once per linked category. Must not modify the model.
+	 * @return The number of links visited.
+	 */
+	public int visitWordLinks(String word, ILinkVisitor<T> visitor);
+	
+	/**
+	 * Counts the number of word tokens in the rows with the specified category. 
+	 * In {@link ModelMode#BERNOULLI} mode each unique word of a row is one token, in {@link ModelMode#MULTINOMIAL} mode each word occurrence is one token.
+	 * @param category The category to look for and count.
+	 * @return The number of word tokens found in rows associated with the specified category.
+	 */
+	public int countTokensWithCategory(T category);
+	
 	/**
 	 * Get the total number of rows in this model.
 	 * @return The total number of rows. This will never be less than 0.
@@ -108,4 +125,16 @@ public interface IBayesianModel<T> {
 	 * @return A set of unique words. This will never be NULL.
 	 */
 	public Set<String> getUniqueWords();
+	
+	/**
+	 * Get the event model this model is trained with.
+	 * @return The mode of this model.
+	 */
+	public ModelMode getMode();
+	
+	/**
+	 * Get a report of the estimated memory footprint of this model.
+	 * @return A size report of this model. This will never be NULL.
+	 */
+	public ModelSizeReport getSizeReport();
 }
@@ -0,0 +1,22 @@
+package com.nickferraro.bayesian.model;
+
+/**
+ * An optional interface for models whose internal tables keep their peak capacity after words and categories are removed.
+ * Compacting rebuilds the tables at the size of what the model currently holds.
+ * @author Nick Ferraro
+ */
+public interface ICompactableModel {
+	/**
+	 * Rebuild the internal tables of the model at right-sized capacity and release what removed words and categories left behind.
+	 * The counts of the model do not change. Classification keeps running against the old tables while the new ones are built, and
+	 * switches to the new tables at once.
+	 * @return The estimated bytes released, on and off the heap. 0 if nothing was released.
+	 */
+	public long compact();
+	
+	/**
+	 * Get the number of words and categories removed since the model was created or last compacted.
+	 * @return The removed entry count.
+	 */
+	public int getRemovedEntries();
+}
@@ -0,0 +1,16 @@
+package com.nickferraro.bayesian.model;
+
+/**
+ * A callback that receives the links of a word from a bayesian model.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public interface ILinkVisitor<T> {
+	/**
+	 * Visit a link between the visited word and a category. The model may hold a lock while calling this method, so it must not modify the model.
+	 * @param category The category linked to the word. Will never be NULL.
+	 * @param weight The weight of the link.
+	 */
+	public void visitLink(T category, int weight);
+}
@@ -0,0 +1,17 @@
+package com.nickferraro.bayesian.model;
+
+/**
+ * An optional interface for models that can rule out unknown words without looking them up.
+ * Scoring checks it once per word and gives words the model cannot hold the smoothing score directly, instead of looking the word up
+ * once per category.
+ * @author Nick Ferraro
+ */
+public interface IWordMembership {
+	/**
+	 * Check if the model might hold a word. The check never takes a lock.
+	 * @param word The word to check.
+	 * @return FALSE if the model certainly does not hold the word, TRUE if it might. A word added by a call that has not returned yet
+	 * may still be reported as not held.
+	 */
+	public boolean mightContainWord(String word);
+}
@@ -0,0 +1,139 @@
+package com.nickferraro.bayesian.model;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically compacts a model on a background thread once enough words and categories were removed from it. Each compaction only
+ * blocks classification for the swap at the end of {@link ICompactableModel#compact()}, training is blocked while the model is rebuilt.
+ * This class is thread-safe.
+ * @author Nick Ferraro
+ */
+public class ModelCompactor {
+	private final ICompactableModel model;
+	private final int minRemovedEntries;
+	private ScheduledExecutorService scheduler = null;
+	private long compactionCount = 0;
+	private long releasedBytes = 0;
+	private long lastDurationNanos = 0;
+	
+	/**
+	 * Create a compactor.
+	 * @param model The model to compact. Cannot be NULL.
+	 * @param minRemovedEntries The number of removed words and categories that makes a compaction worthwhile. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when model is NULL or minRemovedEntries is less than 1.
+	 */
+	public ModelCompactor(ICompactableModel model, int minRemovedEntries) throws InvalidParameterException {
+		if( model == null ) {
+			throw new InvalidParameterException("Cannot create a ModelCompactor with a NULL model");
+		}
+		if( minRemovedEntries < 1 ) {
+			throw new InvalidParameterException("Cannot compact after less than 1 removed entry");
+		}
+		
+		this.model = model;
+		this.minRemovedEntries = minRemovedEntries;
+	}
+	
+	/**
+	 * Compact the model now on the calling thread if enough entries were removed since it was last compacted.
+	 * @return TRUE if the model was compacted, FALSE if it was not worthwhile.
+	 */
+	public boolean compactIfNeeded() {
+		if( model.getRemovedEntries() < minRemovedEntries ) {
+			return false;
+		}
+		
+		long start = System.nanoTime();
+		long released = model.compact();
+		
+		synchronized(this) {
+			++compactionCount;
+			releasedBytes += released;
+			lastDurationNanos = System.nanoTime() - start;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Start checking the model on a background thread. Does nothing if the compactor is already running.
+	 * @param periodMillis The time between the start of each check. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when periodMillis is less than 1.
+	 */
+	public synchronized void start(long periodMillis) throws InvalidParameterException {
+		if( periodMillis < 1 ) {
+			throw new InvalidParameterException("Cannot compact with a period less than 1");
+		}
+		if( scheduler != null ) {
+			return;
+		}
+		
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "bayesian-compactor");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				compactIfNeeded();
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stop the background thread, waiting for a compaction in progress to finish.
+	 * @throws InterruptedException Thrown when interrupted while waiting.
+	 */
+	public void stop() throws InterruptedException {
+		ScheduledExecutorService stopping;
+		synchronized(this) {
+			stopping = scheduler;
+			scheduler = null;
+		}
+		
+		if( stopping != null ) {
+			stopping.shutdown();
+			stopping.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Check if the compactor is checking the model in the background.
+	 * @return True if running.
+	 */
+	public synchronized boolean isRunning() {
+		return scheduler != null;
+	}
+	
+	/**
+	 * Get the number of compactions run.
+	 * @return The compaction count.
+	 */
+	public synchronized long getCompactionCount() {
+		return compactionCount;
+	}
+	
+	/**
+	 * Get the estimated bytes released by every compaction run.
+	 * @return The released bytes.
+	 */
+	public synchronized long getReleasedBytes() {
+		return releasedBytes;
+	}
+	
+	/**
+	 * Get how long the last compaction took.
+	 * @return The duration in nanoseconds.
+	 */
+	public synchronized long getLastDurationNanos() {
+		return lastDurationNanos;
+	}
+}
@@ -0,0 +1,19 @@
+package com.nickferraro.bayesian.model;
+
+/**
+ * The event model a bayesian model is trained and classified with.
+ * Both modes keep the same counts, only the meaning of word counts and link weights changes.
+ * @author Nick Ferraro
+ */
+public enum ModelMode {
+	/**
+	 * Word counts and link weights count rows that contain a word. Each unique word of a sentence counts once.
+	 */
+	BERNOULLI,
+	
+	/**
+	 * Word counts and link weights count occurrences of a word. Repeated words of a sentence count once per occurrence,
+	 * and classification raises each word likelihood to its term frequency.
+	 */
+	MULTINOMIAL
+}
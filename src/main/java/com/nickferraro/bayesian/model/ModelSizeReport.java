@@ -0,0 +1,172 @@
+package com.nickferraro.bayesian.model;
+
+/**
+ * An immutable report of the estimated memory footprint of a bayesian model.
+ * Byte figures are estimates of retained heap (or native memory for off-heap storage) and do not include the category values themselves.
+ * @author Nick Ferraro
+ */
+public class ModelSizeReport {
+	private final int words;
+	private final int categories;
+	private final int links;
+	private final int hapaxWords;
+	private final long vocabularyBytes;
+	private final long wordNodeBytes;
+	private final long categoryNodeBytes;
+	private final long linkBytes;
+	private final long mapOverheadBytes;
+	private final long offHeapBytes;
+	
+	/**
+	 * Create a size report.
+	 * @param words The number of unique words in the model.
+	 * @param categories The number of unique categories in the model.
+	 * @param links The number of category/word links in the model.
+	 * @param hapaxWords The number of words that were seen in exactly one row.
+	 * @param vocabularyBytes The estimated bytes used to hold the vocabulary strings.
+	 * @param wordNodeBytes The estimated bytes used by word nodes.
+	 * @param categoryNodeBytes The estimated bytes used by category nodes.
+	 * @param linkBytes The estimated bytes used by links.
+	 * @param mapOverheadBytes The estimated bytes used by map objects, entries and tables.
+	 * @param offHeapBytes The bytes held outside of the Java heap.
+	 */
+	public ModelSizeReport(int words, int categories, int links, int hapaxWords, long vocabularyBytes, long wordNodeBytes,
+			long categoryNodeBytes, long linkBytes, long mapOverheadBytes, long offHeapBytes) {
+		this.words = words;
+		this.categories = categories;
+		this.links = links;
+		this.hapaxWords = hapaxWords;
+		this.vocabularyBytes = vocabularyBytes;
+		this.wordNodeBytes = wordNodeBytes;
+		this.categoryNodeBytes = categoryNodeBytes;
+		this.linkBytes = linkBytes;
+		this.mapOverheadBytes = mapOverheadBytes;
+		this.offHeapBytes = offHeapBytes;
+	}
+	
+	/**
+	 * Get the number of unique words in the model.
+	 * @return The number of unique words.
+	 */
+	public int getWords() {
+		return words;
+	}
+	
+	/**
+	 * Get the number of unique categories in the model.
+	 * @return The number of unique categories.
+	 */
+	public int getCategories() {
+		return categories;
+	}
+	
+	/**
+	 * Get the number of links between categories and words.
+	 * @return The number of links.
+	 */
+	public int getLinks() {
+		return links;
+	}
+	
+	/**
+	 * Get the number of words that were seen in exactly one row.
+	 * @return The number of hapax words.
+	 */
+	public int getHapaxWords() {
+		return hapaxWords;
+	}
+	
+	/**
+	 * Get the estimated bytes used to hold the vocabulary strings.
+	 * @return The vocabulary bytes.
+	 */
+	public long getVocabularyBytes() {
+		return vocabularyBytes;
+	}
+	
+	/**
+	 * Get the estimated bytes used by word nodes, excluding their links and maps.
+	 * @return The word node bytes.
+	 */
+	public long getWordNodeBytes() {
+		return wordNodeBytes;
+	}
+	
+	/**
+	 * Get the estimated bytes used by category nodes, excluding their links and maps.
+	 * @return The category node bytes.
+	 */
+	public long getCategoryNodeBytes() {
+		return categoryNodeBytes;
+	}
+	
+	/**
+	 * Get the estimated bytes used by link objects.
+	 * @return The link bytes.
+	 */
+	public long getLinkBytes() {
+		return linkBytes;
+	}
+	
+	/**
+	 * Get the estimated bytes used by map objects, map entries and map tables.
+	 * @return The map overhead bytes.
+	 */
+	public long getMapOverheadBytes() {
+		return mapOverheadBytes;
+	}
+	
+	/**
+	 * Get the bytes held outside of the Java heap.
+	 * @return The off-heap bytes. 0 for models that are held entirely on the heap.
+	 */
+	public long getOffHeapBytes() {
+		return offHeapBytes;
+	}
+	
+	/**
+	 * Get the estimated bytes retained on the Java heap.
+	 * @return The sum of all heap byte figures in this report.
+	 */
+	public long getHeapBytes() {
+		return vocabularyBytes + wordNodeBytes + categoryNodeBytes + linkBytes + mapOverheadBytes;
+	}
+	
+	/**
+	 * Get the estimated total bytes used by the model, on and off the heap.
+	 * @return The total bytes.
+	 */
+	public long getTotalBytes() {
+		return getHeapBytes() + offHeapBytes;
+	}
+	
+	/**
+	 * Get the average number of categories each word is linked to.
+	 * @return The average links per word. 0 if the model has no words.
+	 */
+	public double getAverageLinksPerWord() {
+		return ( words == 0 ? 0.0d : (double)links / (double)words );
+	}
+	
+	/**
+	 * Get the fraction of words that were seen in exactly one row.
+	 * @return The hapax fraction between 0 and 1. 0 if the model has no words.
+	 */
+	public double getHapaxFraction() {
+		return ( words == 0 ? 0.0d : (double)hapaxWords / (double)words );
+	}
+	
+	/**
+	 * Get the average number of words each category is linked to.
+	 * @return The average category fan-out. 0 if the model has no categories.
+	 */
+	public double getAverageCategoryFanOut() {
+		return ( categories == 0 ? 0.0d : (double)links / (double)categories );
+	}
+	
+	@Override
+	public String toString() {
+		return "ModelSizeReport[words=" + words + ", categories=" + categories + ", links=" + links + ", hapaxWords=" + hapaxWords
+				+ ", heapBytes=" + getHeapBytes() + ", offHeapBytes=" + offHeapBytes + "]";
+	}
+}
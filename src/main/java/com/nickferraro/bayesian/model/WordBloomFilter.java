@@ -0,0 +1,131 @@
+package com.nickferraro.bayesian.model;
+
+import java.security.InvalidParameterException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over words, used by models to answer {@link IWordMembership#mightContainWord(String)} without a lock.
+ * Each word sets a few bits picked from its string hash code, so a check costs a handful of array reads and never hashes the characters
+ * again. Words cannot be removed, a removed word only costs a false positive until the filter is rebuilt. Once more words are added than
+ * the filter was sized for, the false positive rate climbs and {@link #isFull()} tells the owner to rebuild it larger.
+ * Checks are thread-safe and may run alongside an add, adds must be made by one thread at a time.
+ * @author Nick Ferraro
+ */
+public class WordBloomFilter {
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int OBJECT_BYTES = 32;
+	
+	// About 1% false positives at capacity
+	private static final int BITS_PER_WORD = 10;
+	private static final int HASH_COUNT = 7;
+	
+	private final AtomicLongArray bits;
+	private final int mask;
+	private final int capacity;
+	private volatile int size = 0;
+	
+	/**
+	 * Create a filter sized for a number of words.
+	 * @param capacity The number of words the filter keeps about 1% false positives for. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when capacity is negative.
+	 */
+	public WordBloomFilter(int capacity) throws InvalidParameterException {
+		if( capacity < 0 ) {
+			throw new InvalidParameterException("Cannot size a word filter for a negative number of words");
+		}
+		
+		// Round the bit count up to a power of two, at least one long
+		long bitCount = 64;
+		while( bitCount < (long)capacity * BITS_PER_WORD && bitCount < (1L << 31) ) {
+			bitCount <<= 1;
+		}
+		
+		this.bits = new AtomicLongArray((int)(bitCount >>> 6));
+		this.mask = (int)(bitCount - 1);
+		this.capacity = capacity;
+	}
+	
+	/**
+	 * Add a word to the filter.
+	 * @param word The word to add. NULL is ignored.
+	 */
+	public void add(String word) {
+		if( word == null ) {
+			return;
+		}
+		
+		int hash = _mix(word.hashCode());
+		int step = _mix(hash ^ 0x5bd1e995) | 1;
+		for(int i = 0; i < HASH_COUNT; ++i) {
+			int bit = hash & mask;
+			long flag = 1L << bit;
+			int slot = bit >>> 6;
+			long current = bits.get(slot);
+			while( (current & flag) == 0 && !bits.compareAndSet(slot, current, current | flag) ) {
+				current = bits.get(slot);
+			}
+			hash += step;
+		}
+		++size;
+	}
+	
+	/**
+	 * Check if a word might have been added.
+	 * @param word The word to check.
+	 * @return FALSE if the word was certainly never added, TRUE if it might have been.
+	 */
+	public boolean mightContain(String word) {
+		if( word == null ) {
+			return false;
+		}
+		
+		int hash = _mix(word.hashCode());
+		int step = _mix(hash ^ 0x5bd1e995) | 1;
+		for(int i = 0; i < HASH_COUNT; ++i) {
+			int bit = hash & mask;
+			if( (bits.get(bit >>> 6) & (1L << bit)) == 0 ) {
+				return false;
+			}
+			hash += step;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Get the number of words added, counting repeats.
+	 * @return The number of adds.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Check if more words were added than the filter was sized for.
+	 * @return TRUE if the filter should be rebuilt larger.
+	 */
+	public boolean isFull() {
+		return size > capacity;
+	}
+	
+	/**
+	 * Get the estimated heap bytes retained by this filter.
+	 * @return The estimated bytes.
+	 */
+	public long getBytes() {
+		return OBJECT_BYTES + ARRAY_HEADER_BYTES + 8L * bits.length();
+	}
+	
+	/**
+	 * Mix the bits of a hash code so nearby hash codes pick unrelated bits.
+	 * @param hash The hash code.
+	 * @return The mixed hash.
+	 */
+	private static int _mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,430 @@
+package com.nickferraro.bayesian.model.compressed;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.CategoryIndex;
+import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.ILinkVisitor;
+import com.nickferraro.bayesian.model.IWordMembership;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.ModelSizeReport;
+import com.nickferraro.bayesian.model.WordBloomFilter;
+import com.nickferraro.bayesian.model.compressed.core.PostingArena;
+import com.nickferraro.bayesian.model.compressed.core.PostingCursor;
+import com.nickferraro.bayesian.model.vocabulary.ArenaVocabulary;
+
+/**
+ * This CompressedBayesianModel class is a read-only copy of another model, laid out for serving with as little memory as possible.
+ * Words are held as UTF-8 bytes in an {@link ArenaVocabulary}, and the links of each word are one compressed posting list in a shared
+ * {@link PostingArena}: category indices are delta encoded and weights are varints, so a word seen once costs two bytes of links.
+ * Lists are decoded on the fly while scoring. Each thread keeps a cursor on the last word it looked up, so scoring the categories of a
+ * word in index order, as {@link com.nickferraro.bayesian.core.BayesianSystem} does, decodes the list of the word once.
+ * <p>
+ * The model cannot be trained or changed, every method that would change it throws {@link UnsupportedOperationException}.
+ * Build a new copy with {@link #copyOf(IBayesianModel)} and swap it in to publish new training. As it is never trained or compacted,
+ * it has no listener, the {@link com.nickferraro.bayesian.core.BayesianSystem} serving it reports its classifications.
+ * </p>
+ * This class is thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type
+ */
+public class CompressedBayesianModel<T> implements IBayesianModel<T>, IWordMembership {
+	// Size estimates assume a 64-bit JVM with compressed references and 8 byte object alignment
+	private static final int ARRAY_HEADER_BYTES = 16;
+	
+	private final ModelMode mode;
+	private final CategoryIndex<T> categories;
+	private final int[] categoryCounts;
+	private final int[] categoryTokens;
+	private final int totalRows;
+	private final ArenaVocabulary vocabulary;
+	private final WordBloomFilter vocabularyFilter;
+	private final int[] wordCounts;
+	private final int[] postingOffsets;
+	private final PostingArena postings;
+	private final int totalLinks;
+	private final int hapaxWords;
+	
+	// The word each thread last looked up and a cursor on its posting list
+	private final ThreadLocal<Lookup> lookups = new ThreadLocal<Lookup>() {
+		@Override
+		protected Lookup initialValue() {
+			return new Lookup();
+		}
+	};
+	
+	/**
+	 * Create a model from its built parts. The arrays are owned by the model.
+	 */
+	private CompressedBayesianModel(ModelMode mode, CategoryIndex<T> categories, int[] categoryCounts, int[] categoryTokens, int totalRows,
+			ArenaVocabulary vocabulary, WordBloomFilter vocabularyFilter, int[] wordCounts, int[] postingOffsets, PostingArena postings, int totalLinks, int hapaxWords) {
+		this.mode = mode;
+		this.categories = categories;
+		this.categoryCounts = categoryCounts;
+		this.categoryTokens = categoryTokens;
+		this.totalRows = totalRows;
+		this.vocabulary = vocabulary;
+		this.vocabularyFilter = vocabularyFilter;
+		this.wordCounts = wordCounts;
+		this.postingOffsets = postingOffsets;
+		this.postings = postings;
+		this.totalLinks = totalLinks;
+		this.hapaxWords = hapaxWords;
+	}
+	
+	/**
+	 * Copy a model into a compressed model. The source must not be trained while it is copied.
+	 * @param source The model to copy. Cannot be NULL.
+	 * @return The compressed copy.
+	 * @throws InvalidParameterException Thrown when source is NULL.
+	 */
+	public static <T> CompressedBayesianModel<T> copyOf(IBayesianModel<T> source) throws InvalidParameterException {
+		if( source == null ) {
+			throw new InvalidParameterException("Cannot copy a NULL model");
+		}
+		
+		// Lay the category counts out by category index
+		CategoryIndex<T> categories = CategoryIndex.copyOf(source.getUniqueCategories());
+		int[] categoryCounts = new int[categories.size()];
+		int[] categoryTokens = new int[categories.size()];
+		for(int i = 0; i < categories.size(); ++i) {
+			categoryCounts[i] = source.countRowsWithCategory(categories.get(i));
+			categoryTokens[i] = source.countTokensWithCategory(categories.get(i));
+		}
+		
+		// Intern every word and append its links as a posting list, word ids are dense in the order words are added
+		List<String> words = new ArrayList<String>(source.getUniqueWords());
+		ArenaVocabulary vocabulary = new ArenaVocabulary();
+		WordBloomFilter vocabularyFilter = new WordBloomFilter(words.size());
+		int[] wordCounts = new int[words.size()];
+		int[] postingOffsets = new int[words.size() + 1];
+		PostingArena postings = new PostingArena();
+		LinkCollector<T> collector = new LinkCollector<T>(categories);
+		int totalLinks = 0;
+		int hapaxWords = 0;
+		for(String word : words) {
+			int wordId = vocabulary.add(word);
+			vocabularyFilter.add(word);
+			wordCounts[wordId] = source.countRowsWithWord(word);
+			if( wordCounts[wordId] == 1 ) {
+				++hapaxWords;
+			}
+			
+			collector.count = 0;
+			source.visitWordLinks(word, collector);
+			collector.sort();
+			postingOffsets[wordId] = postings.append(collector.indices, collector.weights, collector.count);
+			totalLinks += collector.count;
+		}
+		postingOffsets[words.size()] = postings.size();
+		postings.trim();
+		
+		return new CompressedBayesianModel<T>(source.getMode(), categories, categoryCounts, categoryTokens, source.getTotalRows(), vocabulary,
+				vocabularyFilter, wordCounts, postingOffsets, postings, totalLinks, hapaxWords);
+	}
+	
+	/**
+	 * A compressed model cannot be changed.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public boolean addCategory(T category) throws UnsupportedOperationException {
+		throw _readOnly();
+	}
+	
+	/**
+	 * A compressed model cannot be changed.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public int addCategories(List<T> categories) throws UnsupportedOperationException {
+		throw _readOnly();
+	}
+	
+	/**
+	 * A compressed model cannot be changed.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public T removeCategory(T category) throws UnsupportedOperationException {
+		throw _readOnly();
+	}
+	
+	/**
+	 * A compressed model cannot be changed.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public List<T> removeCategories(List<T> categories) throws UnsupportedOperationException {
+		throw _readOnly();
+	}
+	
+	/**
+	 * A compressed model cannot be changed.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public boolean addWord(String word) throws UnsupportedOperationException {
+		throw _readOnly();
+	}
+	
+	/**
+	 * A compressed model cannot be changed.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public int addWords(List<String> words) throws UnsupportedOperationException {
+		throw _readOnly();
+	}
+	
+	/**
+	 * A compressed model cannot be changed.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public boolean addDataRow(IDataRow<T> dataRow) throws UnsupportedOperationException {
+		throw _readOnly();
+	}
+	
+	/**
+	 * A compressed model cannot be changed.
+	 * @throws UnsupportedOperationException Always thrown.
+	 */
+	@Override
+	public int addDataRows(List<IDataRow<T>> dataRows) throws UnsupportedOperationException {
+		throw _readOnly();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int countRowsWithCategory(T category) {
+		int index = categories.indexOf(category);
+		return ( index < 0 ? 0 : categoryCounts[index] );
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int countRowsWithWord(String word) {
+		int wordId = ( word == null ? -1 : lookups.get().wordId(word) );
+		return ( wordId < 0 ? 0 : wordCounts[wordId] );
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The posting list of the word is decoded up to the category. When the categories of one word are looked up in increasing index
+	 * order, the thread's cursor resumes where the last lookup stopped. This method is thread-safe.
+	 */
+	@Override
+	public int countRowsWithCategoryWithWord(T category, String word) {
+		int index = categories.indexOf(category);
+		if( index < 0 || word == null ) {
+			return 0;
+		}
+		
+		Lookup lookup = lookups.get();
+		int wordId = lookup.wordId(word);
+		if( wordId < 0 ) {
+			return 0;
+		}
+		
+		// Reopen the list unless the cursor is on this word and has not passed the category yet
+		PostingCursor cursor = lookup.cursor;
+		if( cursor.getOwner() != wordId || cursor.getCategoryIndex() > index ) {
+			cursor.open(postings, postingOffsets[wordId], postingOffsets[wordId + 1], wordId);
+		}
+		
+		return cursor.seek(index);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * Categories are visited in index order. This method is thread-safe.
+	 */
+	@Override
+	public int visitWordLinks(String word, ILinkVisitor<T> visitor) {
+		// Validate word and visitor parameters
+		if( word == null || visitor == null ) {
+			return 0;
+		}
+		
+		Lookup lookup = lookups.get();
+		int wordId = lookup.wordId(word);
+		if( wordId < 0 ) {
+			return 0;
+		}
+		
+		// Decode with a cursor of its own, the visitor may look words up on this thread
+		PostingCursor cursor = new PostingCursor();
+		cursor.open(postings, postingOffsets[wordId], postingOffsets[wordId + 1], wordId);
+		int visited = 0;
+		while( cursor.next() ) {
+			visitor.visitLink(categories.get(cursor.getCategoryIndex()), cursor.getWeight());
+			++visited;
+		}
+		
+		return visited;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int countTokensWithCategory(T category) {
+		int index = categories.indexOf(category);
+		return ( index < 0 ? 0 : categoryTokens[index] );
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int getTotalRows() {
+		return totalRows;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The categories are returned as an immutable {@link CategoryIndex}. This method is thread-safe.
+	 */
+	@Override
+	public Set<T> getUniqueCategories() {
+		return categories;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The words are returned as a read-only view, iterating it decodes each word into a new string. This method is thread-safe.
+	 */
+	@Override
+	public Set<String> getUniqueWords() {
+		return vocabulary.asSet();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The filter is sized for the exact vocabulary when the model is built and never changes.
+	 */
+	@Override
+	public boolean mightContainWord(String word) {
+		return vocabularyFilter.mightContain(word);
+	}
+	
+	@Override
+	public ModelMode getMode() {
+		return mode;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * Word counts and posting list offsets are reported as word node bytes, category counts as category node bytes and the posting
+	 * arena as link bytes. This method is thread-safe.
+	 */
+	@Override
+	public ModelSizeReport getSizeReport() {
+		long wordBytes = _arrayBytes(wordCounts.length) + _arrayBytes(postingOffsets.length);
+		long categoryBytes = _arrayBytes(categoryCounts.length) + _arrayBytes(categoryTokens.length);
+		
+		return new ModelSizeReport(wordCounts.length, categories.size(), totalLinks, hapaxWords, vocabulary.getBytes(), wordBytes,
+				categoryBytes, postings.getBytes(), vocabularyFilter.getBytes(), 0);
+	}
+	
+	/**
+	 * Create the exception thrown by every method that would change this model.
+	 * @return The exception to throw.
+	 */
+	private static UnsupportedOperationException _readOnly() {
+		return new UnsupportedOperationException("A compressed model is read-only");
+	}
+	
+	/**
+	 * Estimate the bytes of an int array.
+	 * @param length The length of the array.
+	 * @return The estimated bytes.
+	 */
+	private static long _arrayBytes(int length) {
+		return (ARRAY_HEADER_BYTES + 4L * length + 7) & ~7L;
+	}
+	
+	/**
+	 * The word a thread last looked up, and a cursor on its posting list.
+	 */
+	private final class Lookup {
+		private final PostingCursor cursor = new PostingCursor();
+		private String word = null;
+		private int wordId = -1;
+		
+		/**
+		 * Get the id of a word, reusing the last id when the same word is looked up again.
+		 * @param word The word to look up.
+		 * @return The word id, or -1 if the model does not hold the word.
+		 */
+		private int wordId(String word) {
+			if( word != this.word && !word.equals(this.word) ) {
+				this.word = word;
+				this.wordId = vocabulary.getId(word);
+				cursor.close();
+			}
+			
+			return wordId;
+		}
+	}
+	
+	/**
+	 * Collects the links of a word by category index while copying a model.
+	 */
+	private static final class LinkCollector<T> implements ILinkVisitor<T> {
+		private final CategoryIndex<T> categories;
+		private int[] indices = new int[8];
+		private int[] weights = new int[8];
+		private long[] sortBuffer = new long[8];
+		private int count = 0;
+		
+		private LinkCollector(CategoryIndex<T> categories) {
+			this.categories = categories;
+		}
+		
+		@Override
+		public void visitLink(T category, int weight) {
+			int index = categories.indexOf(category);
+			if( index < 0 || weight <= 0 ) {
+				return;
+			}
+			
+			if( count == indices.length ) {
+				indices = Arrays.copyOf(indices, count * 2);
+				weights = Arrays.copyOf(weights, count * 2);
+				sortBuffer = new long[count * 2];
+			}
+			indices[count] = index;
+			weights[count++] = weight;
+		}
+		
+		/**
+		 * Sort the collected links by category index.
+		 */
+		private void sort() {
+			for(int i = 0; i < count; ++i) {
+				sortBuffer[i] = ((long)indices[i] << 32) | weights[i];
+			}
+			Arrays.sort(sortBuffer, 0, count);
+			for(int i = 0; i < count; ++i) {
+				indices[i] = (int)(sortBuffer[i] >>> 32);
+				weights[i] = (int)sortBuffer[i];
+			}
+		}
+	}
+}
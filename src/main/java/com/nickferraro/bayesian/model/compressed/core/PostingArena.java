@@ -0,0 +1,93 @@
+package com.nickferraro.bayesian.model.compressed.core;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+/**
+ * An append-only byte arena of posting lists. Each list is a run of (category index, weight) pairs sorted by category index, where the
+ * index is stored as the varint delta from the previous index and the weight as a varint. A word linked to one category with weight 1
+ * costs two bytes. Lists are read back with a {@link PostingCursor}.
+ * This class is not thread-safe while appending, and is safe to read from many threads once appending is done.
+ * @author Nick Ferraro
+ */
+public class PostingArena {
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int OBJECT_BYTES = 24;
+	
+	private byte[] bytes = new byte[256];
+	private int size = 0;
+	
+	/**
+	 * Append a posting list. The category indices must be distinct and in increasing order, and the weights positive.
+	 * @param categoryIndices The category indices.
+	 * @param weights The link weights, parallel to categoryIndices.
+	 * @param count The number of links to append.
+	 * @return The position of the list in the arena. The list ends where the next list starts.
+	 * @throws InvalidParameterException Thrown when the indices are not increasing or a weight is not positive.
+	 */
+	public int append(int[] categoryIndices, int[] weights, int count) throws InvalidParameterException {
+		int start = size;
+		int previous = -1;
+		for(int i = 0; i < count; ++i) {
+			if( categoryIndices[i] <= previous || weights[i] <= 0 ) {
+				size = start;
+				throw new InvalidParameterException("Posting list links must have increasing category indices and positive weights");
+			}
+			
+			_writeVarint(categoryIndices[i] - previous - 1);
+			_writeVarint(weights[i]);
+			previous = categoryIndices[i];
+		}
+		
+		return start;
+	}
+	
+	/**
+	 * Shrink the arena to the bytes in use. Call once appending is done.
+	 */
+	public void trim() {
+		if( bytes.length != size ) {
+			bytes = Arrays.copyOf(bytes, size);
+		}
+	}
+	
+	/**
+	 * Get the number of bytes appended.
+	 * @return The arena size.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the estimated heap bytes retained by this arena.
+	 * @return The estimated bytes.
+	 */
+	public long getBytes() {
+		return OBJECT_BYTES + ARRAY_HEADER_BYTES + ((bytes.length + 7) & ~7L);
+	}
+	
+	/**
+	 * Get the arena bytes for a cursor to decode.
+	 * @return The backing array. Must not be modified.
+	 */
+	byte[] bytes() {
+		return bytes;
+	}
+	
+	/**
+	 * Write an unsigned varint, 7 bits per byte with the high bit set on every byte but the last.
+	 * @param value The value to write. Must not be negative.
+	 */
+	private void _writeVarint(int value) {
+		if( size + 5 > bytes.length ) {
+			bytes = Arrays.copyOf(bytes, Math.max(size + 5, bytes.length * 2));
+		}
+		
+		while( (value & ~0x7F) != 0 ) {
+			bytes[size++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[size++] = (byte)value;
+	}
+}
@@ -0,0 +1,110 @@
+package com.nickferraro.bayesian.model.compressed.core;
+
+/**
+ * Decodes a posting list of a {@link PostingArena} one link at a time, without allocating. A cursor can be kept open and moved forward
+ * with {@link #seek(int)}, so looking up the categories of a word in increasing index order decodes its list only once.
+ * This class is not thread-safe, each thread uses its own cursor.
+ * @author Nick Ferraro
+ */
+public class PostingCursor {
+	private byte[] bytes = null;
+	private int position = 0;
+	private int end = 0;
+	private int categoryIndex = -1;
+	private int weight = 0;
+	private int owner = -1;
+	
+	/**
+	 * Open a posting list.
+	 * @param arena The arena holding the list.
+	 * @param start The position of the list.
+	 * @param end The position after the list.
+	 * @param owner An id of the list, such as a word id, to tell later lookups which list is open.
+	 */
+	public void open(PostingArena arena, int start, int end, int owner) {
+		this.bytes = arena.bytes();
+		this.position = start;
+		this.end = end;
+		this.categoryIndex = -1;
+		this.weight = 0;
+		this.owner = owner;
+	}
+	
+	/**
+	 * Close the open list, so no later lookup resumes from it.
+	 */
+	public void close() {
+		this.owner = -1;
+		this.bytes = null;
+	}
+	
+	/**
+	 * Get the id the open list was opened with.
+	 * @return The owner id, or -1 if no list is open.
+	 */
+	public int getOwner() {
+		return owner;
+	}
+	
+	/**
+	 * Move to the next link of the list.
+	 * @return TRUE if the cursor is on a link, FALSE if the list has ended.
+	 */
+	public boolean next() {
+		if( position >= end ) {
+			categoryIndex = Integer.MAX_VALUE;
+			weight = 0;
+			return false;
+		}
+		
+		categoryIndex += _readVarint() + 1;
+		weight = _readVarint();
+		return true;
+	}
+	
+	/**
+	 * Move forward to the first link with a category index of at least a target. The cursor never moves back.
+	 * @param target The category index to find.
+	 * @return The weight of the link to the target category, or 0 if the list has no such link.
+	 */
+	public int seek(int target) {
+		while( categoryIndex < target && next() ) {
+			// Skip links before the target
+		}
+		
+		return ( categoryIndex == target ? weight : 0 );
+	}
+	
+	/**
+	 * Get the category index of the current link.
+	 * @return The category index, -1 before the first link or Integer.MAX_VALUE after the last.
+	 */
+	public int getCategoryIndex() {
+		return categoryIndex;
+	}
+	
+	/**
+	 * Get the weight of the current link.
+	 * @return The link weight, 0 if the cursor is not on a link.
+	 */
+	public int getWeight() {
+		return weight;
+	}
+	
+	/**
+	 * Read an unsigned varint at the current position.
+	 * @return The value.
+	 */
+	private int _readVarint() {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = bytes[position++];
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while( (b & 0x80) != 0 );
+		
+		return value;
+	}
+}
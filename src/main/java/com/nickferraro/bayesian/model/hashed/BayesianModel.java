@@ -1,18 +1,37 @@
 package com.nickferraro.bayesian.model.hashed;
 
+import java.io.IOException;
+import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import com.nickferraro.bayesian.IBayesianListener;
 import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.CategoryIndex;
 import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.ICompactableModel;
+import com.nickferraro.bayesian.model.ILinkVisitor;
+import com.nickferraro.bayesian.model.IWordMembership;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.ModelSizeReport;
+import com.nickferraro.bayesian.model.WordBloomFilter;
+import com.nickferraro.bayesian.model.hashed.core.AdaptiveLinkMap;
 import com.nickferraro.bayesian.model.hashed.core.CategoryNode;
 import com.nickferraro.bayesian.model.hashed.core.Link;
 import com.nickferraro.bayesian.model.hashed.core.WordNode;
+import com.nickferraro.bayesian.model.io.ModelDelta;
+import com.nickferraro.bayesian.model.io.ModelSnapshotReader;
+import com.nickferraro.bayesian.model.io.SnapshotWord;
 
 /**
  * This BayesianModel class uses a Graph-like Hash to map input words to an output category.
@@ -22,19 +41,97 @@ import com.nickferraro.bayesian.model.hashed.core.WordNode;
  *
  * @param <T> The category data type
  */
-public class BayesianModel<T> implements IBayesianModel<T> {
+public class BayesianModel<T> implements IBayesianModel<T>, IWordMembership, ICompactableModel {
+	// Size estimates assume a 64-bit JVM with compressed references and 8 byte object alignment
+	private static final int NODE_BYTES = 24;
+	private static final int WORD_NODE_BYTES = 32;
+	private static final int LINK_BYTES = 24;
+	private static final int MAP_BYTES = 48;
+	private static final int MAP_ENTRY_BYTES = 32;
+	private static final int STRING_BYTES = 24;
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int REFERENCE_BYTES = 4;
+	private static final int MIN_FILTER_CAPACITY = 1024;
+	
 	private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 	private Lock readLock = readWriteLock.readLock();
 	private Lock writeLock = readWriteLock.writeLock();
 	
-	private HashMap<T, CategoryNode<T>> categoryNodes = new HashMap<T, CategoryNode<T>>();
+	// Category nodes are kept in an EnumMap when categories are enum constants
+	private Map<T, CategoryNode<T>> categoryNodes = new HashMap<T, CategoryNode<T>>();
+	
+	// Categories in the order they were added. The immutable index over them is dropped on a change and built again on the next read.
+	private LinkedHashSet<T> categoryOrder = new LinkedHashSet<T>();
+	private volatile CategoryIndex<T> categoryIndex = CategoryIndex.empty();
 	private HashMap<String, WordNode<T>> wordNodes = new HashMap<String, WordNode<T>>();
+	
+	// Word nodes in no particular order. A snapshot only keeps its length, so while one is open nodes are only appended and removed ones
+	// stay in it until the snapshot closes. Otherwise a removed node is replaced by the last one.
+	private ArrayList<WordNode<T>> wordOrder = new ArrayList<WordNode<T>>();
+	private int removedWordOrderNodes = 0;
+	
+	// Read without the lock to rule out unknown words, replaced with a larger filter when full
+	private volatile WordBloomFilter vocabularyFilter = new WordBloomFilter(MIN_FILTER_CAPACITY);
 	private int totalRows = 0;
+	private final ModelMode mode;
+	
+	// Incrementally maintained statistics for the size report
+	private int totalLinks = 0;
+	private int hapaxWords = 0;
+	private long vocabularyBytes = 0;
+	private long linkMapBytes = 0;
+	
+	// Hash maps keep the table capacity they grew to after entries are removed, until the model is compacted
+	private int wordTableSlots = 0;
+	private int categoryTableSlots = 0;
+	private int removedEntries = 0;
+	
+	// The open snapshot that word and category nodes must be preserved for before they change
+	private ModelSnapshot<T> activeSnapshot = null;
+	
+	// Every change moves the model to a new version, tracked changes are exported as deltas between versions
+	private long version = 0;
+	private ChangeTracker<T> changeTracker = null;
+	private List<ModelDelta<T>> sealedDeltas = new ArrayList<ModelDelta<T>>();
+	
+	// Receives training, snapshot and compaction events, nothing is measured while it is NULL
+	private volatile IBayesianListener listener = null;
+	
+	/**
+	 * Default constructor. The model is trained in {@link ModelMode#BERNOULLI} mode.
+	 */
+	public BayesianModel() {
+		this(ModelMode.BERNOULLI);
+	}
+	
+	/**
+	 * Constructor that sets the event model used for training.
+	 * @param mode The mode of this model. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when mode is NULL.
+	 */
+	public BayesianModel(ModelMode mode) throws InvalidParameterException {
+		if( mode == null ) {
+			throw new InvalidParameterException("Cannot create a model with a NULL mode");
+		}
+		
+		this.mode = mode;
+	}
+	
+	/**
+	 * Set the listener that receives training, snapshot and compaction events of this model. This method is thread-safe.
+	 * @param listener The listener. NULL stops emitting events.
+	 */
+	public void setListener(IBayesianListener listener) {
+		this.listener = listener;
+	}
 	
 	/**
-	 * Default constructor
+	 * Get the listener that receives the events of this model. This method is thread-safe.
+	 * @return The listener, or NULL if there is none.
 	 */
-	public BayesianModel() {}
+	public IBayesianListener getListener() {
+		return listener;
+	}
 	
 	/**
 	 * {@inheritDoc}
@@ -53,7 +150,7 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			writeLock.unlock();
 		}
 	}
-
+	
 	/**
 	 * {@inheritDoc}
 	 * This method is thread-safe.
@@ -139,7 +236,7 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			writeLock.unlock();
 		}
 	}
-
+	
 	/**
 	 * {@inheritDoc}
 	 * This method is thread-safe.
@@ -168,7 +265,7 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 		if( words == null ) {
 			return 0;
 		}
-				
+		
 		// Lock
 		writeLock.lock();
 		
@@ -191,10 +288,17 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 	
 	/**
 	 * {@inheritDoc}
-	 * This method requires a valid category and non-null set of unique words from the data row. This method is thread-safe.
+	 * This method requires a valid category and non-null set of unique words from the data row, 
+	 * or a non-null list of words in {@link ModelMode#MULTINOMIAL} mode. This method is thread-safe.
 	 */
 	@Override
 	public boolean addDataRow(IDataRow<T> dataRow) {
+		// Observed training takes the measured path
+		IBayesianListener observer = listener;
+		if( observer != null ) {
+			return _addObservedDataRows(Collections.singletonList(dataRow), observer) == 1;
+		}
+		
 		// Lock
 		writeLock.lock();
 		
@@ -206,7 +310,7 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			writeLock.unlock();
 		}
 	}
-
+	
 	/**
 	 * {@inheritDoc}
 	 * This method requires data rows with a valid category and non-null set of unique words from the data row. This method is thread-safe.
@@ -218,6 +322,12 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			return 0;
 		}
 		
+		// Observed training takes the measured path
+		IBayesianListener observer = listener;
+		if( observer != null ) {
+			return _addObservedDataRows(dataRows, observer);
+		}
+		
 		// Lock
 		writeLock.lock();
 		
@@ -238,6 +348,81 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 		}
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * The visitor is called while the read lock is held. This method is thread-safe.
+	 */
+	@Override
+	public int visitWordLinks(String word, ILinkVisitor<T> visitor) {
+		// Validate word and visitor parameters
+		if( word == null || visitor == null ) {
+			return 0;
+		}
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get word node
+			WordNode<T> wordNode = wordNodes.get(word);
+			if( wordNode == null ) {
+				return 0;
+			}
+			
+			// Visit each link of the word node
+			for(Link<T> link : wordNode.getLinks()) {
+				visitor.visitLink(link.getCategoryNode().getValue(), link.getWeight());
+			}
+			
+			return wordNode.getLinksCount();
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int countTokensWithCategory(T category) {
+		// Validate category parameter
+		if( category == null ) {
+			return 0;
+		}
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get category node and its token count
+			CategoryNode<T> categoryNode = categoryNodes.get(category);
+			return ( categoryNode == null ? 0 : categoryNode.getTokenCount() );
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The mode never changes, so this method does not lock.
+	 */
+	@Override
+	public ModelMode getMode() {
+		return mode;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The vocabulary filter is read without a lock, so this method is thread-safe and never blocks.
+	 */
+	@Override
+	public boolean mightContainWord(String word) {
+		return vocabularyFilter.mightContain(word);
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 * This method is thread-safe.
@@ -255,19 +440,20 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			readLock.unlock();
 		}
 	}
-
+	
 	/**
 	 * {@inheritDoc}
+	 * The set is an immutable {@link CategoryIndex} in the order categories were added, so it can be iterated without holding a lock.
 	 * This method is thread-safe.
 	 */
 	@Override
 	public Set<T> getUniqueCategories() {
 		// Lock
 		readLock.lock();
-
+		
 		try {
-			// Get number of unique category nodes
-			return categoryNodes.keySet();
+			// Get the current category index
+			return _categoryIndex();
 		} finally {
 			// Unlock
 			readLock.unlock();
@@ -282,7 +468,7 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 	public Set<String> getUniqueWords() {
 		// Lock
 		readLock.lock();
-
+		
 		try {
 			// Get number of unique category nodes
 			return wordNodes.keySet();
@@ -333,20 +519,20 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 		if( word == null ) {
 			return 0;
 		}
-				
+		
 		// Lock
 		readLock.lock();
-
+		
 		try {
 			// Get word node
 			WordNode<T> wordNode = wordNodes.get(word);
-					
+			
 			// Set the default return to 0 and get word count
 			int count = 0;
 			if( wordNode != null ) {
 				count = wordNode.getCount();
 			}
-					
+			
 			return count;
 		} finally {
 			// Unlock
@@ -384,7 +570,508 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			readLock.unlock();
 		}
 	}
-
+	
+	/**
+	 * {@inheritDoc}
+	 * The report is maintained incrementally, so this method runs in constant time. 
+	 * Map tables are estimated at the largest capacity they grew to since the model was created or compacted. This method is thread-safe.
+	 */
+	@Override
+	public ModelSizeReport getSizeReport() {
+		// Lock
+		readLock.lock();
+		
+		try {
+			int words = wordNodes.size();
+			int categories = categoryNodes.size();
+			
+			// Every node owns one adaptive links map, the model owns one hash map for each node type
+			// The links map estimate is kept relative to empty maps
+			long mapBytes = 2L * MAP_BYTES + (long)(words + categories) * (MAP_ENTRY_BYTES + AdaptiveLinkMap.estimateBytes(0));
+			mapBytes += linkMapBytes + _tableBytes(wordTableSlots) + _tableBytes(categoryTableSlots) + vocabularyFilter.getBytes();
+			mapBytes += ARRAY_HEADER_BYTES + (long)wordOrder.size() * REFERENCE_BYTES;
+			
+			return new ModelSizeReport(words, categories, totalLinks, hapaxWords, vocabularyBytes, (long)words * WORD_NODE_BYTES, 
+					(long)categories * NODE_BYTES, (long)totalLinks * LINK_BYTES, mapBytes, 0);
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The word and category maps are copied at the capacity their current size needs, and the vocabulary filter is rebuilt without the
+	 * removed words. Nodes and links are kept as they are, their link maps already shrink as links are removed. The copies are made under
+	 * the read lock, and the write lock is held only to swap them in. If training changed the model while the copies were made, they are
+	 * made again under the write lock. Compacting does not change the model version. This method is thread-safe.
+	 */
+	@Override
+	public long compact() {
+		long start = System.nanoTime();
+		long bytesBefore = getSizeReport().getTotalBytes();
+		int compactedEntries;
+		HashMap<String, WordNode<T>> compactedWordNodes;
+		Map<T, CategoryNode<T>> compactedCategoryNodes;
+		WordBloomFilter compactedFilter;
+		long compactedVersion;
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Copy the maps while classification continues
+			compactedVersion = version;
+			compactedWordNodes = _copyWordNodes();
+			compactedCategoryNodes = _copyCategoryNodes();
+			compactedFilter = _buildVocabularyFilter();
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Training slipped in between the locks, copy again while it is blocked
+			if( version != compactedVersion ) {
+				compactedWordNodes = _copyWordNodes();
+				compactedCategoryNodes = _copyCategoryNodes();
+				compactedFilter = _buildVocabularyFilter();
+			}
+			
+			wordNodes = compactedWordNodes;
+			categoryNodes = compactedCategoryNodes;
+			categoryOrder = new LinkedHashSet<T>(categoryOrder);
+			vocabularyFilter = compactedFilter;
+			wordTableSlots = _tableSlots(wordNodes.size());
+			categoryTableSlots = _tableSlots(categoryNodes.size());
+			compactedEntries = removedEntries;
+			removedEntries = 0;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+		
+		long releasedBytes = Math.max(0, bytesBefore - getSizeReport().getTotalBytes());
+		IBayesianListener observer = listener;
+		if( observer != null ) {
+			observer.compacted(compactedEntries, releasedBytes, System.nanoTime() - start);
+		}
+		
+		return releasedBytes;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int getRemovedEntries() {
+		// Lock
+		readLock.lock();
+		
+		try {
+			return removedEntries;
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * Take a point-in-time snapshot of this model. The write lock is held only to record the version, the totals, the category index
+	 * and the length of the word order, nothing is copied no matter how large the vocabulary is. Training and classification continue
+	 * while the snapshot is written. See {@link ModelSnapshot}. This method is thread-safe.
+	 * @return The open snapshot. Close it when done.
+	 * @throws IllegalStateException Thrown when another snapshot of this model is still open.
+	 */
+	public ModelSnapshot<T> beginSnapshot() throws IllegalStateException {
+		ModelSnapshot<T> snapshot;
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			if( activeSnapshot != null ) {
+				throw new IllegalStateException("A snapshot of this model is already open");
+			}
+			
+			long freezeStart = System.nanoTime();
+			
+			// Every snapshot version is a delta boundary, so a replica created from it can catch up with the exported deltas
+			_sealChanges();
+			
+			// Word and category nodes are preserved before they first change, so only their extent is recorded
+			activeSnapshot = new ModelSnapshot<T>(this, readLock, mode, version, totalRows, _categoryIndex(), wordOrder.size(), wordNodes.size(), 
+					freezeStart);
+			snapshot = activeSnapshot;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+		
+		IBayesianListener observer = listener;
+		if( observer != null ) {
+			observer.snapshotTaken(snapshot.getWordCount(), snapshot.getFreezeNanos());
+		}
+		
+		return snapshot;
+	}
+	
+	/**
+	 * Create a model from a snapshot. The reader's header must not have been read past, every word record is consumed.
+	 * @param reader The snapshot to read.
+	 * @return A new model holding the snapshot's counts.
+	 * @throws IOException Thrown when the snapshot cannot be read.
+	 */
+	public static <T> BayesianModel<T> readSnapshot(ModelSnapshotReader<T> reader) throws IOException {
+		return readSnapshot(reader, null);
+	}
+	
+	/**
+	 * Create a model from a snapshot and set its listener, which is told how long the snapshot took to read.
+	 * The reader's header must not have been read past, every word record is consumed.
+	 * @param reader The snapshot to read.
+	 * @param listener The listener of the new model. NULL emits no events.
+	 * @return A new model holding the snapshot's counts.
+	 * @throws IOException Thrown when the snapshot cannot be read.
+	 */
+	public static <T> BayesianModel<T> readSnapshot(ModelSnapshotReader<T> reader, IBayesianListener listener) throws IOException {
+		long start = System.nanoTime();
+		BayesianModel<T> bayesianModel = new BayesianModel<T>(reader.getMode());
+		
+		// Restore categories and their counts
+		List<T> categories = reader.getCategories();
+		List<CategoryNode<T>> categoryNodeList = new ArrayList<CategoryNode<T>>(categories.size());
+		for(int i = 0; i < categories.size(); ++i) {
+			bayesianModel._addCategory(categories.get(i));
+			CategoryNode<T> categoryNode = bayesianModel.categoryNodes.get(categories.get(i));
+			categoryNode.setCount(reader.getCategoryRows(i));
+			categoryNode.setTokenCount(reader.getCategoryTokens(i));
+			categoryNodeList.add(categoryNode);
+		}
+		bayesianModel.totalRows = reader.getTotalRows();
+		
+		// Restore words and their links
+		SnapshotWord word;
+		while( (word = reader.nextWord()) != null ) {
+			bayesianModel._addWord(word.getWord());
+			WordNode<T> wordNode = bayesianModel.wordNodes.get(word.getWord());
+			bayesianModel._setWordCount(wordNode, word.getCount());
+			for(int i = 0; i < word.getLinkCount(); ++i) {
+				bayesianModel._linkNodes(categoryNodeList.get(word.getCategoryIndex(i)), wordNode, word.getWeight(i));
+			}
+		}
+		bayesianModel.version = reader.getModelVersion();
+		
+		bayesianModel.listener = listener;
+		if( listener != null ) {
+			listener.snapshotRead(bayesianModel.wordNodes.size(), System.nanoTime() - start);
+		}
+		
+		return bayesianModel;
+	}
+	
+	/**
+	 * Get the version of this model. The version increases with every change, and is set to the ending version of an applied delta.
+	 * This method is thread-safe.
+	 * @return The model version.
+	 */
+	public long getVersion() {
+		// Lock
+		readLock.lock();
+		
+		try {
+			return version;
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * Start tracking the changes made to this model so they can be exported with {@link #exportDeltas()}. 
+	 * Does nothing if changes are already tracked. This method is thread-safe.
+	 * @return The version the tracked changes start from.
+	 */
+	public long startChangeTracking() {
+		// Lock
+		writeLock.lock();
+		
+		try {
+			if( changeTracker == null ) {
+				changeTracker = new ChangeTracker<T>(version);
+			}
+			
+			return ( sealedDeltas.isEmpty() ? changeTracker.getFromVersion() : sealedDeltas.get(0).getFromVersion() );
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Stop tracking changes. Changes that were not exported are discarded. This method is thread-safe.
+	 */
+	public void stopChangeTracking() {
+		// Lock
+		writeLock.lock();
+		
+		try {
+			changeTracker = null;
+			sealedDeltas.clear();
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Export the changes made since the last export, or since tracking started. Changes are usually exported as a single delta,
+	 * but taking a snapshot ends a delta at the snapshot version so replicas created from the snapshot can apply the deltas after it.
+	 * The write lock is held while the tracked changes are copied. This method is thread-safe.
+	 * @return The deltas in version order. Empty if nothing changed.
+	 * @throws IllegalStateException Thrown when changes are not tracked.
+	 */
+	public List<ModelDelta<T>> exportDeltas() throws IllegalStateException {
+		// Lock
+		writeLock.lock();
+		
+		try {
+			if( changeTracker == null ) {
+				throw new IllegalStateException("Changes of this model are not tracked");
+			}
+			
+			_sealChanges();
+			List<ModelDelta<T>> deltas = new ArrayList<ModelDelta<T>>(sealedDeltas);
+			sealedDeltas.clear();
+			return deltas;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Apply a delta exported by another model. The whole delta is applied under the write lock, so readers see either none
+	 * or all of it. Deltas must be applied in order: one that ends at or before the current version was already applied and is skipped.
+	 * Changes made by applying a delta are tracked like any other, so replicas can be chained. This method is thread-safe.
+	 * @param delta The delta to apply. Cannot be NULL.
+	 * @return TRUE if the delta was applied, FALSE if it was already applied.
+	 * @throws InvalidParameterException Thrown when delta is NULL.
+	 * @throws IllegalStateException Thrown when the delta starts from a different version than this model.
+	 */
+	public boolean applyDelta(ModelDelta<T> delta) throws InvalidParameterException, IllegalStateException {
+		// Validate delta parameter
+		if( delta == null ) {
+			throw new InvalidParameterException("Cannot apply a NULL delta");
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			if( delta.getToVersion() <= version && delta.getFromVersion() < version ) {
+				return false;
+			}
+			if( delta.getFromVersion() != version ) {
+				throw new IllegalStateException("Cannot apply a delta from version " + delta.getFromVersion() + " to a model at version " + version);
+			}
+			
+			_applyDelta(delta);
+			return true;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Stop preserving word nodes for a snapshot. This method is thread-safe.
+	 * @param snapshot The snapshot that was closed.
+	 */
+	void _endSnapshot(ModelSnapshot<T> snapshot) {
+		// Lock
+		writeLock.lock();
+		
+		try {
+			if( activeSnapshot == snapshot ) {
+				activeSnapshot = null;
+				if( removedWordOrderNodes > 0 ) {
+					_sweepWordOrder();
+				}
+			}
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * Save the pre-image of a word node for the open snapshot, if any. Must be called before the word node changes. 
+	 * This method is not thread-safe.
+	 * @param wordNode The word node about to change
+	 */
+	private void _preserveWord(WordNode<T> wordNode) {
+		if( activeSnapshot != null ) {
+			activeSnapshot.preserve(wordNode);
+		}
+	}
+	
+	/**
+	 * Save the counts of a category node for the open snapshot, if any. Must be called before the category node changes or is removed.
+	 * This method is not thread-safe.
+	 * @param categoryNode The category node about to change
+	 */
+	private void _preserveCategory(CategoryNode<T> categoryNode) {
+		if( activeSnapshot != null ) {
+			activeSnapshot.preserveCategory(categoryNode);
+		}
+	}
+	
+	/**
+	 * Take a removed word node out of the word order, moving the last node into its place. While a snapshot is open the node stays
+	 * until the snapshot closes. This method is not thread-safe.
+	 * @param wordNode The word node that was removed from the model
+	 */
+	private void _removeFromWordOrder(WordNode<T> wordNode) {
+		if( activeSnapshot != null ) {
+			++removedWordOrderNodes;
+			return;
+		}
+		
+		int index = wordNode.getOrderIndex();
+		WordNode<T> lastNode = wordOrder.remove(wordOrder.size() - 1);
+		if( lastNode != wordNode ) {
+			wordOrder.set(index, lastNode);
+			lastNode.setOrderIndex(index);
+		}
+		wordNode.setOrderIndex(-1);
+	}
+	
+	/**
+	 * Take the word nodes removed while a snapshot was open out of the word order. This method is not thread-safe.
+	 */
+	private void _sweepWordOrder() {
+		int liveCount = 0;
+		for(int i = 0; i < wordOrder.size(); ++i) {
+			WordNode<T> wordNode = wordOrder.get(i);
+			if( _isLiveWord(wordNode) ) {
+				wordOrder.set(liveCount, wordNode);
+				wordNode.setOrderIndex(liveCount);
+				++liveCount;
+			} else {
+				wordNode.setOrderIndex(-1);
+			}
+		}
+		wordOrder.subList(liveCount, wordOrder.size()).clear();
+		removedWordOrderNodes = 0;
+	}
+	
+	/**
+	 * Get a word node by its position in the word order. Must be called while holding one of the locks.
+	 * @param index The position of the word node. Must be less than the word order length recorded by an open snapshot.
+	 * @return The word node, which may have been removed from the model.
+	 */
+	WordNode<T> _getWordNode(int index) {
+		return wordOrder.get(index);
+	}
+	
+	/**
+	 * Check if a word node is still in the model. This method is not thread-safe.
+	 * @param wordNode The word node to check
+	 * @return TRUE if the word node was not removed.
+	 */
+	private boolean _isLiveWord(WordNode<T> wordNode) {
+		return wordNodes.get(wordNode.getValue()) == wordNode;
+	}
+	
+	/**
+	 * Get a category node. Must be called while holding one of the locks.
+	 * @param category The category of the node.
+	 * @return The category node, or NULL if the category is not in the model.
+	 */
+	CategoryNode<T> _getCategoryNode(T category) {
+		return categoryNodes.get(category);
+	}
+	
+	/**
+	 * Move the tracked changes, if any, into a delta ending at the current version and start tracking from there.
+	 * This method is not thread-safe.
+	 */
+	private void _sealChanges() {
+		if( changeTracker != null && version > changeTracker.getFromVersion() ) {
+			sealedDeltas.add(changeTracker.toDelta(version));
+			changeTracker = new ChangeTracker<T>(version);
+		}
+	}
+	
+	/**
+	 * Replay the changes of a delta on this model. Removed categories come first, then categories and words are created if missing
+	 * and their increments are added. This method is not thread-safe.
+	 * @param delta The delta to apply
+	 */
+	private void _applyDelta(ModelDelta<T> delta) {
+		for(T category : delta.getRemovedCategories()) {
+			_removeCategory(category);
+		}
+		
+		// Add category increments
+		List<T> categories = delta.getCategories();
+		List<CategoryNode<T>> categoryNodeList = new ArrayList<CategoryNode<T>>(categories.size());
+		for(int i = 0; i < categories.size(); ++i) {
+			T category = categories.get(i);
+			_addCategory(category);
+			CategoryNode<T> categoryNode = categoryNodes.get(category);
+			_preserveCategory(categoryNode);
+			categoryNode.setCount(categoryNode.getCount() + delta.getCategoryRows(i));
+			categoryNode.setTokenCount(categoryNode.getTokenCount() + delta.getCategoryTokens(i));
+			if( changeTracker != null ) {
+				changeTracker.changeCategory(category, delta.getCategoryRows(i), delta.getCategoryTokens(i));
+			}
+			categoryNodeList.add(categoryNode);
+		}
+		this.totalRows += delta.getTotalRows();
+		
+		// Add word and link increments
+		for(SnapshotWord word : delta.getWords()) {
+			_addWord(word.getWord());
+			WordNode<T> wordNode = wordNodes.get(word.getWord());
+			_preserveWord(wordNode);
+			_setWordCount(wordNode, wordNode.getCount() + word.getCount());
+			if( changeTracker != null ) {
+				changeTracker.changeWord(word.getWord(), word.getCount());
+			}
+			
+			for(int i = 0; i < word.getLinkCount(); ++i) {
+				CategoryNode<T> categoryNode = categoryNodeList.get(word.getCategoryIndex(i));
+				_linkNodes(categoryNode, wordNode, word.getWeight(i));
+				if( changeTracker != null ) {
+					changeTracker.changeLink(word.getWord(), categoryNode.getValue(), word.getWeight(i));
+				}
+			}
+		}
+		
+		this.version = delta.getToVersion();
+	}
+	
+	/**
+	 * Get the index over the categories in the order they were added, building it if a category was added or removed since the last
+	 * read. Must be called with the read or write lock held. Readers that find no index at the same time each build an equal one.
+	 * @return The category index.
+	 */
+	private CategoryIndex<T> _categoryIndex() {
+		CategoryIndex<T> index = categoryIndex;
+		if( index == null ) {
+			index = CategoryIndex.copyOf(categoryOrder);
+			categoryIndex = index;
+		}
+		
+		return index;
+	}
+	
 	/**
 	 * Add a category to this model. This method is not thread-safe.
 	 * @param category The category to add
@@ -400,7 +1087,15 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 		if( !categoryNodes.containsKey(category) ) {
 			// Category node does not exist, create it and add it
 			CategoryNode<T> categoryNode = new CategoryNode<T>(category);
+			_prepareCategoryNodes(category);
 			categoryNodes.put(category, categoryNode);
+			categoryTableSlots = Math.max(categoryTableSlots, _tableSlots(categoryNodes.size()));
+			categoryOrder.add(category);
+			categoryIndex = null;
+			++version;
+			if( changeTracker != null ) {
+				changeTracker.changeCategory(category, 0, 0);
+			}
 			
 			return true;
 		}
@@ -409,6 +1104,26 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 		return false;
 	}
 	
+	/**
+	 * Pick the map category nodes are kept in before a category is added. The first category decides: enum constants are kept in an
+	 * EnumMap, anything else in a HashMap. A category that does not fit the EnumMap moves every node to a HashMap.
+	 * This method is not thread-safe.
+	 * @param category The category about to be added
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void _prepareCategoryNodes(T category) {
+		if( categoryNodes.isEmpty() ) {
+			if( category instanceof Enum ) {
+				categoryNodes = new EnumMap(((Enum<?>)category).getDeclaringClass());
+			} else if( categoryNodes instanceof EnumMap ) {
+				categoryNodes = new HashMap<T, CategoryNode<T>>();
+			}
+		} else if( categoryNodes instanceof EnumMap && !(category instanceof Enum 
+				&& ((Enum<?>)category).getDeclaringClass() == ((Enum<?>)categoryNodes.keySet().iterator().next()).getDeclaringClass()) ) {
+			categoryNodes = new HashMap<T, CategoryNode<T>>(categoryNodes);
+		}
+	}
+	
 	/**
 	 * Add a word to this model. This method is not thread-safe.
 	 * @param word The word to add
@@ -425,6 +1140,15 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			// Word node does not exist, create it and add it
 			WordNode<T> wordNode = new WordNode<T>(word);
 			wordNodes.put(word, wordNode);
+			wordNode.setOrderIndex(wordOrder.size());
+			wordOrder.add(wordNode);
+			wordTableSlots = Math.max(wordTableSlots, _tableSlots(wordNodes.size()));
+			_filterWord(word);
+			vocabularyBytes += _stringBytes(word);
+			++version;
+			if( changeTracker != null ) {
+				changeTracker.createWord(word);
+			}
 			
 			return true;
 		}
@@ -433,6 +1157,43 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 		return false;
 	}
 	
+	/**
+	 * Add rows of data to this model and tell a listener how long the write lock took to get, how long training took and what it added.
+	 * The listener is called after the lock is released. This method is thread-safe.
+	 * @param dataRows The rows of data to add. NULL rows are skipped.
+	 * @param observer The listener to tell.
+	 * @return The number of rows added.
+	 */
+	private int _addObservedDataRows(List<IDataRow<T>> dataRows, IBayesianListener observer) {
+		long requested = System.nanoTime();
+		long locked;
+		int addedCount = 0;
+		int newWords;
+		int newLinks;
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			locked = System.nanoTime();
+			int wordsBefore = wordNodes.size();
+			int linksBefore = totalLinks;
+			for( IDataRow<T> dataRow : dataRows ) {
+				if( _addDataRow(dataRow) ) {
+					++addedCount;
+				}
+			}
+			newWords = wordNodes.size() - wordsBefore;
+			newLinks = totalLinks - linksBefore;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+		
+		observer.trained(addedCount, newWords, newLinks, locked - requested, System.nanoTime() - locked);
+		return addedCount;
+	}
+	
 	/**
 	 * Add a row of data to this model. This method is not thread-safe.
 	 * @param dataRow The row of data to add
@@ -444,9 +1205,9 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			return false;
 		}
 		
-		// Get data row information
+		// Get data row information. Multinomial rows count every word occurrence.
 		T rowCategory = dataRow.getCategory();
-		Set<String> rowWords = dataRow.getUniqueSentenceWords();
+		Collection<String> rowWords = ( mode == ModelMode.MULTINOMIAL ? dataRow.getSentenceWords() : dataRow.getUniqueSentenceWords() );
 		
 		// Validate data row information
 		if( rowCategory == null || rowWords == null ) {
@@ -458,11 +1219,17 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 		
 		// Increase total row count
 		++totalRows;
+		++version;
 		
 		// Increase category count
 		CategoryNode<T> categoryNode = categoryNodes.get(rowCategory);
+		_preserveCategory(categoryNode);
 		categoryNode.setValue(categoryNode.getValue());
 		categoryNode.setCount(categoryNode.getCount() + 1);
+		categoryNode.setTokenCount(categoryNode.getTokenCount() + rowWords.size());
+		if( changeTracker != null ) {
+			changeTracker.changeCategory(rowCategory, 1, rowWords.size());
+		}
 		
 		// Iterate and add all row words
 		for(String rowWord : rowWords) {
@@ -471,11 +1238,16 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			
 			// Increase word count
 			WordNode<T> wordNode = wordNodes.get(rowWord);
+			_preserveWord(wordNode);
 			wordNode.setValue(wordNode.getValue());
-			wordNode.setCount(wordNode.getCount() + 1);
+			_setWordCount(wordNode, wordNode.getCount() + 1);
 			
 			// Create link between nodes (if it doesn't exist) and increment the weight
-			_linkNodes(categoryNode, wordNode);
+			_linkNodes(categoryNode, wordNode, 1);
+			if( changeTracker != null ) {
+				changeTracker.changeWord(rowWord, 1);
+				changeTracker.changeLink(rowWord, rowCategory, 1);
+			}
 		}
 		
 		return true;
@@ -486,8 +1258,9 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 	 * This method is not thread-safe.
 	 * @param categoryNode The category node to link
 	 * @param wordNode The word node to link
+	 * @param weight The amount to increase the link strength by
 	 */
-	private void _linkNodes(CategoryNode<T> categoryNode, WordNode<T> wordNode) {
+	private void _linkNodes(CategoryNode<T> categoryNode, WordNode<T> wordNode, int weight) {
 		// Find link from category node (should exist on both nodes
 		Link<T> link = categoryNode.getLink(wordNode.getValue());
 		if( link == null ) {
@@ -496,12 +1269,15 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			link.setWeight(0);
 			
 			// Add link to both nodes
+			_resizeLinkMap(categoryNode.getLinksCount(), categoryNode.getLinksCount() + 1);
+			_resizeLinkMap(wordNode.getLinksCount(), wordNode.getLinksCount() + 1);
 			categoryNode.addLink(link);
 			wordNode.addLink(link);
+			++totalLinks;
 		}
 		
 		// Increase the weight of this link
-		link.setWeight(link.getWeight() + 1);
+		link.setWeight(link.getWeight() + weight);
 	}
 	
 	/**
@@ -521,24 +1297,162 @@ public class BayesianModel<T> implements IBayesianModel<T> {
 			return null;
 		}
 		
-		// Update total number of rows
+		_preserveCategory(categoryNode);
+		categoryOrder.remove(category);
+		categoryIndex = null;
+		++removedEntries;
+		++version;
+		if( changeTracker != null ) {
+			changeTracker.removeCategory(category);
+		}
+		
+		// Update total number of rows and links
 		this.totalRows -= categoryNode.getCount();
-			
+		this.totalLinks -= categoryNode.getLinksCount();
+		_resizeLinkMap(categoryNode.getLinksCount(), 0);
+		
 		// Find all associated words
 		Set<String> words = categoryNode.getLinkWords();
 		for(String word : words) {
 			// Remove word link to category and update word count
 			WordNode<T> associatedWordNode = wordNodes.get(word);
+			_preserveWord(associatedWordNode);
+			_resizeLinkMap(associatedWordNode.getLinksCount(), associatedWordNode.getLinksCount() - 1);
 			associatedWordNode.removeLink(category);
-			associatedWordNode.setCount(associatedWordNode.getCount() - categoryNode.getLinkStrength(word));
-				
+			_setWordCount(associatedWordNode, associatedWordNode.getCount() - categoryNode.getLinkStrength(word));
+			
 			// Remove word node if it no longer has any associations
 			if( associatedWordNode.getCount() == 0 && associatedWordNode.getLinksCount() == 0) {
 				wordNodes.remove(word);
+				_removeFromWordOrder(associatedWordNode);
+				vocabularyBytes -= _stringBytes(word);
+				++removedEntries;
+				if( changeTracker != null ) {
+					changeTracker.deleteWord(word);
+				}
 			}
 		}
 		
 		// Return the removed category
 		return categoryNode.getValue();
 	}
+	
+	/**
+	 * Add a word to the vocabulary filter. A full filter is rebuilt from the current words at twice their number, which also drops
+	 * removed words. This method is not thread-safe.
+	 * @param word The word that was added to the model
+	 */
+	private void _filterWord(String word) {
+		WordBloomFilter filter = vocabularyFilter;
+		if( !filter.isFull() ) {
+			filter.add(word);
+			return;
+		}
+		
+		// Build the new filter aside and publish it once it holds every word
+		vocabularyFilter = _buildVocabularyFilter();
+	}
+	
+	/**
+	 * Copy the word node map into a map with the table capacity its size needs. This method is not thread-safe.
+	 * @return The copied map
+	 */
+	private HashMap<String, WordNode<T>> _copyWordNodes() {
+		HashMap<String, WordNode<T>> copy = new HashMap<String, WordNode<T>>(Math.max(1, _tableSlots(wordNodes.size())));
+		copy.putAll(wordNodes);
+		
+		return copy;
+	}
+	
+	/**
+	 * Copy the category node map into a map with the table capacity its size needs. An EnumMap is sized by its enum and is kept.
+	 * This method is not thread-safe.
+	 * @return The copied map
+	 */
+	private Map<T, CategoryNode<T>> _copyCategoryNodes() {
+		if( categoryNodes instanceof EnumMap ) {
+			return categoryNodes;
+		}
+		
+		HashMap<T, CategoryNode<T>> copy = new HashMap<T, CategoryNode<T>>(Math.max(1, _tableSlots(categoryNodes.size())));
+		copy.putAll(categoryNodes);
+		
+		return copy;
+	}
+	
+	/**
+	 * Build a vocabulary filter holding only the current words, with room for the vocabulary to double.
+	 * This method is not thread-safe.
+	 * @return The new filter
+	 */
+	private WordBloomFilter _buildVocabularyFilter() {
+		WordBloomFilter filter = new WordBloomFilter(Math.max(MIN_FILTER_CAPACITY, wordNodes.size() * 2));
+		for(String word : wordNodes.keySet()) {
+			filter.add(word);
+		}
+		
+		return filter;
+	}
+	
+	/**
+	 * Set the count of a word node and keep the hapax statistic up to date. This method is not thread-safe.
+	 * @param wordNode The word node to update
+	 * @param count The new count of the word node
+	 */
+	private void _setWordCount(WordNode<T> wordNode, int count) {
+		if( wordNode.getCount() == 1 ) {
+			--hapaxWords;
+		}
+		if( count == 1 ) {
+			++hapaxWords;
+		}
+		
+		wordNode.setCount(count);
+	}
+	
+	/**
+	 * Update the estimated bytes of the node links maps when one changes size. This method is not thread-safe.
+	 * @param oldSize The size of the links map before the change
+	 * @param newSize The size of the links map after the change
+	 */
+	private void _resizeLinkMap(int oldSize, int newSize) {
+		linkMapBytes += AdaptiveLinkMap.estimateBytes(newSize) - AdaptiveLinkMap.estimateBytes(oldSize);
+	}
+	
+	/**
+	 * Estimate the number of table slots a hash map allocates to hold a number of entries.
+	 * @param size The number of entries in the map
+	 * @return The estimated table capacity. 0 for an empty map, which has not allocated its table.
+	 */
+	private static int _tableSlots(int size) {
+		if( size == 0 ) {
+			return 0;
+		}
+		
+		// Maps start with 16 slots and double whenever they are more than 75% full
+		int slots = 16;
+		while( size > slots * 3 / 4 ) {
+			slots <<= 1;
+		}
+		
+		return slots;
+	}
+	
+	/**
+	 * Estimate the bytes used by a hash map table.
+	 * @param slots The number of table slots
+	 * @return The estimated table bytes
+	 */
+	private static long _tableBytes(int slots) {
+		return ( slots == 0 ? 0 : ARRAY_HEADER_BYTES + (long)slots * REFERENCE_BYTES );
+	}
+	
+	/**
+	 * Estimate the bytes used by a string and its character array.
+	 * @param value The string to measure
+	 * @return The estimated string bytes
+	 */
+	private static long _stringBytes(String value) {
+		return STRING_BYTES + ((ARRAY_HEADER_BYTES + 2L * value.length() + 7) & ~7L);
+	}
 }
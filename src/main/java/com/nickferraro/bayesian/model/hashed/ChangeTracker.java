@@ -0,0 +1,221 @@
+package com.nickferraro.bayesian.model.hashed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.nickferraro.bayesian.model.io.ModelDelta;
+import com.nickferraro.bayesian.model.io.SnapshotWord;
+
+/**
+ * Accumulates the count increments of a {@link BayesianModel} since a version, so they can be exported as a {@link ModelDelta}.
+ * Removing a category drops the increments recorded for it, because replaying the removal on a replica undoes them as well.
+ * This class is not thread-safe, the model calls it while holding its write lock.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+class ChangeTracker<T> {
+	private final long fromVersion;
+	private int totalRows = 0;
+	private final LinkedHashSet<T> removedCategories = new LinkedHashSet<T>();
+	private final LinkedHashMap<T, int[]> categories = new LinkedHashMap<T, int[]>();
+	private final LinkedHashMap<String, WordChange<T>> words = new LinkedHashMap<String, WordChange<T>>();
+	
+	/**
+	 * Start tracking changes.
+	 * @param fromVersion The version of the model when tracking starts.
+	 */
+	ChangeTracker(long fromVersion) {
+		this.fromVersion = fromVersion;
+	}
+	
+	/**
+	 * Get the version tracking started from.
+	 * @return The starting version.
+	 */
+	long getFromVersion() {
+		return fromVersion;
+	}
+	
+	/**
+	 * Record that a category was created or changed.
+	 * @param category The category.
+	 * @param rows The row count increment.
+	 * @param tokens The token count increment.
+	 */
+	void changeCategory(T category, int rows, int tokens) {
+		int[] counts = categories.get(category);
+		if( counts == null ) {
+			counts = new int[2];
+			categories.put(category, counts);
+		}
+		
+		counts[0] += rows;
+		counts[1] += tokens;
+		totalRows += rows;
+	}
+	
+	/**
+	 * Record that a word was created. Created words are exported even when their counts did not change.
+	 * @param word The word.
+	 */
+	void createWord(String word) {
+		_wordChange(word).created = true;
+	}
+	
+	/**
+	 * Record a change to a word count.
+	 * @param word The word.
+	 * @param count The word count increment.
+	 */
+	void changeWord(String word, int count) {
+		_wordChange(word).count += count;
+	}
+	
+	/**
+	 * Record a change to a link weight.
+	 * @param word The linked word.
+	 * @param category The linked category.
+	 * @param weight The link weight increment.
+	 */
+	void changeLink(String word, T category, int weight) {
+		WordChange<T> wordChange = _wordChange(word);
+		int[] linkWeight = wordChange.links.get(category);
+		if( linkWeight == null ) {
+			linkWeight = new int[1];
+			wordChange.links.put(category, linkWeight);
+		}
+		
+		linkWeight[0] += weight;
+	}
+	
+	/**
+	 * Record that a category was removed. The increments recorded for the category and its links are dropped.
+	 * @param category The removed category.
+	 */
+	void removeCategory(T category) {
+		removedCategories.add(category);
+		
+		int[] counts = categories.remove(category);
+		if( counts != null ) {
+			totalRows -= counts[0];
+		}
+		
+		// Word counts lose what the dropped links added
+		Iterator<Map.Entry<String, WordChange<T>>> iterator = words.entrySet().iterator();
+		while( iterator.hasNext() ) {
+			WordChange<T> wordChange = iterator.next().getValue();
+			int[] linkWeight = wordChange.links.remove(category);
+			if( linkWeight != null ) {
+				wordChange.count -= linkWeight[0];
+				if( wordChange.isEmpty() ) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Record that a word was deleted because it lost all of its counts and links.
+	 * @param word The deleted word.
+	 */
+	void deleteWord(String word) {
+		WordChange<T> wordChange = words.get(word);
+		if( wordChange != null ) {
+			wordChange.created = false;
+			if( wordChange.isEmpty() ) {
+				words.remove(word);
+			}
+		}
+	}
+	
+	/**
+	 * Check if no change was recorded.
+	 * @return True if nothing changed.
+	 */
+	boolean isEmpty() {
+		return totalRows == 0 && removedCategories.isEmpty() && categories.isEmpty() && words.isEmpty();
+	}
+	
+	/**
+	 * Build the delta of the recorded changes.
+	 * @param toVersion The current version of the model.
+	 * @return The delta from the starting version to toVersion.
+	 */
+	ModelDelta<T> toDelta(long toVersion) {
+		List<T> categoryList = new ArrayList<T>(categories.keySet());
+		int[] rows = new int[categoryList.size()];
+		int[] tokens = new int[categoryList.size()];
+		HashMap<T, Integer> categoryIndexes = new HashMap<T, Integer>(categoryList.size() * 2);
+		for(int i = 0; i < categoryList.size(); ++i) {
+			int[] counts = categories.get(categoryList.get(i));
+			rows[i] = counts[0];
+			tokens[i] = counts[1];
+			categoryIndexes.put(categoryList.get(i), i);
+		}
+		
+		List<SnapshotWord> wordList = new ArrayList<SnapshotWord>(words.size());
+		for(Map.Entry<String, WordChange<T>> entry : words.entrySet()) {
+			WordChange<T> wordChange = entry.getValue();
+			int[] indexes = new int[wordChange.links.size()];
+			int[] weights = new int[indexes.length];
+			int linkCount = 0;
+			for(Map.Entry<T, int[]> link : wordChange.links.entrySet()) {
+				Integer index = categoryIndexes.get(link.getKey());
+				if( index == null ) {
+					// Links are only made to categories that were changed, keep the delta whole regardless
+					index = categoryList.size();
+					categoryList.add(link.getKey());
+					categoryIndexes.put(link.getKey(), index);
+					rows = Arrays.copyOf(rows, index + 1);
+					tokens = Arrays.copyOf(tokens, index + 1);
+				}
+				indexes[linkCount] = index;
+				weights[linkCount] = link.getValue()[0];
+				++linkCount;
+			}
+			wordList.add(new SnapshotWord(entry.getKey(), wordChange.count, indexes, weights));
+		}
+		
+		return new ModelDelta<T>(fromVersion, toVersion, totalRows, new ArrayList<T>(removedCategories), categoryList, rows, tokens, wordList);
+	}
+	
+	/**
+	 * Get the change record of a word, creating it if needed.
+	 * @param word The word.
+	 * @return The change record.
+	 */
+	private WordChange<T> _wordChange(String word) {
+		WordChange<T> wordChange = words.get(word);
+		if( wordChange == null ) {
+			wordChange = new WordChange<T>();
+			words.put(word, wordChange);
+		}
+		
+		return wordChange;
+	}
+	
+	/**
+	 * The increments of one word.
+	 * @param <T> The category data type.
+	 */
+	private static class WordChange<T> {
+		private boolean created = false;
+		private int count = 0;
+		private final HashMap<T, int[]> links = new HashMap<T, int[]>(4);
+		
+		/**
+		 * Check if replaying this record would change nothing.
+		 * @return True if the word was not created and has no increments.
+		 */
+		private boolean isEmpty() {
+			return !created && count == 0 && links.isEmpty();
+		}
+	}
+}
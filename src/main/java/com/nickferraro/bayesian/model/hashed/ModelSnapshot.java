@@ -0,0 +1,271 @@
+package com.nickferraro.bayesian.model.hashed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import com.nickferraro.bayesian.IBayesianListener;
+import com.nickferraro.bayesian.model.CategoryIndex;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.hashed.core.CategoryNode;
+import com.nickferraro.bayesian.model.hashed.core.Link;
+import com.nickferraro.bayesian.model.hashed.core.WordNode;
+import com.nickferraro.bayesian.model.io.ModelSnapshotWriter;
+import com.nickferraro.bayesian.model.io.SnapshotWord;
+
+/**
+ * A point-in-time view of a {@link BayesianModel} that can be written out while the model keeps training.
+ * <p>
+ * Creating the snapshot copies nothing. It records the model version, the total rows, the immutable category index and the length
+ * of the model's word order, which lists its word nodes. While the snapshot is open, the model only appends to the word order, and
+ * saves a pre-image of any word node or category counts before changing or removing them for the first time. Writing the snapshot
+ * reads each word at the front of the word order from its pre-image if it has one, or from the live node otherwise. A live node
+ * without a pre-image is still in the state it had when the snapshot was created.
+ * </p>
+ * Close the snapshot when done so the model stops saving pre-images. Only one snapshot can be open on a model at a time.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ModelSnapshot<T> implements Closeable {
+	// Words are read from the model in chunks so training is never blocked for long
+	private static final int CHUNK_SIZE = 4096;
+	
+	private final BayesianModel<T> bayesianModel;
+	private final Lock readLock;
+	private final ModelMode mode;
+	private final long modelVersion;
+	private final int totalRows;
+	private final CategoryIndex<T> categories;
+	private final int wordLimit;
+	private final int wordCount;
+	private final IdentityHashMap<WordNode<T>, SnapshotWord> preImages = new IdentityHashMap<WordNode<T>, SnapshotWord>();
+	private final HashMap<T, int[]> categoryPreImages = new HashMap<T, int[]>();
+	private final long freezeNanos;
+	private boolean closed = false;
+	
+	/**
+	 * Create a snapshot. Must be called while holding the model's write lock.
+	 * @param bayesianModel The model the snapshot was taken from.
+	 * @param readLock The read lock of the model.
+	 * @param mode The mode of the model.
+	 * @param modelVersion The version of the model.
+	 * @param totalRows The total rows of the model.
+	 * @param categories The categories of the model.
+	 * @param wordLimit The length of the model's word order, the words of the snapshot are at the front of it.
+	 * @param wordCount The number of words in the model.
+	 * @param freezeStartNanos The time the model was locked, from {@link System#nanoTime()}.
+	 */
+	ModelSnapshot(BayesianModel<T> bayesianModel, Lock readLock, ModelMode mode, long modelVersion, int totalRows, CategoryIndex<T> categories, 
+			int wordLimit, int wordCount, long freezeStartNanos) {
+		this.bayesianModel = bayesianModel;
+		this.readLock = readLock;
+		this.mode = mode;
+		this.modelVersion = modelVersion;
+		this.totalRows = totalRows;
+		this.categories = categories;
+		this.wordLimit = wordLimit;
+		this.wordCount = wordCount;
+		this.freezeNanos = System.nanoTime() - freezeStartNanos;
+	}
+	
+	/**
+	 * Get how long the model was locked to create this snapshot.
+	 * @return The freeze time in nanoseconds.
+	 */
+	public long getFreezeNanos() {
+		return freezeNanos;
+	}
+	
+	/**
+	 * Get the version the model had when this snapshot was taken.
+	 * @return The model version.
+	 */
+	public long getModelVersion() {
+		return modelVersion;
+	}
+	
+	/**
+	 * Get the number of words in this snapshot.
+	 * @return The word count.
+	 */
+	public int getWordCount() {
+		return wordCount;
+	}
+	
+	/**
+	 * Get the number of words the model changed since the snapshot was created.
+	 * @return The number of saved pre-images.
+	 */
+	public int getPreservedWordCount() {
+		readLock.lock();
+		try {
+			return preImages.size();
+		} finally {
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * Write this snapshot. Words are written in ascending order. The model's read lock is taken for the category counts, then once per
+	 * chunk of words while they are collected and once per chunk while they are written.
+	 * @param writer The writer to write to. Its header must not have been written.
+	 * @throws IOException Thrown when the snapshot cannot be written.
+	 * @throws IllegalStateException Thrown when the snapshot was closed.
+	 */
+	public void writeTo(ModelSnapshotWriter<T> writer) throws IOException, IllegalStateException {
+		if( closed ) {
+			throw new IllegalStateException("Cannot write a closed snapshot");
+		}
+		
+		long writeStart = System.nanoTime();
+		int[] categoryRows = new int[categories.size()];
+		int[] categoryTokens = new int[categories.size()];
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// A category without a pre-image has not changed since the snapshot was taken
+			for(int i = 0; i < categories.size(); ++i) {
+				int[] preImage = categoryPreImages.get(categories.get(i));
+				if( preImage != null ) {
+					categoryRows[i] = preImage[0];
+					categoryTokens[i] = preImage[1];
+				} else {
+					CategoryNode<T> categoryNode = bayesianModel._getCategoryNode(categories.get(i));
+					categoryRows[i] = categoryNode.getCount();
+					categoryTokens[i] = categoryNode.getTokenCount();
+				}
+			}
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+		
+		writer.writeHeader(mode, modelVersion, totalRows, new ArrayList<T>(categories), categoryRows, categoryTokens);
+		
+		// Collect the word nodes that existed when the snapshot was taken, nodes removed since then are still in the word order
+		List<WordNode<T>> sortedNodes = new ArrayList<WordNode<T>>(wordCount);
+		for(int start = 0; start < wordLimit; start += CHUNK_SIZE) {
+			int end = Math.min(wordLimit, start + CHUNK_SIZE);
+			
+			// Lock
+			readLock.lock();
+			
+			try {
+				for(int i = start; i < end; ++i) {
+					sortedNodes.add(bayesianModel._getWordNode(i));
+				}
+			} finally {
+				// Unlock
+				readLock.unlock();
+			}
+		}
+		
+		// Word values never change, so the nodes can be sorted without the lock
+		Collections.sort(sortedNodes, new Comparator<WordNode<T>>() {
+			@Override
+			public int compare(WordNode<T> left, WordNode<T> right) {
+				return left.getValue().compareTo(right.getValue());
+			}
+		});
+		
+		List<SnapshotWord> chunk = new ArrayList<SnapshotWord>(CHUNK_SIZE);
+		for(int start = 0; start < sortedNodes.size(); start += CHUNK_SIZE) {
+			int end = Math.min(sortedNodes.size(), start + CHUNK_SIZE);
+			
+			// Lock
+			readLock.lock();
+			
+			try {
+				for(int i = start; i < end; ++i) {
+					SnapshotWord preImage = preImages.get(sortedNodes.get(i));
+					chunk.add(( preImage != null ? preImage : _image(sortedNodes.get(i)) ));
+				}
+			} finally {
+				// Unlock
+				readLock.unlock();
+			}
+			
+			for(SnapshotWord word : chunk) {
+				writer.writeWord(word);
+			}
+			chunk.clear();
+		}
+		
+		writer.finish();
+		
+		IBayesianListener listener = bayesianModel.getListener();
+		if( listener != null ) {
+			listener.snapshotWritten(sortedNodes.size(), System.nanoTime() - writeStart);
+		}
+	}
+	
+	/**
+	 * Close this snapshot so the model stops saving pre-images.
+	 */
+	@Override
+	public void close() {
+		if( !closed ) {
+			closed = true;
+			bayesianModel._endSnapshot(this);
+		}
+	}
+	
+	/**
+	 * Save the pre-image of a word node before the model changes it. Must be called while holding the model's write lock.
+	 * @param wordNode The word node about to change.
+	 */
+	void preserve(WordNode<T> wordNode) {
+		if( !preImages.containsKey(wordNode) ) {
+			preImages.put(wordNode, _image(wordNode));
+		}
+	}
+	
+	/**
+	 * Save the counts of a category node before the model changes or removes it. Categories added after the snapshot are not saved.
+	 * Must be called while holding the model's write lock.
+	 * @param categoryNode The category node about to change.
+	 */
+	void preserveCategory(CategoryNode<T> categoryNode) {
+		T category = categoryNode.getValue();
+		if( !categoryPreImages.containsKey(category) && categories.contains(category) ) {
+			categoryPreImages.put(category, new int[] { categoryNode.getCount(), categoryNode.getTokenCount() });
+		}
+	}
+	
+	/**
+	 * Copy the current state of a word node. Must be called while holding one of the model's locks.
+	 * Links to categories created after the snapshot are skipped, they can only exist on nodes that already have a pre-image.
+	 * @param wordNode The word node to copy.
+	 * @return The word record.
+	 */
+	private SnapshotWord _image(WordNode<T> wordNode) {
+		int[] indexes = new int[wordNode.getLinksCount()];
+		int[] weights = new int[indexes.length];
+		int linkCount = 0;
+		for(Link<T> link : wordNode.getLinks()) {
+			int index = categories.indexOf(link.getCategoryNode().getValue());
+			if( index >= 0 ) {
+				indexes[linkCount] = index;
+				weights[linkCount] = link.getWeight();
+				++linkCount;
+			}
+		}
+		
+		if( linkCount < indexes.length ) {
+			indexes = Arrays.copyOf(indexes, linkCount);
+			weights = Arrays.copyOf(weights, linkCount);
+		}
+		
+		return new SnapshotWord(wordNode.getValue(), wordNode.getCount(), indexes, weights);
+	}
+}
@@ -0,0 +1,441 @@
+package com.nickferraro.bayesian.model.hashed.core;
+
+import java.security.InvalidParameterException;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map of node links that picks its storage by size. Most words link to a single category, so a lone link is held inline without any
+ * table. Up to {@link #ARRAY_MAX} links are held in small arrays sorted by key hash code and found with a binary search. Larger maps use a
+ * hash map, and fall back to arrays once they shrink to {@link #ARRAY_MIN} links, so a map that hovers at the threshold does not convert
+ * on every change.
+ * <p>
+ * Keys cannot be NULL. The key and value views are read-only and must not be used across changes to the map.
+ * </p>
+ * This class is not thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <K> The key data type.
+ * @param <V> The value data type.
+ */
+public class AdaptiveLinkMap<K, V> {
+	/**
+	 * The most links held in sorted arrays before the map switches to a hash map.
+	 */
+	public static final int ARRAY_MAX = 8;
+	
+	/**
+	 * The size at which a hash map switches back to sorted arrays.
+	 */
+	public static final int ARRAY_MIN = ARRAY_MAX / 2;
+	
+	// Size estimates assume a 64-bit JVM with compressed references and 8 byte object alignment
+	private static final int MAP_OBJECT_BYTES = 40;
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int HASH_MAP_BYTES = 48;
+	private static final int HASH_ENTRY_BYTES = 32;
+	
+	// A single link, used while there are no arrays or hash map
+	private Object singleKey = null;
+	private Object singleValue = null;
+	
+	// Links sorted by key hash code, used while there is no hash map
+	private int[] hashes = null;
+	private Object[] keys = null;
+	private Object[] values = null;
+	
+	private HashMap<K, V> map = null;
+	private int size = 0;
+	
+	/**
+	 * Get the number of links in this map.
+	 * @return The link count.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the value of a key.
+	 * @param key The key to look up.
+	 * @return The value, or NULL if the map does not hold the key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		if( key == null || size == 0 ) {
+			return null;
+		}
+		if( map != null ) {
+			return map.get(key);
+		}
+		if( keys == null ) {
+			return ( singleKey.equals(key) ? (V)singleValue : null );
+		}
+		
+		int position = _find(key);
+		return ( position < 0 ? null : (V)values[position] );
+	}
+	
+	/**
+	 * Put a value for a key, replacing the value it had.
+	 * @param key The key. Cannot be NULL.
+	 * @param value The value.
+	 * @return The value the key had, or NULL if the map did not hold the key.
+	 * @throws InvalidParameterException Thrown when key is NULL.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(K key, V value) throws InvalidParameterException {
+		if( key == null ) {
+			throw new InvalidParameterException("Cannot put a NULL key in a link map");
+		}
+		
+		// Hash map
+		if( map != null ) {
+			V previous = map.put(key, value);
+			size = map.size();
+			return previous;
+		}
+		
+		// Empty or single link
+		if( keys == null ) {
+			if( size == 0 ) {
+				singleKey = key;
+				singleValue = value;
+				size = 1;
+				return null;
+			}
+			if( singleKey.equals(key) ) {
+				V previous = (V)singleValue;
+				singleValue = value;
+				return previous;
+			}
+			
+			// A second link moves the single link into arrays
+			_toArrays(2);
+			singleKey = null;
+			singleValue = null;
+		}
+		
+		// Sorted arrays
+		int position = _find(key);
+		if( position >= 0 ) {
+			V previous = (V)values[position];
+			values[position] = value;
+			return previous;
+		}
+		if( size == ARRAY_MAX ) {
+			_toHashMap();
+			map.put(key, value);
+			size = map.size();
+			return null;
+		}
+		
+		_insert(-position - 1, key.hashCode(), key, value);
+		return null;
+	}
+	
+	/**
+	 * Remove a key.
+	 * @param key The key to remove.
+	 * @return The value the key had, or NULL if the map did not hold the key.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(Object key) {
+		if( key == null || size == 0 ) {
+			return null;
+		}
+		
+		// Hash map
+		if( map != null ) {
+			V previous = map.remove(key);
+			size = map.size();
+			if( size <= ARRAY_MIN ) {
+				_toArrays(size);
+			}
+			return previous;
+		}
+		
+		// Single link
+		if( keys == null ) {
+			if( !singleKey.equals(key) ) {
+				return null;
+			}
+			
+			V previous = (V)singleValue;
+			singleKey = null;
+			singleValue = null;
+			size = 0;
+			return previous;
+		}
+		
+		// Sorted arrays
+		int position = _find(key);
+		if( position < 0 ) {
+			return null;
+		}
+		
+		V previous = (V)values[position];
+		--size;
+		System.arraycopy(hashes, position + 1, hashes, position, size - position);
+		System.arraycopy(keys, position + 1, keys, position, size - position);
+		System.arraycopy(values, position + 1, values, position, size - position);
+		keys[size] = null;
+		values[size] = null;
+		
+		// A lone link goes back inline
+		if( size == 1 ) {
+			singleKey = keys[0];
+			singleValue = values[0];
+			hashes = null;
+			keys = null;
+			values = null;
+		}
+		
+		return previous;
+	}
+	
+	/**
+	 * Get a read-only view of the keys.
+	 * @return The keys of this map.
+	 */
+	public Set<K> keySet() {
+		return new AbstractSet<K>() {
+			@Override
+			public Iterator<K> iterator() {
+				return new LinkIterator<K>(true);
+			}
+			
+			@Override
+			public boolean contains(Object key) {
+				return get(key) != null;
+			}
+			
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+	
+	/**
+	 * Get a read-only view of the values.
+	 * @return The values of this map.
+	 */
+	public Collection<V> values() {
+		return new AbstractCollection<V>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new LinkIterator<V>(false);
+			}
+			
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+	
+	/**
+	 * Estimate the heap bytes of a map holding a number of links, in the layout a map built up to that size by puts would use.
+	 * @param size The number of links.
+	 * @return The estimated bytes of the map object and the storage it owns.
+	 */
+	public static long estimateBytes(int size) {
+		if( size <= 1 ) {
+			return MAP_OBJECT_BYTES;
+		}
+		if( size <= ARRAY_MAX ) {
+			int capacity = _arrayCapacity(size);
+			return MAP_OBJECT_BYTES + 3 * _align(ARRAY_HEADER_BYTES + 4L * capacity);
+		}
+		
+		// Hash maps start with 16 slots and double whenever they are more than 75% full
+		int slots = 16;
+		while( size > slots * 3 / 4 ) {
+			slots <<= 1;
+		}
+		return MAP_OBJECT_BYTES + HASH_MAP_BYTES + (long)size * HASH_ENTRY_BYTES + ARRAY_HEADER_BYTES + 4L * slots;
+	}
+	
+	/**
+	 * Find the array position of a key.
+	 * @param key The key to find.
+	 * @return The position of the key, or -(insertion point) - 1 if the arrays do not hold it.
+	 */
+	private int _find(Object key) {
+		int hash = key.hashCode();
+		int low = 0;
+		int high = size - 1;
+		while( low <= high ) {
+			int middle = (low + high) >>> 1;
+			if( hashes[middle] < hash ) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		
+		// Low is the first position with an equal or greater hash, check every key with an equal hash
+		for(int position = low; position < size && hashes[position] == hash; ++position) {
+			if( keys[position].equals(key) ) {
+				return position;
+			}
+		}
+		
+		return -low - 1;
+	}
+	
+	/**
+	 * Insert a link into the sorted arrays, growing them when full.
+	 * @param position The position to insert at.
+	 * @param hash The hash code of the key.
+	 * @param key The key.
+	 * @param value The value.
+	 */
+	private void _insert(int position, int hash, Object key, Object value) {
+		if( size == keys.length ) {
+			int capacity = _arrayCapacity(size + 1);
+			int[] grownHashes = new int[capacity];
+			Object[] grownKeys = new Object[capacity];
+			Object[] grownValues = new Object[capacity];
+			System.arraycopy(hashes, 0, grownHashes, 0, size);
+			System.arraycopy(keys, 0, grownKeys, 0, size);
+			System.arraycopy(values, 0, grownValues, 0, size);
+			hashes = grownHashes;
+			keys = grownKeys;
+			values = grownValues;
+		}
+		
+		System.arraycopy(hashes, position, hashes, position + 1, size - position);
+		System.arraycopy(keys, position, keys, position + 1, size - position);
+		System.arraycopy(values, position, values, position + 1, size - position);
+		hashes[position] = hash;
+		keys[position] = key;
+		values[position] = value;
+		++size;
+	}
+	
+	/**
+	 * Move the current links into sorted arrays and drop the hash map. A single inline link is moved as well.
+	 * @param capacity The least capacity of the arrays.
+	 */
+	@SuppressWarnings("unchecked")
+	private void _toArrays(int capacity) {
+		capacity = _arrayCapacity(Math.max(capacity, size));
+		HashMap<K, V> links = map;
+		int count = size;
+		hashes = new int[capacity];
+		keys = new Object[capacity];
+		values = new Object[capacity];
+		map = null;
+		size = 0;
+		
+		if( links != null ) {
+			for(K key : links.keySet()) {
+				Object linkKey = key;
+				int position = _find(linkKey);
+				_insert(-position - 1, linkKey.hashCode(), linkKey, links.get(key));
+			}
+		} else if( count == 1 ) {
+			_insert(0, singleKey.hashCode(), singleKey, singleValue);
+		}
+		
+		// A hash map that shrank to one link goes inline
+		if( size == 1 && links != null ) {
+			singleKey = keys[0];
+			singleValue = values[0];
+			hashes = null;
+			keys = null;
+			values = null;
+		}
+		if( size == 0 ) {
+			hashes = null;
+			keys = null;
+			values = null;
+		}
+	}
+	
+	/**
+	 * Move the sorted arrays into a hash map.
+	 */
+	@SuppressWarnings("unchecked")
+	private void _toHashMap() {
+		map = new HashMap<K, V>();
+		for(int position = 0; position < size; ++position) {
+			map.put((K)keys[position], (V)values[position]);
+		}
+		
+		hashes = null;
+		keys = null;
+		values = null;
+	}
+	
+	/**
+	 * Get the array capacity for a number of links, the next power of 2 from 2 to {@link #ARRAY_MAX}.
+	 * @param size The number of links.
+	 * @return The capacity.
+	 */
+	private static int _arrayCapacity(int size) {
+		int capacity = 2;
+		while( capacity < size ) {
+			capacity <<= 1;
+		}
+		
+		return capacity;
+	}
+	
+	/**
+	 * Round a byte count up to the object alignment.
+	 * @param bytes The byte count.
+	 * @return The aligned byte count.
+	 */
+	private static long _align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+	
+	/**
+	 * Iterates the keys or values of the layout the map had when the iterator was created.
+	 */
+	private final class LinkIterator<E> implements Iterator<E> {
+		private final boolean iterateKeys;
+		private final Iterator<?> mapIterator;
+		private int next = 0;
+		
+		private LinkIterator(boolean iterateKeys) {
+			this.iterateKeys = iterateKeys;
+			this.mapIterator = ( map == null ? null : (iterateKeys ? map.keySet() : map.values()).iterator() );
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return ( mapIterator != null ? mapIterator.hasNext() : next < size );
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next() {
+			if( mapIterator != null ) {
+				return (E)mapIterator.next();
+			}
+			if( next >= size ) {
+				throw new NoSuchElementException();
+			}
+			
+			int position = next++;
+			if( keys == null ) {
+				return (E)( iterateKeys ? singleKey : singleValue );
+			}
+			return (E)( iterateKeys ? keys[position] : values[position] );
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Link map views are read-only");
+		}
+	}
+}
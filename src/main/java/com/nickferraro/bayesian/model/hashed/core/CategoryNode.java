@@ -1,19 +1,20 @@
 package com.nickferraro.bayesian.model.hashed.core;
 
 import java.security.InvalidParameterException;
-import java.util.HashMap;
 import java.util.Set;
 
 /**
  * A node that represents a category for the hashed bayesian model.
  * This class keeps a count of the number of times a category exists in the model, as well as links to associated words.
+ * Links are held in an {@link AdaptiveLinkMap}, which only switches to a hash map once the category has many words.
  * @author Nick Ferraro
  *
  * @param <T> The category data type
  */
 public class CategoryNode<T> {
-	private final HashMap<String, Link<T>> linksMap = new HashMap<String, Link<T>>();
+	private final AdaptiveLinkMap<String, Link<T>> linksMap = new AdaptiveLinkMap<String, Link<T>>();
 	private int count = 0;
+	private int tokenCount = 0;
 	private T value = null;
 	
 	/**
@@ -41,7 +42,23 @@ public class CategoryNode<T> {
 	public void setCount(int count) {
 		this.count = count;
 	}
-
+	
+	/**
+	 * Get the number of word tokens in the rows counted by this node.
+	 * @return The token count for this node.
+	 */
+	public int getTokenCount() {
+		return tokenCount;
+	}
+	
+	/**
+	 * Set the number of word tokens in the rows counted by this node.
+	 * @param tokenCount The token count to set for this node.
+	 */
+	public void setTokenCount(int tokenCount) {
+		this.tokenCount = tokenCount;
+	}
+	
 	/**
 	 * Get the value associated with this node.
 	 * @return The value of this node.
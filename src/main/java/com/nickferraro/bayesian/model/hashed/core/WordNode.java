@@ -2,18 +2,19 @@ package com.nickferraro.bayesian.model.hashed.core;
 
 import java.security.InvalidParameterException;
 import java.util.Collection;
-import java.util.HashMap;
 
 /**
  * A node that represents a word for the hashed bayesian model.
  * This class keeps a count of the number of times a word exists in the model, as well as links to associated categories.
+ * Links are held in an {@link AdaptiveLinkMap}, so the common word with a single link does not pay for a hash map.
  * @author Nick Ferraro
  *
  * @param <T> The category data type this word is associated with.
  */
 public class WordNode<T> {
-	private final HashMap<T, Link<T>> linksMap = new HashMap<T, Link<T>>();
+	private final AdaptiveLinkMap<T, Link<T>> linksMap = new AdaptiveLinkMap<T, Link<T>>();
 	private int count = 0;
+	private int orderIndex = -1;
 	private String value = null;
 	
 	/**
@@ -41,7 +42,23 @@ public class WordNode<T> {
 	public void setCount(int count) {
 		this.count = count;
 	}
-
+	
+	/**
+	 * Get the position of this node in the word order of its model.
+	 * @return The position of this node, or -1 if it is not in a word order.
+	 */
+	public int getOrderIndex() {
+		return orderIndex;
+	}
+	
+	/**
+	 * Set the position of this node in the word order of its model.
+	 * @param orderIndex The position of this node, or -1 if it is not in a word order.
+	 */
+	public void setOrderIndex(int orderIndex) {
+		this.orderIndex = orderIndex;
+	}
+	
 	/**
 	 * Get the value associated with this node.
 	 * @return The value of this node.
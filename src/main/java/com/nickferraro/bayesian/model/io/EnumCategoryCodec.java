@@ -0,0 +1,36 @@
+package com.nickferraro.bayesian.model.io;
+
+import java.security.InvalidParameterException;
+
+/**
+ * A category codec for enum categories. The text of a category is its constant name.
+ * @author Nick Ferraro
+ *
+ * @param <E> The enum category type.
+ */
+public class EnumCategoryCodec<E extends Enum<E>> implements ICategoryCodec<E> {
+	private final Class<E> enumClass;
+	
+	/**
+	 * Create a codec for an enum type.
+	 * @param enumClass The class of the enum. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when enumClass is NULL.
+	 */
+	public EnumCategoryCodec(Class<E> enumClass) throws InvalidParameterException {
+		if( enumClass == null ) {
+			throw new InvalidParameterException("Cannot create an EnumCategoryCodec with a NULL class");
+		}
+		
+		this.enumClass = enumClass;
+	}
+	
+	@Override
+	public String encode(E category) {
+		return category.name();
+	}
+	
+	@Override
+	public E decode(String value) throws IllegalArgumentException {
+		return Enum.valueOf(enumClass, value);
+	}
+}
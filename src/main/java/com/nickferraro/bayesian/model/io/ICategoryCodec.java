@@ -0,0 +1,24 @@
+package com.nickferraro.bayesian.model.io;
+
+/**
+ * Converts categories to and from the text stored in model files.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public interface ICategoryCodec<T> {
+	/**
+	 * Convert a category to text.
+	 * @param category The category to convert. Will never be NULL.
+	 * @return The text of the category. Cannot be NULL.
+	 */
+	public String encode(T category);
+	
+	/**
+	 * Convert text back to a category.
+	 * @param value The text written by {@link #encode(Object)}.
+	 * @return The category. Cannot be NULL.
+	 * @throws IllegalArgumentException Thrown when the text does not name a category.
+	 */
+	public T decode(String value) throws IllegalArgumentException;
+}
@@ -0,0 +1,192 @@
+package com.nickferraro.bayesian.model.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+import com.nickferraro.bayesian.model.hashed.ModelSnapshot;
+
+/**
+ * Periodically writes snapshots of a {@link BayesianModel} to a file on a background thread. Each checkpoint only blocks training for the
+ * brief freeze of {@link BayesianModel#beginSnapshot()}. It is written to a temporary file next to the target and renamed over it
+ * when complete, so the target always holds the last complete checkpoint.
+ * This class is thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ModelCheckpointer<T> {
+	private final BayesianModel<T> bayesianModel;
+	private final ICategoryCodec<T> codec;
+	private final File file;
+	private ScheduledExecutorService scheduler = null;
+	private long checkpointCount = 0;
+	private long lastFreezeNanos = 0;
+	private long lastDurationNanos = 0;
+	private IOException lastFailure = null;
+	
+	/**
+	 * Create a checkpointer.
+	 * @param bayesianModel The model to checkpoint. Cannot be NULL.
+	 * @param codec The codec used to write categories. Cannot be NULL.
+	 * @param file The file to write checkpoints to. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 */
+	public ModelCheckpointer(BayesianModel<T> bayesianModel, ICategoryCodec<T> codec, File file) throws InvalidParameterException {
+		if( bayesianModel == null || codec == null || file == null ) {
+			throw new InvalidParameterException("Cannot create a ModelCheckpointer with NULL values");
+		}
+		
+		this.bayesianModel = bayesianModel;
+		this.codec = codec;
+		this.file = file;
+	}
+	
+	/**
+	 * Write a checkpoint now on the calling thread.
+	 * @throws IOException Thrown when the checkpoint cannot be written. The previous checkpoint is left in place.
+	 */
+	public void checkpoint() throws IOException {
+		long start = System.nanoTime();
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		
+		ModelSnapshot<T> snapshot = bayesianModel.beginSnapshot();
+		try {
+			ModelSnapshotWriter<T> writer = new ModelSnapshotWriter<T>(new FileOutputStream(temporaryFile), codec);
+			try {
+				snapshot.writeTo(writer);
+			} finally {
+				writer.close();
+			}
+		} catch(IOException e) {
+			temporaryFile.delete();
+			_recordFailure(e);
+			throw e;
+		} finally {
+			snapshot.close();
+		}
+		
+		// Replace the previous checkpoint
+		if( !temporaryFile.renameTo(file) ) {
+			file.delete();
+			if( !temporaryFile.renameTo(file) ) {
+				IOException e = new IOException("Cannot rename " + temporaryFile + " to " + file);
+				_recordFailure(e);
+				throw e;
+			}
+		}
+		
+		synchronized(this) {
+			++checkpointCount;
+			lastFreezeNanos = snapshot.getFreezeNanos();
+			lastDurationNanos = System.nanoTime() - start;
+			lastFailure = null;
+		}
+	}
+	
+	/**
+	 * Start writing checkpoints on a background thread. Does nothing if the checkpointer is already running.
+	 * @param periodMillis The time between the start of each checkpoint. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when periodMillis is less than 1.
+	 */
+	public synchronized void start(long periodMillis) throws InvalidParameterException {
+		if( periodMillis < 1 ) {
+			throw new InvalidParameterException("Cannot checkpoint with a period less than 1");
+		}
+		if( scheduler != null ) {
+			return;
+		}
+		
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "bayesian-checkpointer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					checkpoint();
+				} catch(IOException e) {
+					// Recorded in lastFailure, the next run tries again
+				} catch(IllegalStateException e) {
+					// Another snapshot is open, the next run tries again
+				}
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Stop the background thread, waiting for a checkpoint in progress to finish.
+	 * @throws InterruptedException Thrown when interrupted while waiting.
+	 */
+	public void stop() throws InterruptedException {
+		ScheduledExecutorService stopping;
+		synchronized(this) {
+			stopping = scheduler;
+			scheduler = null;
+		}
+		
+		if( stopping != null ) {
+			stopping.shutdown();
+			stopping.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Check if the checkpointer is writing checkpoints in the background.
+	 * @return True if running.
+	 */
+	public synchronized boolean isRunning() {
+		return scheduler != null;
+	}
+	
+	/**
+	 * Get the number of checkpoints written.
+	 * @return The checkpoint count.
+	 */
+	public synchronized long getCheckpointCount() {
+		return checkpointCount;
+	}
+	
+	/**
+	 * Get how long training was blocked by the last checkpoint.
+	 * @return The freeze time in nanoseconds.
+	 */
+	public synchronized long getLastFreezeNanos() {
+		return lastFreezeNanos;
+	}
+	
+	/**
+	 * Get how long the last checkpoint took to write.
+	 * @return The duration in nanoseconds.
+	 */
+	public synchronized long getLastDurationNanos() {
+		return lastDurationNanos;
+	}
+	
+	/**
+	 * Get the failure of the last checkpoint.
+	 * @return The failure, or NULL if the last checkpoint succeeded.
+	 */
+	public synchronized IOException getLastFailure() {
+		return lastFailure;
+	}
+	
+	/**
+	 * Remember a failed checkpoint.
+	 * @param failure The failure.
+	 */
+	private synchronized void _recordFailure(IOException failure) {
+		lastFailure = failure;
+	}
+}
@@ -0,0 +1,286 @@
+package com.nickferraro.bayesian.model.io;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The changes a model went through between two versions, expressed as count increments so another instance at the starting version
+ * can replay them. Removed categories are applied first, then every category and word in the delta is created if missing
+ * and has its increments added. Word records use {@link SnapshotWord} with the count and link weights holding increments,
+ * and link category indexes refer to {@link #getCategories()}.
+ * <p>
+ * The encoded form is compact, every number is a variable length integer (see {@link Varints}):
+ * </p>
+ * <pre>
+ * int magic, byte format, varint fromVersion, varint toVersion, svarint totalRows,
+ * varint removedCount, (UTF category)*,
+ * varint categoryCount, (UTF category, svarint rows, svarint tokens)*,
+ * varint wordCount, (UTF word, svarint count, varint linkCount, (varint categoryIndex, svarint weight)*)*
+ * </pre>
+ * This class is immutable.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ModelDelta<T> {
+	static final int MAGIC = 0x42594D44;
+	static final int FORMAT = 1;
+	
+	private final long fromVersion;
+	private final long toVersion;
+	private final int totalRows;
+	private final List<T> removedCategories;
+	private final List<T> categories;
+	private final int[] categoryRows;
+	private final int[] categoryTokens;
+	private final List<SnapshotWord> words;
+	
+	/**
+	 * Create a delta.
+	 * @param fromVersion The version the changes start from.
+	 * @param toVersion The version reached once the changes are applied. Cannot be less than fromVersion.
+	 * @param totalRows The change in total rows.
+	 * @param removedCategories The categories removed. Cannot be NULL.
+	 * @param categories The categories changed or created. Cannot be NULL.
+	 * @param categoryRows The change in row count of each category.
+	 * @param categoryTokens The change in token count of each category.
+	 * @param words The changed words. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL, the versions are out of order,
+	 * the category arrays do not match the categories, or a word links to an unknown category index.
+	 */
+	public ModelDelta(long fromVersion, long toVersion, int totalRows, List<T> removedCategories, List<T> categories, int[] categoryRows,
+			int[] categoryTokens, List<SnapshotWord> words) throws InvalidParameterException {
+		if( removedCategories == null || categories == null || categoryRows == null || categoryTokens == null || words == null ) {
+			throw new InvalidParameterException("Cannot create a ModelDelta with NULL values");
+		}
+		if( fromVersion < 0 || toVersion < fromVersion ) {
+			throw new InvalidParameterException("Cannot create a ModelDelta from version " + fromVersion + " to " + toVersion);
+		}
+		if( categoryRows.length != categories.size() || categoryTokens.length != categories.size() ) {
+			throw new InvalidParameterException("Cannot create a ModelDelta with category counts that do not match the categories");
+		}
+		for(SnapshotWord word : words) {
+			for(int i = 0; i < word.getLinkCount(); ++i) {
+				if( word.getCategoryIndex(i) < 0 || word.getCategoryIndex(i) >= categories.size() ) {
+					throw new InvalidParameterException("Word links to an unknown category index " + word.getCategoryIndex(i));
+				}
+			}
+		}
+		
+		this.fromVersion = fromVersion;
+		this.toVersion = toVersion;
+		this.totalRows = totalRows;
+		this.removedCategories = Collections.unmodifiableList(new ArrayList<T>(removedCategories));
+		this.categories = Collections.unmodifiableList(new ArrayList<T>(categories));
+		this.categoryRows = categoryRows.clone();
+		this.categoryTokens = categoryTokens.clone();
+		this.words = Collections.unmodifiableList(new ArrayList<SnapshotWord>(words));
+	}
+	
+	/**
+	 * Get the version the changes start from. A model must be at this version to apply the delta.
+	 * @return The starting version.
+	 */
+	public long getFromVersion() {
+		return fromVersion;
+	}
+	
+	/**
+	 * Get the version reached once the changes are applied.
+	 * @return The ending version.
+	 */
+	public long getToVersion() {
+		return toVersion;
+	}
+	
+	/**
+	 * Get the change in total rows.
+	 * @return The total rows increment.
+	 */
+	public int getTotalRows() {
+		return totalRows;
+	}
+	
+	/**
+	 * Get the categories removed between the two versions.
+	 * @return An unmodifiable list of categories.
+	 */
+	public List<T> getRemovedCategories() {
+		return removedCategories;
+	}
+	
+	/**
+	 * Get the categories changed or created between the two versions.
+	 * @return An unmodifiable list of categories. Word links refer to them by index.
+	 */
+	public List<T> getCategories() {
+		return categories;
+	}
+	
+	/**
+	 * Get the change in row count of a category.
+	 * @param categoryIndex The index of the category.
+	 * @return The row count increment.
+	 */
+	public int getCategoryRows(int categoryIndex) {
+		return categoryRows[categoryIndex];
+	}
+	
+	/**
+	 * Get the change in token count of a category.
+	 * @param categoryIndex The index of the category.
+	 * @return The token count increment.
+	 */
+	public int getCategoryTokens(int categoryIndex) {
+		return categoryTokens[categoryIndex];
+	}
+	
+	/**
+	 * Get the words changed or created between the two versions.
+	 * @return An unmodifiable list of word records holding increments.
+	 */
+	public List<SnapshotWord> getWords() {
+		return words;
+	}
+	
+	/**
+	 * Check if this delta changes nothing.
+	 * @return True if there are no removed categories, categories or words.
+	 */
+	public boolean isEmpty() {
+		return totalRows == 0 && removedCategories.isEmpty() && categories.isEmpty() && words.isEmpty();
+	}
+	
+	/**
+	 * Encode this delta to a stream. The stream is flushed but not closed, so several deltas can be written one after another.
+	 * @param outputStream The stream to write to. Cannot be NULL.
+	 * @param codec The codec used to write categories. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 * @throws IOException Thrown when the stream cannot be written.
+	 */
+	public void writeTo(OutputStream outputStream, ICategoryCodec<T> codec) throws InvalidParameterException, IOException {
+		if( outputStream == null || codec == null ) {
+			throw new InvalidParameterException("Cannot write a ModelDelta with NULL values");
+		}
+		
+		DataOutputStream output = new DataOutputStream(outputStream);
+		output.writeInt(MAGIC);
+		output.writeByte(FORMAT);
+		Varints.writeUnsigned(output, fromVersion);
+		Varints.writeUnsigned(output, toVersion);
+		Varints.writeSigned(output, totalRows);
+		
+		Varints.writeUnsigned(output, removedCategories.size());
+		for(T category : removedCategories) {
+			output.writeUTF(codec.encode(category));
+		}
+		
+		Varints.writeUnsigned(output, categories.size());
+		for(int i = 0; i < categories.size(); ++i) {
+			output.writeUTF(codec.encode(categories.get(i)));
+			Varints.writeSigned(output, categoryRows[i]);
+			Varints.writeSigned(output, categoryTokens[i]);
+		}
+		
+		Varints.writeUnsigned(output, words.size());
+		for(SnapshotWord word : words) {
+			output.writeUTF(word.getWord());
+			Varints.writeSigned(output, word.getCount());
+			Varints.writeUnsigned(output, word.getLinkCount());
+			for(int i = 0; i < word.getLinkCount(); ++i) {
+				Varints.writeUnsigned(output, word.getCategoryIndex(i));
+				Varints.writeSigned(output, word.getWeight(i));
+			}
+		}
+		
+		output.flush();
+	}
+	
+	/**
+	 * Decode a delta from a stream. Reads exactly the bytes of one delta, wrap the stream in a buffer for speed.
+	 * @param inputStream The stream to read from. Cannot be NULL.
+	 * @param codec The codec used to read categories. Cannot be NULL.
+	 * @return The delta.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 * @throws IOException Thrown when the stream cannot be read or does not hold a delta.
+	 */
+	public static <T> ModelDelta<T> readFrom(InputStream inputStream, ICategoryCodec<T> codec) throws InvalidParameterException, IOException {
+		if( inputStream == null || codec == null ) {
+			throw new InvalidParameterException("Cannot read a ModelDelta with NULL values");
+		}
+		
+		DataInputStream input = new DataInputStream(inputStream);
+		if( input.readInt() != MAGIC ) {
+			throw new IOException("The stream is not a bayesian model delta");
+		}
+		int format = input.readUnsignedByte();
+		if( format != FORMAT ) {
+			throw new IOException("Unsupported delta format " + format);
+		}
+		long fromVersion = Varints.readUnsigned(input);
+		long toVersion = Varints.readUnsigned(input);
+		int totalRows = Varints.readSignedInt(input);
+		
+		int removedCount = Varints.readUnsignedInt(input);
+		List<T> removedCategories = new ArrayList<T>(Math.min(removedCount, 1024));
+		for(int i = 0; i < removedCount; ++i) {
+			removedCategories.add(_decode(codec, input.readUTF()));
+		}
+		
+		int categoryCount = Varints.readUnsignedInt(input);
+		List<T> categories = new ArrayList<T>(Math.min(categoryCount, 1024));
+		int[] categoryRows = new int[categoryCount];
+		int[] categoryTokens = new int[categoryCount];
+		for(int i = 0; i < categoryCount; ++i) {
+			categories.add(_decode(codec, input.readUTF()));
+			categoryRows[i] = Varints.readSignedInt(input);
+			categoryTokens[i] = Varints.readSignedInt(input);
+		}
+		
+		int wordCount = Varints.readUnsignedInt(input);
+		List<SnapshotWord> words = new ArrayList<SnapshotWord>(Math.min(wordCount, 1 << 16));
+		for(int i = 0; i < wordCount; ++i) {
+			String word = input.readUTF();
+			int count = Varints.readSignedInt(input);
+			int linkCount = Varints.readUnsignedInt(input);
+			if( linkCount > categoryCount ) {
+				throw new IOException("Corrupt delta, word " + word + " has " + linkCount + " links");
+			}
+			int[] indexes = new int[linkCount];
+			int[] weights = new int[linkCount];
+			for(int j = 0; j < linkCount; ++j) {
+				indexes[j] = Varints.readUnsignedInt(input);
+				weights[j] = Varints.readSignedInt(input);
+			}
+			words.add(new SnapshotWord(word, count, indexes, weights));
+		}
+		
+		try {
+			return new ModelDelta<T>(fromVersion, toVersion, totalRows, removedCategories, categories, categoryRows, categoryTokens, words);
+		} catch(InvalidParameterException e) {
+			throw new IOException("Corrupt delta, " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Decode a category read from a delta.
+	 * @param codec The codec used to read categories.
+	 * @param value The encoded category.
+	 * @return The category.
+	 * @throws IOException Thrown when the codec does not know the category.
+	 */
+	private static <T> T _decode(ICategoryCodec<T> codec, String value) throws IOException {
+		try {
+			return codec.decode(value);
+		} catch(IllegalArgumentException e) {
+			throw new IOException("Unknown category in delta: " + value);
+		}
+	}
+}
@@ -0,0 +1,240 @@
+package com.nickferraro.bayesian.model.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.nickferraro.bayesian.model.ModelMode;
+
+/**
+ * Merges model snapshots of the same mode into one snapshot. Category counts, word counts and link weights are added together, so the
+ * result matches a single model trained on every row the inputs were trained on.
+ * <p>
+ * Words are merged with a k-way merge over the inputs, which are already in ascending word order. Only the current word of each input
+ * is held in memory, so the memory used depends on the number of inputs and categories, not on the size of the vocabulary.
+ * </p>
+ * This class is thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ModelMerger<T> {
+	private final ICategoryCodec<T> codec;
+	
+	/**
+	 * Create a merger.
+	 * @param codec The codec used to read and write categories. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when codec is NULL.
+	 */
+	public ModelMerger(ICategoryCodec<T> codec) throws InvalidParameterException {
+		if( codec == null ) {
+			throw new InvalidParameterException("Cannot create a ModelMerger with a NULL codec");
+		}
+		
+		this.codec = codec;
+	}
+	
+	/**
+	 * Merge snapshot files into one snapshot file. The output is written to a temporary file next to it and renamed when complete.
+	 * @param inputs The snapshot files to merge. Cannot be NULL or empty.
+	 * @param output The file to write the merged snapshot to. Cannot be NULL.
+	 * @return The number of words in the merged snapshot.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL or there are no inputs.
+	 * @throws IOException Thrown when a snapshot cannot be read, the modes differ, or the output cannot be written.
+	 */
+	public long merge(List<File> inputs, File output) throws InvalidParameterException, IOException {
+		if( inputs == null || inputs.isEmpty() || output == null ) {
+			throw new InvalidParameterException("Cannot merge without inputs and an output");
+		}
+		
+		File temporaryFile = new File(output.getPath() + ".tmp");
+		List<ModelSnapshotReader<T>> readers = new ArrayList<ModelSnapshotReader<T>>(inputs.size());
+		long wordCount;
+		try {
+			for(File input : inputs) {
+				FileInputStream inputStream = new FileInputStream(input);
+				try {
+					readers.add(new ModelSnapshotReader<T>(inputStream, codec));
+				} catch(IOException e) {
+					inputStream.close();
+					throw new IOException("Cannot read snapshot " + input + ": " + e.getMessage());
+				}
+			}
+			
+			ModelSnapshotWriter<T> writer = new ModelSnapshotWriter<T>(new FileOutputStream(temporaryFile), codec);
+			try {
+				wordCount = merge(readers, writer);
+			} finally {
+				writer.close();
+			}
+		} catch(IOException e) {
+			temporaryFile.delete();
+			throw e;
+		} finally {
+			for(ModelSnapshotReader<T> reader : readers) {
+				reader.close();
+			}
+		}
+		
+		// Replace the previous output
+		if( !temporaryFile.renameTo(output) ) {
+			output.delete();
+			if( !temporaryFile.renameTo(output) ) {
+				throw new IOException("Cannot rename " + temporaryFile + " to " + output);
+			}
+		}
+		
+		return wordCount;
+	}
+	
+	/**
+	 * Merge snapshots into one snapshot. Every word of the readers is consumed, the writer is finished but not closed.
+	 * @param readers The snapshots to merge, their headers read but no word. Cannot be NULL or empty.
+	 * @param writer The writer to write the merged snapshot to, its header not yet written. Cannot be NULL.
+	 * @return The number of words in the merged snapshot.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL or there are no readers.
+	 * @throws IOException Thrown when a snapshot cannot be read, the modes differ, a snapshot is out of order, or the output cannot be written.
+	 */
+	public long merge(List<ModelSnapshotReader<T>> readers, ModelSnapshotWriter<T> writer) throws InvalidParameterException, IOException {
+		if( readers == null || readers.isEmpty() || writer == null ) {
+			throw new InvalidParameterException("Cannot merge without readers and a writer");
+		}
+		
+		// Combine the headers, categories keep the order they are first seen in
+		ModelMode mode = readers.get(0).getMode();
+		List<T> categories = new ArrayList<T>();
+		HashMap<T, Integer> categoryIndexes = new HashMap<T, Integer>();
+		List<int[]> categoryCounts = new ArrayList<int[]>();
+		int totalRows = 0;
+		List<Cursor> cursors = new ArrayList<Cursor>(readers.size());
+		for(ModelSnapshotReader<T> reader : readers) {
+			if( reader.getMode() != mode ) {
+				throw new IOException("Cannot merge a " + reader.getMode() + " snapshot into a " + mode + " snapshot");
+			}
+			
+			int[] remap = new int[reader.getCategories().size()];
+			for(int i = 0; i < remap.length; ++i) {
+				T category = reader.getCategories().get(i);
+				Integer index = categoryIndexes.get(category);
+				if( index == null ) {
+					index = categories.size();
+					categories.add(category);
+					categoryIndexes.put(category, index);
+					categoryCounts.add(new int[2]);
+				}
+				remap[i] = index;
+				categoryCounts.get(index)[0] += reader.getCategoryRows(i);
+				categoryCounts.get(index)[1] += reader.getCategoryTokens(i);
+			}
+			totalRows += reader.getTotalRows();
+			cursors.add(new Cursor(reader, remap, cursors.size()));
+		}
+		
+		int[] rows = new int[categories.size()];
+		int[] tokens = new int[categories.size()];
+		for(int i = 0; i < rows.length; ++i) {
+			rows[i] = categoryCounts.get(i)[0];
+			tokens[i] = categoryCounts.get(i)[1];
+		}
+		writer.writeHeader(mode, totalRows, categories, rows, tokens);
+		
+		// Prime the queue with the first word of every input
+		PriorityQueue<Cursor> queue = new PriorityQueue<Cursor>(cursors.size(), new Comparator<Cursor>() {
+			@Override
+			public int compare(Cursor left, Cursor right) {
+				int compare = left.word.getWord().compareTo(right.word.getWord());
+				return ( compare != 0 ? compare : left.order - right.order );
+			}
+		});
+		for(Cursor cursor : cursors) {
+			if( cursor.advance() ) {
+				queue.add(cursor);
+			}
+		}
+		
+		// Pop every input positioned on the smallest word and add their counts together
+		int[] weights = new int[categories.size()];
+		boolean[] touched = new boolean[categories.size()];
+		int[] linked = new int[categories.size()];
+		long wordCount = 0;
+		while( !queue.isEmpty() ) {
+			String word = queue.peek().word.getWord();
+			int count = 0;
+			int linkCount = 0;
+			while( !queue.isEmpty() && queue.peek().word.getWord().equals(word) ) {
+				Cursor cursor = queue.poll();
+				count += cursor.word.getCount();
+				for(int i = 0; i < cursor.word.getLinkCount(); ++i) {
+					int index = cursor.remap[cursor.word.getCategoryIndex(i)];
+					if( !touched[index] ) {
+						touched[index] = true;
+						linked[linkCount++] = index;
+					}
+					weights[index] += cursor.word.getWeight(i);
+				}
+				
+				if( cursor.advance() ) {
+					queue.add(cursor);
+				}
+			}
+			
+			int[] wordIndexes = new int[linkCount];
+			int[] wordWeights = new int[linkCount];
+			for(int i = 0; i < linkCount; ++i) {
+				wordIndexes[i] = linked[i];
+				wordWeights[i] = weights[linked[i]];
+				weights[linked[i]] = 0;
+				touched[linked[i]] = false;
+			}
+			writer.writeWord(new SnapshotWord(word, count, wordIndexes, wordWeights));
+			++wordCount;
+		}
+		
+		writer.finish();
+		return wordCount;
+	}
+	
+	/**
+	 * The position of the merge in one input.
+	 */
+	private class Cursor {
+		private final ModelSnapshotReader<T> reader;
+		private final int[] remap;
+		private final int order;
+		private SnapshotWord word = null;
+		
+		/**
+		 * Create a cursor before the first word of an input.
+		 * @param reader The input.
+		 * @param remap The merged category index of each input category index.
+		 * @param order The position of the input, equal words are merged in input order.
+		 */
+		private Cursor(ModelSnapshotReader<T> reader, int[] remap, int order) {
+			this.reader = reader;
+			this.remap = remap;
+			this.order = order;
+		}
+		
+		/**
+		 * Move to the next word of the input.
+		 * @return True if there is a next word, false at the end of the input.
+		 * @throws IOException Thrown when the input cannot be read or is out of order.
+		 */
+		private boolean advance() throws IOException {
+			SnapshotWord next = reader.nextWord();
+			if( next != null && word != null && next.getWord().compareTo(word.getWord()) <= 0 ) {
+				throw new IOException("Snapshot words are out of order at " + next.getWord());
+			}
+			
+			word = next;
+			return next != null;
+		}
+	}
+}
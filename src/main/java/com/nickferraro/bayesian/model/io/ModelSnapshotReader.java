@@ -0,0 +1,171 @@
+package com.nickferraro.bayesian.model.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.nickferraro.bayesian.model.ModelMode;
+
+/**
+ * Reads a snapshot written by {@link ModelSnapshotWriter}. The header is read when the reader is created and word records are 
+ * streamed one at a time in ascending word order. This class is not thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ModelSnapshotReader<T> implements Closeable {
+	private final DataInputStream input;
+	private final ModelMode mode;
+	private final long modelVersion;
+	private final int totalRows;
+	private final List<T> categories;
+	private final int[] categoryRows;
+	private final int[] categoryTokens;
+	private boolean finished = false;
+	
+	/**
+	 * Create a snapshot reader and read the header. The stream is buffered by the reader.
+	 * @param inputStream The stream to read from. Cannot be NULL.
+	 * @param codec The codec used to read categories. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 * @throws IOException Thrown when the header cannot be read or the stream is not a snapshot.
+	 */
+	public ModelSnapshotReader(InputStream inputStream, ICategoryCodec<T> codec) throws InvalidParameterException, IOException {
+		if( inputStream == null || codec == null ) {
+			throw new InvalidParameterException("Cannot create a ModelSnapshotReader with NULL values");
+		}
+		
+		this.input = new DataInputStream(new BufferedInputStream(inputStream, 1 << 16));
+		if( input.readInt() != ModelSnapshotWriter.MAGIC ) {
+			throw new IOException("The stream is not a bayesian model snapshot");
+		}
+		int version = input.readInt();
+		if( version < 1 || version > ModelSnapshotWriter.VERSION ) {
+			throw new IOException("Unsupported snapshot version " + version);
+		}
+		
+		try {
+			this.mode = ModelMode.valueOf(input.readUTF());
+		} catch(IllegalArgumentException e) {
+			throw new IOException("Unknown model mode in snapshot");
+		}
+		// Version 1 snapshots have no model version
+		this.modelVersion = ( version >= 2 ? input.readLong() : 0 );
+		this.totalRows = input.readInt();
+		
+		int categoryCount = input.readInt();
+		List<T> categoryList = new ArrayList<T>(categoryCount);
+		this.categoryRows = new int[categoryCount];
+		this.categoryTokens = new int[categoryCount];
+		for(int i = 0; i < categoryCount; ++i) {
+			String value = input.readUTF();
+			try {
+				categoryList.add(codec.decode(value));
+			} catch(IllegalArgumentException e) {
+				throw new IOException("Unknown category in snapshot: " + value);
+			}
+			categoryRows[i] = input.readInt();
+			categoryTokens[i] = input.readInt();
+		}
+		this.categories = Collections.unmodifiableList(categoryList);
+	}
+	
+	/**
+	 * Get the mode of the snapshot model.
+	 * @return The model mode.
+	 */
+	public ModelMode getMode() {
+		return mode;
+	}
+	
+	/**
+	 * Get the version the model had when the snapshot was taken.
+	 * @return The model version, 0 for snapshots written without one.
+	 */
+	public long getModelVersion() {
+		return modelVersion;
+	}
+	
+	/**
+	 * Get the total rows of the snapshot model.
+	 * @return The total rows.
+	 */
+	public int getTotalRows() {
+		return totalRows;
+	}
+	
+	/**
+	 * Get the categories of the snapshot in header order.
+	 * @return An unmodifiable list of categories.
+	 */
+	public List<T> getCategories() {
+		return categories;
+	}
+	
+	/**
+	 * Get the row count of a category.
+	 * @param categoryIndex The header index of the category.
+	 * @return The row count.
+	 */
+	public int getCategoryRows(int categoryIndex) {
+		return categoryRows[categoryIndex];
+	}
+	
+	/**
+	 * Get the token count of a category.
+	 * @param categoryIndex The header index of the category.
+	 * @return The token count.
+	 */
+	public int getCategoryTokens(int categoryIndex) {
+		return categoryTokens[categoryIndex];
+	}
+	
+	/**
+	 * Read the next word record.
+	 * @return The next word, or NULL at the end of the snapshot.
+	 * @throws IOException Thrown when the record cannot be read or is corrupt.
+	 */
+	public SnapshotWord nextWord() throws IOException {
+		if( finished ) {
+			return null;
+		}
+		
+		int marker = input.readByte();
+		if( marker == ModelSnapshotWriter.END_MARKER ) {
+			finished = true;
+			return null;
+		}
+		if( marker != ModelSnapshotWriter.WORD_MARKER ) {
+			throw new IOException("Corrupt snapshot, unexpected marker " + marker);
+		}
+		
+		String word = input.readUTF();
+		int count = input.readInt();
+		int linkCount = input.readInt();
+		if( linkCount < 0 || linkCount > categories.size() ) {
+			throw new IOException("Corrupt snapshot, word " + word + " has " + linkCount + " links");
+		}
+		int[] categoryIndexes = new int[linkCount];
+		int[] weights = new int[linkCount];
+		for(int i = 0; i < linkCount; ++i) {
+			categoryIndexes[i] = input.readInt();
+			weights[i] = input.readInt();
+			if( categoryIndexes[i] < 0 || categoryIndexes[i] >= categories.size() ) {
+				throw new IOException("Corrupt snapshot, word " + word + " links to category index " + categoryIndexes[i]);
+			}
+		}
+		
+		return new SnapshotWord(word, count, categoryIndexes, weights);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		input.close();
+	}
+}
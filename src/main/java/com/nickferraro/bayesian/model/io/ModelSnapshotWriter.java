@@ -0,0 +1,155 @@
+package com.nickferraro.bayesian.model.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.InvalidParameterException;
+import java.util.List;
+
+import com.nickferraro.bayesian.model.ModelMode;
+
+/**
+ * Writes a model snapshot as a stream. The header holds the mode, the total rows and every category with its counts. 
+ * It is followed by word records in ascending word order, so snapshots can be merged without loading them.
+ * <pre>
+ * int magic, int version, UTF mode, long modelVersion, int totalRows, int categoryCount, (UTF category, int rows, int tokens)*
+ * (byte 1, UTF word, int count, int linkCount, (int categoryIndex, int weight)*)*
+ * byte 0
+ * </pre>
+ * This class is not thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ModelSnapshotWriter<T> implements Closeable {
+	static final int MAGIC = 0x42594D53;
+	static final int VERSION = 2;
+	static final int WORD_MARKER = 1;
+	static final int END_MARKER = 0;
+	
+	private final DataOutputStream output;
+	private final ICategoryCodec<T> codec;
+	private int categoryCount = -1;
+	private String lastWord = null;
+	private boolean finished = false;
+	
+	/**
+	 * Create a snapshot writer. The stream is buffered by the writer.
+	 * @param outputStream The stream to write to. Cannot be NULL.
+	 * @param codec The codec used to write categories. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 */
+	public ModelSnapshotWriter(OutputStream outputStream, ICategoryCodec<T> codec) throws InvalidParameterException {
+		if( outputStream == null || codec == null ) {
+			throw new InvalidParameterException("Cannot create a ModelSnapshotWriter with NULL values");
+		}
+		
+		this.output = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+		this.codec = codec;
+	}
+	
+	/**
+	 * Write the snapshot header with a model version of 0. Must be called once, before any word.
+	 * @param mode The mode of the model.
+	 * @param totalRows The total rows of the model.
+	 * @param categories The categories of the model. Word records refer to them by index.
+	 * @param rows The row count of each category.
+	 * @param tokens The token count of each category.
+	 * @throws IOException Thrown when the header cannot be written.
+	 * @throws IllegalStateException Thrown when the header was already written.
+	 */
+	public void writeHeader(ModelMode mode, int totalRows, List<T> categories, int[] rows, int[] tokens) throws IOException, IllegalStateException {
+		writeHeader(mode, 0, totalRows, categories, rows, tokens);
+	}
+	
+	/**
+	 * Write the snapshot header. Must be called once, before any word.
+	 * @param mode The mode of the model.
+	 * @param modelVersion The version of the model when the snapshot was taken. Replicas apply deltas starting from this version.
+	 * @param totalRows The total rows of the model.
+	 * @param categories The categories of the model. Word records refer to them by index.
+	 * @param rows The row count of each category.
+	 * @param tokens The token count of each category.
+	 * @throws IOException Thrown when the header cannot be written.
+	 * @throws IllegalStateException Thrown when the header was already written.
+	 */
+	public void writeHeader(ModelMode mode, long modelVersion, int totalRows, List<T> categories, int[] rows, int[] tokens) 
+			throws IOException, IllegalStateException {
+		if( categoryCount >= 0 ) {
+			throw new IllegalStateException("The snapshot header was already written");
+		}
+		
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeUTF(mode.name());
+		output.writeLong(modelVersion);
+		output.writeInt(totalRows);
+		output.writeInt(categories.size());
+		for(int i = 0; i < categories.size(); ++i) {
+			output.writeUTF(codec.encode(categories.get(i)));
+			output.writeInt(rows[i]);
+			output.writeInt(tokens[i]);
+		}
+		
+		categoryCount = categories.size();
+	}
+	
+	/**
+	 * Write a word record. Words must be written in ascending order.
+	 * @param word The word record to write.
+	 * @throws IOException Thrown when the record cannot be written.
+	 * @throws IllegalStateException Thrown when the header is missing, the snapshot is finished, or the word is out of order.
+	 */
+	public void writeWord(SnapshotWord word) throws IOException, IllegalStateException {
+		if( categoryCount < 0 || finished ) {
+			throw new IllegalStateException("Words can only be written between the header and the end of the snapshot");
+		}
+		if( lastWord != null && lastWord.compareTo(word.getWord()) >= 0 ) {
+			throw new IllegalStateException("Words must be written in ascending order");
+		}
+		
+		output.writeByte(WORD_MARKER);
+		output.writeUTF(word.getWord());
+		output.writeInt(word.getCount());
+		output.writeInt(word.getLinkCount());
+		for(int i = 0; i < word.getLinkCount(); ++i) {
+			int categoryIndex = word.getCategoryIndex(i);
+			if( categoryIndex < 0 || categoryIndex >= categoryCount ) {
+				throw new IllegalStateException("Word links to an unknown category index " + categoryIndex);
+			}
+			output.writeInt(categoryIndex);
+			output.writeInt(word.getWeight(i));
+		}
+		
+		lastWord = word.getWord();
+	}
+	
+	/**
+	 * Write the end marker and flush the stream. The stream stays open.
+	 * @throws IOException Thrown when the stream cannot be written.
+	 */
+	public void finish() throws IOException {
+		if( !finished ) {
+			output.writeByte(END_MARKER);
+			finished = true;
+		}
+		output.flush();
+	}
+	
+	/**
+	 * Finish the snapshot and close the stream.
+	 * @throws IOException Thrown when the stream cannot be written or closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if( categoryCount >= 0 ) {
+				finish();
+			}
+		} finally {
+			output.close();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.nickferraro.bayesian.model.io;
+
+import java.security.InvalidParameterException;
+
+/**
+ * One word record of a model snapshot. Links refer to categories by their index in the snapshot header.
+ * @author Nick Ferraro
+ */
+public class SnapshotWord {
+	private final String word;
+	private final int count;
+	private final int[] categoryIndexes;
+	private final int[] weights;
+	
+	/**
+	 * Create a word record. The arrays are kept, not copied.
+	 * @param word The word. Cannot be NULL.
+	 * @param count The number of rows, or tokens in multinomial models, that contained the word.
+	 * @param categoryIndexes The header index of each linked category. Cannot be NULL.
+	 * @param weights The weight of each link. Cannot be NULL and must be as long as categoryIndexes.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL or the arrays differ in length.
+	 */
+	public SnapshotWord(String word, int count, int[] categoryIndexes, int[] weights) throws InvalidParameterException {
+		if( word == null || categoryIndexes == null || weights == null ) {
+			throw new InvalidParameterException("Cannot create a SnapshotWord with NULL values");
+		}
+		if( categoryIndexes.length != weights.length ) {
+			throw new InvalidParameterException("Cannot create a SnapshotWord with a different number of categories and weights");
+		}
+		
+		this.word = word;
+		this.count = count;
+		this.categoryIndexes = categoryIndexes;
+		this.weights = weights;
+	}
+	
+	/**
+	 * Get the word.
+	 * @return The word.
+	 */
+	public String getWord() {
+		return word;
+	}
+	
+	/**
+	 * Get the count of the word.
+	 * @return The word count.
+	 */
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * Get the number of categories linked to the word.
+	 * @return The link count.
+	 */
+	public int getLinkCount() {
+		return categoryIndexes.length;
+	}
+	
+	/**
+	 * Get the header index of a linked category.
+	 * @param link The link index, from 0 to {@link #getLinkCount()} exclusive.
+	 * @return The category index.
+	 */
+	public int getCategoryIndex(int link) {
+		return categoryIndexes[link];
+	}
+	
+	/**
+	 * Get the weight of a link.
+	 * @param link The link index, from 0 to {@link #getLinkCount()} exclusive.
+	 * @return The link weight.
+	 */
+	public int getWeight(int link) {
+		return weights[link];
+	}
+}
@@ -0,0 +1,17 @@
+package com.nickferraro.bayesian.model.io;
+
+/**
+ * A category codec for string categories. The text of a category is the category itself.
+ * @author Nick Ferraro
+ */
+public class StringCategoryCodec implements ICategoryCodec<String> {
+	@Override
+	public String encode(String category) {
+		return category;
+	}
+	
+	@Override
+	public String decode(String value) {
+		return value;
+	}
+}
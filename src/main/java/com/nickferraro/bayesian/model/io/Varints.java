@@ -0,0 +1,98 @@
+package com.nickferraro.bayesian.model.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Variable length integer encoding. Values are written 7 bits per byte, low bits first, with the high bit set on every byte but the last.
+ * Signed values are zigzag encoded first so small negative numbers stay small.
+ * @author Nick Ferraro
+ */
+public final class Varints {
+	private Varints() {}
+	
+	/**
+	 * Write an unsigned variable length long.
+	 * @param output The output to write to.
+	 * @param value The value to write, treated as unsigned.
+	 * @throws IOException Thrown when the output cannot be written.
+	 */
+	public static void writeUnsigned(DataOutput output, long value) throws IOException {
+		while( (value & ~0x7FL) != 0 ) {
+			output.writeByte((int)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		output.writeByte((int)value);
+	}
+	
+	/**
+	 * Write a signed variable length long with zigzag encoding.
+	 * @param output The output to write to.
+	 * @param value The value to write.
+	 * @throws IOException Thrown when the output cannot be written.
+	 */
+	public static void writeSigned(DataOutput output, long value) throws IOException {
+		writeUnsigned(output, (value << 1) ^ (value >> 63));
+	}
+	
+	/**
+	 * Read an unsigned variable length long.
+	 * @param input The input to read from.
+	 * @return The value.
+	 * @throws IOException Thrown when the input cannot be read or the value is longer than 10 bytes.
+	 */
+	public static long readUnsigned(DataInput input) throws IOException {
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7) {
+			int b = input.readUnsignedByte();
+			value |= (long)(b & 0x7F) << shift;
+			if( (b & 0x80) == 0 ) {
+				return value;
+			}
+		}
+		
+		throw new IOException("Malformed variable length integer");
+	}
+	
+	/**
+	 * Read a signed variable length long with zigzag encoding.
+	 * @param input The input to read from.
+	 * @return The value.
+	 * @throws IOException Thrown when the input cannot be read.
+	 */
+	public static long readSigned(DataInput input) throws IOException {
+		long value = readUnsigned(input);
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	/**
+	 * Read an unsigned variable length value that must fit in a non-negative int.
+	 * @param input The input to read from.
+	 * @return The value.
+	 * @throws IOException Thrown when the input cannot be read or the value does not fit.
+	 */
+	public static int readUnsignedInt(DataInput input) throws IOException {
+		long value = readUnsigned(input);
+		if( value < 0 || value > Integer.MAX_VALUE ) {
+			throw new IOException("Variable length integer out of range: " + value);
+		}
+		
+		return (int)value;
+	}
+	
+	/**
+	 * Read a signed variable length value that must fit in an int.
+	 * @param input The input to read from.
+	 * @return The value.
+	 * @throws IOException Thrown when the input cannot be read or the value does not fit.
+	 */
+	public static int readSignedInt(DataInput input) throws IOException {
+		long value = readSigned(input);
+		if( value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ) {
+			throw new IOException("Variable length integer out of range: " + value);
+		}
+		
+		return (int)value;
+	}
+}
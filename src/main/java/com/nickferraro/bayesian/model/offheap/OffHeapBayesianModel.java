@@ -0,0 +1,996 @@
+package com.nickferraro.bayesian.model.offheap;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.nickferraro.bayesian.IBayesianListener;
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.CategoryIndex;
+import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.ICompactableModel;
+import com.nickferraro.bayesian.model.ILinkVisitor;
+import com.nickferraro.bayesian.model.IWordMembership;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.ModelSizeReport;
+import com.nickferraro.bayesian.model.WordBloomFilter;
+import com.nickferraro.bayesian.model.offheap.core.OffHeapIntArray;
+import com.nickferraro.bayesian.model.offheap.core.OffHeapLinkTable;
+import com.nickferraro.bayesian.model.vocabulary.ArenaVocabulary;
+
+/**
+ * This OffHeapBayesianModel class keeps node counts and link weights in direct buffers outside of the Java heap.
+ * Categories and words are interned to dense int ids, and links are held in an open-addressing table keyed by (category id, word id),
+ * so the model does not allocate an object per link and the garbage collector never scans the counts.
+ * Words are held as UTF-8 bytes in an {@link ArenaVocabulary}, so only the category dictionary and a few arrays live on the heap.
+ * Removed words and categories keep their ids and bytes until the model is compacted with {@link #compact()}.
+ * This class is Thread-safe.
+ *
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type
+ */
+public class OffHeapBayesianModel<T> implements IBayesianModel<T>, IWordMembership, ICompactableModel {
+	// Size estimates assume a 64-bit JVM with compressed references and 8 byte object alignment
+	private static final int MAP_BYTES = 48;
+	private static final int MAP_ENTRY_BYTES = 32;
+	private static final int INTEGER_BYTES = 16;
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int REFERENCE_BYTES = 4;
+	private static final int MIN_FILTER_CAPACITY = 1024;
+	private static final int MIN_LINK_CAPACITY = 16;
+	
+	private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+	private Lock readLock = readWriteLock.readLock();
+	private Lock writeLock = readWriteLock.writeLock();
+	
+	// The storage is replaced as a whole when the model is compacted. The immutable index over the categories is dropped on a change
+	// and built again on the next read.
+	private HashMap<T, Integer> categoryIds = new HashMap<T, Integer>();
+	private ArrayList<T> categories = new ArrayList<T>();
+	private volatile CategoryIndex<T> uniqueCategories = CategoryIndex.empty();
+	private ArenaVocabulary vocabulary = new ArenaVocabulary();
+	
+	// Read without the lock to rule out unknown words, replaced with a larger filter when full
+	private volatile WordBloomFilter vocabularyFilter = new WordBloomFilter(MIN_FILTER_CAPACITY);
+	
+	private OffHeapIntArray categoryCounts = new OffHeapIntArray();
+	private OffHeapIntArray categoryTokens = new OffHeapIntArray();
+	private OffHeapIntArray categoryLinkCounts = new OffHeapIntArray();
+	private OffHeapIntArray wordCounts = new OffHeapIntArray();
+	private OffHeapIntArray wordLinkCounts = new OffHeapIntArray();
+	private OffHeapLinkTable links = new OffHeapLinkTable();
+	private int totalRows = 0;
+	private final ModelMode mode;
+	
+	// Counts every change, so compaction can tell if training ran while it built the new storage
+	private long changeCount = 0;
+	private int removedEntries = 0;
+	
+	// Incrementally maintained statistics for the size report
+	private int hapaxWords = 0;
+	
+	// Receives training and compaction events, nothing is measured while it is NULL
+	private volatile IBayesianListener listener = null;
+	
+	/**
+	 * Default constructor. The model is trained in {@link ModelMode#BERNOULLI} mode.
+	 */
+	public OffHeapBayesianModel() {
+		this(ModelMode.BERNOULLI);
+	}
+	
+	/**
+	 * Constructor that sets the event model used for training.
+	 * @param mode The mode of this model. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when mode is NULL.
+	 */
+	public OffHeapBayesianModel(ModelMode mode) throws InvalidParameterException {
+		if( mode == null ) {
+			throw new InvalidParameterException("Cannot create a model with a NULL mode");
+		}
+		
+		this.mode = mode;
+	}
+	
+	/**
+	 * Set the listener that receives training and compaction events of this model. This method is thread-safe.
+	 * @param listener The listener. NULL stops emitting events.
+	 */
+	public void setListener(IBayesianListener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Get the listener that receives the events of this model. This method is thread-safe.
+	 * @return The listener, or NULL if there is none.
+	 */
+	public IBayesianListener getListener() {
+		return listener;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public boolean addCategory(T category) {
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Add category with thread unsafe private method
+			return _addCategory(category);
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int addCategories(List<T> categories) {
+		// Validate categories parameter
+		if( categories == null ) {
+			return 0;
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Iterate and add all categories
+			int addedCount = 0;
+			for(T category : categories) {
+				// Count categories actually added
+				if( _addCategory(category) ) {
+					++addedCount;
+				}
+			}
+			
+			return addedCount;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method scans the link table if the category has links. This method is thread-safe.
+	 */
+	@Override
+	public T removeCategory(T category) {
+		// Validate category parameter
+		if( category == null ) {
+			return null;
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Remove category
+			List<T> removedCategories = _removeCategories(Collections.singletonList(category));
+			return ( removedCategories.isEmpty() ? null : removedCategories.get(0) );
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method scans the link table once for all the categories that have links. This method is thread-safe.
+	 */
+	@Override
+	public List<T> removeCategories(List<T> categories) {
+		// Validate categories parameter
+		if( categories == null ) {
+			return new ArrayList<T>();
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Remove the categories and their links together
+			return _removeCategories(categories);
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public boolean addWord(String word) {
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Add word with thread unsafe private method
+			return _addWord(word);
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int addWords(List<String> words) {
+		// Validate words parameter
+		if( words == null ) {
+			return 0;
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Iterate and add all words
+			int addedCount = 0;
+			for(String word : words) {
+				// Count words actually added
+				if( _addWord(word) ) {
+					++addedCount;
+				}
+			}
+			
+			return addedCount;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method requires a valid category and non-null set of unique words from the data row, 
+	 * or a non-null list of words in {@link ModelMode#MULTINOMIAL} mode. This method is thread-safe.
+	 */
+	@Override
+	public boolean addDataRow(IDataRow<T> dataRow) {
+		// Observed training takes the measured path
+		IBayesianListener observer = listener;
+		if( observer != null ) {
+			return _addObservedDataRows(Collections.singletonList(dataRow), observer) == 1;
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Add data row with thread unsafe private method
+			return _addDataRow(dataRow);
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method requires data rows with a valid category and non-null set of unique words from the data row. This method is thread-safe.
+	 */
+	@Override
+	public int addDataRows(List<IDataRow<T>> dataRows) {
+		// Validates data rows parameter
+		if( dataRows == null ) {
+			return 0;
+		}
+		
+		// Observed training takes the measured path
+		IBayesianListener observer = listener;
+		if( observer != null ) {
+			return _addObservedDataRows(dataRows, observer);
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Iterate and add all data rows with thread unsafe private method
+			int addedCount = 0;
+			for( IDataRow<T> dataRow : dataRows ) {
+				// If the row is successfully added, increase addedCount
+				if( _addDataRow(dataRow) ) {
+					++addedCount;
+				}
+			}
+			
+			return addedCount;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int countRowsWithCategory(T category) {
+		// Validate category parameter
+		if( category == null ) {
+			return 0;
+		}
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get the category id and its count
+			Integer categoryId = categoryIds.get(category);
+			return ( categoryId == null ? 0 : categoryCounts.get(categoryId) );
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int countRowsWithWord(String word) {
+		// Validate word parameter
+		if( word == null ) {
+			return 0;
+		}
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get the word id and its count
+			int wordId = vocabulary.getId(word);
+			return ( wordId < 0 ? 0 : wordCounts.get(wordId) );
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int countRowsWithCategoryWithWord(T category, String word) {
+		// Validate category and word parameters
+		if( category == null || word == null ) {
+			return 0;
+		}
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Both ids must exist for a link to exist
+			Integer categoryId = categoryIds.get(category);
+			int wordId = vocabulary.getId(word);
+			if( categoryId == null || wordId < 0 ) {
+				return 0;
+			}
+			
+			return links.get(categoryId, wordId);
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method probes the link table once per category. The visitor is called while the read lock is held. This method is thread-safe.
+	 */
+	@Override
+	public int visitWordLinks(String word, ILinkVisitor<T> visitor) {
+		// Validate word and visitor parameters
+		if( word == null || visitor == null ) {
+			return 0;
+		}
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get the word id
+			int wordId = vocabulary.getId(word);
+			if( wordId < 0 ) {
+				return 0;
+			}
+			
+			// Probe the link of each category to the word
+			int visited = 0;
+			for(int categoryId = 0; categoryId < categories.size(); ++categoryId) {
+				T category = categories.get(categoryId);
+				int weight = ( category == null ? 0 : links.get(categoryId, wordId) );
+				if( weight > 0 ) {
+					visitor.visitLink(category, weight);
+					++visited;
+				}
+			}
+			
+			return visited;
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int countTokensWithCategory(T category) {
+		// Validate category parameter
+		if( category == null ) {
+			return 0;
+		}
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get the category id and its token count
+			Integer categoryId = categoryIds.get(category);
+			return ( categoryId == null ? 0 : categoryTokens.get(categoryId) );
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The mode never changes, so this method does not lock.
+	 */
+	@Override
+	public ModelMode getMode() {
+		return mode;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The vocabulary filter is read without a lock, so this method is thread-safe and never blocks.
+	 */
+	@Override
+	public boolean mightContainWord(String word) {
+		return vocabularyFilter.mightContain(word);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int getTotalRows() {
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get total rows count
+			return this.totalRows;
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The set is an immutable {@link CategoryIndex} in the order categories were added, so it can be iterated without holding a lock.
+	 * Its indices are not the category ids of this model, which are never reused. This method is thread-safe.
+	 */
+	@Override
+	public Set<T> getUniqueCategories() {
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get the current category index
+			return _uniqueCategories();
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public Set<String> getUniqueWords() {
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Get a view of the interned words
+			return vocabulary.asSet();
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * Node and link bytes are reported as off-heap bytes. This method is thread-safe.
+	 */
+	@Override
+	public ModelSizeReport getSizeReport() {
+		// Lock
+		readLock.lock();
+		
+		try {
+			int wordCount = vocabulary.size();
+			int categoryCount = categoryIds.size();
+			
+			// The category dictionary holds a map entry and a boxed id per key, and the id list holds a reference per id ever assigned
+			long mapBytes = MAP_BYTES + (long)categoryCount * (MAP_ENTRY_BYTES + INTEGER_BYTES);
+			mapBytes += ARRAY_HEADER_BYTES + (long)categories.size() * REFERENCE_BYTES + vocabularyFilter.getBytes();
+			long offHeapBytes = categoryCounts.getBytes() + categoryTokens.getBytes() + categoryLinkCounts.getBytes() + wordCounts.getBytes() 
+					+ wordLinkCounts.getBytes() + links.getBytes();
+			
+			return new ModelSizeReport(wordCount, categoryCount, links.size(), hapaxWords, vocabulary.getBytes(), 0, 0, 0, mapBytes, offHeapBytes);
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * Categories and words are renumbered densely in id order and copied into storage sized for them, which releases the ids, counts
+	 * and vocabulary bytes of removed entries. The new storage is built under the read lock, and the write lock is held only to swap it
+	 * in. If training changed the model while the storage was built, it is built again under the write lock. This method is thread-safe.
+	 */
+	@Override
+	public long compact() {
+		long start = System.nanoTime();
+		long bytesBefore = getSizeReport().getTotalBytes();
+		int compactedEntries;
+		CompactedStorage<T> storage;
+		long compactedChangeCount;
+		
+		// Lock
+		readLock.lock();
+		
+		try {
+			// Build the new storage while classification continues
+			compactedChangeCount = changeCount;
+			storage = _buildCompactedStorage();
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			// Training slipped in between the locks, build again while it is blocked
+			if( changeCount != compactedChangeCount ) {
+				storage = _buildCompactedStorage();
+			}
+			
+			categoryIds = storage.categoryIds;
+			categories = storage.categories;
+			vocabulary = storage.vocabulary;
+			vocabularyFilter = storage.vocabularyFilter;
+			categoryCounts = storage.categoryCounts;
+			categoryTokens = storage.categoryTokens;
+			categoryLinkCounts = storage.categoryLinkCounts;
+			wordCounts = storage.wordCounts;
+			wordLinkCounts = storage.wordLinkCounts;
+			links = storage.links;
+			compactedEntries = removedEntries;
+			removedEntries = 0;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+		
+		long releasedBytes = Math.max(0, bytesBefore - getSizeReport().getTotalBytes());
+		IBayesianListener observer = listener;
+		if( observer != null ) {
+			observer.compacted(compactedEntries, releasedBytes, System.nanoTime() - start);
+		}
+		
+		return releasedBytes;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * This method is thread-safe.
+	 */
+	@Override
+	public int getRemovedEntries() {
+		// Lock
+		readLock.lock();
+		
+		try {
+			return removedEntries;
+		} finally {
+			// Unlock
+			readLock.unlock();
+		}
+	}
+	
+	/**
+	 * Get the index over the categories in id order, skipping removed ones, building it if a category was added or removed since the
+	 * last read. Must be called with the read or write lock held. Readers that find no index at the same time each build an equal one.
+	 * @return The category index.
+	 */
+	private CategoryIndex<T> _uniqueCategories() {
+		CategoryIndex<T> index = uniqueCategories;
+		if( index == null ) {
+			index = CategoryIndex.copyOf(categories);
+			uniqueCategories = index;
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Add a category to this model. This method is not thread-safe.
+	 * @param category The category to add
+	 * @return TRUE if the category was successfully added. FALSE if the category already exists or is NULL.
+	 */
+	private boolean _addCategory(T category) {
+		// Validate category parameter
+		if( category == null || categoryIds.containsKey(category) ) {
+			return false;
+		}
+		
+		// Intern the category to the next id
+		categoryIds.put(category, categories.size());
+		categories.add(category);
+		uniqueCategories = null;
+		++changeCount;
+		
+		return true;
+	}
+	
+	/**
+	 * Add a word to this model. This method is not thread-safe.
+	 * @param word The word to add
+	 * @return TRUE if the word was successfully added. FALSE if the word already exists or is NULL.
+	 */
+	private boolean _addWord(String word) {
+		// Validate word parameter
+		if( word == null || vocabulary.getId(word) >= 0 ) {
+			return false;
+		}
+		
+		// Intern the word to the next id
+		vocabulary.add(word);
+		_filterWord(word);
+		++changeCount;
+		
+		return true;
+	}
+	
+	/**
+	 * Add a word to the vocabulary filter. A full filter is rebuilt from the current vocabulary at twice its size, which also drops
+	 * removed words. This method is not thread-safe.
+	 * @param word The word that was interned
+	 */
+	private void _filterWord(String word) {
+		WordBloomFilter filter = vocabularyFilter;
+		if( !filter.isFull() ) {
+			filter.add(word);
+			return;
+		}
+		
+		// Build the new filter aside and publish it once it holds every word
+		filter = new WordBloomFilter(Math.max(MIN_FILTER_CAPACITY, vocabulary.size() * 2));
+		for(String vocabularyWord : vocabulary.asSet()) {
+			filter.add(vocabularyWord);
+		}
+		vocabularyFilter = filter;
+	}
+	
+	/**
+	 * Add rows of data to this model and tell a listener how long the write lock took to get, how long training took and what it added.
+	 * The listener is called after the lock is released. This method is thread-safe.
+	 * @param dataRows The rows of data to add. NULL rows are skipped.
+	 * @param observer The listener to tell.
+	 * @return The number of rows added.
+	 */
+	private int _addObservedDataRows(List<IDataRow<T>> dataRows, IBayesianListener observer) {
+		long requested = System.nanoTime();
+		long locked;
+		int addedCount = 0;
+		int newWords;
+		int newLinks;
+		
+		// Lock
+		writeLock.lock();
+		
+		try {
+			locked = System.nanoTime();
+			int wordsBefore = vocabulary.size();
+			int linksBefore = links.size();
+			for( IDataRow<T> dataRow : dataRows ) {
+				if( _addDataRow(dataRow) ) {
+					++addedCount;
+				}
+			}
+			newWords = vocabulary.size() - wordsBefore;
+			newLinks = links.size() - linksBefore;
+		} finally {
+			// Unlock
+			writeLock.unlock();
+		}
+		
+		observer.trained(addedCount, newWords, newLinks, locked - requested, System.nanoTime() - locked);
+		return addedCount;
+	}
+	
+	/**
+	 * Add a row of data to this model. This method is not thread-safe.
+	 * @param dataRow The row of data to add
+	 * @return TRUE if the data row was successfully added
+	 */
+	private boolean _addDataRow(IDataRow<T> dataRow) {
+		// Validate data row parameter
+		if( dataRow == null ) {
+			return false;
+		}
+		
+		// Get data row information. Multinomial rows count every word occurrence.
+		T rowCategory = dataRow.getCategory();
+		Collection<String> rowWords = ( mode == ModelMode.MULTINOMIAL ? dataRow.getSentenceWords() : dataRow.getUniqueSentenceWords() );
+		
+		// Validate data row information
+		if( rowCategory == null || rowWords == null ) {
+			return false;
+		}
+		
+		// Add category if it doesn't already exist and increase its count
+		_addCategory(rowCategory);
+		int categoryId = categoryIds.get(rowCategory);
+		categoryCounts.add(categoryId, 1);
+		categoryTokens.add(categoryId, rowWords.size());
+		++totalRows;
+		++changeCount;
+		
+		// Iterate and add all row words
+		for(String rowWord : rowWords) {
+			// Skip NULL words, which the vocabulary cannot hold
+			if( rowWord == null ) {
+				continue;
+			}
+			
+			// Add word if it doesn't already exist and increase its count
+			int wordCount = vocabulary.size();
+			int wordId = vocabulary.add(rowWord);
+			if( vocabulary.size() > wordCount ) {
+				_filterWord(rowWord);
+			}
+			_addWordCount(wordId, 1);
+			
+			// Increase the link weight, counting the link when it is created
+			if( links.add(categoryId, wordId, 1) == 1 ) {
+				categoryLinkCounts.add(categoryId, 1);
+				wordLinkCounts.add(wordId, 1);
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Remove categories from the bayesian model. The links of every removed category are removed in a single scan of the link table,
+	 * which is skipped when none of them has links. This method is not thread-safe.
+	 * @param removals The categories to remove from the model
+	 * @return The categories that were removed, in the order given
+	 */
+	private List<T> _removeCategories(Collection<T> removals) {
+		ArrayList<T> removedCategories = new ArrayList<T>();
+		BitSet linkedCategoryIds = new BitSet();
+		int linkCount = 0;
+		for(T category : removals) {
+			// Remove the category id if it exists
+			Integer categoryId = ( category == null ? null : categoryIds.remove(category) );
+			if( categoryId == null ) {
+				continue;
+			}
+			removedCategories.add(categories.set(categoryId, null));
+			uniqueCategories = null;
+			++removedEntries;
+			++changeCount;
+			
+			// Update total number of rows
+			this.totalRows -= categoryCounts.get(categoryId);
+			categoryCounts.set(categoryId, 0);
+			categoryTokens.set(categoryId, 0);
+			
+			// Remember the categories whose links must be removed
+			int categoryLinks = categoryLinkCounts.get(categoryId);
+			if( categoryLinks > 0 ) {
+				linkedCategoryIds.set(categoryId);
+				linkCount += categoryLinks;
+				categoryLinkCounts.set(categoryId, 0);
+			}
+		}
+		
+		if( linkCount > 0 ) {
+			_removeLinks(linkedCategoryIds, linkCount);
+		}
+		
+		return removedCategories;
+	}
+	
+	/**
+	 * Remove every link of a set of categories and update the word counts. This method is not thread-safe.
+	 * @param categoryIds The ids of the categories whose links are removed
+	 * @param linkCount The number of links the categories have, the scan stops once they are all found
+	 */
+	private void _removeLinks(BitSet categoryIds, int linkCount) {
+		// Collect the links first, since removing links shifts table slots
+		int[] linkedIds = new int[linkCount * 2];
+		int found = 0;
+		for(int slot = 0; slot < links.getCapacity() && found < linkCount; ++slot) {
+			if( !links.isEmpty(slot) && categoryIds.get(links.getCategoryIdAt(slot)) ) {
+				linkedIds[found * 2] = links.getCategoryIdAt(slot);
+				linkedIds[found * 2 + 1] = links.getWordIdAt(slot);
+				++found;
+			}
+		}
+		
+		// Remove each link and update the word counts
+		for(int i = 0; i < found; ++i) {
+			int wordId = linkedIds[i * 2 + 1];
+			int weight = links.remove(linkedIds[i * 2], wordId);
+			_addWordCount(wordId, -weight);
+			
+			// Remove the word if it no longer has any associations
+			if( wordLinkCounts.add(wordId, -1) == 0 && wordCounts.get(wordId) == 0 ) {
+				vocabulary.remove(wordId);
+				++removedEntries;
+			}
+		}
+	}
+	
+	/**
+	 * Build storage holding only the live categories, words and links, renumbered densely in id order. This method is not thread-safe.
+	 * @return The compacted storage
+	 */
+	private CompactedStorage<T> _buildCompactedStorage() {
+		CompactedStorage<T> storage = new CompactedStorage<T>();
+		
+		// Renumber the live categories
+		int[] categoryIdMap = new int[categories.size()];
+		int categoryCapacity = Math.max(1, categoryIds.size());
+		storage.categoryIds = new HashMap<T, Integer>(categoryCapacity * 4 / 3 + 1);
+		storage.categories = new ArrayList<T>(categoryCapacity);
+		storage.categoryCounts = new OffHeapIntArray(categoryCapacity);
+		storage.categoryTokens = new OffHeapIntArray(categoryCapacity);
+		storage.categoryLinkCounts = new OffHeapIntArray(categoryCapacity);
+		for(int categoryId = 0; categoryId < categories.size(); ++categoryId) {
+			T category = categories.get(categoryId);
+			if( category == null ) {
+				categoryIdMap[categoryId] = -1;
+				continue;
+			}
+			
+			int compactedId = storage.categories.size();
+			categoryIdMap[categoryId] = compactedId;
+			storage.categoryIds.put(category, compactedId);
+			storage.categories.add(category);
+			storage.categoryCounts.set(compactedId, categoryCounts.get(categoryId));
+			storage.categoryTokens.set(compactedId, categoryTokens.get(categoryId));
+			storage.categoryLinkCounts.set(compactedId, categoryLinkCounts.get(categoryId));
+		}
+		
+		// Renumber the live words, the new vocabulary holds only their bytes
+		int[] wordIdMap = new int[vocabulary.getIdLimit()];
+		int wordCapacity = Math.max(1, vocabulary.size());
+		storage.vocabulary = new ArenaVocabulary();
+		storage.vocabularyFilter = new WordBloomFilter(Math.max(MIN_FILTER_CAPACITY, vocabulary.size() * 2));
+		storage.wordCounts = new OffHeapIntArray(wordCapacity);
+		storage.wordLinkCounts = new OffHeapIntArray(wordCapacity);
+		for(int wordId = 0; wordId < wordIdMap.length; ++wordId) {
+			if( !vocabulary.contains(wordId) ) {
+				wordIdMap[wordId] = -1;
+				continue;
+			}
+			
+			String word = vocabulary.getWord(wordId);
+			int compactedId = storage.vocabulary.add(word);
+			wordIdMap[wordId] = compactedId;
+			storage.vocabularyFilter.add(word);
+			storage.wordCounts.set(compactedId, wordCounts.get(wordId));
+			storage.wordLinkCounts.set(compactedId, wordLinkCounts.get(wordId));
+		}
+		
+		// Insert the links under their new ids into a table with room for them
+		storage.links = new OffHeapLinkTable(_linkCapacity(links.size()));
+		for(int slot = 0; slot < links.getCapacity(); ++slot) {
+			if( links.isEmpty(slot) ) {
+				continue;
+			}
+			
+			int categoryId = categoryIdMap[links.getCategoryIdAt(slot)];
+			int wordId = wordIdMap[links.getWordIdAt(slot)];
+			if( categoryId >= 0 && wordId >= 0 ) {
+				storage.links.add(categoryId, wordId, links.getWeightAt(slot));
+			}
+		}
+		
+		return storage;
+	}
+	
+	/**
+	 * Get the link table capacity that holds a number of links, and one more, without growing.
+	 * @param size The number of links
+	 * @return The capacity, a power of two
+	 */
+	private static int _linkCapacity(int size) {
+		// Link tables grow when they would become more than 70% full
+		int capacity = MIN_LINK_CAPACITY;
+		while( (size + 1) * 10L > capacity * 7L ) {
+			capacity <<= 1;
+		}
+		
+		return capacity;
+	}
+	
+	/**
+	 * Add a delta to the count of a word and keep the hapax statistic up to date. This method is not thread-safe.
+	 * @param wordId The id of the word to update
+	 * @param delta The amount to add to the word count
+	 */
+	private void _addWordCount(int wordId, int delta) {
+		int oldCount = wordCounts.get(wordId);
+		int newCount = wordCounts.add(wordId, delta);
+		if( oldCount == 1 ) {
+			--hapaxWords;
+		}
+		if( newCount == 1 ) {
+			++hapaxWords;
+		}
+	}
+	
+	/**
+	 * The storage built by a compaction, swapped in as a whole.
+	 */
+	private static final class CompactedStorage<T> {
+		private HashMap<T, Integer> categoryIds;
+		private ArrayList<T> categories;
+		private ArenaVocabulary vocabulary;
+		private WordBloomFilter vocabularyFilter;
+		private OffHeapIntArray categoryCounts;
+		private OffHeapIntArray categoryTokens;
+		private OffHeapIntArray categoryLinkCounts;
+		private OffHeapIntArray wordCounts;
+		private OffHeapIntArray wordLinkCounts;
+		private OffHeapLinkTable links;
+	}
+}
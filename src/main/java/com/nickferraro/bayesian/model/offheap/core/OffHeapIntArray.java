@@ -0,0 +1,115 @@
+package com.nickferraro.bayesian.model.offheap.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.InvalidParameterException;
+
+/**
+ * A growable array of ints stored in a direct buffer outside of the Java heap.
+ * Unwritten elements read as 0. This class is not thread-safe.
+ * @author Nick Ferraro
+ */
+public class OffHeapIntArray {
+	private static final int INT_BYTES = 4;
+	private static final int DEFAULT_CAPACITY = 64;
+	private static final int MAX_CAPACITY = Integer.MAX_VALUE / INT_BYTES;
+	
+	private ByteBuffer buffer;
+	
+	/**
+	 * Default constructor
+	 */
+	public OffHeapIntArray() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructor that sets the initial capacity
+	 * @param capacity The initial number of elements to allocate. Must be positive.
+	 * @throws InvalidParameterException Thrown when capacity is less than 1.
+	 */
+	public OffHeapIntArray(int capacity) throws InvalidParameterException {
+		if( capacity < 1 || capacity > MAX_CAPACITY ) {
+			throw new InvalidParameterException("Off-heap array capacity must be between 1 and " + MAX_CAPACITY);
+		}
+		
+		buffer = ByteBuffer.allocateDirect(capacity * INT_BYTES).order(ByteOrder.nativeOrder());
+	}
+	
+	/**
+	 * Get the value at an index.
+	 * @param index The index to read. Must not be negative.
+	 * @return The value at the index, or 0 if the index was never written.
+	 */
+	public int get(int index) {
+		if( index >= getCapacity() ) {
+			return 0;
+		}
+		
+		return buffer.getInt(index * INT_BYTES);
+	}
+	
+	/**
+	 * Set the value at an index, growing the array if needed.
+	 * @param index The index to write. Must not be negative.
+	 * @param value The value to write.
+	 */
+	public void set(int index, int value) {
+		_ensureCapacity(index + 1);
+		buffer.putInt(index * INT_BYTES, value);
+	}
+	
+	/**
+	 * Add a delta to the value at an index, growing the array if needed.
+	 * @param index The index to update. Must not be negative.
+	 * @param delta The amount to add.
+	 * @return The new value at the index.
+	 */
+	public int add(int index, int delta) {
+		int value = get(index) + delta;
+		set(index, value);
+		
+		return value;
+	}
+	
+	/**
+	 * Get the number of elements this array can hold without growing.
+	 * @return The capacity of this array.
+	 */
+	public int getCapacity() {
+		return buffer.capacity() / INT_BYTES;
+	}
+	
+	/**
+	 * Get the number of bytes allocated outside of the heap for this array.
+	 * @return The allocated bytes.
+	 */
+	public long getBytes() {
+		return buffer.capacity();
+	}
+	
+	/**
+	 * Grow the backing buffer so that it can hold at least the specified number of elements.
+	 * @param capacity The minimum number of elements to hold.
+	 */
+	private void _ensureCapacity(int capacity) {
+		int currentCapacity = getCapacity();
+		if( capacity <= currentCapacity ) {
+			return;
+		}
+		
+		// Double the capacity until the requested size fits
+		long newCapacity = currentCapacity;
+		while( newCapacity < capacity ) {
+			newCapacity <<= 1;
+		}
+		newCapacity = Math.min(newCapacity, MAX_CAPACITY);
+		
+		// Copy the existing values into the larger buffer
+		ByteBuffer newBuffer = ByteBuffer.allocateDirect((int)newCapacity * INT_BYTES).order(ByteOrder.nativeOrder());
+		buffer.clear();
+		newBuffer.put(buffer);
+		newBuffer.clear();
+		buffer = newBuffer;
+	}
+}
@@ -0,0 +1,262 @@
+package com.nickferraro.bayesian.model.offheap.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.InvalidParameterException;
+
+/**
+ * An open-addressing hash table of link weights keyed by (category id, word id), stored in a direct buffer outside of the Java heap.
+ * Each slot holds the category id (offset by one so that a zeroed slot is empty), the word id and the weight.
+ * Collisions are resolved with linear probing and removals use backward shift deletion, so the table never holds tombstones.
+ * This class is not thread-safe.
+ * @author Nick Ferraro
+ */
+public class OffHeapLinkTable {
+	private static final int SLOT_BYTES = 12;
+	private static final int CATEGORY_OFFSET = 0;
+	private static final int WORD_OFFSET = 4;
+	private static final int WEIGHT_OFFSET = 8;
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final int MAX_CAPACITY = 1 << 27;
+	
+	private ByteBuffer buffer;
+	private int capacity;
+	private int mask;
+	private int size = 0;
+	
+	/**
+	 * Default constructor
+	 */
+	public OffHeapLinkTable() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructor that sets the initial number of slots.
+	 * @param capacity The initial number of slots. Rounded up to a power of two.
+	 * @throws InvalidParameterException Thrown when capacity is less than 1 or too large to address.
+	 */
+	public OffHeapLinkTable(int capacity) throws InvalidParameterException {
+		if( capacity < 1 || capacity > MAX_CAPACITY ) {
+			throw new InvalidParameterException("Off-heap link table capacity must be between 1 and " + MAX_CAPACITY);
+		}
+		
+		_allocate(Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1);
+	}
+	
+	/**
+	 * Get the weight of the link between a category and a word.
+	 * @param categoryId The id of the category. Must not be negative.
+	 * @param wordId The id of the word. Must not be negative.
+	 * @return The weight of the link, or 0 if no link exists.
+	 */
+	public int get(int categoryId, int wordId) {
+		int slot = _findSlot(categoryId, wordId);
+		return ( isEmpty(slot) ? 0 : getWeightAt(slot) );
+	}
+	
+	/**
+	 * Add a delta to the weight of the link between a category and a word, creating the link if it does not exist.
+	 * @param categoryId The id of the category. Must not be negative.
+	 * @param wordId The id of the word. Must not be negative.
+	 * @param delta The amount to add to the link weight.
+	 * @return The new weight of the link.
+	 */
+	public int add(int categoryId, int wordId, int delta) {
+		int slot = _findSlot(categoryId, wordId);
+		if( isEmpty(slot) ) {
+			// Grow before inserting if the table would become more than 70% full
+			if( (size + 1) * 10L > capacity * 7L ) {
+				_resize(capacity << 1);
+				slot = _findSlot(categoryId, wordId);
+			}
+			
+			int offset = slot * SLOT_BYTES;
+			buffer.putInt(offset + CATEGORY_OFFSET, categoryId + 1);
+			buffer.putInt(offset + WORD_OFFSET, wordId);
+			buffer.putInt(offset + WEIGHT_OFFSET, delta);
+			++size;
+			
+			return delta;
+		}
+		
+		int weight = getWeightAt(slot) + delta;
+		buffer.putInt(slot * SLOT_BYTES + WEIGHT_OFFSET, weight);
+		
+		return weight;
+	}
+	
+	/**
+	 * Remove the link between a category and a word.
+	 * @param categoryId The id of the category.
+	 * @param wordId The id of the word.
+	 * @return The weight of the removed link, or 0 if no link existed.
+	 */
+	public int remove(int categoryId, int wordId) {
+		int slot = _findSlot(categoryId, wordId);
+		if( isEmpty(slot) ) {
+			return 0;
+		}
+		
+		int weight = getWeightAt(slot);
+		--size;
+		
+		// Shift following entries back into the hole until an entry is found that already sits at or after its home slot
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while( !isEmpty(next) ) {
+			int home = _hash(getCategoryIdAt(next), getWordIdAt(next)) & mask;
+			if( ((next - home) & mask) >= ((next - hole) & mask) ) {
+				_copySlot(next, hole);
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		_clearSlot(hole);
+		
+		return weight;
+	}
+	
+	/**
+	 * Get the number of links in this table.
+	 * @return The number of links.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the number of slots in this table. Slots can be read with the slot accessors for a full table scan.
+	 * @return The number of slots.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+	
+	/**
+	 * Get the number of bytes allocated outside of the heap for this table.
+	 * @return The allocated bytes.
+	 */
+	public long getBytes() {
+		return buffer.capacity();
+	}
+	
+	/**
+	 * Check if a slot is empty.
+	 * @param slot The slot index.
+	 * @return TRUE if the slot does not hold a link.
+	 */
+	public boolean isEmpty(int slot) {
+		return buffer.getInt(slot * SLOT_BYTES + CATEGORY_OFFSET) == 0;
+	}
+	
+	/**
+	 * Get the category id of the link in a slot.
+	 * @param slot The slot index.
+	 * @return The category id, or -1 if the slot is empty.
+	 */
+	public int getCategoryIdAt(int slot) {
+		return buffer.getInt(slot * SLOT_BYTES + CATEGORY_OFFSET) - 1;
+	}
+	
+	/**
+	 * Get the word id of the link in a slot.
+	 * @param slot The slot index.
+	 * @return The word id. Undefined if the slot is empty.
+	 */
+	public int getWordIdAt(int slot) {
+		return buffer.getInt(slot * SLOT_BYTES + WORD_OFFSET);
+	}
+	
+	/**
+	 * Get the weight of the link in a slot.
+	 * @param slot The slot index.
+	 * @return The weight. Undefined if the slot is empty.
+	 */
+	public int getWeightAt(int slot) {
+		return buffer.getInt(slot * SLOT_BYTES + WEIGHT_OFFSET);
+	}
+	
+	/**
+	 * Find the slot holding a key, or the empty slot where the key would be inserted.
+	 * @param categoryId The id of the category.
+	 * @param wordId The id of the word.
+	 * @return The slot index.
+	 */
+	private int _findSlot(int categoryId, int wordId) {
+		int slot = _hash(categoryId, wordId) & mask;
+		while( !isEmpty(slot) ) {
+			if( getCategoryIdAt(slot) == categoryId && getWordIdAt(slot) == wordId ) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		return slot;
+	}
+	
+	/**
+	 * Rehash all links into a table with a new number of slots.
+	 * @param newCapacity The new number of slots. Must be a power of two.
+	 */
+	private void _resize(int newCapacity) {
+		if( newCapacity > MAX_CAPACITY ) {
+			throw new IllegalStateException("Off-heap link table cannot grow beyond " + MAX_CAPACITY + " slots");
+		}
+		
+		ByteBuffer oldBuffer = buffer;
+		int oldCapacity = capacity;
+		_allocate(newCapacity);
+		
+		for(int oldSlot = 0; oldSlot < oldCapacity; ++oldSlot) {
+			int offset = oldSlot * SLOT_BYTES;
+			int storedCategory = oldBuffer.getInt(offset + CATEGORY_OFFSET);
+			if( storedCategory != 0 ) {
+				int wordId = oldBuffer.getInt(offset + WORD_OFFSET);
+				int slot = _findSlot(storedCategory - 1, wordId);
+				buffer.putInt(slot * SLOT_BYTES + CATEGORY_OFFSET, storedCategory);
+				buffer.putInt(slot * SLOT_BYTES + WORD_OFFSET, wordId);
+				buffer.putInt(slot * SLOT_BYTES + WEIGHT_OFFSET, oldBuffer.getInt(offset + WEIGHT_OFFSET));
+			}
+		}
+	}
+	
+	/**
+	 * Allocate an empty buffer with the specified number of slots.
+	 * @param newCapacity The number of slots. Must be a power of two.
+	 */
+	private void _allocate(int newCapacity) {
+		buffer = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+		capacity = newCapacity;
+		mask = newCapacity - 1;
+	}
+	
+	private void _copySlot(int from, int to) {
+		buffer.putInt(to * SLOT_BYTES + CATEGORY_OFFSET, buffer.getInt(from * SLOT_BYTES + CATEGORY_OFFSET));
+		buffer.putInt(to * SLOT_BYTES + WORD_OFFSET, buffer.getInt(from * SLOT_BYTES + WORD_OFFSET));
+		buffer.putInt(to * SLOT_BYTES + WEIGHT_OFFSET, buffer.getInt(from * SLOT_BYTES + WEIGHT_OFFSET));
+	}
+	
+	private void _clearSlot(int slot) {
+		buffer.putInt(slot * SLOT_BYTES + CATEGORY_OFFSET, 0);
+		buffer.putInt(slot * SLOT_BYTES + WORD_OFFSET, 0);
+		buffer.putInt(slot * SLOT_BYTES + WEIGHT_OFFSET, 0);
+	}
+	
+	/**
+	 * Mix a key into a well distributed hash.
+	 * @param categoryId The id of the category.
+	 * @param wordId The id of the word.
+	 * @return The hash of the key.
+	 */
+	private static int _hash(int categoryId, int wordId) {
+		long key = ((long)categoryId << 32) | (wordId & 0xFFFFFFFFL);
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		
+		return (int)key;
+	}
+}
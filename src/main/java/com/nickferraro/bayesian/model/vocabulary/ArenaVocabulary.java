@@ -0,0 +1,442 @@
+package com.nickferraro.bayesian.model.vocabulary;
+
+import java.nio.charset.Charset;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact vocabulary that interns words to dense int ids.
+ * Words are stored back to back as UTF-8 bytes in a single byte arena and indexed by an open-addressing table of ids,
+ * so the vocabulary holds a handful of arrays instead of a String and a map entry per word.
+ * Lookups encode the char sequence on the fly and never allocate.
+ * Removed words leave their bytes in the arena until the vocabulary is rebuilt, and their ids are never reused.
+ * This class is not thread-safe.
+ * @author Nick Ferraro
+ */
+public class ArenaVocabulary {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int ARRAY_HEADER_BYTES = 16;
+	private static final int OBJECT_BYTES = 64;
+	private static final int DEFAULT_CAPACITY = 64;
+	
+	private byte[] arena;
+	private int arenaSize = 0;
+	private int[] offsets;
+	private int[] hashes;
+	private int[] index;
+	private int mask;
+	private int nextId = 0;
+	private int size = 0;
+	private final BitSet removedIds = new BitSet();
+	private final Set<String> wordSet = _newSetView();
+	
+	/**
+	 * Default constructor
+	 */
+	public ArenaVocabulary() {
+		arena = new byte[DEFAULT_CAPACITY * 8];
+		offsets = new int[DEFAULT_CAPACITY + 1];
+		hashes = new int[DEFAULT_CAPACITY];
+		index = new int[DEFAULT_CAPACITY * 2];
+		mask = index.length - 1;
+	}
+	
+	/**
+	 * Get the id of a word.
+	 * @param word The word to look up. NULL is never found.
+	 * @return The id of the word, or -1 if the word is not in this vocabulary.
+	 */
+	public int getId(CharSequence word) {
+		if( word == null ) {
+			return -1;
+		}
+		
+		int slot = _findSlot(word, _hash(word));
+		return index[slot] - 1;
+	}
+	
+	/**
+	 * Add a word to this vocabulary if it does not already exist.
+	 * @param word The word to add. Cannot be NULL.
+	 * @return The id of the word.
+	 * @throws NullPointerException Thrown when word is NULL.
+	 */
+	public int add(CharSequence word) {
+		int hash = _hash(word);
+		int slot = _findSlot(word, hash);
+		if( index[slot] != 0 ) {
+			return index[slot] - 1;
+		}
+		
+		// Append the encoded word to the arena
+		int id = nextId++;
+		_ensureIdCapacity(nextId);
+		_ensureArenaCapacity(arenaSize + _encodedLength(word));
+		offsets[id] = arenaSize;
+		arenaSize = _encode(word, arena, arenaSize);
+		offsets[id + 1] = arenaSize;
+		hashes[id] = hash;
+		
+		// Index the new id, growing the index if it would become more than half full
+		++size;
+		if( size * 2 > index.length ) {
+			_rebuildIndex(index.length * 2);
+		} else {
+			index[slot] = id + 1;
+		}
+		
+		return id;
+	}
+	
+	/**
+	 * Remove a word from this vocabulary. The word's bytes stay in the arena and its id is never reused.
+	 * @param id The id of the word to remove.
+	 * @return TRUE if the word was removed. FALSE if the id was not in use.
+	 */
+	public boolean remove(int id) {
+		if( !contains(id) ) {
+			return false;
+		}
+		
+		// Find the index slot of the id
+		int slot = hashes[id] & mask;
+		while( index[slot] != id + 1 ) {
+			slot = (slot + 1) & mask;
+		}
+		
+		// Shift following entries back into the hole until an entry is found that already sits at or after its home slot
+		int hole = slot;
+		int next = (hole + 1) & mask;
+		while( index[next] != 0 ) {
+			int home = hashes[index[next] - 1] & mask;
+			if( ((next - home) & mask) >= ((next - hole) & mask) ) {
+				index[hole] = index[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		index[hole] = 0;
+		
+		removedIds.set(id);
+		--size;
+		
+		return true;
+	}
+	
+	/**
+	 * Check if an id belongs to a word in this vocabulary.
+	 * @param id The id to check.
+	 * @return TRUE if the id is in use.
+	 */
+	public boolean contains(int id) {
+		return id >= 0 && id < nextId && !removedIds.get(id);
+	}
+	
+	/**
+	 * Get the word for an id. This decodes the word into a new string.
+	 * @param id The id of the word.
+	 * @return The word, or NULL if the id is not in use.
+	 */
+	public String getWord(int id) {
+		if( !contains(id) ) {
+			return null;
+		}
+		
+		return new String(arena, offsets[id], offsets[id + 1] - offsets[id], UTF8);
+	}
+	
+	/**
+	 * Get the number of words in this vocabulary.
+	 * @return The number of words.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Get the upper bound of the ids handed out by this vocabulary. Every id is less than this value.
+	 * @return The id limit.
+	 */
+	public int getIdLimit() {
+		return nextId;
+	}
+	
+	/**
+	 * Get the number of arena bytes used by words, including removed words.
+	 * @return The used arena bytes.
+	 */
+	public int getArenaSize() {
+		return arenaSize;
+	}
+	
+	/**
+	 * Get the estimated heap bytes retained by this vocabulary.
+	 * @return The estimated bytes.
+	 */
+	public long getBytes() {
+		return OBJECT_BYTES + 4L * ARRAY_HEADER_BYTES + arena.length + 4L * (offsets.length + hashes.length + index.length) + removedIds.size() / 8;
+	}
+	
+	/**
+	 * Get a live set view of the words in this vocabulary. Iterating the view decodes each word into a new string.
+	 * The same view is returned on every call, so asking for the word count does not allocate.
+	 * @return A read-only set of words.
+	 */
+	public Set<String> asSet() {
+		return wordSet;
+	}
+	
+	/**
+	 * Create the live set view of the words.
+	 * @return A read-only set of words.
+	 */
+	private Set<String> _newSetView() {
+		return new AbstractSet<String>() {
+			@Override
+			public boolean contains(Object o) {
+				return o instanceof CharSequence && getId((CharSequence)o) >= 0;
+			}
+			
+			@Override
+			public int size() {
+				return size;
+			}
+			
+			@Override
+			public Iterator<String> iterator() {
+				return new Iterator<String>() {
+					private int id = _advance(0);
+					
+					@Override
+					public boolean hasNext() {
+						return id < nextId;
+					}
+					
+					@Override
+					public String next() {
+						if( !hasNext() ) {
+							throw new NoSuchElementException();
+						}
+						
+						String word = getWord(id);
+						id = _advance(id + 1);
+						
+						return word;
+					}
+					
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+					
+					private int _advance(int fromId) {
+						int nextUsedId = fromId;
+						while( nextUsedId < nextId && removedIds.get(nextUsedId) ) {
+							++nextUsedId;
+						}
+						
+						return nextUsedId;
+					}
+				};
+			}
+		};
+	}
+	
+	/**
+	 * Find the index slot holding a word, or the empty slot where the word would be inserted.
+	 * @param word The word to find.
+	 * @param hash The hash of the word.
+	 * @return The slot index.
+	 */
+	private int _findSlot(CharSequence word, int hash) {
+		int slot = hash & mask;
+		while( index[slot] != 0 ) {
+			int id = index[slot] - 1;
+			if( hashes[id] == hash && _matches(id, word) ) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		return slot;
+	}
+	
+	/**
+	 * Compare the stored bytes of an id to the UTF-8 encoding of a word without allocating.
+	 * @param id The id to compare.
+	 * @param word The word to compare.
+	 * @return TRUE if the word encodes to exactly the stored bytes.
+	 */
+	private boolean _matches(int id, CharSequence word) {
+		int position = offsets[id];
+		int end = offsets[id + 1];
+		int length = word.length();
+		for(int i = 0; i < length; ++i) {
+			int codePoint = _codePointAt(word, i);
+			if( codePoint > Character.MAX_VALUE ) {
+				++i;
+			}
+			
+			int byteCount = _utf8Length(codePoint);
+			if( position + byteCount > end ) {
+				return false;
+			}
+			for(int b = 0; b < byteCount; ++b) {
+				if( arena[position++] != _utf8Byte(codePoint, byteCount, b) ) {
+					return false;
+				}
+			}
+		}
+		
+		return position == end;
+	}
+	
+	/**
+	 * Rebuild the index table with a new number of slots.
+	 * @param capacity The new number of slots. Must be a power of two.
+	 */
+	private void _rebuildIndex(int capacity) {
+		index = new int[capacity];
+		mask = capacity - 1;
+		for(int id = 0; id < nextId; ++id) {
+			if( !removedIds.get(id) ) {
+				int slot = hashes[id] & mask;
+				while( index[slot] != 0 ) {
+					slot = (slot + 1) & mask;
+				}
+				index[slot] = id + 1;
+			}
+		}
+	}
+	
+	private void _ensureIdCapacity(int idCount) {
+		if( idCount >= offsets.length ) {
+			offsets = Arrays.copyOf(offsets, offsets.length * 2);
+			hashes = Arrays.copyOf(hashes, offsets.length - 1);
+		}
+	}
+	
+	private void _ensureArenaCapacity(int byteCount) {
+		if( byteCount > arena.length ) {
+			arena = Arrays.copyOf(arena, Math.max(byteCount, arena.length * 2));
+		}
+	}
+	
+	/**
+	 * Hash the UTF-8 encoding of a word with FNV-1a, without allocating.
+	 * @param word The word to hash.
+	 * @return The hash of the word.
+	 */
+	private static int _hash(CharSequence word) {
+		int hash = 0x811c9dc5;
+		int length = word.length();
+		for(int i = 0; i < length; ++i) {
+			int codePoint = _codePointAt(word, i);
+			if( codePoint > Character.MAX_VALUE ) {
+				++i;
+			}
+			
+			int byteCount = _utf8Length(codePoint);
+			for(int b = 0; b < byteCount; ++b) {
+				hash ^= _utf8Byte(codePoint, byteCount, b) & 0xFF;
+				hash *= 0x01000193;
+			}
+		}
+		
+		// Spread the low bits since the index is masked
+		return hash ^ (hash >>> 16);
+	}
+	
+	/**
+	 * Encode a word as UTF-8 into a byte array.
+	 * @param word The word to encode.
+	 * @param bytes The array to write to. Must have room for the encoded word.
+	 * @param position The position to start writing at.
+	 * @return The position after the last byte written.
+	 */
+	private static int _encode(CharSequence word, byte[] bytes, int position) {
+		int length = word.length();
+		for(int i = 0; i < length; ++i) {
+			int codePoint = _codePointAt(word, i);
+			if( codePoint > Character.MAX_VALUE ) {
+				++i;
+			}
+			
+			int byteCount = _utf8Length(codePoint);
+			for(int b = 0; b < byteCount; ++b) {
+				bytes[position++] = _utf8Byte(codePoint, byteCount, b);
+			}
+		}
+		
+		return position;
+	}
+	
+	private static int _encodedLength(CharSequence word) {
+		int byteCount = 0;
+		int length = word.length();
+		for(int i = 0; i < length; ++i) {
+			int codePoint = _codePointAt(word, i);
+			if( codePoint > Character.MAX_VALUE ) {
+				++i;
+			}
+			byteCount += _utf8Length(codePoint);
+		}
+		
+		return byteCount;
+	}
+	
+	/**
+	 * Get the code point at a char index. Unpaired surrogates are replaced with '?' the same way the UTF-8 charset encodes them.
+	 * @param word The word to read.
+	 * @param i The char index.
+	 * @return The code point. Supplementary code points span two chars.
+	 */
+	private static int _codePointAt(CharSequence word, int i) {
+		char c = word.charAt(i);
+		if( Character.isHighSurrogate(c) && i + 1 < word.length() && Character.isLowSurrogate(word.charAt(i + 1)) ) {
+			return Character.toCodePoint(c, word.charAt(i + 1));
+		}
+		if( c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE ) {
+			return '?';
+		}
+		
+		return c;
+	}
+	
+	private static int _utf8Length(int codePoint) {
+		if( codePoint < 0x80 ) {
+			return 1;
+		} else if( codePoint < 0x800 ) {
+			return 2;
+		} else if( codePoint < 0x10000 ) {
+			return 3;
+		}
+		
+		return 4;
+	}
+	
+	/**
+	 * Get one byte of the UTF-8 encoding of a code point.
+	 * @param codePoint The code point to encode.
+	 * @param byteCount The number of bytes in the encoding.
+	 * @param b The index of the byte to get.
+	 * @return The encoded byte.
+	 */
+	private static byte _utf8Byte(int codePoint, int byteCount, int b) {
+		if( byteCount == 1 ) {
+			return (byte)codePoint;
+		}
+		
+		// The lead byte holds the length marker and the highest bits, continuation bytes hold 6 bits each
+		int shift = 6 * (byteCount - 1 - b);
+		if( b == 0 ) {
+			return (byte)((0xF00 >> byteCount) | (codePoint >> shift));
+		}
+		
+		return (byte)(0x80 | ((codePoint >> shift) & 0x3F));
+	}
+}
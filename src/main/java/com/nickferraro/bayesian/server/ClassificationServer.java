@@ -0,0 +1,370 @@
+package com.nickferraro.bayesian.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.security.InvalidParameterException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.nickferraro.bayesian.IBayesianSystem;
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.core.SentenceInput;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded HTTP front end for a bayesian system. Concurrent classify requests are coalesced by a {@link MicroBatcher}.
+ * <ul>
+ * <li>POST /classify - The request body is the UTF-8 sentence. Responds with a JSON array of category/probability objects.</li>
+ * <li>GET /health - Responds 200 with {"status":"UP"} while the server is running.</li>
+ * <li>GET /metrics - Responds with the {@link ServerMetrics} as plain text.</li>
+ * </ul>
+ * Each request is handled by a task on the configured executor. By default a cached thread pool gives every in-flight request its own
+ * thread. Pass a virtual thread per task executor on runtimes that have one.
+ * Configure the server before calling start. The setters throw an IllegalStateException while the server is running.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class ClassificationServer<T> {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	private final IBayesianSystem<T> bayesianSystem;
+	private final ServerMetrics metrics = new ServerMetrics();
+	private InetSocketAddress address = new InetSocketAddress("127.0.0.1", 0);
+	private Executor executor = null;
+	private long batchWindowMillis = 2;
+	private int maxBatchSize = 64;
+	private int maxResults = -1;
+	private long requestTimeoutMillis = 30000;
+	private HttpServer httpServer = null;
+	private ExecutorService ownedExecutor = null;
+	private MicroBatcher<T> microBatcher = null;
+	
+	/**
+	 * Create a classification server for a bayesian system. The server listens on an ephemeral loopback port unless another address is set.
+	 * @param bayesianSystem The system to classify with. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when bayesianSystem is NULL.
+	 */
+	public ClassificationServer(IBayesianSystem<T> bayesianSystem) throws InvalidParameterException {
+		if( bayesianSystem == null ) {
+			throw new InvalidParameterException("Cannot serve a NULL bayesian system");
+		}
+		
+		this.bayesianSystem = bayesianSystem;
+	}
+	
+	/**
+	 * Set the address to listen on. Port 0 picks an ephemeral port.
+	 * @param address The address to listen on. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when address is NULL.
+	 */
+	public synchronized void setAddress(InetSocketAddress address) throws InvalidParameterException {
+		if( address == null ) {
+			throw new InvalidParameterException("Cannot listen on a NULL address");
+		}
+		
+		_checkStopped();
+		this.address = address;
+	}
+	
+	/**
+	 * Set the executor that runs request handlers. The server does not shut down an executor it was given.
+	 * @param executor The executor to handle requests with. NULL uses a cached thread pool owned by the server.
+	 */
+	public synchronized void setExecutor(Executor executor) {
+		_checkStopped();
+		this.executor = executor;
+	}
+	
+	/**
+	 * Set how long a batch waits for more requests after its first request.
+	 * @param batchWindowMillis The latency window in milliseconds. Cannot be negative.
+	 * @throws InvalidParameterException Thrown when batchWindowMillis is negative.
+	 */
+	public synchronized void setBatchWindowMillis(long batchWindowMillis) throws InvalidParameterException {
+		if( batchWindowMillis < 0 ) {
+			throw new InvalidParameterException("Cannot set a negative batch window");
+		}
+		
+		_checkStopped();
+		this.batchWindowMillis = batchWindowMillis;
+	}
+	
+	/**
+	 * Set the most requests scored in one batch.
+	 * @param maxBatchSize The max batch size. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when maxBatchSize is less than 1.
+	 */
+	public synchronized void setMaxBatchSize(int maxBatchSize) throws InvalidParameterException {
+		if( maxBatchSize < 1 ) {
+			throw new InvalidParameterException("Cannot set a max batch size less than 1");
+		}
+		
+		_checkStopped();
+		this.maxBatchSize = maxBatchSize;
+	}
+	
+	/**
+	 * Set the max classifications returned per request.
+	 * @param maxResults The max results. 0 or less returns every category.
+	 */
+	public synchronized void setMaxResults(int maxResults) {
+		_checkStopped();
+		this.maxResults = maxResults;
+	}
+	
+	/**
+	 * Set how long a request waits for its batch before responding 503.
+	 * @param requestTimeoutMillis The timeout in milliseconds. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when requestTimeoutMillis is less than 1.
+	 */
+	public synchronized void setRequestTimeoutMillis(long requestTimeoutMillis) throws InvalidParameterException {
+		if( requestTimeoutMillis < 1 ) {
+			throw new InvalidParameterException("Cannot set a request timeout less than 1");
+		}
+		
+		_checkStopped();
+		this.requestTimeoutMillis = requestTimeoutMillis;
+	}
+	
+	/**
+	 * Get the metrics of this server.
+	 * @return The server metrics. Will never be NULL.
+	 */
+	public ServerMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Start listening. Does nothing if the server is already running.
+	 * @throws IOException Thrown when the server cannot bind its address.
+	 */
+	public synchronized void start() throws IOException {
+		if( httpServer != null ) {
+			return;
+		}
+		
+		microBatcher = new MicroBatcher<T>(bayesianSystem, batchWindowMillis, maxBatchSize, maxResults, metrics);
+		
+		HttpServer server = HttpServer.create(address, 0);
+		server.createContext("/classify", new ClassifyHandler());
+		server.createContext("/health", new HealthHandler());
+		server.createContext("/metrics", new MetricsHandler());
+		if( executor == null ) {
+			ownedExecutor = Executors.newCachedThreadPool();
+			server.setExecutor(ownedExecutor);
+		} else {
+			server.setExecutor(executor);
+		}
+		
+		microBatcher.start();
+		server.start();
+		httpServer = server;
+	}
+	
+	/**
+	 * Stop listening and fail any request still waiting for a batch. Does nothing if the server is not running.
+	 */
+	public synchronized void stop() {
+		if( httpServer == null ) {
+			return;
+		}
+		
+		httpServer.stop(0);
+		httpServer = null;
+		try {
+			microBatcher.stop();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if( ownedExecutor != null ) {
+			ownedExecutor.shutdown();
+			ownedExecutor = null;
+		}
+	}
+	
+	/**
+	 * Check if the server is running.
+	 * @return True if the server is listening.
+	 */
+	public synchronized boolean isRunning() {
+		return httpServer != null;
+	}
+	
+	/**
+	 * Get the port the server listens on.
+	 * @return The bound port.
+	 * @throws IllegalStateException Thrown when the server is not running.
+	 */
+	public synchronized int getPort() throws IllegalStateException {
+		if( httpServer == null ) {
+			throw new IllegalStateException("The server is not running");
+		}
+		
+		return httpServer.getAddress().getPort();
+	}
+	
+	/**
+	 * Make sure the server is not running before changing its configuration.
+	 */
+	private void _checkStopped() {
+		if( httpServer != null ) {
+			throw new IllegalStateException("Cannot configure a running server");
+		}
+	}
+	
+	/**
+	 * Format classifications as a JSON array of category/probability objects.
+	 * @param classifications The classifications to format.
+	 * @return The JSON text.
+	 */
+	public static <T> String toJson(List<IClassification<T>> classifications) {
+		StringBuilder builder = new StringBuilder("[");
+		for(int i = 0; i < classifications.size(); ++i) {
+			IClassification<T> classification = classifications.get(i);
+			if( i > 0 ) {
+				builder.append(',');
+			}
+			builder.append("{\"category\":");
+			_appendJsonString(builder, String.valueOf(classification.getCategory()));
+			builder.append(",\"probability\":").append(classification.getProbability()).append('}');
+		}
+		
+		return builder.append(']').toString();
+	}
+	
+	/**
+	 * Append a quoted, escaped JSON string.
+	 * @param builder The builder to append to.
+	 * @param value The string value.
+	 */
+	private static void _appendJsonString(StringBuilder builder, String value) {
+		builder.append('"');
+		for(int i = 0; i < value.length(); ++i) {
+			char c = value.charAt(i);
+			if( c == '"' || c == '\\' ) {
+				builder.append('\\').append(c);
+			} else if( c < 0x20 ) {
+				builder.append(String.format("\\u%04x", (int)c));
+			} else {
+				builder.append(c);
+			}
+		}
+		builder.append('"');
+	}
+	
+	/**
+	 * Read a whole request body.
+	 * @param inputStream The body stream.
+	 * @return The body bytes.
+	 * @throws IOException Thrown when the body cannot be read.
+	 */
+	private static byte[] _readBody(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while( (read = inputStream.read(buffer)) != -1 ) {
+			body.write(buffer, 0, read);
+		}
+		
+		return body.toByteArray();
+	}
+	
+	/**
+	 * Send a complete response and close the exchange.
+	 * @param exchange The exchange to respond to.
+	 * @param status The HTTP status code.
+	 * @param contentType The content type of the body.
+	 * @param body The response body.
+	 * @throws IOException Thrown when the response cannot be written.
+	 */
+	private static void _respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+		byte[] bytes = body.getBytes(UTF8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream outputStream = exchange.getResponseBody();
+		try {
+			outputStream.write(bytes);
+		} finally {
+			outputStream.close();
+			exchange.close();
+		}
+	}
+	
+	/**
+	 * Handles POST /classify.
+	 */
+	private class ClassifyHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			if( !"POST".equals(exchange.getRequestMethod()) ) {
+				_respond(exchange, 405, "text/plain; charset=utf-8", "Use POST");
+				return;
+			}
+			
+			String sentence = new String(_readBody(exchange.getRequestBody()), UTF8);
+			if( sentence.trim().length() == 0 ) {
+				metrics.recordError();
+				_respond(exchange, 400, "text/plain; charset=utf-8", "Empty sentence");
+				return;
+			}
+			
+			Future<List<IClassification<T>>> future;
+			try {
+				future = microBatcher.submit(new SentenceInput(sentence));
+			} catch(IllegalStateException e) {
+				metrics.recordError();
+				_respond(exchange, 503, "text/plain; charset=utf-8", "Server is stopping");
+				return;
+			}
+			
+			try {
+				List<IClassification<T>> classifications = future.get(requestTimeoutMillis, TimeUnit.MILLISECONDS);
+				_respond(exchange, 200, "application/json; charset=utf-8", toJson(classifications));
+			} catch(TimeoutException e) {
+				future.cancel(false);
+				metrics.recordError();
+				_respond(exchange, 503, "text/plain; charset=utf-8", "Timed out waiting for a batch");
+			} catch(ExecutionException e) {
+				_respond(exchange, 500, "text/plain; charset=utf-8", "Classification failed");
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				metrics.recordError();
+				_respond(exchange, 503, "text/plain; charset=utf-8", "Interrupted");
+			}
+		}
+	}
+	
+	/**
+	 * Handles GET /health.
+	 */
+	private class HealthHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			boolean up = ( microBatcher != null && microBatcher.isRunning() );
+			_respond(exchange, ( up ? 200 : 503 ), "application/json; charset=utf-8", ( up ? "{\"status\":\"UP\"}" : "{\"status\":\"DOWN\"}" ));
+		}
+	}
+	
+	/**
+	 * Handles GET /metrics.
+	 */
+	private class MetricsHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			_respond(exchange, 200, "text/plain; charset=utf-8", metrics.toText());
+		}
+	}
+}
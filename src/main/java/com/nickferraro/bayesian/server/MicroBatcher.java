@@ -0,0 +1,249 @@
+package com.nickferraro.bayesian.server;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.nickferraro.bayesian.IBayesianSystem;
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.ISentenceInput;
+
+/**
+ * Coalesces concurrent classify requests into batches. A single batching thread waits for a request, then keeps collecting requests
+ * until the latency window closes or the batch is full, and scores the whole batch with one call to
+ * {@link IBayesianSystem#classifyRows(List, int)}.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class MicroBatcher<T> {
+	// How long the batching thread waits for a first request before checking if it was stopped
+	private static final long IDLE_POLL_MILLIS = 100;
+	
+	private final IBayesianSystem<T> bayesianSystem;
+	private final long windowNanos;
+	private final int maxBatchSize;
+	private final int maxResults;
+	private final ServerMetrics metrics;
+	private final BlockingQueue<PendingClassification<T>> queue = new LinkedBlockingQueue<PendingClassification<T>>();
+	private volatile boolean running = false;
+	private Thread batchThread;
+	
+	/**
+	 * Create a micro batcher.
+	 * @param bayesianSystem The system to classify with. Cannot be NULL.
+	 * @param windowMillis How long to wait for more requests after the first request of a batch. Cannot be negative.
+	 * @param maxBatchSize The most requests to score in one batch. Must be at least 1.
+	 * @param maxResults The max results to return for each request. 0 or less returns every category.
+	 * @param metrics The metrics to record batches and requests in. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is invalid.
+	 */
+	public MicroBatcher(IBayesianSystem<T> bayesianSystem, long windowMillis, int maxBatchSize, int maxResults, ServerMetrics metrics)
+			throws InvalidParameterException {
+		if( bayesianSystem == null ) {
+			throw new InvalidParameterException("Cannot batch with a NULL bayesian system");
+		}
+		if( windowMillis < 0 ) {
+			throw new InvalidParameterException("Cannot batch with a negative window");
+		}
+		if( maxBatchSize < 1 ) {
+			throw new InvalidParameterException("Cannot batch with a max batch size less than 1");
+		}
+		if( metrics == null ) {
+			throw new InvalidParameterException("Cannot batch with NULL metrics");
+		}
+		
+		this.bayesianSystem = bayesianSystem;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+		this.maxBatchSize = maxBatchSize;
+		this.maxResults = maxResults;
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Start the batching thread. Does nothing if the batcher is already running.
+	 */
+	public synchronized void start() {
+		if( running ) {
+			return;
+		}
+		
+		running = true;
+		batchThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				_batchLoop();
+			}
+		}, "bayesian-micro-batcher");
+		batchThread.setDaemon(true);
+		batchThread.start();
+	}
+	
+	/**
+	 * Stop the batching thread and fail every request that has not been scored.
+	 * @throws InterruptedException Thrown when interrupted while waiting for the batching thread to finish.
+	 */
+	public synchronized void stop() throws InterruptedException {
+		if( !running ) {
+			return;
+		}
+		
+		running = false;
+		batchThread.interrupt();
+		batchThread.join();
+		batchThread = null;
+		
+		// Fail the requests that were never scored
+		List<PendingClassification<T>> remaining = new ArrayList<PendingClassification<T>>();
+		queue.drainTo(remaining);
+		for(PendingClassification<T> pending : remaining) {
+			pending.fail(new IllegalStateException("The micro batcher was stopped"));
+		}
+	}
+	
+	/**
+	 * Check if the batching thread is running.
+	 * @return True if the batcher accepts requests.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+	
+	/**
+	 * Queue a sentence to be classified with the next batch.
+	 * @param sentenceInput The sentence to classify. Cannot be NULL.
+	 * @return A future that completes with the ordered classifications of the sentence.
+	 * @throws InvalidParameterException Thrown when sentenceInput is NULL.
+	 * @throws IllegalStateException Thrown when the batcher is not running.
+	 */
+	public Future<List<IClassification<T>>> submit(ISentenceInput sentenceInput) throws InvalidParameterException, IllegalStateException {
+		if( sentenceInput == null ) {
+			throw new InvalidParameterException("Cannot classify a NULL sentence");
+		}
+		if( !running ) {
+			throw new IllegalStateException("The micro batcher is not running");
+		}
+		
+		PendingClassification<T> pending = new PendingClassification<T>(sentenceInput);
+		queue.add(pending);
+		
+		// If the batcher stopped while queueing, the request may have missed the final drain
+		if( !running && queue.remove(pending) ) {
+			pending.fail(new IllegalStateException("The micro batcher was stopped"));
+		}
+		
+		return pending;
+	}
+	
+	/**
+	 * Collect and score batches until the batcher is stopped.
+	 */
+	private void _batchLoop() {
+		List<PendingClassification<T>> batch = new ArrayList<PendingClassification<T>>(maxBatchSize);
+		while( running ) {
+			try {
+				// Wait for the first request of a batch
+				PendingClassification<T> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if( first == null ) {
+					continue;
+				}
+				batch.add(first);
+				
+				// Collect more requests until the window closes or the batch is full
+				long deadline = System.nanoTime() + windowNanos;
+				while( batch.size() < maxBatchSize ) {
+					long remaining = deadline - System.nanoTime();
+					if( remaining <= 0 ) {
+						queue.drainTo(batch, maxBatchSize - batch.size());
+						break;
+					}
+					
+					PendingClassification<T> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if( next == null ) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch(InterruptedException e) {
+				// Stopping, score what was collected and let the loop exit
+			}
+			
+			if( !batch.isEmpty() ) {
+				_scoreBatch(batch);
+				batch.clear();
+			}
+		}
+	}
+	
+	/**
+	 * Score a batch and complete each of its requests.
+	 * @param batch The requests to score.
+	 */
+	private void _scoreBatch(List<PendingClassification<T>> batch) {
+		List<ISentenceInput> sentenceInputs = new ArrayList<ISentenceInput>(batch.size());
+		for(PendingClassification<T> pending : batch) {
+			sentenceInputs.add(pending.getSentenceInput());
+		}
+		
+		List<List<IClassification<T>>> results;
+		try {
+			results = bayesianSystem.classifyRows(sentenceInputs, maxResults);
+		} catch(RuntimeException e) {
+			for(PendingClassification<T> pending : batch) {
+				metrics.recordError();
+				pending.fail(e);
+			}
+			return;
+		}
+		
+		metrics.recordBatch(batch.size());
+		long now = System.nanoTime();
+		for(int i = 0; i < batch.size(); ++i) {
+			PendingClassification<T> pending = batch.get(i);
+			metrics.recordRequest(now - pending.getSubmitNanos());
+			pending.complete(results.get(i));
+		}
+	}
+	
+	/**
+	 * A queued request whose result is set by the batching thread.
+	 * @param <T> The category data type.
+	 */
+	private static class PendingClassification<T> extends FutureTask<List<IClassification<T>>> {
+		private final ISentenceInput sentenceInput;
+		private final long submitNanos = System.nanoTime();
+		
+		public PendingClassification(ISentenceInput sentenceInput) {
+			// The task is never run, the batching thread sets the result
+			super(new Callable<List<IClassification<T>>>() {
+				@Override
+				public List<IClassification<T>> call() {
+					return null;
+				}
+			});
+			this.sentenceInput = sentenceInput;
+		}
+		
+		public ISentenceInput getSentenceInput() {
+			return sentenceInput;
+		}
+		
+		public long getSubmitNanos() {
+			return submitNanos;
+		}
+		
+		public void complete(List<IClassification<T>> classifications) {
+			set(classifications);
+		}
+		
+		public void fail(Throwable throwable) {
+			setException(throwable);
+		}
+	}
+}
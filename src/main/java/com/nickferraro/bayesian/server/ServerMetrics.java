@@ -0,0 +1,140 @@
+package com.nickferraro.bayesian.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters kept by the classification server. All counters are updated atomically and can be read while the server is running.
+ * @author Nick Ferraro
+ */
+public class ServerMetrics {
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong batchedRequests = new AtomicLong();
+	private final AtomicLong maxBatchSize = new AtomicLong();
+	private final AtomicLong totalLatencyNanos = new AtomicLong();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+	
+	/**
+	 * Record a completed classify request.
+	 * @param latencyNanos The time from submitting the request to its result, in nanoseconds.
+	 */
+	public void recordRequest(long latencyNanos) {
+		requests.incrementAndGet();
+		totalLatencyNanos.addAndGet(latencyNanos);
+		_raise(maxLatencyNanos, latencyNanos);
+	}
+	
+	/**
+	 * Record a failed request.
+	 */
+	public void recordError() {
+		errors.incrementAndGet();
+	}
+	
+	/**
+	 * Record a scored batch.
+	 * @param size The number of requests in the batch.
+	 */
+	public void recordBatch(int size) {
+		batches.incrementAndGet();
+		batchedRequests.addAndGet(size);
+		_raise(maxBatchSize, size);
+	}
+	
+	/**
+	 * Get the number of completed classify requests.
+	 * @return The request count.
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+	
+	/**
+	 * Get the number of failed requests.
+	 * @return The error count.
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+	
+	/**
+	 * Get the number of scored batches.
+	 * @return The batch count.
+	 */
+	public long getBatches() {
+		return batches.get();
+	}
+	
+	/**
+	 * Get the number of requests that went through batches.
+	 * @return The batched request count.
+	 */
+	public long getBatchedRequests() {
+		return batchedRequests.get();
+	}
+	
+	/**
+	 * Get the largest batch scored so far.
+	 * @return The max batch size.
+	 */
+	public long getMaxBatchSize() {
+		return maxBatchSize.get();
+	}
+	
+	/**
+	 * Get the average number of requests per batch.
+	 * @return The average batch size. 0 if no batch has been scored.
+	 */
+	public double getAverageBatchSize() {
+		long batchCount = batches.get();
+		return ( batchCount == 0 ? 0.0d : (double)batchedRequests.get() / (double)batchCount );
+	}
+	
+	/**
+	 * Get the average latency of completed requests.
+	 * @return The average latency in nanoseconds. 0 if no request has completed.
+	 */
+	public double getAverageLatencyNanos() {
+		long requestCount = requests.get();
+		return ( requestCount == 0 ? 0.0d : (double)totalLatencyNanos.get() / (double)requestCount );
+	}
+	
+	/**
+	 * Get the largest latency of a completed request.
+	 * @return The max latency in nanoseconds.
+	 */
+	public long getMaxLatencyNanos() {
+		return maxLatencyNanos.get();
+	}
+	
+	/**
+	 * Format the metrics as plain text, one "name value" pair per line.
+	 * @return The metrics text.
+	 */
+	public String toText() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("bayesian_requests_total ").append(getRequests()).append('\n');
+		builder.append("bayesian_errors_total ").append(getErrors()).append('\n');
+		builder.append("bayesian_batches_total ").append(getBatches()).append('\n');
+		builder.append("bayesian_batched_requests_total ").append(getBatchedRequests()).append('\n');
+		builder.append("bayesian_batch_size_max ").append(getMaxBatchSize()).append('\n');
+		builder.append("bayesian_batch_size_avg ").append(getAverageBatchSize()).append('\n');
+		builder.append("bayesian_latency_nanos_avg ").append(getAverageLatencyNanos()).append('\n');
+		builder.append("bayesian_latency_nanos_max ").append(getMaxLatencyNanos()).append('\n');
+		
+		return builder.toString();
+	}
+	
+	/**
+	 * Raise a counter to a value if the value is larger.
+	 * @param counter The counter to raise.
+	 * @param value The candidate value.
+	 */
+	private static void _raise(AtomicLong counter, long value) {
+		long current = counter.get();
+		while( value > current && !counter.compareAndSet(current, value) ) {
+			current = counter.get();
+		}
+	}
+}
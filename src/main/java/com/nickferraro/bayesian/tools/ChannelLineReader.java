@@ -0,0 +1,104 @@
+package com.nickferraro.bayesian.tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads UTF-8 lines from a channel through one large buffer. Lines end with a line feed, a carriage return before it is dropped.
+ * The buffer grows when a single line does not fit in it. This class is not thread-safe.
+ * @author Nick Ferraro
+ */
+class ChannelLineReader {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	private final ReadableByteChannel channel;
+	private byte[] buffer;
+	private int start = 0;
+	private int end = 0;
+	private int scanned = 0;
+	private boolean endOfInput = false;
+	
+	/**
+	 * Create a line reader.
+	 * @param channel The channel to read from.
+	 * @param bufferSize The initial size of the buffer in bytes.
+	 */
+	ChannelLineReader(ReadableByteChannel channel, int bufferSize) {
+		this.channel = channel;
+		this.buffer = new byte[bufferSize];
+	}
+	
+	/**
+	 * Read the next line.
+	 * @return The line without its line ending, or NULL at the end of the input.
+	 * @throws IOException Thrown when the channel cannot be read.
+	 */
+	String readLine() throws IOException {
+		while( true ) {
+			// Look for the end of the line in the bytes already read
+			for(int i = scanned; i < end; ++i) {
+				if( buffer[i] == '\n' ) {
+					String line = _decode(start, i);
+					start = i + 1;
+					scanned = start;
+					return line;
+				}
+			}
+			scanned = end;
+			
+			if( endOfInput ) {
+				if( start == end ) {
+					return null;
+				}
+				
+				// The last line has no line feed
+				String line = _decode(start, end);
+				start = end;
+				return line;
+			}
+			
+			_fill();
+		}
+	}
+	
+	/**
+	 * Read more bytes after the current line, moving the line to the front of the buffer or growing the buffer to make room.
+	 * @throws IOException Thrown when the channel cannot be read.
+	 */
+	private void _fill() throws IOException {
+		if( start > 0 ) {
+			System.arraycopy(buffer, start, buffer, 0, end - start);
+			end -= start;
+			scanned -= start;
+			start = 0;
+		}
+		if( end == buffer.length ) {
+			byte[] grown = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, grown, 0, end);
+			buffer = grown;
+		}
+		
+		int read = channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end));
+		if( read < 0 ) {
+			endOfInput = true;
+		} else {
+			end += read;
+		}
+	}
+	
+	/**
+	 * Decode a line of the buffer.
+	 * @param from The index of the first byte of the line.
+	 * @param to The index after the last byte of the line, before the line feed.
+	 * @return The line without a trailing carriage return.
+	 */
+	private String _decode(int from, int to) {
+		if( to > from && buffer[to - 1] == '\r' ) {
+			--to;
+		}
+		
+		return new String(buffer, from, to - from, UTF8);
+	}
+}
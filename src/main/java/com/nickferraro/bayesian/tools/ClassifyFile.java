@@ -0,0 +1,137 @@
+package com.nickferraro.bayesian.tools;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.security.InvalidParameterException;
+import java.util.Locale;
+
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+import com.nickferraro.bayesian.model.io.ModelSnapshotReader;
+import com.nickferraro.bayesian.model.io.StringCategoryCodec;
+
+/**
+ * Command line tool that classifies every line of a TSV or JSONL file with a model snapshot. See {@link FileClassifier}.
+ * Categories are read as strings.
+ * <pre>
+ * java com.nickferraro.bayesian.tools.ClassifyFile [--format tsv|jsonl] [--field name] [--threads n] [--top k] [--chunk lines]
+ *     model.snapshot input output
+ * </pre>
+ * @author Nick Ferraro
+ */
+public class ClassifyFile {
+	static final int EXIT_OK = 0;
+	static final int EXIT_FAILED = 1;
+	static final int EXIT_USAGE = 2;
+	
+	private static final String USAGE = "Usage: ClassifyFile [--format tsv|jsonl] [--field name] [--threads n] [--top k] [--chunk lines] "
+			+ "model.snapshot input output";
+	
+	private ClassifyFile() {}
+	
+	/**
+	 * Run the tool and exit with its status.
+	 * @param args The options followed by the model, input and output files.
+	 */
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+	
+	/**
+	 * Run the tool.
+	 * @param args The options followed by the model, input and output files.
+	 * @param out The stream to report progress to.
+	 * @param err The stream to report errors to.
+	 * @return The exit status: 0 on success, 1 when classification failed, 2 when the arguments are wrong.
+	 */
+	static int run(String[] args, PrintStream out, PrintStream err) {
+		FileClassifier.Format format = FileClassifier.Format.TSV;
+		String field = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int top = 1;
+		int chunk = 1024;
+		
+		// Read the options
+		int index = 0;
+		try {
+			while( index < args.length && args[index].startsWith("--") ) {
+				if( index + 1 >= args.length ) {
+					throw new InvalidParameterException("Missing value for " + args[index]);
+				}
+				
+				String option = args[index];
+				String value = args[index + 1];
+				if( option.equals("--format") ) {
+					format = FileClassifier.Format.valueOf(value.toUpperCase(Locale.ENGLISH));
+				} else if( option.equals("--field") ) {
+					field = value;
+				} else if( option.equals("--threads") ) {
+					threads = Integer.parseInt(value);
+				} else if( option.equals("--top") ) {
+					top = Integer.parseInt(value);
+				} else if( option.equals("--chunk") ) {
+					chunk = Integer.parseInt(value);
+				} else {
+					throw new InvalidParameterException("Unknown option " + option);
+				}
+				index += 2;
+			}
+			if( threads < 1 || chunk < 1 ) {
+				throw new InvalidParameterException("--threads and --chunk must be at least 1");
+			}
+		} catch(IllegalArgumentException e) {
+			err.println(e.getMessage());
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+		if( args.length - index != 3 ) {
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+		
+		File modelFile = new File(args[index]);
+		File input = new File(args[index + 1]);
+		File output = new File(args[index + 2]);
+		
+		long start = System.currentTimeMillis();
+		try {
+			BayesianModel<String> bayesianModel = _readModel(modelFile);
+			FileClassifier<String> classifier = new FileClassifier<String>(new BayesianSystem<String>(bayesianModel), format);
+			classifier.setThreads(threads);
+			classifier.setChunkLines(chunk);
+			classifier.setMaxResults(top);
+			if( field != null ) {
+				classifier.setJsonField(field);
+			}
+			
+			long lines = classifier.classify(input, output);
+			long millis = Math.max(1, System.currentTimeMillis() - start);
+			out.println("Classified " + lines + " lines into " + output + " in " + millis + " ms (" + (lines * 1000 / millis) + " lines/s)");
+			return EXIT_OK;
+		} catch(IOException e) {
+			err.println("Classification failed: " + e.getMessage());
+			return EXIT_FAILED;
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			err.println("Classification interrupted");
+			return EXIT_FAILED;
+		}
+	}
+	
+	/**
+	 * Load a model from a snapshot file.
+	 * @param file The snapshot file.
+	 * @return The model.
+	 * @throws IOException Thrown when the snapshot cannot be read.
+	 */
+	private static BayesianModel<String> _readModel(File file) throws IOException {
+		ModelSnapshotReader<String> reader = new ModelSnapshotReader<String>(new FileInputStream(file), new StringCategoryCodec());
+		try {
+			return BayesianModel.readSnapshot(reader);
+		} finally {
+			reader.close();
+		}
+	}
+}
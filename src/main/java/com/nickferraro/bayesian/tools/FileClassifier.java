@@ -0,0 +1,468 @@
+package com.nickferraro.bayesian.tools;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.nickferraro.bayesian.IBayesianSystem;
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.core.SentenceInput;
+import com.nickferraro.bayesian.server.ClassificationServer;
+
+/**
+ * Classifies every line of a large file with a pool of worker threads and writes the results in input order.
+ * <p>
+ * The input is read through a channel with one large buffer and split into chunks of lines. Each chunk is tokenized, classified and
+ * formatted by a worker. The reading thread keeps a bounded window of chunks in flight and writes the oldest chunk as soon as it is done,
+ * so the output keeps the input order and memory stays bounded however large the file is.
+ * </p>
+ * <ul>
+ * <li>{@link Format#TSV} - The sentence is the last tab separated column. Output lines repeat the columns before it, followed by
+ * tab separated category and probability pairs.</li>
+ * <li>{@link Format#JSONL} - The sentence is a string field of a JSON object, "text" by default. Output lines are JSON arrays of
+ * category/probability objects.</li>
+ * </ul>
+ * Configure the classifier before calling classify. This class is not thread-safe.
+ * @author Nick Ferraro
+ *
+ * @param <T> The category data type.
+ */
+public class FileClassifier<T> {
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	
+	/**
+	 * The layout of the input and output lines.
+	 */
+	public enum Format {
+		TSV,
+		JSONL
+	}
+	
+	private final IBayesianSystem<T> bayesianSystem;
+	private final Format format;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int chunkLines = 1024;
+	private int maxResults = 1;
+	private int bufferSize = 1 << 20;
+	private String jsonField = "text";
+	
+	/**
+	 * Create a file classifier.
+	 * @param bayesianSystem The system to classify with. Cannot be NULL.
+	 * @param format The layout of the input and output lines. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 */
+	public FileClassifier(IBayesianSystem<T> bayesianSystem, Format format) throws InvalidParameterException {
+		if( bayesianSystem == null || format == null ) {
+			throw new InvalidParameterException("Cannot create a FileClassifier with NULL values");
+		}
+		
+		this.bayesianSystem = bayesianSystem;
+		this.format = format;
+	}
+	
+	/**
+	 * Set the number of worker threads.
+	 * @param threads The thread count. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when threads is less than 1.
+	 */
+	public void setThreads(int threads) throws InvalidParameterException {
+		if( threads < 1 ) {
+			throw new InvalidParameterException("Cannot classify with less than 1 thread");
+		}
+		
+		this.threads = threads;
+	}
+	
+	/**
+	 * Set the number of lines handed to a worker at a time.
+	 * @param chunkLines The lines per chunk. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when chunkLines is less than 1.
+	 */
+	public void setChunkLines(int chunkLines) throws InvalidParameterException {
+		if( chunkLines < 1 ) {
+			throw new InvalidParameterException("Cannot classify chunks of less than 1 line");
+		}
+		
+		this.chunkLines = chunkLines;
+	}
+	
+	/**
+	 * Set the max classifications written per line.
+	 * @param maxResults The max results. 0 or less writes every category.
+	 */
+	public void setMaxResults(int maxResults) {
+		this.maxResults = maxResults;
+	}
+	
+	/**
+	 * Set the size of the read buffer. Lines longer than the buffer grow it.
+	 * @param bufferSize The buffer size in bytes. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when bufferSize is less than 1.
+	 */
+	public void setBufferSize(int bufferSize) throws InvalidParameterException {
+		if( bufferSize < 1 ) {
+			throw new InvalidParameterException("Cannot read with a buffer smaller than 1 byte");
+		}
+		
+		this.bufferSize = bufferSize;
+	}
+	
+	/**
+	 * Set the field holding the sentence of {@link Format#JSONL} lines.
+	 * @param jsonField The field name. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when jsonField is NULL.
+	 */
+	public void setJsonField(String jsonField) throws InvalidParameterException {
+		if( jsonField == null ) {
+			throw new InvalidParameterException("Cannot read a NULL field");
+		}
+		
+		this.jsonField = jsonField;
+	}
+	
+	/**
+	 * Classify every line of a file into another file.
+	 * @param input The file to classify. Cannot be NULL.
+	 * @param output The file to write the results to. Cannot be NULL.
+	 * @return The number of lines classified.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 * @throws IOException Thrown when a file cannot be read or written, or a line cannot be classified.
+	 * @throws InterruptedException Thrown when interrupted while waiting for the workers.
+	 */
+	public long classify(File input, File output) throws InvalidParameterException, IOException, InterruptedException {
+		if( input == null || output == null ) {
+			throw new InvalidParameterException("Cannot classify without an input and an output file");
+		}
+		
+		FileInputStream inputStream = new FileInputStream(input);
+		try {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), UTF8), 1 << 16);
+			try {
+				return classify(inputStream.getChannel(), writer);
+			} finally {
+				writer.close();
+			}
+		} finally {
+			inputStream.close();
+		}
+	}
+	
+	/**
+	 * Classify every line of a channel. The channel and writer are not closed, the writer is flushed.
+	 * @param input The channel to read lines from. Cannot be NULL.
+	 * @param output The writer to write one result line per input line to. Cannot be NULL.
+	 * @return The number of lines classified.
+	 * @throws InvalidParameterException Thrown when a parameter is NULL.
+	 * @throws IOException Thrown when the input cannot be read, the output cannot be written, or a line cannot be classified.
+	 * @throws InterruptedException Thrown when interrupted while waiting for the workers.
+	 */
+	public long classify(ReadableByteChannel input, Writer output) throws InvalidParameterException, IOException, InterruptedException {
+		if( input == null || output == null ) {
+			throw new InvalidParameterException("Cannot classify without an input and an output");
+		}
+		
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		try {
+			ChannelLineReader reader = new ChannelLineReader(input, bufferSize);
+			LinkedList<Future<String>> inFlight = new LinkedList<Future<String>>();
+			int maxInFlight = threads * 2;
+			long lineCount = 0;
+			
+			List<String> chunk = new ArrayList<String>(chunkLines);
+			String line;
+			while( (line = reader.readLine()) != null ) {
+				chunk.add(line);
+				++lineCount;
+				if( chunk.size() == chunkLines ) {
+					inFlight.add(workers.submit(new ChunkTask(chunk)));
+					chunk = new ArrayList<String>(chunkLines);
+					
+					// Write the oldest chunk once the window is full
+					if( inFlight.size() >= maxInFlight ) {
+						output.write(_await(inFlight.removeFirst()));
+					}
+				}
+			}
+			if( !chunk.isEmpty() ) {
+				inFlight.add(workers.submit(new ChunkTask(chunk)));
+			}
+			
+			while( !inFlight.isEmpty() ) {
+				output.write(_await(inFlight.removeFirst()));
+			}
+			output.flush();
+			
+			return lineCount;
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Wait for a chunk to be classified.
+	 * @param future The chunk result.
+	 * @return The formatted output of the chunk.
+	 * @throws IOException Thrown when the chunk could not be classified.
+	 * @throws InterruptedException Thrown when interrupted while waiting.
+	 */
+	private static String _await(Future<String> future) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch(ExecutionException e) {
+			throw new IOException("Cannot classify a chunk of lines", e.getCause());
+		}
+	}
+	
+	/**
+	 * Format the classifications of one TSV line.
+	 * @param builder The builder to append the line to.
+	 * @param key The columns before the sentence, or NULL if there are none.
+	 * @param classifications The classifications of the sentence.
+	 */
+	private static <T> void _appendTsv(StringBuilder builder, String key, List<IClassification<T>> classifications) {
+		boolean first = true;
+		if( key != null ) {
+			builder.append(key);
+			first = false;
+		}
+		for(IClassification<T> classification : classifications) {
+			if( !first ) {
+				builder.append('\t');
+			}
+			builder.append(classification.getCategory()).append('\t').append(classification.getProbability());
+			first = false;
+		}
+	}
+	
+	/**
+	 * Find a string field of a JSON object.
+	 * @param line The JSON object text.
+	 * @param field The name of the field.
+	 * @return The unescaped value, or NULL if the field is missing, is not a string, or the line is not a JSON object.
+	 */
+	static String jsonStringField(String line, String field) {
+		JsonScanner scanner = new JsonScanner(line);
+		if( !scanner.consume('{') ) {
+			return null;
+		}
+		if( scanner.consume('}') ) {
+			return null;
+		}
+		
+		do {
+			String name = scanner.readString();
+			if( name == null || !scanner.consume(':') ) {
+				return null;
+			}
+			if( name.equals(field) ) {
+				return scanner.readString();
+			}
+			if( !scanner.skipValue() ) {
+				return null;
+			}
+		} while( scanner.consume(',') );
+		
+		return null;
+	}
+	
+	/**
+	 * Tokenizes, classifies and formats one chunk of lines.
+	 */
+	private class ChunkTask implements Callable<String> {
+		private final List<String> lines;
+		
+		/**
+		 * Create a chunk task.
+		 * @param lines The lines of the chunk.
+		 */
+		private ChunkTask(List<String> lines) {
+			this.lines = lines;
+		}
+		
+		@Override
+		public String call() {
+			// Split each line into its key and sentence
+			List<SentenceInput> sentences = new ArrayList<SentenceInput>(lines.size());
+			String[] keys = new String[lines.size()];
+			for(int i = 0; i < lines.size(); ++i) {
+				String line = lines.get(i);
+				String sentence;
+				if( format == Format.TSV ) {
+					int tab = line.lastIndexOf('\t');
+					keys[i] = ( tab < 0 ? null : line.substring(0, tab) );
+					sentence = line.substring(tab + 1);
+				} else {
+					sentence = jsonStringField(line, jsonField);
+				}
+				sentences.add(new SentenceInput(( sentence == null ? "" : sentence )));
+			}
+			
+			List<List<IClassification<T>>> results = bayesianSystem.classifyRows(sentences, maxResults);
+			
+			StringBuilder builder = new StringBuilder(lines.size() * 48);
+			for(int i = 0; i < results.size(); ++i) {
+				if( format == Format.TSV ) {
+					_appendTsv(builder, keys[i], results.get(i));
+				} else {
+					builder.append(ClassificationServer.toJson(results.get(i)));
+				}
+				builder.append('\n');
+			}
+			
+			return builder.toString();
+		}
+	}
+	
+	/**
+	 * A minimal reader of JSON text, enough to find one string field of an object.
+	 */
+	private static class JsonScanner {
+		private final String text;
+		private int position = 0;
+		
+		/**
+		 * Create a scanner at the start of the text.
+		 * @param text The JSON text.
+		 */
+		private JsonScanner(String text) {
+			this.text = text;
+		}
+		
+		/**
+		 * Skip whitespace and consume a character if it is next.
+		 * @param c The expected character.
+		 * @return True if the character was consumed.
+		 */
+		private boolean consume(char c) {
+			_skipWhitespace();
+			if( position < text.length() && text.charAt(position) == c ) {
+				++position;
+				return true;
+			}
+			
+			return false;
+		}
+		
+		/**
+		 * Read a string.
+		 * @return The unescaped string, or NULL if the next value is not a valid string.
+		 */
+		private String readString() {
+			if( !consume('"') ) {
+				return null;
+			}
+			
+			StringBuilder builder = new StringBuilder();
+			while( position < text.length() ) {
+				char c = text.charAt(position++);
+				if( c == '"' ) {
+					return builder.toString();
+				}
+				if( c != '\\' ) {
+					builder.append(c);
+					continue;
+				}
+				if( position >= text.length() ) {
+					return null;
+				}
+				
+				char escaped = text.charAt(position++);
+				switch( escaped ) {
+				case 'b':
+					builder.append('\b');
+					break;
+				case 'f':
+					builder.append('\f');
+					break;
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'u':
+					if( position + 4 > text.length() ) {
+						return null;
+					}
+					try {
+						builder.append((char)Integer.parseInt(text.substring(position, position + 4), 16));
+					} catch(NumberFormatException e) {
+						return null;
+					}
+					position += 4;
+					break;
+				default:
+					builder.append(escaped);
+				}
+			}
+			
+			return null;
+		}
+		
+		/**
+		 * Skip the next value, including nested objects and arrays.
+		 * @return True if a value was skipped, false if the text ended first.
+		 */
+		private boolean skipValue() {
+			_skipWhitespace();
+			int depth = 0;
+			while( position < text.length() ) {
+				char c = text.charAt(position);
+				if( c == '"' ) {
+					if( readString() == null ) {
+						return false;
+					}
+				} else {
+					if( c == '{' || c == '[' ) {
+						++depth;
+					} else if( c == '}' || c == ']' ) {
+						if( depth == 0 ) {
+							return true;
+						}
+						--depth;
+					} else if( c == ',' && depth == 0 ) {
+						return true;
+					}
+					++position;
+				}
+				
+				if( depth == 0 && position < text.length() ) {
+					char next = text.charAt(position);
+					if( next == ',' || next == '}' ) {
+						return true;
+					}
+				}
+			}
+			
+			return depth == 0;
+		}
+		
+		/**
+		 * Move past any whitespace.
+		 */
+		private void _skipWhitespace() {
+			while( position < text.length() && Character.isWhitespace(text.charAt(position)) ) {
+				++position;
+			}
+		}
+	}
+}
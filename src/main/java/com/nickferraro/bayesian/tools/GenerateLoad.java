@@ -0,0 +1,118 @@
+package com.nickferraro.bayesian.tools;
+
+import java.io.PrintStream;
+import java.security.InvalidParameterException;
+
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+import com.nickferraro.bayesian.model.offheap.OffHeapBayesianModel;
+
+/**
+ * Command line tool that runs a mixed train and classify load against a fresh model and prints throughput, latency percentiles and
+ * lock wait for each kind of operation as "name value" lines. See {@link LoadGenerator}.
+ * <pre>
+ * java com.nickferraro.bayesian.tools.GenerateLoad [--model hashed|offheap] [--classifiers n] [--trainers n] [--classify-rate n]
+ *     [--train-rate n] [--duration seconds] [--vocabulary n] [--categories n] [--word-skew s] [--category-skew s] [--words n]
+ *     [--warm-up rows] [--seed n]
+ * </pre>
+ * @author Nick Ferraro
+ */
+public class GenerateLoad {
+	static final int EXIT_OK = 0;
+	static final int EXIT_FAILED = 1;
+	static final int EXIT_USAGE = 2;
+	
+	private static final String USAGE = "Usage: GenerateLoad [--model hashed|offheap] [--classifiers n] [--trainers n] [--classify-rate n] "
+			+ "[--train-rate n] [--duration seconds] [--vocabulary n] [--categories n] [--word-skew s] [--category-skew s] [--words n] "
+			+ "[--warm-up rows] [--seed n]";
+	
+	private GenerateLoad() {}
+	
+	/**
+	 * Run the tool and exit with its status.
+	 * @param args The options.
+	 */
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+	
+	/**
+	 * Run the tool.
+	 * @param args The options.
+	 * @param out The stream to report results to.
+	 * @param err The stream to report errors to.
+	 * @return The exit status: 0 on success, 1 when the run was interrupted, 2 when the arguments are wrong.
+	 */
+	static int run(String[] args, PrintStream out, PrintStream err) {
+		LoadGenerator generator = new LoadGenerator();
+		String model = "hashed";
+		
+		// Read the options
+		int index = 0;
+		try {
+			while( index < args.length ) {
+				if( !args[index].startsWith("--") ) {
+					throw new InvalidParameterException("Unexpected argument " + args[index]);
+				}
+				if( index + 1 >= args.length ) {
+					throw new InvalidParameterException("Missing value for " + args[index]);
+				}
+				
+				String option = args[index];
+				String value = args[index + 1];
+				if( option.equals("--model") ) {
+					if( !value.equals("hashed") && !value.equals("offheap") ) {
+						throw new InvalidParameterException("Unknown model " + value);
+					}
+					model = value;
+				} else if( option.equals("--classifiers") ) {
+					generator.setClassifierThreads(Integer.parseInt(value));
+				} else if( option.equals("--trainers") ) {
+					generator.setTrainerThreads(Integer.parseInt(value));
+				} else if( option.equals("--classify-rate") ) {
+					generator.setClassifyRate(Double.parseDouble(value));
+				} else if( option.equals("--train-rate") ) {
+					generator.setTrainRate(Double.parseDouble(value));
+				} else if( option.equals("--duration") ) {
+					generator.setDurationMillis(Math.round(Double.parseDouble(value) * 1000.0d));
+				} else if( option.equals("--vocabulary") ) {
+					generator.setVocabularySize(Integer.parseInt(value));
+				} else if( option.equals("--categories") ) {
+					generator.setCategoryCount(Integer.parseInt(value));
+				} else if( option.equals("--word-skew") ) {
+					generator.setWordSkew(Double.parseDouble(value));
+				} else if( option.equals("--category-skew") ) {
+					generator.setCategorySkew(Double.parseDouble(value));
+				} else if( option.equals("--words") ) {
+					generator.setSentenceWords(Integer.parseInt(value));
+				} else if( option.equals("--warm-up") ) {
+					generator.setWarmUpRows(Integer.parseInt(value));
+				} else if( option.equals("--seed") ) {
+					generator.setSeed(Long.parseLong(value));
+				} else {
+					throw new InvalidParameterException("Unknown option " + option);
+				}
+				index += 2;
+			}
+		} catch(IllegalArgumentException e) {
+			err.println(e.getMessage());
+			err.println(USAGE);
+			return EXIT_USAGE;
+		}
+		
+		BayesianSystem<String> bayesianSystem = new BayesianSystem<String>(( model.equals("offheap")
+				? new OffHeapBayesianModel<String>() : new BayesianModel<String>() ));
+		try {
+			generator.run(bayesianSystem);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			err.println("Load run interrupted");
+			return EXIT_FAILED;
+		}
+		
+		out.println("model " + model);
+		generator.getClassifyStats().print(out);
+		generator.getTrainStats().print(out);
+		return EXIT_OK;
+	}
+}
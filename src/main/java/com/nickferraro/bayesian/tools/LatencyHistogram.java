@@ -0,0 +1,124 @@
+package com.nickferraro.bayesian.tools;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds, with buckets laid out like HdrHistogram: values below 128 each
+ * have their own bucket, and every power of two above that is split into 64 buckets. Reported values are within 1.6% of the recorded
+ * values across the whole long range, and recording is a few shifts and an array increment, so it can sit on a measured path.
+ * This class is not thread-safe, give each thread its own histogram and merge them with {@link #add(LatencyHistogram)}.
+ * @author Nick Ferraro
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+	private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (63 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+	
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long count = 0;
+	private long sum = 0;
+	private long max = 0;
+	
+	/**
+	 * Record a value.
+	 * @param value The value to record. Negative values are recorded as 0.
+	 */
+	public void record(long value) {
+		value = Math.max(0, value);
+		++counts[_bucketOf(value)];
+		++count;
+		sum += value;
+		max = Math.max(max, value);
+	}
+	
+	/**
+	 * Add every value recorded by another histogram to this one.
+	 * @param other The histogram to add.
+	 */
+	public void add(LatencyHistogram other) {
+		for(int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+			counts[bucket] += other.counts[bucket];
+		}
+		count += other.count;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+	
+	/**
+	 * Get the number of recorded values.
+	 * @return The value count.
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Get the largest recorded value.
+	 * @return The max value. 0 if nothing was recorded.
+	 */
+	public long getMax() {
+		return max;
+	}
+	
+	/**
+	 * Get the mean of the recorded values.
+	 * @return The mean. 0 if nothing was recorded.
+	 */
+	public double getMean() {
+		return ( count == 0 ? 0.0d : (double)sum / (double)count );
+	}
+	
+	/**
+	 * Get the value that a percentage of the recorded values are at or below. The value is the highest value of the bucket the
+	 * percentile falls in, capped at the max recorded value.
+	 * @param percentile The percentile, from 0 to 100.
+	 * @return The value at the percentile. 0 if nothing was recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if( count == 0 ) {
+			return 0;
+		}
+		
+		long rank = Math.max(1, (long)Math.ceil(Math.min(100.0d, Math.max(0.0d, percentile)) / 100.0d * count));
+		long seen = 0;
+		for(int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+			seen += counts[bucket];
+			if( seen >= rank ) {
+				return Math.min(max, _highestValueOf(bucket));
+			}
+		}
+		
+		return max;
+	}
+	
+	/**
+	 * Get the bucket a value is counted in.
+	 * @param value The value, at least 0.
+	 * @return The bucket index.
+	 */
+	private static int _bucketOf(long value) {
+		if( value < SUB_BUCKET_COUNT ) {
+			return (int)value;
+		}
+		
+		// Keep the top 7 bits of the value, the shift picks the power of two
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		int top = (int)(value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF + (top - SUB_BUCKET_HALF);
+	}
+	
+	/**
+	 * Get the highest value counted in a bucket.
+	 * @param bucket The bucket index.
+	 * @return The highest value of the bucket.
+	 */
+	private static long _highestValueOf(int bucket) {
+		if( bucket < SUB_BUCKET_COUNT ) {
+			return bucket;
+		}
+		
+		int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + 1;
+		long top = (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+		long highest = ((top + 1) << shift) - 1;
+		return ( highest < 0 ? Long.MAX_VALUE : highest );
+	}
+}
@@ -0,0 +1,526 @@
+package com.nickferraro.bayesian.tools;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.core.ClassificationResult;
+import com.nickferraro.bayesian.core.SentenceInput;
+
+/**
+ * Drives a {@link BayesianSystem} with classifier and trainer threads running at the same time and measures what each kind of
+ * operation sees.
+ * <p>
+ * Sentences are made of words "w0" to "wN" drawn from a Zipf distribution, so a few words are very common and most are rare. Half of
+ * the words of a training sentence are shifted by an offset per category, so each category has words of its own, and categories are
+ * drawn from their own Zipf distribution. Every thread builds its sentences before the run, so generating them is not measured.
+ * </p>
+ * <p>
+ * Rates are open loop: each thread schedules its operations at fixed intervals whether or not the previous operation finished, and
+ * latency is measured from the time an operation was scheduled to start. A stall therefore shows up in the latency of every operation
+ * queued behind it rather than being hidden by the thread slowing down. A rate of 0 runs the threads as fast as they can, and latency
+ * is then the time each operation took.
+ * </p>
+ * Configure the generator before calling run. This class is not thread-safe.
+ * @author Nick Ferraro
+ */
+public class LoadGenerator {
+	private static final int SENTENCE_POOL = 1024;
+	
+	private int classifierThreads = 4;
+	private int trainerThreads = 1;
+	private double classifyRate = 10000.0d;
+	private double trainRate = 100.0d;
+	private long durationMillis = 10000;
+	private int vocabularySize = 50000;
+	private int categoryCount = 20;
+	private double wordSkew = 1.0d;
+	private double categorySkew = 0.8d;
+	private int sentenceWords = 20;
+	private int warmUpRows = 10000;
+	private long seed = 42;
+	
+	private OperationStats classifyStats = null;
+	private OperationStats trainStats = null;
+	
+	/**
+	 * Set the number of threads classifying sentences.
+	 * @param classifierThreads The thread count. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when classifierThreads is negative.
+	 */
+	public void setClassifierThreads(int classifierThreads) throws InvalidParameterException {
+		if( classifierThreads < 0 ) {
+			throw new InvalidParameterException("Cannot run a negative number of classifier threads");
+		}
+		
+		this.classifierThreads = classifierThreads;
+	}
+	
+	/**
+	 * Set the number of threads training on rows.
+	 * @param trainerThreads The thread count. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when trainerThreads is negative.
+	 */
+	public void setTrainerThreads(int trainerThreads) throws InvalidParameterException {
+		if( trainerThreads < 0 ) {
+			throw new InvalidParameterException("Cannot run a negative number of trainer threads");
+		}
+		
+		this.trainerThreads = trainerThreads;
+	}
+	
+	/**
+	 * Set the classifications per second, shared by the classifier threads.
+	 * @param classifyRate The rate. 0 runs unthrottled. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when classifyRate is negative.
+	 */
+	public void setClassifyRate(double classifyRate) throws InvalidParameterException {
+		this.classifyRate = _checkRate(classifyRate);
+	}
+	
+	/**
+	 * Set the rows trained per second, shared by the trainer threads.
+	 * @param trainRate The rate. 0 runs unthrottled. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when trainRate is negative.
+	 */
+	public void setTrainRate(double trainRate) throws InvalidParameterException {
+		this.trainRate = _checkRate(trainRate);
+	}
+	
+	/**
+	 * Set how long the measured run lasts.
+	 * @param durationMillis The duration in milliseconds. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when durationMillis is less than 1.
+	 */
+	public void setDurationMillis(long durationMillis) throws InvalidParameterException {
+		if( durationMillis < 1 ) {
+			throw new InvalidParameterException("Cannot run for less than 1 millisecond");
+		}
+		
+		this.durationMillis = durationMillis;
+	}
+	
+	/**
+	 * Set the number of distinct words sentences are drawn from.
+	 * @param vocabularySize The word count. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when vocabularySize is less than 1.
+	 */
+	public void setVocabularySize(int vocabularySize) throws InvalidParameterException {
+		if( vocabularySize < 1 ) {
+			throw new InvalidParameterException("Cannot draw sentences from less than 1 word");
+		}
+		
+		this.vocabularySize = vocabularySize;
+	}
+	
+	/**
+	 * Set the number of categories rows are trained on.
+	 * @param categoryCount The category count. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when categoryCount is less than 1.
+	 */
+	public void setCategoryCount(int categoryCount) throws InvalidParameterException {
+		if( categoryCount < 1 ) {
+			throw new InvalidParameterException("Cannot train on less than 1 category");
+		}
+		
+		this.categoryCount = categoryCount;
+	}
+	
+	/**
+	 * Set the Zipf exponent of word frequencies. Natural language is close to 1.
+	 * @param wordSkew The exponent. 0 draws words uniformly. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when wordSkew is negative.
+	 */
+	public void setWordSkew(double wordSkew) throws InvalidParameterException {
+		this.wordSkew = _checkSkew(wordSkew);
+	}
+	
+	/**
+	 * Set the Zipf exponent of category frequencies.
+	 * @param categorySkew The exponent. 0 draws categories uniformly. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when categorySkew is negative.
+	 */
+	public void setCategorySkew(double categorySkew) throws InvalidParameterException {
+		this.categorySkew = _checkSkew(categorySkew);
+	}
+	
+	/**
+	 * Set the number of words per sentence.
+	 * @param sentenceWords The word count. Must be at least 1.
+	 * @throws InvalidParameterException Thrown when sentenceWords is less than 1.
+	 */
+	public void setSentenceWords(int sentenceWords) throws InvalidParameterException {
+		if( sentenceWords < 1 ) {
+			throw new InvalidParameterException("Cannot build sentences of less than 1 word");
+		}
+		
+		this.sentenceWords = sentenceWords;
+	}
+	
+	/**
+	 * Set the number of rows trained before the measured run, so classifiers start against a populated model.
+	 * @param warmUpRows The row count. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when warmUpRows is negative.
+	 */
+	public void setWarmUpRows(int warmUpRows) throws InvalidParameterException {
+		if( warmUpRows < 0 ) {
+			throw new InvalidParameterException("Cannot warm up with a negative number of rows");
+		}
+		
+		this.warmUpRows = warmUpRows;
+	}
+	
+	/**
+	 * Set the seed sentences are generated from. Runs with the same seed and settings generate the same sentences.
+	 * @param seed The random seed.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Get the classification results of the last run.
+	 * @return The classify stats, or NULL if nothing has run.
+	 */
+	public OperationStats getClassifyStats() {
+		return classifyStats;
+	}
+	
+	/**
+	 * Get the training results of the last run.
+	 * @return The train stats, or NULL if nothing has run.
+	 */
+	public OperationStats getTrainStats() {
+		return trainStats;
+	}
+	
+	/**
+	 * Train the warm up rows, then run the classifier and trainer threads for the configured duration. Thread contention monitoring
+	 * is switched on for the run when the JVM supports it, and restored afterwards.
+	 * @param bayesianSystem The system to drive. Cannot be NULL.
+	 * @throws InvalidParameterException Thrown when bayesianSystem is NULL.
+	 * @throws InterruptedException Thrown when the calling thread is interrupted while waiting for the run to end.
+	 */
+	public void run(BayesianSystem<String> bayesianSystem) throws InvalidParameterException, InterruptedException {
+		if( bayesianSystem == null ) {
+			throw new InvalidParameterException("Cannot generate load on a NULL system");
+		}
+		
+		ZipfSampler words = new ZipfSampler(vocabularySize, wordSkew);
+		ZipfSampler categories = new ZipfSampler(categoryCount, categorySkew);
+		
+		// Warm up
+		Random warmUpRandom = new Random(seed);
+		List<IDataRow<String>> warmUp = new ArrayList<IDataRow<String>>(warmUpRows);
+		for(int i = 0; i < warmUpRows; ++i) {
+			warmUp.add(_row(i, words, categories, warmUpRandom));
+		}
+		bayesianSystem.trainOnRows(warmUp);
+		warmUp = null;
+		
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		boolean contention = threadBean.isThreadContentionMonitoringSupported();
+		boolean wasEnabled = ( contention && threadBean.isThreadContentionMonitoringEnabled() );
+		if( contention && !wasEnabled ) {
+			threadBean.setThreadContentionMonitoringEnabled(true);
+		}
+		
+		List<Worker> workers = new ArrayList<Worker>();
+		for(int i = 0; i < classifierThreads; ++i) {
+			workers.add(new Worker(bayesianSystem, false, i, classifierThreads, classifyRate, words, categories, threadBean, contention));
+		}
+		for(int i = 0; i < trainerThreads; ++i) {
+			workers.add(new Worker(bayesianSystem, true, i, trainerThreads, trainRate, words, categories, threadBean, contention));
+		}
+		
+		CountDownLatch startLatch = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+		for(Worker worker : workers) {
+			Thread thread = new Thread(worker, "bayesian-load-" + ( worker.training ? "train-" : "classify-" ) + worker.index);
+			thread.setDaemon(true);
+			worker.startLatch = startLatch;
+			threads.add(thread);
+			thread.start();
+		}
+		
+		long durationNanos = durationMillis * 1000000L;
+		long start = System.nanoTime() + 1000000L;
+		for(Worker worker : workers) {
+			worker.start = start;
+			worker.end = start + durationNanos;
+		}
+		startLatch.countDown();
+		
+		try {
+			for(Thread thread : threads) {
+				thread.join();
+			}
+		} finally {
+			if( contention && !wasEnabled ) {
+				threadBean.setThreadContentionMonitoringEnabled(false);
+			}
+		}
+		
+		classifyStats = _collect("classify", workers, false, durationNanos, contention);
+		trainStats = _collect("train", workers, true, durationNanos, contention);
+	}
+	
+	/**
+	 * Merge the results of the workers running one kind of operation.
+	 * @param name The operation name.
+	 * @param workers Every worker of the run.
+	 * @param training TRUE to merge the trainers, FALSE to merge the classifiers.
+	 * @param durationNanos The length of the run.
+	 * @param contention TRUE if lock waits were measured.
+	 * @return The operation stats.
+	 */
+	private static OperationStats _collect(String name, List<Worker> workers, boolean training, long durationNanos, boolean contention) {
+		LatencyHistogram latencies = new LatencyHistogram();
+		int threads = 0;
+		long operations = 0;
+		long backlog = 0;
+		long lockWaitMillis = 0;
+		for(Worker worker : workers) {
+			if( worker.training == training ) {
+				++threads;
+				latencies.add(worker.latencies);
+				operations += worker.operations;
+				backlog += worker.backlog;
+				lockWaitMillis += worker.lockWaitMillis;
+			}
+		}
+		
+		return new OperationStats(name, threads, operations, backlog, latencies, ( contention ? lockWaitMillis : -1 ), durationNanos);
+	}
+	
+	/**
+	 * Build a training row. The category is drawn first, then each word is either a common word or a word shifted into the part of
+	 * the vocabulary that belongs to the category.
+	 * @param id The row id.
+	 * @param words The word sampler.
+	 * @param categories The category sampler.
+	 * @param random The random source.
+	 * @return The row.
+	 */
+	private WorkloadRow _row(long id, ZipfSampler words, ZipfSampler categories, Random random) {
+		int category = categories.sample(random);
+		return new WorkloadRow(id, "c" + category, _sentence(category, words, random));
+	}
+	
+	/**
+	 * Build the text of a sentence.
+	 * @param category The category the sentence leans towards.
+	 * @param words The word sampler.
+	 * @param random The random source.
+	 * @return The sentence text.
+	 */
+	private String _sentence(int category, ZipfSampler words, Random random) {
+		long stride = Math.max(1, vocabularySize / categoryCount);
+		StringBuilder sentence = new StringBuilder(sentenceWords * 7);
+		for(int i = 0; i < sentenceWords; ++i) {
+			long word = words.sample(random);
+			if( random.nextBoolean() ) {
+				word = (word + category * stride) % vocabularySize;
+			}
+			if( i > 0 ) {
+				sentence.append(' ');
+			}
+			sentence.append('w').append(word);
+		}
+		
+		return sentence.toString();
+	}
+	
+	/**
+	 * Check a rate parameter.
+	 * @param rate The rate.
+	 * @return The rate.
+	 * @throws InvalidParameterException Thrown when rate is negative or not a number.
+	 */
+	private static double _checkRate(double rate) throws InvalidParameterException {
+		if( !(rate >= 0) ) {
+			throw new InvalidParameterException("Cannot run at a negative rate");
+		}
+		
+		return rate;
+	}
+	
+	/**
+	 * Check a skew parameter.
+	 * @param skew The Zipf exponent.
+	 * @return The exponent.
+	 * @throws InvalidParameterException Thrown when skew is negative or not a number.
+	 */
+	private static double _checkSkew(double skew) throws InvalidParameterException {
+		if( !(skew >= 0) ) {
+			throw new InvalidParameterException("Cannot draw with a negative skew");
+		}
+		
+		return skew;
+	}
+	
+	/**
+	 * Runs one kind of operation on its own thread and records what it saw. Results are read after the thread is joined.
+	 */
+	private final class Worker implements Runnable {
+		private final BayesianSystem<String> bayesianSystem;
+		private final boolean training;
+		private final int index;
+		private final long intervalNanos;
+		private final ThreadMXBean threadBean;
+		private final boolean contention;
+		private final List<SentenceInput> sentences = new ArrayList<SentenceInput>(SENTENCE_POOL);
+		private final List<WorkloadRow> rows = new ArrayList<WorkloadRow>(SENTENCE_POOL);
+		private final ClassificationResult<String> result = new ClassificationResult<String>();
+		private final LatencyHistogram latencies = new LatencyHistogram();
+		
+		private volatile CountDownLatch startLatch;
+		private volatile long start;
+		private volatile long end;
+		private long operations = 0;
+		private long backlog = 0;
+		private long lockWaitMillis = 0;
+		
+		private Worker(BayesianSystem<String> bayesianSystem, boolean training, int index, int threads, double rate, ZipfSampler words,
+				ZipfSampler categories, ThreadMXBean threadBean, boolean contention) {
+			this.bayesianSystem = bayesianSystem;
+			this.training = training;
+			this.index = index;
+			this.intervalNanos = ( rate > 0 ? Math.max(1, Math.round(threads * 1e9d / rate)) : 0 );
+			this.threadBean = threadBean;
+			this.contention = contention;
+			
+			Random random = new Random(seed * 31 + ( training ? 1000003 : 0 ) + index + 1);
+			for(int i = 0; i < SENTENCE_POOL; ++i) {
+				WorkloadRow row = _row(i, words, categories, random);
+				if( training ) {
+					rows.add(row);
+				} else {
+					sentences.add(row.sentence);
+				}
+			}
+		}
+		
+		@Override
+		public void run() {
+			try {
+				startLatch.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			
+			_pace(start);
+			long pacingNanos = 0;
+			long waitedBefore = _waitedMillis();
+			long next = start;
+			int pool = 0;
+			while( next < end ) {
+				long now = System.nanoTime();
+				if( now >= end ) {
+					// Operations scheduled before the end that never started
+					backlog = ( intervalNanos > 0 ? (end - next + intervalNanos - 1) / intervalNanos : 0 );
+					break;
+				}
+				if( intervalNanos > 0 ) {
+					pacingNanos += _pace(next);
+				} else {
+					next = now;
+				}
+				
+				if( training ) {
+					bayesianSystem.trainOnRow(rows.get(pool));
+				} else {
+					bayesianSystem.classifyRow(sentences.get(pool), result);
+				}
+				pool = (pool + 1) % SENTENCE_POOL;
+				
+				latencies.record(System.nanoTime() - next);
+				++operations;
+				next = ( intervalNanos > 0 ? next + intervalNanos : System.nanoTime() );
+			}
+			
+			if( contention ) {
+				lockWaitMillis = Math.max(0, _waitedMillis() - waitedBefore - pacingNanos / 1000000L);
+			}
+		}
+		
+		/**
+		 * Park until a point in time.
+		 * @param until The nano time to park until.
+		 * @return The nanoseconds spent parked.
+		 */
+		private long _pace(long until) {
+			long parkStart = System.nanoTime();
+			long now = parkStart;
+			while( now < until ) {
+				LockSupport.parkNanos(until - now);
+				now = System.nanoTime();
+			}
+			
+			return now - parkStart;
+		}
+		
+		/**
+		 * Get the milliseconds this thread has spent blocked or waiting.
+		 * @return The wait time, 0 if contention is not measured.
+		 */
+		private long _waitedMillis() {
+			if( !contention ) {
+				return 0;
+			}
+			
+			ThreadInfo info = threadBean.getThreadInfo(Thread.currentThread().getId());
+			return ( info == null ? 0 : Math.max(0, info.getBlockedTime()) + Math.max(0, info.getWaitedTime()) );
+		}
+	}
+	
+	/**
+	 * A generated training row.
+	 */
+	private static final class WorkloadRow implements IDataRow<String> {
+		private final long id;
+		private final String category;
+		private final SentenceInput sentence;
+		
+		private WorkloadRow(long id, String category, String text) {
+			this.id = id;
+			this.category = category;
+			this.sentence = new SentenceInput(text);
+		}
+		
+		@Override
+		public long getId() {
+			return id;
+		}
+		
+		@Override
+		public String getCategory() {
+			return category;
+		}
+		
+		@Override
+		public String getSentence() {
+			return sentence.getSentence();
+		}
+		
+		@Override
+		public List<String> getSentenceWords() {
+			return sentence.getSentenceWords();
+		}
+		
+		@Override
+		public Set<String> getUniqueSentenceWords() {
+			return sentence.getUniqueSentenceWords();
+		}
+	}
+}
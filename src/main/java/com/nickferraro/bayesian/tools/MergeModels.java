@@ -0,0 +1,65 @@
+package com.nickferraro.bayesian.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.nickferraro.bayesian.model.io.ModelMerger;
+import com.nickferraro.bayesian.model.io.StringCategoryCodec;
+
+/**
+ * Command line tool that merges partial model snapshots, written by independent training jobs, into one snapshot.
+ * Categories are read as strings.
+ * <pre>
+ * java com.nickferraro.bayesian.tools.MergeModels output.snapshot input.snapshot...
+ * </pre>
+ * @author Nick Ferraro
+ */
+public class MergeModels {
+	static final int EXIT_OK = 0;
+	static final int EXIT_FAILED = 1;
+	static final int EXIT_USAGE = 2;
+	
+	private MergeModels() {}
+	
+	/**
+	 * Run the tool and exit with its status.
+	 * @param args The output file followed by the input files.
+	 */
+	public static void main(String[] args) {
+		System.exit(run(args, System.out, System.err));
+	}
+	
+	/**
+	 * Run the tool.
+	 * @param args The output file followed by the input files.
+	 * @param out The stream to report progress to.
+	 * @param err The stream to report errors to.
+	 * @return The exit status: 0 on success, 1 when the merge failed, 2 when the arguments are wrong.
+	 */
+	static int run(String[] args, PrintStream out, PrintStream err) {
+		if( args.length < 2 ) {
+			err.println("Usage: MergeModels output.snapshot input.snapshot...");
+			return EXIT_USAGE;
+		}
+		
+		File output = new File(args[0]);
+		List<File> inputs = new ArrayList<File>(args.length - 1);
+		for(int i = 1; i < args.length; ++i) {
+			inputs.add(new File(args[i]));
+		}
+		
+		long start = System.currentTimeMillis();
+		try {
+			long words = new ModelMerger<String>(new StringCategoryCodec()).merge(inputs, output);
+			out.println("Merged " + inputs.size() + " snapshots, " + words + " words, into " + output + " in "
+					+ (System.currentTimeMillis() - start) + " ms");
+			return EXIT_OK;
+		} catch(IOException e) {
+			err.println("Merge failed: " + e.getMessage());
+			return EXIT_FAILED;
+		}
+	}
+}
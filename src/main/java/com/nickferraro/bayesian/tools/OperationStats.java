@@ -0,0 +1,123 @@
+package com.nickferraro.bayesian.tools;
+
+import java.io.PrintStream;
+
+/**
+ * The results of one kind of operation in a load run: how many ran, how many were still owed when the run ended, their latencies and
+ * the time the threads running them spent blocked or waiting on locks.
+ * @author Nick Ferraro
+ */
+public class OperationStats {
+	private final String name;
+	private final int threads;
+	private final long operations;
+	private final long backlog;
+	private final LatencyHistogram latencies;
+	private final long lockWaitMillis;
+	private final long durationNanos;
+	
+	/**
+	 * Create operation stats.
+	 * @param name The name of the operation, used as the prefix of report lines.
+	 * @param threads The number of threads that ran the operation.
+	 * @param operations The number of operations that ran.
+	 * @param backlog The number of operations scheduled before the run ended that never started.
+	 * @param latencies The latencies of the operations in nanoseconds.
+	 * @param lockWaitMillis The milliseconds the threads spent blocked or waiting, outside of pacing. -1 if unknown.
+	 * @param durationNanos The length of the run in nanoseconds.
+	 */
+	OperationStats(String name, int threads, long operations, long backlog, LatencyHistogram latencies, long lockWaitMillis, long durationNanos) {
+		this.name = name;
+		this.threads = threads;
+		this.operations = operations;
+		this.backlog = backlog;
+		this.latencies = latencies;
+		this.lockWaitMillis = lockWaitMillis;
+		this.durationNanos = durationNanos;
+	}
+	
+	/**
+	 * Get the name of the operation.
+	 * @return The operation name.
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Get the number of threads that ran the operation.
+	 * @return The thread count.
+	 */
+	public int getThreads() {
+		return threads;
+	}
+	
+	/**
+	 * Get the number of operations that ran.
+	 * @return The operation count.
+	 */
+	public long getOperations() {
+		return operations;
+	}
+	
+	/**
+	 * Get the number of operations scheduled before the run ended that never started. A growing backlog means the system could not
+	 * keep up with the requested rate.
+	 * @return The backlog. Always 0 for unthrottled runs.
+	 */
+	public long getBacklog() {
+		return backlog;
+	}
+	
+	/**
+	 * Get the operations per second.
+	 * @return The throughput.
+	 */
+	public double getThroughput() {
+		return ( durationNanos <= 0 ? 0.0d : operations * 1e9d / durationNanos );
+	}
+	
+	/**
+	 * Get the latencies of the operations in nanoseconds. Throttled runs measure from the time each operation was scheduled to start,
+	 * so time spent queued behind a slow operation is counted.
+	 * @return The latency histogram.
+	 */
+	public LatencyHistogram getLatencies() {
+		return latencies;
+	}
+	
+	/**
+	 * Get the milliseconds the threads spent blocked on monitors or waiting on locks, not counting the time spent pacing.
+	 * @return The lock wait. -1 if the JVM does not support thread contention monitoring.
+	 */
+	public long getLockWaitMillis() {
+		return lockWaitMillis;
+	}
+	
+	/**
+	 * Print the stats as "name value" lines, with latencies in microseconds.
+	 * @param out The stream to print to.
+	 */
+	public void print(PrintStream out) {
+		out.println(name + "_threads " + threads);
+		out.println(name + "_operations " + operations);
+		out.println(name + "_backlog " + backlog);
+		out.println(name + "_per_second " + Math.round(getThroughput()));
+		out.println(name + "_latency_mean_micros " + Math.round(latencies.getMean() / 1000.0d));
+		out.println(name + "_latency_p50_micros " + _micros(latencies.getValueAtPercentile(50.0d)));
+		out.println(name + "_latency_p90_micros " + _micros(latencies.getValueAtPercentile(90.0d)));
+		out.println(name + "_latency_p99_micros " + _micros(latencies.getValueAtPercentile(99.0d)));
+		out.println(name + "_latency_p999_micros " + _micros(latencies.getValueAtPercentile(99.9d)));
+		out.println(name + "_latency_max_micros " + _micros(latencies.getMax()));
+		out.println(name + "_lock_wait_ms " + ( lockWaitMillis < 0 ? "n/a" : String.valueOf(lockWaitMillis) ));
+	}
+	
+	/**
+	 * Convert nanoseconds to microseconds, rounding up so sub-microsecond latencies do not read as 0.
+	 * @param nanos The nanoseconds.
+	 * @return The microseconds.
+	 */
+	private static long _micros(long nanos) {
+		return (nanos + 999) / 1000;
+	}
+}
@@ -0,0 +1,55 @@
+package com.nickferraro.bayesian.tools;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples ranks from a Zipf distribution, where rank k is drawn with a probability proportional to 1 / (k + 1)^exponent.
+ * The cumulative distribution is computed once, so each sample is a binary search. An exponent of 0 samples uniformly.
+ * This class is thread-safe, each thread passes its own random source.
+ * @author Nick Ferraro
+ */
+class ZipfSampler {
+	private final double[] cumulative;
+	
+	/**
+	 * Create a sampler.
+	 * @param size The number of ranks. Must be at least 1.
+	 * @param exponent The skew of the distribution. Must be at least 0.
+	 * @throws InvalidParameterException Thrown when size is less than 1 or exponent is negative.
+	 */
+	ZipfSampler(int size, double exponent) throws InvalidParameterException {
+		if( size < 1 || exponent < 0 || Double.isNaN(exponent) ) {
+			throw new InvalidParameterException("A Zipf sampler needs at least 1 rank and an exponent of at least 0");
+		}
+		
+		cumulative = new double[size];
+		double total = 0.0d;
+		for(int rank = 0; rank < size; ++rank) {
+			total += 1.0d / Math.pow(rank + 1, exponent);
+			cumulative[rank] = total;
+		}
+		for(int rank = 0; rank < size; ++rank) {
+			cumulative[rank] /= total;
+		}
+	}
+	
+	/**
+	 * Get the number of ranks.
+	 * @return The rank count.
+	 */
+	int size() {
+		return cumulative.length;
+	}
+	
+	/**
+	 * Draw a rank.
+	 * @param random The random source.
+	 * @return A rank from 0 to size - 1, lower ranks are drawn more often.
+	 */
+	int sample(Random random) {
+		int position = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min(cumulative.length - 1, ( position < 0 ? -position - 1 : position ));
+	}
+}
@@ -0,0 +1,63 @@
+package com.nickferraro.bayesian.core.scoring;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class VectorScoringKernelTest {
+	private final VectorScoringKernel vector = new VectorScoringKernel();
+	private final ScalarScoringKernel scalar = new ScalarScoringKernel();
+	
+	@Test
+	public void testFastest_IsVector() {
+		assertThat(ScoringKernels.fastest(), is(instanceOf(VectorScoringKernel.class)));
+	}
+	
+	@Test
+	public void testMatchesScalar() {
+		Random random = new Random(29);
+		for(int length = 0; length <= 67; ++length) {
+			double[] scores = createValues(random, length + 3);
+			double[] column = createValues(random, length + 3);
+			
+			double[] expected = scores.clone();
+			double[] actual = scores.clone();
+			scalar.multiply(expected, column, length);
+			vector.multiply(actual, column, length);
+			assertThat("multiply " + length, Arrays.equals(actual, expected), is(true));
+			
+			scalar.add(expected, column, length);
+			vector.add(actual, column, length);
+			assertThat("add " + length, Arrays.equals(actual, expected), is(true));
+			
+			assertThat("max " + length, vector.max(actual, length), is(scalar.max(expected, length)));
+		}
+	}
+	
+	@Test
+	public void testMax_SkipsNaN() {
+		double[] values = new double[35];
+		Arrays.fill(values, Double.NaN);
+		assertThat(vector.max(values, values.length), is(Double.NEGATIVE_INFINITY));
+		
+		values[17] = -2;
+		values[33] = -5;
+		assertThat(vector.max(values, values.length), is(scalar.max(values, values.length)));
+	}
+	
+	// Log-likelihood like values with a few infinities and NaN values mixed in
+	private static double[] createValues(Random random, int length) {
+		double[] values = new double[length];
+		for(int i = 0; i < length; ++i) {
+			int kind = random.nextInt(20);
+			values[i] = ( kind == 0 ? Double.NEGATIVE_INFINITY : kind == 1 ? Double.NaN : (random.nextDouble() - 0.9) * 40 );
+		}
+		
+		return values;
+	}
+}
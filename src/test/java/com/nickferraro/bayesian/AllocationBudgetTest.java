@@ -0,0 +1,159 @@
+package com.nickferraro.bayesian;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.core.ClassificationResult;
+import com.nickferraro.bayesian.core.SentenceInput;
+import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.compressed.CompressedBayesianModel;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+import com.nickferraro.bayesian.model.offheap.OffHeapBayesianModel;
+
+@Category(AllocationTests.class)
+public class AllocationBudgetTest {
+	private static final int WARM_UP = 5000;
+	private static final int ITERATIONS = 1000;
+	
+	// Bytes allocated per call, checked against the total of a round of calls. Classifying into a reused result and count lookups allocate nothing. Training allocates the
+	// iterator over the row's words, so one more object per row or per word goes over the budget.
+	private static final long CLASSIFY_BUDGET = 0;
+	private static final long TRAIN_BUDGET = 64;
+	private static final long COUNT_BUDGET = 0;
+	
+	private AllocationMeter meter;
+	
+	@Before
+	public void setUp() {
+		meter = AllocationMeter.create();
+		assumeTrue(meter != null);
+	}
+	
+	@Test
+	public void testClassifyRow() {
+		for(ModelMode mode : ModelMode.values()) {
+			for(IBayesianModel<String> bayesianModel : createModels(mode)) {
+				final BayesianSystem<String> system = new BayesianSystem<String>(bayesianModel);
+				final ISentenceInput sentenceInput = new SentenceInput("free money at noon money unknown");
+				final ClassificationResult<String> result = new ClassificationResult<String>();
+				
+				long bytes = meter.bytesPerRound(new Runnable() {
+					@Override
+					public void run() {
+						system.classifyRow(sentenceInput, result);
+					}
+				}, WARM_UP, ITERATIONS);
+				assertBudget("classify", mode, bayesianModel, bytes, CLASSIFY_BUDGET);
+			}
+		}
+	}
+	
+	@Test
+	public void testTrainOnRow() {
+		for(ModelMode mode : ModelMode.values()) {
+			List<IBayesianModel<String>> models = new ArrayList<IBayesianModel<String>>();
+			models.add(train(new BayesianModel<String>(mode)));
+			models.add(train(new OffHeapBayesianModel<String>(mode)));
+			for(IBayesianModel<String> bayesianModel : models) {
+				final BayesianSystem<String> system = new BayesianSystem<String>(bayesianModel);
+				final IDataRow<String> dataRow = new Row("spam", "free money now");
+				
+				long bytes = meter.bytesPerRound(new Runnable() {
+					@Override
+					public void run() {
+						system.trainOnRow(dataRow);
+					}
+				}, WARM_UP, ITERATIONS);
+				assertBudget("train", mode, bayesianModel, bytes, TRAIN_BUDGET);
+			}
+		}
+	}
+	
+	@Test
+	public void testCountLookups() {
+		for(ModelMode mode : ModelMode.values()) {
+			for(final IBayesianModel<String> bayesianModel : createModels(mode)) {
+				long bytes = meter.bytesPerRound(new Runnable() {
+					@Override
+					public void run() {
+						bayesianModel.countRowsWithWord("money");
+						bayesianModel.countRowsWithWord("unknown");
+						bayesianModel.countRowsWithCategoryWithWord("spam", "money");
+						bayesianModel.countRowsWithCategoryWithWord("ham", "unknown");
+						bayesianModel.countRowsWithCategory("ham");
+						bayesianModel.countTokensWithCategory("spam");
+						bayesianModel.getTotalRows();
+					}
+				}, WARM_UP, ITERATIONS);
+				assertBudget("count lookups", mode, bayesianModel, bytes, COUNT_BUDGET);
+			}
+		}
+	}
+	
+	private static void assertBudget(String operation, ModelMode mode, IBayesianModel<String> bayesianModel, long bytes, long budget) {
+		assertTrue(operation + " on a " + mode + " " + bayesianModel.getClass().getSimpleName() + " allocated " + bytes + " bytes in "
+				+ ITERATIONS + " calls, the budget is " + budget + " bytes per call", bytes <= budget * ITERATIONS);
+	}
+	
+	private static List<IBayesianModel<String>> createModels(ModelMode mode) {
+		List<IBayesianModel<String>> models = new ArrayList<IBayesianModel<String>>();
+		BayesianModel<String> hashed = train(new BayesianModel<String>(mode));
+		models.add(hashed);
+		models.add(train(new OffHeapBayesianModel<String>(mode)));
+		models.add(CompressedBayesianModel.copyOf(hashed));
+		return models;
+	}
+	
+	private static <M extends IBayesianModel<String>> M train(M bayesianModel) {
+		bayesianModel.addDataRow(new Row("spam", "free money now"));
+		bayesianModel.addDataRow(new Row("ham", "meeting at noon"));
+		bayesianModel.addDataRow(new Row("spam", "win free prizes"));
+		bayesianModel.addDataRow(new Row("ham", "lunch money"));
+		return bayesianModel;
+	}
+	
+	private static final class Row implements IDataRow<String> {
+		private final String category;
+		private final SentenceInput sentenceInput;
+		
+		private Row(String category, String sentence) {
+			this.category = category;
+			this.sentenceInput = new SentenceInput(sentence);
+		}
+		
+		@Override
+		public long getId() {
+			return 0;
+		}
+		
+		@Override
+		public String getCategory() {
+			return category;
+		}
+		
+		@Override
+		public String getSentence() {
+			return sentenceInput.getSentence();
+		}
+		
+		@Override
+		public List<String> getSentenceWords() {
+			return sentenceInput.getSentenceWords();
+		}
+		
+		@Override
+		public Set<String> getUniqueSentenceWords() {
+			return sentenceInput.getUniqueSentenceWords();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.nickferraro.bayesian;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Measures the heap bytes the current thread allocates running an operation, using the HotSpot thread allocation counter.
+ * @author Nick Ferraro
+ */
+public final class AllocationMeter {
+	private static final int ROUNDS = 5;
+	
+	private static final Runnable NOTHING = new Runnable() {
+		@Override
+		public void run() {}
+	};
+	
+	private final com.sun.management.ThreadMXBean allocationBean;
+	
+	private AllocationMeter(com.sun.management.ThreadMXBean allocationBean) {
+		this.allocationBean = allocationBean;
+	}
+	
+	/**
+	 * Get a meter for the running JVM.
+	 * @return The meter, or NULL if the JVM does not count allocated bytes per thread or runs a Java agent, such as a coverage agent,
+	 * whose instrumentation would be counted too.
+	 */
+	public static AllocationMeter create() {
+		List<String> jvmArguments = ManagementFactory.getRuntimeMXBean().getInputArguments();
+		for(String jvmArgument : jvmArguments) {
+			if( jvmArgument.startsWith("-javaagent:") ) {
+				return null;
+			}
+		}
+		
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if( !(threadBean instanceof com.sun.management.ThreadMXBean) ) {
+			return null;
+		}
+		
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadBean;
+		if( !allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled() ) {
+			return null;
+		}
+		
+		return new AllocationMeter(allocationBean);
+	}
+	
+	/**
+	 * Run an operation until the JIT has compiled it, then measure the bytes a round of calls allocates. The least of several rounds is
+	 * kept, so one-off events such as a class load do not count, and the bytes an empty round allocates are subtracted so the
+	 * measurement itself does not count. The total is not divided per call, so an allocation every few calls is not rounded away.
+	 * @param operation The operation to measure.
+	 * @param warmUp The calls made before measuring.
+	 * @param iterations The calls made per round.
+	 * @return The bytes allocated by a round of iterations calls.
+	 */
+	public long bytesPerRound(Runnable operation, int warmUp, int iterations) {
+		for(int i = 0; i < warmUp; ++i) {
+			operation.run();
+			NOTHING.run();
+		}
+		
+		return Math.max(0, _leastRound(operation, iterations) - _leastRound(NOTHING, iterations));
+	}
+	
+	/**
+	 * Measure the least bytes allocated by a round of calls.
+	 * @param operation The operation to measure.
+	 * @param iterations The calls made per round.
+	 * @return The least bytes allocated by a round.
+	 */
+	private long _leastRound(Runnable operation, int iterations) {
+		long threadId = Thread.currentThread().getId();
+		long least = Long.MAX_VALUE;
+		for(int round = 0; round < ROUNDS; ++round) {
+			long before = allocationBean.getThreadAllocatedBytes(threadId);
+			for(int i = 0; i < iterations; ++i) {
+				operation.run();
+			}
+			least = Math.min(least, allocationBean.getThreadAllocatedBytes(threadId) - before);
+		}
+		
+		return least;
+	}
+}
@@ -0,0 +1,8 @@
+package com.nickferraro.bayesian;
+
+/**
+ * JUnit category of tests that check bytes allocated per operation against a budget. The build runs them on their own, without the
+ * coverage agent.
+ * @author Nick Ferraro
+ */
+public interface AllocationTests {}
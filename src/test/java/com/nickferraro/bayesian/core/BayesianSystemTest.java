@@ -3,28 +3,55 @@ package com.nickferraro.bayesian.core;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.Field;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
 import java.security.InvalidParameterException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import com.nickferraro.bayesian.IBayesianListener;
 import com.nickferraro.bayesian.IClassification;
 import com.nickferraro.bayesian.IDataRow;
 import com.nickferraro.bayesian.ISentenceInput;
+import com.nickferraro.bayesian.core.filter.IWordFilter;
+import com.nickferraro.bayesian.core.filter.LowerCaseFilter;
+import com.nickferraro.bayesian.core.filter.StopWordFilter;
+import com.nickferraro.bayesian.core.filter.WordFilterPipeline;
+import com.nickferraro.bayesian.core.scoring.IScoringKernel;
 import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
 
 public class BayesianSystemTest {
 	private BayesianSystem<String> system;
@@ -106,11 +133,98 @@ public class BayesianSystemTest {
 		assertEquals(field.get(system), mockModel2);
 	}
 	
+	@Test
+	public void testSwapBayesianModel() {
+		@SuppressWarnings("unchecked")
+		IBayesianModel<String> mockModel2 = (IBayesianModel<String>)mock(IBayesianModel.class);
+		ModelEpoch<String> firstEpoch = system.getModelEpoch();
+		
+		ModelEpoch<String> replacedEpoch = system.swapBayesianModel(mockModel2, null);
+		
+		assertThat(replacedEpoch, is(firstEpoch));
+		assertThat(replacedEpoch.getBayesianModel(), is(mockModel));
+		assertTrue(replacedEpoch.isRetired());
+		assertThat(system.getBayesianModel(), is(mockModel2));
+		assertThat(system.getModelEpoch().getVersion(), is(firstEpoch.getVersion() + 1));
+		verifyZeroInteractions(mockModel2);
+	}
+	
+	@Test
+	public void testSwapBayesianModel_WarmUp() {
+		@SuppressWarnings("unchecked")
+		IBayesianModel<String> mockModel2 = (IBayesianModel<String>)mock(IBayesianModel.class);
+		when(mockModel2.getUniqueCategories()).thenReturn(createCategorySet());
+		when(mockModel2.getUniqueWords()).thenReturn(createWordSet());
+		when(mockModel2.getTotalRows()).thenReturn(6);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(Collections.singleton("one"));
+		
+		system.swapBayesianModel(mockModel2, Arrays.asList(mockSentenceInput));
+		
+		verify(mockModel2).countRowsWithWord("two");
+		verify(mockModel2, Mockito.atLeastOnce()).countRowsWithCategory("a");
+		verify(mockModel2).countRowsWithCategoryWithWord("a", "one");
+		assertThat(system.getBayesianModel(), is(mockModel2));
+	}
+	
+	@Test
+	public void testSwapBayesianModel_DoesNotBlockReaders() throws Exception {
+		final CountDownLatch classifying = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		when(mockModel.getUniqueCategories()).thenAnswer(new Answer<Set<String>>() {
+			@Override
+			public Set<String> answer(InvocationOnMock invocation) throws InterruptedException {
+				classifying.countDown();
+				release.await();
+				return createCategorySet();
+			}
+		});
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(createWordSet());
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				system.classifyRow(mockSentenceInput);
+			}
+		});
+		reader.start();
+		assertTrue(classifying.await(5, TimeUnit.SECONDS));
+		
+		// The swap completes while the reader is still using the old model
+		@SuppressWarnings("unchecked")
+		IBayesianModel<String> mockModel2 = (IBayesianModel<String>)mock(IBayesianModel.class);
+		ModelEpoch<String> replacedEpoch = system.swapBayesianModel(mockModel2, null);
+		assertThat(system.getBayesianModel(), is(mockModel2));
+		assertThat(replacedEpoch.getActiveReaders(), is(1));
+		assertFalse(replacedEpoch.isRetired());
+		
+		release.countDown();
+		assertTrue(replacedEpoch.awaitRetirement(5, TimeUnit.SECONDS));
+		reader.join();
+	}
+	
 	@Test(expected = InvalidParameterException.class)
 	public void testSetBayesianModel_Null() {
 		system.setBayesianModel(null);
 	}
 	
+	@Test(expected = InvalidParameterException.class)
+	public void testSetScoringKernel_Null() {
+		system.setScoringKernel(null);
+	}
+	
+	@Test
+	public void testClassifyRow_CustomScoringKernel() {
+		IScoringKernel mockKernel = mock(IScoringKernel.class);
+		system.setScoringKernel(mockKernel);
+		when(mockModel.getUniqueCategories()).thenReturn(createCategorySet());
+		when(mockModel.getTotalRows()).thenReturn(6);
+		when(mockModel.countRowsWithCategory(Mockito.anyString())).thenReturn(2);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(createWordSet());
+		
+		system.classifyRow(mockSentenceInput);
+		
+		verify(mockKernel, Mockito.times(3)).multiply(Mockito.any(double[].class), Mockito.any(double[].class), Mockito.eq(3));
+	}
+	
 	@Test
 	public void testIsWordAllowed() {
 		assertThat(system.isWordAllowed("anyword"), is(true));
@@ -118,6 +232,98 @@ public class BayesianSystemTest {
 		assertThat(system.isWordAllowed(null), is(true));
 	}
 	
+	@Test
+	public void testSetWordFilter() {
+		IWordFilter filter = new LowerCaseFilter();
+		assertThat(system.getWordFilter(), is((IWordFilter)null));
+		
+		system.setWordFilter(filter);
+		assertThat(system.getWordFilter(), is(filter));
+		
+		system.setWordFilter(null);
+		assertThat(system.getWordFilter(), is((IWordFilter)null));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testTrainOnRow_WordFilter() {
+		system.setWordFilter(new WordFilterPipeline(new LowerCaseFilter(), new StopWordFilter(Arrays.asList("the"))));
+		IDataRow<String> mockDataRow = mock(IDataRow.class);
+		when(mockDataRow.getCategory()).thenReturn("a");
+		when(mockDataRow.getSentenceWords()).thenReturn(Arrays.asList("The", "Money", "money"));
+		when(mockDataRow.getUniqueSentenceWords()).thenReturn(new HashSet<String>(Arrays.asList("The", "Money", "money")));
+		
+		system.trainOnRow(mockDataRow);
+		
+		ArgumentCaptor<IDataRow<String>> captor = (ArgumentCaptor<IDataRow<String>>)(Object)ArgumentCaptor.forClass(IDataRow.class);
+		verify(mockModel).addDataRow(captor.capture());
+		assertThat(captor.getValue().getCategory(), is("a"));
+		assertThat(captor.getValue().getSentenceWords(), is(Arrays.asList("money", "money")));
+		assertThat(captor.getValue().getUniqueSentenceWords(), is(Collections.singleton("money")));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testTrainOnRows_WordFilter() {
+		system.setWordFilter(new StopWordFilter(Arrays.asList("the")));
+		IDataRow<String> mockDataRow = mock(IDataRow.class);
+		when(mockDataRow.getUniqueSentenceWords()).thenReturn(new HashSet<String>(Arrays.asList("the", "money")));
+		
+		system.trainOnRows(Arrays.asList(mockDataRow, null));
+		
+		ArgumentCaptor<List<IDataRow<String>>> captor = (ArgumentCaptor<List<IDataRow<String>>>)(Object)ArgumentCaptor.forClass(List.class);
+		verify(mockModel).addDataRows(captor.capture());
+		assertThat(captor.getValue().size(), is(2));
+		assertThat(captor.getValue().get(0).getUniqueSentenceWords(), is(Collections.singleton("money")));
+		assertThat(captor.getValue().get(1), is((IDataRow<String>)null));
+	}
+	
+	@Test
+	public void testClassifyRow_WordFilter() {
+		Set<String> categorySet = createCategorySet();
+		when(mockModel.getUniqueCategories()).thenReturn(categorySet);
+		when(mockModel.getTotalRows()).thenReturn(6);
+		when(mockModel.countRowsWithCategory("a")).thenReturn(1);
+		when(mockModel.countRowsWithCategory("b")).thenReturn(2);
+		when(mockModel.countRowsWithCategory("c")).thenReturn(3);
+		when(mockModel.countRowsWithCategoryWithWord("a", "one")).thenReturn(1);
+		when(mockModel.countRowsWithCategoryWithWord("b", "one")).thenReturn(2);
+		when(mockModel.countRowsWithCategoryWithWord("c", "one")).thenReturn(1);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(new HashSet<String>(Arrays.asList("ONE", "The")));
+		system.setWordFilter(new WordFilterPipeline(new LowerCaseFilter(), new StopWordFilter(Arrays.asList("the"))));
+		
+		List<IClassification<String>> classifications = system.classifyRow(mockSentenceInput);
+		
+		verify(mockModel, never()).countRowsWithCategoryWithWord(anyString(), Mockito.eq("the"));
+		verify(mockModel, never()).countRowsWithCategoryWithWord(anyString(), Mockito.eq("ONE"));
+		assertClassificationProbability("a", 1.0 / 4.0, classifications);
+		assertClassificationProbability("b", 2.0 / 4.0, classifications);
+		assertClassificationProbability("c", 1.0 / 4.0, classifications);
+	}
+	
+	@Test
+	public void testClassifyRow_WordFilterOncePerWord() {
+		Set<String> categorySet = createCategorySet();
+		when(mockModel.getUniqueCategories()).thenReturn(categorySet);
+		when(mockModel.getTotalRows()).thenReturn(6);
+		when(mockModel.countRowsWithCategory(anyString())).thenReturn(2);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(createWordSet());
+		IWordFilter mockFilter = mock(IWordFilter.class);
+		when(mockFilter.filter(anyString())).thenAnswer(new Answer<String>() {
+			@Override
+			public String answer(InvocationOnMock invocation) throws Throwable {
+				return (String)invocation.getArguments()[0];
+			}
+		});
+		system.setWordFilter(mockFilter);
+		
+		system.classifyRow(mockSentenceInput);
+		
+		verify(mockFilter).filter("one");
+		verify(mockFilter).filter("two");
+		verify(mockFilter).filter("tre");
+	}
+	
 	@Test
 	public void testClassifyRow() {
 		Set<String> categorySet = createCategorySet();
@@ -147,6 +353,279 @@ public class BayesianSystemTest {
 		assertClassificationProbability("c", 12.0 / 19.0, classifications);
 	}
 	
+	@Test
+	public void testClassifyRow_Result() {
+		when(mockModel.getUniqueCategories()).thenReturn(createCategorySet());
+		when(mockModel.getTotalRows()).thenReturn(6);
+		when(mockModel.countRowsWithCategory("a")).thenReturn(1);
+		when(mockModel.countRowsWithCategory("b")).thenReturn(2);
+		when(mockModel.countRowsWithCategory("c")).thenReturn(3);
+		when(mockModel.countRowsWithCategoryWithWord("b", "one")).thenReturn(2);
+		when(mockModel.countRowsWithCategoryWithWord("c", "tre")).thenReturn(3);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(createWordSet());
+		ClassificationResult<String> result = new ClassificationResult<String>();
+		
+		assertThat(system.classifyRow(mockSentenceInput, result), is(result));
+		
+		List<IClassification<String>> classifications = system.classifyRow(mockSentenceInput);
+		assertThat(result.getCategoryCount(), is(classifications.size()));
+		for(int rank = 0; rank < classifications.size(); ++rank) {
+			assertThat(result.getRankedCategory(rank), is(classifications.get(rank).getCategory()));
+			assertThat(result.getRankedProbability(rank), is(classifications.get(rank).getProbability()));
+		}
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testClassifyRow_NullResult() {
+		system.classifyRow(mockSentenceInput, (ClassificationResult<String>)null);
+	}
+	
+	@Test
+	public void testListener_Classify() throws IOException {
+		for(ModelMode mode : ModelMode.values()) {
+			BayesianSystem<String> realSystem = new BayesianSystem<String>(createTrainedModel(mode));
+			IBayesianListener listener = mock(IBayesianListener.class);
+			realSystem.setListener(listener);
+			assertThat(realSystem.getListener(), is(listener));
+			
+			// The unknown word is ruled out by the vocabulary filter
+			realSystem.classifyRow(new SentenceInput("free money money unknownword"), new ClassificationResult<String>());
+			verify(listener).classified(eq(3), eq(2), eq(1), anyLong());
+			
+			realSystem.classifyStream(new StringReader("lunch money"), new ClassificationResult<String>());
+			verify(listener).classified(eq(2), eq(2), eq(0), anyLong());
+			
+			realSystem.setListener(null);
+			realSystem.classifyRow(new SentenceInput("free money"), new ClassificationResult<String>());
+			verify(listener, Mockito.times(2)).classified(anyInt(), anyInt(), anyInt(), anyLong());
+		}
+	}
+	
+	@Test
+	public void testListener_ClassifyTopK() {
+		BayesianSystem<String> realSystem = new BayesianSystem<String>(createTrainedModel(ModelMode.BERNOULLI));
+		IBayesianListener listener = mock(IBayesianListener.class);
+		realSystem.setListener(listener);
+		
+		assertThat(realSystem.classifyRowTopK(new SentenceInput("free money"), 1).size(), is(1));
+		verify(listener).pruned(eq(2), anyInt(), anyLong());
+	}
+	
+	@Test
+	public void testClassifyStream() throws IOException {
+		StringBuilder document = new StringBuilder();
+		for(int i = 0; i < 2000; ++i) {
+			document.append(( i % 5 == 0 ? "free money " : "meeting " )).append("unknown").append(i % 50).append(". ");
+		}
+		
+		for(ModelMode mode : ModelMode.values()) {
+			BayesianSystem<String> realSystem = new BayesianSystem<String>(createTrainedModel(mode));
+			ClassificationResult<String> expected = realSystem.classifyRow(new SentenceInput(document.toString()), new ClassificationResult<String>());
+			ClassificationResult<String> result = new ClassificationResult<String>();
+			
+			assertThat(realSystem.classifyStream(new StringReader(document.toString()), result), is(result));
+			
+			assertThat(result.getCategoryCount(), is(2));
+			for(int i = 0; i < 2; ++i) {
+				assertEquals(mode.toString(), expected.getProbability(i), result.getProbability(i), 1e-9);
+			}
+		}
+	}
+	
+	@Test
+	public void testClassifyStream_Channel() throws IOException {
+		BayesianSystem<String> realSystem = new BayesianSystem<String>(createTrainedModel(ModelMode.BERNOULLI));
+		byte[] document = "Lunch meeting at noon".getBytes("UTF-8");
+		ClassificationResult<String> result = new ClassificationResult<String>();
+		
+		realSystem.classifyStream(Channels.newChannel(new ByteArrayInputStream(document)), Charset.forName("UTF-8"), result);
+		
+		assertThat(result.getRankedCategory(0), is("ham"));
+		assertEquals(realSystem.classifyRow(new SentenceInput("Lunch meeting at noon")).get(0).getProbability(), result.getRankedProbability(0), 1e-9);
+	}
+	
+	@Test
+	public void testClassifyStream_OnlyUnknownWords() throws IOException {
+		BayesianSystem<String> realSystem = new BayesianSystem<String>(createTrainedModel(ModelMode.BERNOULLI));
+		ClassificationResult<String> result = new ClassificationResult<String>();
+		
+		realSystem.classifyStream(new StringReader("nothing known here"), result);
+		
+		// Falls back to the category priors
+		assertThat(result.probabilityOf("spam"), is(0.5));
+		assertThat(result.probabilityOf("ham"), is(0.5));
+	}
+	
+	@Test
+	public void testClassifyRow_UnknownWordSkipsLookups() {
+		for(ModelMode mode : ModelMode.values()) {
+			final BayesianModel<String> trainedModel = createTrainedModel(mode);
+			BayesianModel<String> spyModel = Mockito.spy(trainedModel);
+			
+			// A model that cannot rule out words looks every word up per category
+			@SuppressWarnings("unchecked")
+			IBayesianModel<String> plainModel = mock(IBayesianModel.class, new Answer<Object>() {
+				@Override
+				public Object answer(InvocationOnMock invocation) throws Throwable {
+					return invocation.getMethod().invoke(trainedModel, invocation.getArguments());
+				}
+			});
+			ISentenceInput sentenceInput = new SentenceInput("free money xyzzy plugh xyzzy");
+			ClassificationResult<String> expected = new BayesianSystem<String>(plainModel).classifyRow(sentenceInput, new ClassificationResult<String>());
+			ClassificationResult<String> result = new BayesianSystem<String>(spyModel).classifyRow(sentenceInput, new ClassificationResult<String>());
+			
+			verify(spyModel, never()).countRowsWithCategoryWithWord(anyString(), eq("xyzzy"));
+			verify(spyModel, never()).countRowsWithCategoryWithWord(anyString(), eq("plugh"));
+			verify(plainModel, Mockito.atLeastOnce()).countRowsWithCategoryWithWord(anyString(), eq("xyzzy"));
+			for(int i = 0; i < result.getCategoryCount(); ++i) {
+				assertThat(mode.toString(), result.getProbability(i), is(expected.getProbability(i)));
+			}
+		}
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testClassifyStream_NullReader() throws IOException {
+		system.classifyStream((Reader)null, new ClassificationResult<String>());
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testClassifyStream_NullResult() throws IOException {
+		system.classifyStream(new StringReader("one"), null);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testClassifyStream_NullCharset() throws IOException {
+		system.classifyStream(Channels.newChannel(new ByteArrayInputStream(new byte[0])), null, new ClassificationResult<String>());
+	}
+	
+	@Test
+	public void testClassifyRow_MaxResults() {
+		Set<String> categorySet = createCategorySet();
+		Set<String> wordSet = createWordSet();
+		when(mockModel.getUniqueCategories()).thenReturn(categorySet);
+		when(mockModel.getTotalRows()).thenReturn(6);
+		when(mockModel.countRowsWithCategory("a")).thenReturn(1);
+		when(mockModel.countRowsWithCategory("b")).thenReturn(2);
+		when(mockModel.countRowsWithCategory("c")).thenReturn(3);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(wordSet);
+		
+		List<IClassification<String>> classifications = system.classifyRow(mockSentenceInput, 2);
+		
+		assertThat(classifications.size(), is(2));
+		assertThat(classifications.get(0).getCategory(), is("c"));
+		assertThat(classifications.get(1).getCategory(), is("b"));
+	}
+	
+	@Test
+	public void testClassifyRows() {
+		Set<String> categorySet = createCategorySet();
+		when(mockModel.getUniqueCategories()).thenReturn(categorySet);
+		when(mockModel.getTotalRows()).thenReturn(6);
+		when(mockModel.countRowsWithCategory("a")).thenReturn(1);
+		when(mockModel.countRowsWithCategory("b")).thenReturn(2);
+		when(mockModel.countRowsWithCategory("c")).thenReturn(3);
+		when(mockModel.countRowsWithCategoryWithWord("a", "one")).thenReturn(1);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(createWordSet());
+		ISentenceInput otherSentenceInput = mock(ISentenceInput.class);
+		when(otherSentenceInput.getUniqueSentenceWords()).thenReturn(Collections.singleton("one"));
+		
+		List<List<IClassification<String>>> results = system.classifyRows(Arrays.asList(mockSentenceInput, otherSentenceInput), 1);
+		
+		assertThat(results.size(), is(2));
+		assertThat(results.get(0).size(), is(1));
+		assertThat(results.get(1).size(), is(1));
+		assertThat(results.get(0).get(0).getCategory(), is("a"));
+		assertThat(results.get(1).get(0).getCategory(), is("a"));
+		assertEquals(system.classifyRow(otherSentenceInput).get(0).getProbability(), results.get(1).get(0).getProbability(), 0.0d);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testClassifyRows_Null() {
+		system.classifyRows(null, 1);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testClassifyRows_NullSentence() {
+		system.classifyRows(Arrays.asList(mockSentenceInput, null), 1);
+	}
+	
+	@Test
+	public void testClassifyRows_Batch() {
+		when(mockModel.getUniqueCategories()).thenReturn(createCategorySet());
+		when(mockModel.getTotalRows()).thenReturn(6);
+		when(mockModel.countRowsWithCategory("a")).thenReturn(1);
+		when(mockModel.countRowsWithCategory("b")).thenReturn(2);
+		when(mockModel.countRowsWithCategory("c")).thenReturn(3);
+		when(mockModel.countRowsWithCategoryWithWord("a", "one")).thenReturn(1);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(createWordSet());
+		ISentenceInput otherSentenceInput = mock(ISentenceInput.class);
+		when(otherSentenceInput.getUniqueSentenceWords()).thenReturn(Collections.singleton("one"));
+		ClassificationBatch<String> batch = new ClassificationBatch<String>();
+		
+		assertThat(system.classifyRows(Arrays.asList(mockSentenceInput, otherSentenceInput), batch), is(batch));
+		
+		assertThat(batch.getRowCount(), is(2));
+		assertThat(batch.getCategoryCount(), is(3));
+		for(int row = 0; row < 2; ++row) {
+			List<IClassification<String>> classifications = system.classifyRow(( row == 0 ? mockSentenceInput : otherSentenceInput ));
+			assertThat(batch.getCategories().get(batch.argmax(row)), is(classifications.get(0).getCategory()));
+			for(IClassification<String> classification : classifications) {
+				assertThat(batch.probabilityOf(row, classification.getCategory()), is(classification.getProbability()));
+			}
+		}
+		
+		// Reusing the batch replaces its rows
+		system.classifyRows(Arrays.asList(otherSentenceInput), batch);
+		assertThat(batch.getRowCount(), is(1));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testClassifyRows_NullBatch() {
+		system.classifyRows(Arrays.asList(mockSentenceInput), (ClassificationBatch<String>)null);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testClassifyRows_BatchNullSentence() {
+		system.classifyRows(Arrays.asList(mockSentenceInput, null), new ClassificationBatch<String>());
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testClassifyRowTopK_Null() {
+		system.classifyRowTopK(null, 1);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testClassifyRowTopK_InvalidK() {
+		system.classifyRowTopK(mockSentenceInput, 0);
+	}
+	
+	@Test
+	public void testClassifyRowTopK() {
+		Set<String> categorySet = createCategorySet();
+		Set<String> wordSet = createWordSet();
+		when(mockModel.getUniqueCategories()).thenReturn(categorySet);
+		when(mockModel.getTotalRows()).thenReturn(6);
+		when(mockModel.countRowsWithCategory("a")).thenReturn(1);
+		when(mockModel.countRowsWithCategory("b")).thenReturn(2);
+		when(mockModel.countRowsWithCategory("c")).thenReturn(3);
+		when(mockModel.countRowsWithWord("one")).thenReturn(4);
+		when(mockModel.countRowsWithWord("two")).thenReturn(1);
+		when(mockModel.countRowsWithWord("tre")).thenReturn(4);
+		when(mockModel.countRowsWithCategoryWithWord("a", "one")).thenReturn(1);
+		when(mockModel.countRowsWithCategoryWithWord("b", "one")).thenReturn(2);
+		when(mockModel.countRowsWithCategoryWithWord("b", "tre")).thenReturn(1);
+		when(mockModel.countRowsWithCategoryWithWord("c", "one")).thenReturn(1);
+		when(mockModel.countRowsWithCategoryWithWord("c", "two")).thenReturn(1);
+		when(mockModel.countRowsWithCategoryWithWord("c", "tre")).thenReturn(3);
+		when(mockSentenceInput.getUniqueSentenceWords()).thenReturn(wordSet);
+		
+		List<IClassification<String>> classifications = system.classifyRowTopK(mockSentenceInput, 1);
+		
+		assertThat(classifications.size(), is(1));
+		assertThat(classifications.get(0).getCategory(), is("c"));
+		assertEquals(1.0d, classifications.get(0).getProbability(), 1e-12);
+	}
+	
 	@Test(expected = InvalidParameterException.class)
 	public void testClassifyRow_Null() {
 		system.classifyRow(null);
@@ -249,6 +728,52 @@ public class BayesianSystemTest {
 		assertClassificationProbability("c", 3.0 / 6.0, classifications);
 	}
 	
+	@Test
+	public void testClassifyRow_Multinomial() {
+		Set<String> categorySet = new HashSet<String>(Arrays.asList("a", "b"));
+		when(mockModel.getMode()).thenReturn(ModelMode.MULTINOMIAL);
+		when(mockModel.getUniqueCategories()).thenReturn(categorySet);
+		when(mockModel.getUniqueWords()).thenReturn(createWordSet());
+		when(mockModel.getTotalRows()).thenReturn(4);
+		when(mockModel.countRowsWithCategory("a")).thenReturn(2);
+		when(mockModel.countRowsWithCategory("b")).thenReturn(2);
+		when(mockModel.countTokensWithCategory("a")).thenReturn(3);
+		when(mockModel.countTokensWithCategory("b")).thenReturn(5);
+		when(mockModel.countRowsWithCategoryWithWord("a", "one")).thenReturn(2);
+		when(mockModel.countRowsWithCategoryWithWord("b", "two")).thenReturn(1);
+		when(mockSentenceInput.getSentenceWords()).thenReturn(Arrays.asList("one", "two", "one"));
+		
+		List<IClassification<String>> classifications = system.classifyRow(mockSentenceInput);
+		
+		// P(a) ~ 2/4 * (3/6)^2 * (1/6) and P(b) ~ 2/4 * (1/8)^2 * (2/8)
+		double scoreA = 0.5d * 0.25d / 6.0d;
+		double scoreB = 0.5d / 64.0d / 4.0d;
+		assertThat(classifications.size(), is(2));
+		assertThat(classifications.get(0).getCategory(), is("a"));
+		assertEquals(scoreA / (scoreA + scoreB), classifications.get(0).getProbability(), 1e-12);
+		assertEquals(scoreB / (scoreA + scoreB), classifications.get(1).getProbability(), 1e-12);
+	}
+	
+	@Test
+	public void testClassifyRow_MultinomialLongInput() {
+		Set<String> categorySet = new HashSet<String>(Arrays.asList("a", "b"));
+		when(mockModel.getMode()).thenReturn(ModelMode.MULTINOMIAL);
+		when(mockModel.getUniqueCategories()).thenReturn(categorySet);
+		when(mockModel.getUniqueWords()).thenReturn(createWordSet());
+		when(mockModel.getTotalRows()).thenReturn(4);
+		when(mockModel.countRowsWithCategory(Mockito.anyString())).thenReturn(2);
+		when(mockModel.countTokensWithCategory(Mockito.anyString())).thenReturn(10);
+		when(mockModel.countRowsWithCategoryWithWord("a", "one")).thenReturn(5);
+		when(mockModel.countRowsWithCategoryWithWord("b", "one")).thenReturn(4);
+		when(mockSentenceInput.getSentenceWords()).thenReturn(Collections.nCopies(5000, "one"));
+		
+		List<IClassification<String>> classifications = system.classifyRow(mockSentenceInput);
+		
+		// A product of 5000 likelihoods underflows, log space still ranks the categories
+		assertThat(classifications.get(0).getCategory(), is("a"));
+		assertThat(classifications.get(0).getProbability(), is(1.0d));
+	}
+	
 	public static void assertClassificationProbability(String category, double probability, List<IClassification<String>> classifications) {
 		for(IClassification<String> classification : classifications ) {
 			if( classification.getCategory().equals(category) ) {
@@ -260,6 +785,27 @@ public class BayesianSystemTest {
 		fail("Could not find category in list of classifications");
 	}
 	
+	private BayesianModel<String> createTrainedModel(ModelMode mode) {
+		BayesianModel<String> model = new BayesianModel<String>(mode);
+		model.addDataRow(createDataRow("spam", "free money now"));
+		model.addDataRow(createDataRow("ham", "meeting at noon"));
+		model.addDataRow(createDataRow("spam", "win free prizes"));
+		model.addDataRow(createDataRow("ham", "lunch money"));
+		
+		return model;
+	}
+	
+	private IDataRow<String> createDataRow(String category, String sentence) {
+		SentenceInput sentenceInput = new SentenceInput(sentence);
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getSentenceWords()).thenReturn(sentenceInput.getSentenceWords());
+		when(mockRow.getUniqueSentenceWords()).thenReturn(sentenceInput.getUniqueSentenceWords());
+		
+		return mockRow;
+	}
+	
 	private Set<String> createCategorySet() {
 		HashSet<String> categorySet = new HashSet<String>();
 		categorySet.add("a");
@@ -0,0 +1,133 @@
+package com.nickferraro.bayesian.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.nickferraro.bayesian.model.CategoryIndex;
+
+public class ClassificationBatchTest {
+	private final ClassificationBatch<String> batch = new ClassificationBatch<String>();
+	private final CategoryIndex<String> categories = CategoryIndex.copyOf(Arrays.asList("a", "b", "c"));
+	
+	@Test
+	public void testEmpty() {
+		assertThat(batch.getRowCount(), is(0));
+		assertThat(batch.getCategoryCount(), is(0));
+		assertThat(batch.getCategories().size(), is(0));
+	}
+	
+	@Test
+	public void testAddRow() {
+		batch.reset(2);
+		addRow(categories, 0.2, 0.5, 0.3);
+		addRow(categories, 0.6, 0.1, 0.3);
+		
+		assertThat(batch.getRowCount(), is(2));
+		assertThat(batch.getCategoryCount(), is(3));
+		assertThat(batch.getProbability(0, 1), is(0.5));
+		assertThat(batch.getProbability(1, 0), is(0.6));
+		assertThat(batch.probabilityOf(1, "c"), is(0.3));
+		assertThat(batch.probabilityOf(1, "z"), is(0.0));
+		assertThat(batch.argmax(0), is(1));
+		assertThat(batch.argmax(1), is(0));
+		
+		double[] row = new double[3];
+		batch.copyRow(1, row);
+		assertThat(row[0], is(0.6));
+		assertThat(row[2], is(0.3));
+	}
+	
+	@Test
+	public void testAddRow_GrowsPastExpectedRows() {
+		batch.reset(1);
+		for(int i = 0; i < 10; ++i) {
+			addRow(categories, i, 0, 0);
+		}
+		
+		assertThat(batch.getRowCount(), is(10));
+		for(int i = 0; i < 10; ++i) {
+			assertThat(batch.getProbability(i, 0), is((double)i));
+		}
+	}
+	
+	@Test
+	public void testAddRow_CategoriesChanged() {
+		batch.reset(2);
+		addRow(categories, 0.2, 0.5, 0.3);
+		addRow(CategoryIndex.copyOf(Arrays.asList("c", "a", "d")), 0.1, 0.2, 0.7);
+		
+		// Columns stay those of the first row, a missing category reads 0 and a new category is dropped
+		assertThat(batch.getCategoryCount(), is(3));
+		assertThat(batch.getProbability(1, 0), is(0.2));
+		assertThat(batch.getProbability(1, 1), is(0.0));
+		assertThat(batch.getProbability(1, 2), is(0.1));
+	}
+	
+	@Test
+	public void testTopK() {
+		batch.reset(1);
+		addRow(categories, 0.3, 0.4, 0.3);
+		int[] indices = new int[3];
+		
+		assertThat(batch.topK(0, 1, indices), is(1));
+		assertThat(indices[0], is(1));
+		
+		// Equal probabilities keep index order
+		assertThat(batch.topK(0, 3, indices), is(3));
+		assertThat(indices[0], is(1));
+		assertThat(indices[1], is(0));
+		assertThat(indices[2], is(2));
+	}
+	
+	@Test
+	public void testTopK_ManyCategories() {
+		String[] names = new String[50];
+		double[] probabilities = new double[50];
+		for(int i = 0; i < names.length; ++i) {
+			names[i] = "c" + i;
+			probabilities[i] = (i * 13) % 50;
+		}
+		batch.reset(1);
+		addRow(CategoryIndex.copyOf(Arrays.asList(names)), probabilities);
+		int[] indices = new int[5];
+		
+		assertThat(batch.topK(0, 5, indices), is(5));
+		for(int rank = 0; rank < 5; ++rank) {
+			assertThat(batch.getProbability(0, indices[rank]), is(49.0 - rank));
+		}
+	}
+	
+	@Test
+	public void testClear() {
+		batch.reset(1);
+		addRow(categories, 0.2, 0.5, 0.3);
+		batch.clear();
+		
+		assertThat(batch.getRowCount(), is(0));
+		assertThat(batch.getCategoryCount(), is(0));
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testGetProbability_RowOutOfRange() {
+		batch.reset(1);
+		addRow(categories, 0.2, 0.5, 0.3);
+		batch.getProbability(1, 0);
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testGetProbability_IndexOutOfRange() {
+		batch.reset(1);
+		addRow(categories, 0.2, 0.5, 0.3);
+		batch.getProbability(0, 3);
+	}
+	
+	private void addRow(CategoryIndex<String> rowCategories, double...probabilities) {
+		double[] row = batch.rowResult().reset(rowCategories);
+		System.arraycopy(probabilities, 0, row, 0, probabilities.length);
+		batch.addRow();
+	}
+}
@@ -0,0 +1,160 @@
+package com.nickferraro.bayesian.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.model.CategoryIndex;
+
+public class ClassificationResultTest {
+	private final ClassificationResult<String> result = new ClassificationResult<String>();
+	
+	@Test
+	public void testEmpty() {
+		assertThat(result.getCategoryCount(), is(0));
+		assertThat(result.getCategories().size(), is(0));
+		assertThat(result.toList(-1).size(), is(0));
+	}
+	
+	@Test
+	public void testRanking() {
+		fill(new double[] { 0.2, 0.5, 0.1, 0.2 }, "a", "b", "c", "d");
+		
+		assertThat(result.getCategoryCount(), is(4));
+		assertThat(result.getProbability(0), is(0.2));
+		assertThat(result.getRankedIndex(0), is(1));
+		assertThat(result.getRankedCategory(0), is("b"));
+		assertThat(result.getRankedProbability(0), is(0.5));
+		
+		// Equal probabilities keep index order
+		assertThat(result.getRankedCategory(1), is("a"));
+		assertThat(result.getRankedCategory(2), is("d"));
+		assertThat(result.getRankedCategory(3), is("c"));
+	}
+	
+	@Test
+	public void testRanking_ManyCategories() {
+		String[] categories = new String[37];
+		double[] probabilities = new double[37];
+		for(int i = 0; i < categories.length; ++i) {
+			categories[i] = "c" + i;
+			probabilities[i] = (i * 7) % 37;
+		}
+		fill(probabilities, categories);
+		
+		for(int rank = 1; rank < categories.length; ++rank) {
+			assertThat(result.getRankedProbability(rank - 1) >= result.getRankedProbability(rank), is(true));
+		}
+		assertThat(result.getRankedProbability(0), is(36.0));
+	}
+	
+	@Test
+	public void testArgmax() {
+		assertThat(result.argmax(), is(-1));
+		
+		fill(new double[] { 0.2, 0.4, 0.4 }, "a", "b", "c");
+		assertThat(result.argmax(), is(1));
+		
+		// The ranked answer agrees once the result has been ranked
+		assertThat(result.getRankedIndex(0), is(1));
+		assertThat(result.argmax(), is(1));
+	}
+	
+	@Test
+	public void testProbabilityOf() {
+		fill(new double[] { 0.25, 0.75 }, "a", "b");
+		
+		assertThat(result.probabilityOf("b"), is(0.75));
+		assertThat(result.probabilityOf("z"), is(0.0));
+		assertThat(result.probabilityOf(null), is(0.0));
+	}
+	
+	@Test
+	public void testTopK_Indices() {
+		fill(new double[] { 0.1, 0.4, 0.2, 0.3 }, "a", "b", "c", "d");
+		int[] indices = new int[4];
+		
+		assertThat(result.topK(2, indices), is(2));
+		assertThat(indices[0], is(1));
+		assertThat(indices[1], is(3));
+		assertThat(result.topK(10, indices), is(4));
+		assertThat(indices[3], is(0));
+		assertThat(result.topK(0, indices), is(0));
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testTopK_IndicesTooShort() {
+		fill(new double[] { 0.5, 0.5 }, "a", "b");
+		result.topK(2, new int[1]);
+	}
+	
+	@Test
+	public void testTopK_Views() {
+		fill(new double[] { 0.1, 0.6, 0.3 }, "a", "b", "c");
+		List<IClassification<String>> top = result.topK(2);
+		
+		assertThat(top.size(), is(2));
+		assertThat(top.get(0).getCategory(), is("b"));
+		assertThat(top.get(1).getProbability(), is(0.3));
+		assertThat(result.topK(0).size(), is(3));
+		
+		// Views read the holder, so they follow it when it is reused
+		fill(new double[] { 0.9, 0.1 }, "x", "y");
+		assertThat(top.get(0).getCategory(), is("x"));
+		result.clear();
+		assertThat(top.size(), is(0));
+	}
+	
+	@Test
+	public void testToList() {
+		fill(new double[] { 0.25, 0.75 }, "a", "b");
+		
+		List<IClassification<String>> classifications = result.toList(-1);
+		assertThat(classifications.size(), is(2));
+		assertThat(classifications.get(0).getCategory(), is("b"));
+		assertThat(classifications.get(0).getProbability(), is(0.75));
+		assertThat(classifications.get(1).getCategory(), is("a"));
+		assertThat(result.toList(1).size(), is(1));
+		assertThat(result.toList(5).size(), is(2));
+	}
+	
+	@Test
+	public void testReset_ReusesArrays() {
+		fill(new double[] { 0.5, 0.5 }, "a", "b");
+		double[] probabilities = result.reset(CategoryIndex.copyOf(Arrays.asList("c")));
+		
+		assertThat(result.reset(CategoryIndex.copyOf(Arrays.asList("d", "e"))), is(sameInstance(probabilities)));
+		assertThat(result.getCategoryCount(), is(2));
+	}
+	
+	@Test
+	public void testClear() {
+		fill(new double[] { 1.0 }, "a");
+		result.clear();
+		
+		assertThat(result.getCategoryCount(), is(0));
+		assertThat(result.toList(-1).size(), is(0));
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testGetProbability_OutOfRange() {
+		fill(new double[] { 1.0 }, "a");
+		result.getProbability(1);
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testGetRankedIndex_OutOfRange() {
+		result.getRankedIndex(0);
+	}
+	
+	private void fill(double[] probabilities, String...categories) {
+		double[] values = result.reset(CategoryIndex.copyOf(Arrays.asList(categories)));
+		System.arraycopy(probabilities, 0, values, 0, probabilities.length);
+	}
+}
@@ -0,0 +1,79 @@
+package com.nickferraro.bayesian.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ClassificationScratchTest {
+	private final ClassificationScratch scratch = new ClassificationScratch();
+	
+	@Test
+	public void testAddTerm() {
+		scratch.addTerm("free");
+		scratch.addTerm("money");
+		scratch.addTerm("free");
+		
+		assertThat(scratch.termCount, is(2));
+		assertThat(scratch.terms[0], is("free"));
+		assertThat(scratch.termFrequencies[0], is(2));
+		assertThat(scratch.terms[1], is("money"));
+		assertThat(scratch.termFrequencies[1], is(1));
+	}
+	
+	@Test
+	public void testAddTerm_Grows() {
+		for(int repeat = 0; repeat < 3; ++repeat) {
+			for(int i = 0; i < 100; ++i) {
+				scratch.addTerm("word" + i);
+			}
+		}
+		
+		assertThat(scratch.termCount, is(100));
+		for(int i = 0; i < 100; ++i) {
+			assertThat(scratch.terms[i], is("word" + i));
+			assertThat(scratch.termFrequencies[i], is(3));
+		}
+	}
+	
+	@Test
+	public void testClearTerms() {
+		scratch.addTerm("free");
+		scratch.addTerm("money");
+		scratch.clearTerms();
+		
+		assertThat(scratch.termCount, is(0));
+		assertThat(scratch.terms[0], is(nullValue()));
+		
+		scratch.addTerm("money");
+		assertThat(scratch.termCount, is(1));
+		assertThat(scratch.termFrequencies[0], is(1));
+	}
+	
+	@Test
+	public void testContainsTerm() {
+		assertThat(scratch.containsTerm("free"), is(false));
+		
+		for(int i = 0; i < 40; ++i) {
+			scratch.addTerm("word" + i);
+		}
+		assertThat(scratch.containsTerm("word0"), is(true));
+		assertThat(scratch.containsTerm("word39"), is(true));
+		assertThat(scratch.containsTerm("word40"), is(false));
+		
+		scratch.clearTerms();
+		assertThat(scratch.containsTerm("word0"), is(false));
+	}
+	
+	@Test
+	public void testEnsureCategories() {
+		scratch.ensureCategories(10);
+		double[] column = scratch.column;
+		scratch.ensureCategories(5);
+		
+		assertThat(scratch.column == column, is(true));
+		assertThat(scratch.categoryRows.length >= 10, is(true));
+		assertThat(scratch.smoothingDenominators.length >= 10, is(true));
+	}
+}
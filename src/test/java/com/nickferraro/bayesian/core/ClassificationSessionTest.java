@@ -0,0 +1,221 @@
+package com.nickferraro.bayesian.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.core.filter.StopWordFilter;
+import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.ILinkVisitor;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+
+public class ClassificationSessionTest {
+	@Test
+	public void testAddWord_MatchesClassifyRow() {
+		for(ModelMode mode : ModelMode.values()) {
+			BayesianSystem<String> system = new BayesianSystem<String>(createTrainedModel(mode));
+			ClassificationSession<String> session = system.openSession();
+			List<String> typed = new ArrayList<String>();
+			
+			for(String word : Arrays.asList("free", "money", "at", "unknown", "money", "noon")) {
+				assertThat(session.addWord(word), is(true));
+				typed.add(word);
+				assertMatches(mode.toString(), system, typed, session);
+			}
+			assertThat(session.getWordCount(), is(6));
+			session.close();
+		}
+	}
+	
+	@Test
+	public void testRemoveWord_MatchesClassifyRow() {
+		for(ModelMode mode : ModelMode.values()) {
+			BayesianSystem<String> system = new BayesianSystem<String>(createTrainedModel(mode));
+			ClassificationSession<String> session = system.openSession();
+			List<String> typed = new ArrayList<String>(Arrays.asList("free", "money", "money", "lunch"));
+			for(String word : typed) {
+				session.addWord(word);
+			}
+			
+			assertThat(session.removeWord("money"), is(true));
+			typed.remove("money");
+			assertMatches(mode.toString(), system, typed, session);
+			
+			assertThat(session.removeWord("free"), is(true));
+			typed.remove("free");
+			assertMatches(mode.toString(), system, typed, session);
+			
+			assertThat(session.removeWord("free"), is(false));
+			assertThat(session.removeWord("never"), is(false));
+			assertThat(session.getWordCount(), is(2));
+			session.close();
+		}
+	}
+	
+	@Test
+	public void testRemoveWord_AllWords() {
+		BayesianSystem<String> system = new BayesianSystem<String>(createTrainedModel(ModelMode.BERNOULLI));
+		ClassificationSession<String> session = system.openSession();
+		session.addWord("free");
+		session.removeWord("free");
+		
+		// Without words the category priors are used, like classifying an empty sentence
+		List<IClassification<String>> classifications = session.current(-1);
+		assertThat(classifications.size(), is(2));
+		assertThat(classifications.get(0).getProbability(), is(0.5));
+		assertThat(classifications.get(1).getProbability(), is(0.5));
+		session.close();
+	}
+	
+	@Test
+	public void testClear() {
+		BayesianSystem<String> system = new BayesianSystem<String>(createTrainedModel(ModelMode.MULTINOMIAL));
+		ClassificationSession<String> session = system.openSession();
+		session.addWord("free");
+		session.addWord("money");
+		session.clear();
+		
+		assertThat(session.getWordCount(), is(0));
+		assertMatches("cleared", system, new ArrayList<String>(), session);
+		session.close();
+	}
+	
+	@Test
+	public void testAddWord_Filtered() {
+		BayesianSystem<String> system = new BayesianSystem<String>(createTrainedModel(ModelMode.BERNOULLI));
+		system.setWordFilter(new StopWordFilter(Arrays.asList("free")));
+		ClassificationSession<String> session = system.openSession();
+		
+		assertThat(session.addWord("free"), is(false));
+		assertThat(session.removeWord("free"), is(false));
+		assertThat(session.getWordCount(), is(0));
+		session.close();
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testAddWord_VisitsLinksOnce() {
+		IBayesianModel<String> mockModel = mock(IBayesianModel.class);
+		when(mockModel.getMode()).thenReturn(ModelMode.BERNOULLI);
+		when(mockModel.getUniqueCategories()).thenReturn(new LinkedHashSet<String>(Arrays.asList("a", "b")));
+		when(mockModel.getTotalRows()).thenReturn(4);
+		when(mockModel.countRowsWithCategory(anyString())).thenReturn(2);
+		BayesianSystem<String> system = new BayesianSystem<String>(mockModel);
+		ClassificationSession<String> session = system.openSession();
+		
+		session.addWord("one");
+		session.addWord("one");
+		session.removeWord("one");
+		session.current(1);
+		
+		// Each distinct word reads its links once, other categories are not looked up
+		verify(mockModel, times(1)).visitWordLinks(anyString(), any(ILinkVisitor.class));
+		verify(mockModel, never()).countRowsWithCategoryWithWord(anyString(), anyString());
+		session.close();
+	}
+	
+	@Test
+	public void testClose() {
+		BayesianSystem<String> system = new BayesianSystem<String>(createTrainedModel(ModelMode.BERNOULLI));
+		ModelEpoch<String> epoch = system.getModelEpoch();
+		ClassificationSession<String> session = system.openSession();
+		assertThat(epoch.getActiveReaders(), is(1));
+		
+		session.close();
+		session.close();
+		assertThat(epoch.getActiveReaders(), is(0));
+	}
+	
+	@Test
+	public void testIsStale() {
+		BayesianSystem<String> system = new BayesianSystem<String>(createTrainedModel(ModelMode.BERNOULLI));
+		ModelEpoch<String> epoch = system.getModelEpoch();
+		ClassificationSession<String> session = system.openSession();
+		assertThat(session.isStale(), is(false));
+		
+		system.setBayesianModel(createTrainedModel(ModelMode.BERNOULLI));
+		assertThat(session.isStale(), is(true));
+		
+		// The replaced epoch retires once the session is closed
+		assertThat(epoch.isRetired(), is(false));
+		session.close();
+		assertThat(epoch.isRetired(), is(true));
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testAddWord_Closed() {
+		ClassificationSession<String> session = new BayesianSystem<String>().openSession();
+		session.close();
+		session.addWord("one");
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void testCurrent_Closed() {
+		ClassificationSession<String> session = new BayesianSystem<String>().openSession();
+		session.close();
+		session.current(1);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testAddWord_Null() {
+		new BayesianSystem<String>().openSession().addWord(null);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testCurrent_NullResult() {
+		new BayesianSystem<String>().openSession().current(null);
+	}
+	
+	private void assertMatches(String message, BayesianSystem<String> system, List<String> words, ClassificationSession<String> session) {
+		StringBuilder sentence = new StringBuilder();
+		for(String word : words) {
+			sentence.append(word).append(' ');
+		}
+		ClassificationResult<String> expected = system.classifyRow(new SentenceInput(sentence.toString()), new ClassificationResult<String>());
+		ClassificationResult<String> result = session.current(new ClassificationResult<String>());
+		
+		assertThat(result.getCategoryCount(), is(expected.getCategoryCount()));
+		for(int i = 0; i < expected.getCategoryCount(); ++i) {
+			assertEquals(message + " " + words, expected.getProbability(i), result.getProbability(i), 1e-9);
+		}
+	}
+	
+	private BayesianModel<String> createTrainedModel(ModelMode mode) {
+		BayesianModel<String> model = new BayesianModel<String>(mode);
+		model.addDataRow(createDataRow("spam", "free money now"));
+		model.addDataRow(createDataRow("ham", "meeting at noon"));
+		model.addDataRow(createDataRow("spam", "win free prizes money money"));
+		model.addDataRow(createDataRow("ham", "lunch money"));
+		
+		return model;
+	}
+	
+	private IDataRow<String> createDataRow(String category, String sentence) {
+		SentenceInput sentenceInput = new SentenceInput(sentence);
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getSentenceWords()).thenReturn(sentenceInput.getSentenceWords());
+		when(mockRow.getUniqueSentenceWords()).thenReturn(sentenceInput.getUniqueSentenceWords());
+		
+		return mockRow;
+	}
+}
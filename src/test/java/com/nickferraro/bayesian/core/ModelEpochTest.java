@@ -0,0 +1,66 @@
+package com.nickferraro.bayesian.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nickferraro.bayesian.model.IBayesianModel;
+
+public class ModelEpochTest {
+	private IBayesianModel<String> mockModel;
+	private ModelEpoch<String> epoch;
+	
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setup() {
+		mockModel = (IBayesianModel<String>)mock(IBayesianModel.class);
+		epoch = new ModelEpoch<String>(mockModel, 3);
+	}
+	
+	@Test
+	public void testInitialization() {
+		assertThat(epoch.getBayesianModel(), is(mockModel));
+		assertThat(epoch.getVersion(), is(3L));
+		assertThat(epoch.getActiveReaders(), is(0));
+		assertFalse(epoch.isReplaced());
+		assertFalse(epoch.isRetired());
+	}
+	
+	@Test
+	public void testReplaceWithoutReaders() throws InterruptedException {
+		epoch.replace();
+		
+		assertTrue(epoch.isReplaced());
+		assertTrue(epoch.isRetired());
+		assertTrue(epoch.awaitRetirement(0, TimeUnit.MILLISECONDS));
+	}
+	
+	@Test
+	public void testReplaceWithReaders() throws InterruptedException {
+		epoch.enter();
+		epoch.enter();
+		epoch.replace();
+		
+		assertFalse(epoch.isRetired());
+		epoch.exit();
+		assertFalse(epoch.awaitRetirement(1, TimeUnit.MILLISECONDS));
+		epoch.exit();
+		assertTrue(epoch.isRetired());
+		assertThat(epoch.getActiveReaders(), is(0));
+	}
+	
+	@Test
+	public void testReadersWithoutReplace() {
+		epoch.enter();
+		epoch.exit();
+		
+		assertFalse(epoch.isRetired());
+	}
+}
@@ -0,0 +1,49 @@
+package com.nickferraro.bayesian.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SentenceInputTest {
+	@Test
+	public void testWords() {
+		SentenceInput sentenceInput = new SentenceInput("The cat, the HAT; and 42 cats!");
+		
+		assertThat(sentenceInput.getSentence(), is("The cat, the HAT; and 42 cats!"));
+		assertThat(sentenceInput.getSentenceWords(), is(Arrays.asList("the", "cat", "the", "hat", "and", "42", "cats")));
+		assertThat(new ArrayList<String>(sentenceInput.getUniqueSentenceWords()), is(Arrays.asList("the", "cat", "hat", "and", "42", "cats")));
+	}
+	
+	@Test
+	public void testEmptySentence() {
+		SentenceInput sentenceInput = new SentenceInput("  ...  ");
+		
+		assertThat(sentenceInput.getSentenceWords().size(), is(0));
+		assertThat(sentenceInput.getUniqueSentenceWords().size(), is(0));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNullSentence() {
+		new SentenceInput(null);
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testUnmodifiableWords() {
+		new SentenceInput("one two").getSentenceWords().add("three");
+	}
+	
+	@Test
+	public void testTokenize_Null() {
+		assertThat(SentenceInput.tokenize(null).size(), is(0));
+	}
+	
+	@Test
+	public void testTokenize_NonAscii() {
+		assertThat(SentenceInput.tokenize("Caf\u00c9 \u65e5\u672c"), is(Arrays.asList("caf\u00e9", "\u65e5\u672c")));
+	}
+}
@@ -0,0 +1,78 @@
+package com.nickferraro.bayesian.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class WordReaderTest {
+	@Test
+	public void testNextWord() throws IOException {
+		WordReader reader = new WordReader(new StringReader("Hello, World! 42 times"));
+		
+		assertThat(reader.nextWord(), is("hello"));
+		assertThat(reader.nextWord(), is("world"));
+		assertThat(reader.nextWord(), is("42"));
+		assertThat(reader.nextWord(), is("times"));
+		assertThat(reader.nextWord(), is(nullValue()));
+		assertThat(reader.nextWord(), is(nullValue()));
+	}
+	
+	@Test
+	public void testNextWord_Empty() throws IOException {
+		assertThat(new WordReader(new StringReader("")).nextWord(), is(nullValue()));
+		assertThat(new WordReader(new StringReader(" ,. ")).nextWord(), is(nullValue()));
+	}
+	
+	@Test
+	public void testNextWord_MatchesTokenize() throws IOException {
+		// Long enough to cross several buffer fills, with words split across them
+		StringBuilder text = new StringBuilder();
+		for(int i = 0; i < 5000; ++i) {
+			text.append("Word").append(i % 97).append(( i % 3 == 0 ? ", " : " " ));
+		}
+		
+		assertThat(readAll(new WordReader(new StringReader(text.toString()))), is(SentenceInput.tokenize(text.toString())));
+	}
+	
+	@Test
+	public void testNextWord_ShortReads() throws IOException {
+		// A reader that returns one character per read
+		final StringReader source = new StringReader("one two  three");
+		Reader trickle = new Reader() {
+			@Override
+			public int read(char[] buffer, int offset, int length) throws IOException {
+				return source.read(buffer, offset, Math.min(1, length));
+			}
+			
+			@Override
+			public void close() throws IOException {
+				source.close();
+			}
+		};
+		
+		assertThat(readAll(new WordReader(trickle)), is(SentenceInput.tokenize("one two  three")));
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testNullReader() {
+		new WordReader(null);
+	}
+	
+	private List<String> readAll(WordReader reader) throws IOException {
+		List<String> words = new ArrayList<String>();
+		for(String word = reader.nextWord(); word != null; word = reader.nextWord()) {
+			words.add(word);
+		}
+		
+		return words;
+	}
+}
@@ -0,0 +1,73 @@
+package com.nickferraro.bayesian.core.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class CompiledWordFilterTest {
+	@Test
+	public void testFilter_CompiledWords() {
+		IWordFilter mockFilter = mock(IWordFilter.class);
+		when(mockFilter.filter("money")).thenReturn("money");
+		when(mockFilter.filter("the")).thenReturn(null);
+		CompiledWordFilter filter = new CompiledWordFilter(mockFilter, Arrays.asList("money", "the"));
+		
+		assertThat(filter.getCompiledWordCount(), is(2));
+		for(int i = 0; i < 3; ++i) {
+			assertThat(filter.filter("money"), is("money"));
+			assertThat(filter.filter("the"), is(nullValue()));
+		}
+		
+		// Each vocabulary word is run through the filter once, when compiling
+		verify(mockFilter, times(1)).filter("money");
+		verify(mockFilter, times(1)).filter("the");
+	}
+	
+	@Test
+	public void testFilter_RewrittenWordsFallBack() {
+		CompiledWordFilter filter = new CompiledWordFilter(new LowerCaseFilter(), Arrays.asList("Money", "free"));
+		
+		assertThat(filter.getCompiledWordCount(), is(1));
+		assertThat(filter.filter("Money"), is("money"));
+		assertThat(filter.filter("free"), is("free"));
+	}
+	
+	@Test
+	public void testFilter_UnknownWordsFallBack() {
+		CompiledWordFilter filter = new CompiledWordFilter(new StopWordFilter(Arrays.asList("the")), Arrays.asList("money"));
+		
+		assertThat(filter.filter("the"), is(nullValue()));
+		assertThat(filter.filter("free"), is("free"));
+	}
+	
+	@Test
+	public void testFilter_MatchesPipeline() {
+		WordFilterPipeline pipeline = new WordFilterPipeline(new LowerCaseFilter(), new StopWordFilter(Arrays.asList("the")),
+				new LengthFilter(2, 5));
+		CompiledWordFilter filter = new CompiledWordFilter(pipeline, Arrays.asList("the", "The", "money", "Money", "a", "dollars"));
+		
+		for(String word : Arrays.asList("the", "The", "money", "Money", "a", "dollars", "cash", "CASH")) {
+			assertThat(word, filter.filter(word), is(pipeline.filter(word)));
+		}
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_NullFilter() {
+		new CompiledWordFilter(null, Collections.<String>emptyList());
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_NullWords() {
+		new CompiledWordFilter(new LowerCaseFilter(), null);
+	}
+}
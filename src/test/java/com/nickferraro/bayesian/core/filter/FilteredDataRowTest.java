@@ -0,0 +1,79 @@
+package com.nickferraro.bayesian.core.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IDataRow;
+
+public class FilteredDataRowTest {
+	private IDataRow<String> mockDataRow;
+	private IWordFilter wordFilter;
+	
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setup() {
+		mockDataRow = mock(IDataRow.class);
+		when(mockDataRow.getSentence()).thenReturn("The money Money");
+		when(mockDataRow.getId()).thenReturn(7L);
+		when(mockDataRow.getCategory()).thenReturn("spam");
+		when(mockDataRow.getSentenceWords()).thenReturn(Arrays.asList("The", "money", "Money"));
+		when(mockDataRow.getUniqueSentenceWords()).thenReturn(Sets.newSet("The", "money", "Money"));
+		wordFilter = new WordFilterPipeline(new LowerCaseFilter(), new StopWordFilter(Arrays.asList("the")));
+	}
+	
+	@Test
+	public void testFilteredDataRow() {
+		FilteredDataRow<String> dataRow = new FilteredDataRow<String>(mockDataRow, wordFilter);
+		
+		assertThat(dataRow.getSentenceWords(), is(Arrays.asList("money", "money")));
+		assertThat(dataRow.getUniqueSentenceWords(), is(Sets.newSet("money")));
+		assertThat(dataRow.getSentence(), is("The money Money"));
+		assertThat(dataRow.getId(), is(7L));
+		assertThat(dataRow.getCategory(), is("spam"));
+	}
+	
+	@Test
+	public void testFilteredDataRow_NullWords() {
+		when(mockDataRow.getSentenceWords()).thenReturn(null);
+		when(mockDataRow.getUniqueSentenceWords()).thenReturn(null);
+		FilteredDataRow<String> dataRow = new FilteredDataRow<String>(mockDataRow, wordFilter);
+		
+		assertThat(dataRow.getSentenceWords(), is(nullValue()));
+		assertThat(dataRow.getUniqueSentenceWords(), is(nullValue()));
+	}
+	
+	@Test
+	public void testFilterWords_DropsNullWords() {
+		List<String> words = FilteredDataRow.filterWords(Arrays.asList("a", null, "b"), new LowerCaseFilter());
+		
+		assertThat(words, is(Arrays.asList("a", "b")));
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testFilterUniqueWords_Unmodifiable() {
+		Set<String> words = FilteredDataRow.filterUniqueWords(Sets.newSet("a"), new LowerCaseFilter());
+		words.add("b");
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_NullRow() {
+		new FilteredDataRow<String>(null, wordFilter);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_NullFilter() {
+		new FilteredDataRow<String>(mockDataRow, null);
+	}
+}
@@ -0,0 +1,64 @@
+package com.nickferraro.bayesian.core.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.model.IBayesianModel;
+
+public class FrequencyFilterTest {
+	private IBayesianModel<?> mockModel;
+	
+	@Before
+	public void setup() {
+		mockModel = mock(IBayesianModel.class);
+		when(mockModel.getUniqueWords()).thenReturn(Sets.newSet("rare", "common", "everywhere"));
+		when(mockModel.countRowsWithWord("rare")).thenReturn(1);
+		when(mockModel.countRowsWithWord("common")).thenReturn(5);
+		when(mockModel.countRowsWithWord("everywhere")).thenReturn(100);
+	}
+	
+	@Test
+	public void testFilter() {
+		FrequencyFilter filter = new FrequencyFilter(mockModel, 2, 50);
+		
+		assertThat(filter.getKeptWordCount(), is(1));
+		assertThat(filter.filter("common"), is("common"));
+		assertThat(filter.filter("rare"), is(nullValue()));
+		assertThat(filter.filter("everywhere"), is(nullValue()));
+		assertThat(filter.filter("unseen"), is(nullValue()));
+	}
+	
+	@Test
+	public void testFilter_InclusiveRange() {
+		FrequencyFilter filter = new FrequencyFilter(mockModel, 1, 100);
+		
+		assertThat(filter.getKeptWordCount(), is(3));
+	}
+	
+	@Test
+	public void testFilter_CutoffsReadOnce() {
+		FrequencyFilter filter = new FrequencyFilter(mockModel, 2, 50);
+		when(mockModel.countRowsWithWord("rare")).thenReturn(10);
+		
+		assertThat(filter.filter("rare"), is(nullValue()));
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_NullModel() {
+		new FrequencyFilter(null, 1, 2);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_MaxBelowMin() {
+		new FrequencyFilter(mockModel, 3, 2);
+	}
+}
@@ -0,0 +1,34 @@
+package com.nickferraro.bayesian.core.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Test;
+
+public class LengthFilterTest {
+	@Test
+	public void testFilter() {
+		LengthFilter filter = new LengthFilter(2, 4);
+		
+		assertThat(filter.filter("a"), is(nullValue()));
+		assertThat(filter.filter("ab"), is("ab"));
+		assertThat(filter.filter("abcd"), is("abcd"));
+		assertThat(filter.filter("abcde"), is(nullValue()));
+	}
+	
+	@Test
+	public void testFilter_SingleLength() {
+		LengthFilter filter = new LengthFilter(3, 3);
+		
+		assertThat(filter.filter("abc"), is("abc"));
+		assertThat(filter.filter("ab"), is(nullValue()));
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_MaxBelowMin() {
+		new LengthFilter(5, 4);
+	}
+}
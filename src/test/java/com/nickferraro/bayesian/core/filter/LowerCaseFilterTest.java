@@ -0,0 +1,23 @@
+package com.nickferraro.bayesian.core.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class LowerCaseFilterTest {
+	private final LowerCaseFilter filter = new LowerCaseFilter();
+	
+	@Test
+	public void testFilter() {
+		assertThat(filter.filter("Money"), is("money"));
+		assertThat(filter.filter("FREE"), is("free"));
+		assertThat(filter.filter(""), is(""));
+	}
+	
+	@Test
+	public void testFilter_UnchangedWordIsSameInstance() {
+		String word = "money";
+		assertThat(filter.filter(word) == word, is(true));
+	}
+}
@@ -0,0 +1,42 @@
+package com.nickferraro.bayesian.core.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class RegexWordFilterTest {
+	@Test
+	public void testFilter_KeepMatches() {
+		RegexWordFilter filter = new RegexWordFilter(Pattern.compile("[a-z]+"), true);
+		
+		assertThat(filter.filter("money"), is("money"));
+		assertThat(filter.filter("m0ney"), is(nullValue()));
+		assertThat(filter.filter("123"), is(nullValue()));
+	}
+	
+	@Test
+	public void testFilter_DropMatches() {
+		RegexWordFilter filter = new RegexWordFilter(Pattern.compile("[0-9]+"), false);
+		
+		assertThat(filter.filter("123"), is(nullValue()));
+		assertThat(filter.filter("abc123"), is("abc123"));
+	}
+	
+	@Test
+	public void testFilter_MatchesWholeWord() {
+		RegexWordFilter filter = new RegexWordFilter(Pattern.compile("[a-z]"), true);
+		
+		assertThat(filter.filter("a"), is("a"));
+		assertThat(filter.filter("ab"), is(nullValue()));
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_Null() {
+		new RegexWordFilter(null, true);
+	}
+}
@@ -0,0 +1,38 @@
+package com.nickferraro.bayesian.core.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StopWordFilterTest {
+	@Test
+	public void testFilter() {
+		StopWordFilter filter = new StopWordFilter(Arrays.asList("the", "a", "of"));
+		
+		assertThat(filter.filter("the"), is(nullValue()));
+		assertThat(filter.filter("of"), is(nullValue()));
+		assertThat(filter.filter("money"), is("money"));
+		assertThat(filter.filter("The"), is("The"));
+	}
+	
+	@Test
+	public void testFilter_CopiesStopWords() {
+		List<String> stopWords = new ArrayList<String>(Arrays.asList("the"));
+		StopWordFilter filter = new StopWordFilter(stopWords);
+		stopWords.add("money");
+		
+		assertThat(filter.filter("money"), is("money"));
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_Null() {
+		new StopWordFilter(null);
+	}
+}
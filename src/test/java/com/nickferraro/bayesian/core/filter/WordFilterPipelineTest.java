@@ -0,0 +1,65 @@
+package com.nickferraro.bayesian.core.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class WordFilterPipelineTest {
+	@Test
+	public void testFilter() {
+		WordFilterPipeline pipeline = new WordFilterPipeline(new LowerCaseFilter(), new StopWordFilter(Arrays.asList("the")),
+				new LengthFilter(2, 10));
+		
+		assertThat(pipeline.filter("Money"), is("money"));
+		assertThat(pipeline.filter("The"), is(nullValue()));
+		assertThat(pipeline.filter("A"), is(nullValue()));
+	}
+	
+	@Test
+	public void testFilter_StopsAtFirstDrop() {
+		IWordFilter mockFilter = mock(IWordFilter.class);
+		WordFilterPipeline pipeline = new WordFilterPipeline(new StopWordFilter(Arrays.asList("the")), mockFilter);
+		
+		assertThat(pipeline.filter("the"), is(nullValue()));
+		verify(mockFilter, never()).filter(anyString());
+	}
+	
+	@Test
+	public void testFilter_Empty() {
+		WordFilterPipeline pipeline = new WordFilterPipeline();
+		
+		assertThat(pipeline.filter("Money"), is("Money"));
+	}
+	
+	@Test
+	public void testGetFilters_CopiesList() {
+		List<IWordFilter> filters = new ArrayList<IWordFilter>();
+		filters.add(new LowerCaseFilter());
+		WordFilterPipeline pipeline = new WordFilterPipeline(filters);
+		filters.add(new LengthFilter(10, 20));
+		
+		assertThat(pipeline.getFilters().size(), is(1));
+		assertThat(pipeline.filter("Money"), is("money"));
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testGetFilters_Unmodifiable() {
+		new WordFilterPipeline(new LowerCaseFilter()).getFilters().clear();
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_NullFilter() {
+		new WordFilterPipeline(new LowerCaseFilter(), null);
+	}
+}
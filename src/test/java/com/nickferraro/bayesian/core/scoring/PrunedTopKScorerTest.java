@@ -0,0 +1,147 @@
+package com.nickferraro.bayesian.core.scoring;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.ISentenceInput;
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.model.IBayesianModel;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+
+public class PrunedTopKScorerTest {
+	private static final int CATEGORIES = 200;
+	
+	private BayesianModel<String> bayesianModel;
+	private BayesianSystem<String> system;
+	
+	@Before
+	public void setup() {
+		// Every row has two common words, three words specific to its category and one random word
+		Random random = new Random(42);
+		List<IDataRow<String>> rows = new ArrayList<IDataRow<String>>();
+		for(int i = 0; i < 2000; ++i) {
+			int category = random.nextInt(CATEGORIES);
+			rows.add(createMockRow("c" + category, "w" + random.nextInt(5), "w" + random.nextInt(5), "c" + category + "_" + random.nextInt(10),
+					"c" + category + "_" + random.nextInt(10), "c" + category + "_" + random.nextInt(10), "w" + (5 + random.nextInt(295))));
+		}
+		
+		bayesianModel = new BayesianModel<String>();
+		bayesianModel.addDataRows(rows);
+		system = new BayesianSystem<String>(bayesianModel);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNullModel() {
+		new PrunedTopKScorer<String>(null);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testInvalidK() {
+		new PrunedTopKScorer<String>(bayesianModel).score(Collections.<String>emptySet(), 0);
+	}
+	
+	@Test
+	public void testNoCategories() {
+		List<IClassification<String>> classifications = new PrunedTopKScorer<String>(new BayesianModel<String>()).score(Sets.newSet("a"), 3);
+		
+		assertThat(classifications.size(), is(0));
+	}
+	
+	@Test
+	public void testZeroTrainedRows() {
+		BayesianModel<String> emptyModel = new BayesianModel<String>();
+		emptyModel.addCategory("a");
+		emptyModel.addCategory("b");
+		emptyModel.addCategory("c");
+		
+		List<IClassification<String>> classifications = new PrunedTopKScorer<String>(emptyModel).score(Sets.newSet("a"), 2);
+		
+		assertThat(classifications.size(), is(2));
+		assertEquals(0.5d, classifications.get(0).getProbability(), 1e-12);
+		assertEquals(0.5d, classifications.get(1).getProbability(), 1e-12);
+	}
+	
+	@Test
+	public void testMatchesFullRanking() {
+		Random random = new Random(7);
+		for(int query = 0; query < 50; ++query) {
+			int category = random.nextInt(CATEGORIES);
+			Set<String> words = Sets.newSet("w" + random.nextInt(5), "w" + random.nextInt(5), "c" + category + "_" + random.nextInt(10),
+					"c" + random.nextInt(CATEGORIES) + "_" + random.nextInt(10), "w" + (5 + random.nextInt(295)), "unseen" + query);
+			
+			for(int k : new int[] { 1, 5 }) {
+				assertMatchesFullRanking(words, k);
+			}
+		}
+	}
+	
+	@Test
+	public void testPrunesCategories() {
+		PrunedTopKScorer<String> scorer = new PrunedTopKScorer<String>(bayesianModel);
+		List<IClassification<String>> classifications = scorer.score(Arrays.asList("c3_1", "c3_2", "w0", "w1"), 1);
+		
+		assertThat(classifications.size(), is(1));
+		assertThat(classifications.get(0).getCategory(), is("c3"));
+		assertEquals(1.0d, classifications.get(0).getProbability(), 1e-12);
+		assertTrue(scorer.getCategoriesPruned() > CATEGORIES / 2);
+	}
+	
+	@Test
+	public void testCategoryWithoutRows() {
+		bayesianModel.addCategory("empty");
+		
+		List<IClassification<String>> classifications = new PrunedTopKScorer<String>(bayesianModel).score(Arrays.asList("w0"), CATEGORIES + 1);
+		
+		assertThat(classifications.size(), is(CATEGORIES + 1));
+		assertThat(classifications.get(CATEGORIES).getCategory(), is("empty"));
+		assertEquals(0.0d, classifications.get(CATEGORIES).getProbability(), 0.0d);
+	}
+	
+	private void assertMatchesFullRanking(Set<String> words, int k) {
+		ISentenceInput sentenceInput = mock(ISentenceInput.class);
+		when(sentenceInput.getUniqueSentenceWords()).thenReturn(words);
+		List<IClassification<String>> full = system.classifyRow(sentenceInput);
+		List<IClassification<String>> topK = new PrunedTopKScorer<String>(bayesianModel).score(words, k);
+		
+		assertThat(topK.size(), is(k));
+		for(int r = 0; r < k; ++r) {
+			// Ratios to the best classification do not depend on which categories were normalized
+			double expected = full.get(r).getProbability() / full.get(0).getProbability();
+			assertEquals(expected, topK.get(r).getProbability() / topK.get(0).getProbability(), 1e-9);
+			
+			// Categories must match wherever the full ranking has no tie
+			boolean tied = ( r > 0 && Math.abs(full.get(r).getProbability() - full.get(r - 1).getProbability()) < 1e-12 )
+					|| ( r + 1 < full.size() && Math.abs(full.get(r).getProbability() - full.get(r + 1).getProbability()) < 1e-12 );
+			if( !tied ) {
+				assertThat(topK.get(r).getCategory(), is(full.get(r).getCategory()));
+			}
+		}
+	}
+	
+	private IDataRow<String> createMockRow(String category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = (IDataRow<String>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		
+		return mockRow;
+	}
+}
@@ -0,0 +1,40 @@
+package com.nickferraro.bayesian.core.scoring;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ScalarScoringKernelTest {
+	private final ScalarScoringKernel kernel = new ScalarScoringKernel();
+	
+	@Test
+	public void testMultiply() {
+		double[] scores = { 1, 2, 3, 4, 5, 6, 7 };
+		double[] column = { 2, 2, 2, 2, 0.5, 0.5, 0.5 };
+		kernel.multiply(scores, column, 7);
+		assertThat(scores, is(new double[] { 2, 4, 6, 8, 2.5, 3, 3.5 }));
+	}
+	
+	@Test
+	public void testMultiply_PartialLength() {
+		double[] scores = { 1, 1, 1, 1, 1, 1 };
+		double[] column = { 3, 3, 3, 3, 3, 3 };
+		kernel.multiply(scores, column, 5);
+		assertThat(scores, is(new double[] { 3, 3, 3, 3, 3, 1 }));
+	}
+	
+	@Test
+	public void testAdd() {
+		double[] scores = { -1, -2, -3, -4, -5 };
+		double[] column = { 1, 1, 1, 1, 1 };
+		kernel.add(scores, column, 5);
+		assertThat(scores, is(new double[] { 0, -1, -2, -3, -4 }));
+	}
+	
+	@Test
+	public void testMax() {
+		assertThat(kernel.max(new double[] { -3, 7, 2, 1, 7.5 }, 4), is(7.0d));
+		assertThat(kernel.max(new double[] { 1 }, 0), is(Double.NEGATIVE_INFINITY));
+	}
+}
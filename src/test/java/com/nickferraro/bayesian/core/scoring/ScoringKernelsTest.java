@@ -0,0 +1,33 @@
+package com.nickferraro.bayesian.core.scoring;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ScoringKernelsTest {
+	@Test
+	public void testFastest_SameInstance() {
+		assertThat(ScoringKernels.fastest(), is(notNullValue()));
+		assertThat(ScoringKernels.fastest(), is(sameInstance(ScoringKernels.fastest())));
+	}
+	
+	@Test
+	public void testFastest_MatchesScalar() {
+		IScoringKernel scalar = new ScalarScoringKernel();
+		double[] column = { 0.5, 2, -1, 3.25, 0.125, 8, -0.75, 1.5, 4, 0.25, -2, 16, 0.0625, 1, 3 };
+		double[] expected = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 };
+		double[] actual = expected.clone();
+		
+		scalar.multiply(expected, column, 13);
+		ScoringKernels.fastest().multiply(actual, column, 13);
+		scalar.add(expected, column, 15);
+		ScoringKernels.fastest().add(actual, column, 15);
+		assertThat(Arrays.equals(actual, expected), is(true));
+		assertThat(ScoringKernels.fastest().max(actual, 15), is(scalar.max(expected, 15)));
+	}
+}
@@ -0,0 +1,155 @@
+package com.nickferraro.bayesian.model;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CategoryIndexTest {
+	private enum Color {
+		RED,
+		GREEN,
+		BLUE
+	}
+	
+	private enum Size {
+		SMALL,
+		LARGE
+	}
+	
+	@Test
+	public void testCopyOf() {
+		CategoryIndex<String> index = CategoryIndex.copyOf(Arrays.asList("b", "a", null, "b", "c"));
+		
+		assertThat(index.size(), is(3));
+		assertThat(index.get(0), is("b"));
+		assertThat(index.get(1), is("a"));
+		assertThat(index.get(2), is("c"));
+		assertThat(index.indexOf("a"), is(1));
+		assertThat(index.indexOf("d"), is(-1));
+		assertThat(index.indexOf(null), is(-1));
+		assertThat(index.contains("c"), is(true));
+	}
+	
+	@Test
+	public void testCopyOf_Index() {
+		CategoryIndex<String> index = CategoryIndex.copyOf(Arrays.asList("a"));
+		
+		assertThat(CategoryIndex.copyOf(index), is(sameInstance(index)));
+	}
+	
+	@Test
+	public void testCopyOf_Empty() {
+		assertThat(CategoryIndex.<String>copyOf(null).size(), is(0));
+		assertThat(CategoryIndex.copyOf(new ArrayList<String>()), is(sameInstance(CategoryIndex.<String>empty())));
+		assertThat(CategoryIndex.copyOf(Arrays.asList((String)null)).size(), is(0));
+	}
+	
+	@Test
+	public void testWith() {
+		CategoryIndex<String> index = CategoryIndex.copyOf(Arrays.asList("a", "b"));
+		CategoryIndex<String> added = index.with("c");
+		
+		assertThat(index.size(), is(2));
+		assertThat(added.size(), is(3));
+		assertThat(added.indexOf("a"), is(0));
+		assertThat(added.indexOf("c"), is(2));
+		assertThat(added.with("a"), is(sameInstance(added)));
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testWith_Null() {
+		CategoryIndex.<String>empty().with(null);
+	}
+	
+	@Test
+	public void testWithout() {
+		CategoryIndex<String> index = CategoryIndex.copyOf(Arrays.asList("a", "b", "c"));
+		CategoryIndex<String> removed = index.without("a");
+		
+		assertThat(index.size(), is(3));
+		assertThat(removed.size(), is(2));
+		assertThat(removed.indexOf("a"), is(-1));
+		assertThat(removed.indexOf("b"), is(0));
+		assertThat(removed.indexOf("c"), is(1));
+		assertThat(removed.without("d"), is(sameInstance(removed)));
+	}
+	
+	@Test
+	public void testEnumCategories() {
+		CategoryIndex<Color> index = CategoryIndex.copyOf(Arrays.asList(Color.BLUE, Color.RED));
+		
+		assertThat(index, is(instanceOf(EnumCategoryIndex.class)));
+		assertThat(index.indexOf(Color.BLUE), is(0));
+		assertThat(index.indexOf(Color.RED), is(1));
+		assertThat(index.indexOf(Color.GREEN), is(-1));
+		assertThat(index.indexOf(Size.SMALL), is(-1));
+		assertThat(index.indexOf("BLUE"), is(-1));
+		assertThat(index.indexOf(null), is(-1));
+		
+		CategoryIndex<Color> changed = index.with(Color.GREEN).without(Color.BLUE);
+		assertThat(changed, is(instanceOf(EnumCategoryIndex.class)));
+		assertThat(changed.indexOf(Color.RED), is(0));
+		assertThat(changed.indexOf(Color.GREEN), is(1));
+		assertThat(changed.indexOf(Color.BLUE), is(-1));
+	}
+	
+	@Test
+	public void testMixedEnumCategories() {
+		CategoryIndex<Enum<?>> index = CategoryIndex.copyOf(Arrays.<Enum<?>>asList(Color.RED, Size.SMALL));
+		
+		assertThat(index, is(not(instanceOf(EnumCategoryIndex.class))));
+		assertThat(index.indexOf(Color.RED), is(0));
+		assertThat(index.indexOf(Size.SMALL), is(1));
+		
+		CategoryIndex<Object> mixed = CategoryIndex.<Object>copyOf(Arrays.<Object>asList(Color.RED)).with("red");
+		assertThat(mixed, is(not(instanceOf(EnumCategoryIndex.class))));
+		assertThat(mixed.indexOf("red"), is(1));
+	}
+	
+	@Test
+	public void testIterator() {
+		CategoryIndex<String> index = CategoryIndex.copyOf(Arrays.asList("c", "a", "b"));
+		List<String> categories = new ArrayList<String>();
+		for(String category : index) {
+			categories.add(category);
+		}
+		
+		assertThat(categories, is(Arrays.asList("c", "a", "b")));
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testIterator_CannotRemove() {
+		Iterator<String> iterator = CategoryIndex.copyOf(Arrays.asList("a")).iterator();
+		iterator.next();
+		iterator.remove();
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testAdd_Unsupported() {
+		CategoryIndex.copyOf(Arrays.asList("a")).add("b");
+	}
+	
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testGet_OutOfRange() {
+		CategoryIndex.copyOf(Arrays.asList("a")).get(1);
+	}
+	
+	@Test
+	public void testEquals() {
+		CategoryIndex<String> index = CategoryIndex.copyOf(Arrays.asList("a", "b"));
+		
+		assertThat(index.equals(new HashSet<String>(Arrays.asList("b", "a"))), is(true));
+		assertThat(index.hashCode(), is(new HashSet<String>(Arrays.asList("b", "a")).hashCode()));
+	}
+}
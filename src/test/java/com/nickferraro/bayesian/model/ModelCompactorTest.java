@@ -0,0 +1,79 @@
+package com.nickferraro.bayesian.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModelCompactorTest {
+	private ICompactableModel mockModel;
+	private ModelCompactor compactor;
+	
+	@Before
+	public void setup() {
+		mockModel = mock(ICompactableModel.class);
+		compactor = new ModelCompactor(mockModel, 10);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testNullModel() {
+		new ModelCompactor(null, 10);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testInvalidMinRemovedEntries() {
+		new ModelCompactor(mockModel, 0);
+	}
+	
+	@Test
+	public void testCompactIfNeeded() {
+		when(mockModel.getRemovedEntries()).thenReturn(12);
+		when(mockModel.compact()).thenReturn(400L);
+		
+		assertTrue(compactor.compactIfNeeded());
+		assertTrue(compactor.compactIfNeeded());
+		assertThat(compactor.getCompactionCount(), is(2L));
+		assertThat(compactor.getReleasedBytes(), is(800L));
+		assertTrue(compactor.getLastDurationNanos() >= 0);
+	}
+	
+	@Test
+	public void testCompactIfNeeded_NotWorthwhile() {
+		when(mockModel.getRemovedEntries()).thenReturn(9);
+		
+		assertFalse(compactor.compactIfNeeded());
+		verify(mockModel, never()).compact();
+		assertThat(compactor.getCompactionCount(), is(0L));
+	}
+	
+	@Test
+	public void testStartStop() throws InterruptedException {
+		when(mockModel.getRemovedEntries()).thenReturn(10);
+		compactor.start(1);
+		compactor.start(1);
+		assertTrue(compactor.isRunning());
+		
+		long deadline = System.currentTimeMillis() + 5000;
+		while( compactor.getCompactionCount() < 2 && System.currentTimeMillis() < deadline ) {
+			Thread.sleep(1);
+		}
+		compactor.stop();
+		
+		assertFalse(compactor.isRunning());
+		assertTrue(compactor.getCompactionCount() >= 2);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testStart_InvalidPeriod() {
+		compactor.start(0);
+	}
+}
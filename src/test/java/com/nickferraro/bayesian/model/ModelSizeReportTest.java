@@ -0,0 +1,31 @@
+package com.nickferraro.bayesian.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ModelSizeReportTest {
+	@Test
+	public void testTotals() {
+		ModelSizeReport report = new ModelSizeReport(4, 2, 6, 1, 10L, 20L, 30L, 40L, 50L, 60L);
+		assertThat(report.getHeapBytes(), is(150L));
+		assertThat(report.getTotalBytes(), is(210L));
+	}
+	
+	@Test
+	public void testDerivedStatistics() {
+		ModelSizeReport report = new ModelSizeReport(4, 2, 6, 1, 0L, 0L, 0L, 0L, 0L, 0L);
+		assertThat(report.getAverageLinksPerWord(), is(1.5d));
+		assertThat(report.getHapaxFraction(), is(0.25d));
+		assertThat(report.getAverageCategoryFanOut(), is(3.0d));
+	}
+	
+	@Test
+	public void testDerivedStatistics_EmptyModel() {
+		ModelSizeReport report = new ModelSizeReport(0, 0, 0, 0, 0L, 0L, 0L, 0L, 0L, 0L);
+		assertThat(report.getAverageLinksPerWord(), is(0.0d));
+		assertThat(report.getHapaxFraction(), is(0.0d));
+		assertThat(report.getAverageCategoryFanOut(), is(0.0d));
+	}
+}
@@ -0,0 +1,81 @@
+package com.nickferraro.bayesian.model;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Test;
+
+public class WordBloomFilterTest {
+	@Test
+	public void testMightContain_NoFalseNegatives() {
+		WordBloomFilter filter = new WordBloomFilter(1000);
+		for(int i = 0; i < 1000; ++i) {
+			filter.add("word" + i);
+		}
+		
+		for(int i = 0; i < 1000; ++i) {
+			assertTrue(filter.mightContain("word" + i));
+		}
+		assertThat(filter.size(), is(1000));
+	}
+	
+	@Test
+	public void testMightContain_FalsePositiveRate() {
+		WordBloomFilter filter = new WordBloomFilter(1000);
+		for(int i = 0; i < 1000; ++i) {
+			filter.add("word" + i);
+		}
+		
+		int falsePositives = 0;
+		for(int i = 0; i < 10000; ++i) {
+			if( filter.mightContain("other" + i) ) {
+				++falsePositives;
+			}
+		}
+		assertTrue("False positives: " + falsePositives, falsePositives < 300);
+	}
+	
+	@Test
+	public void testMightContain_Empty() {
+		WordBloomFilter filter = new WordBloomFilter(0);
+		assertFalse(filter.mightContain("a"));
+		assertFalse(filter.mightContain(""));
+		assertFalse(filter.isFull());
+	}
+	
+	@Test
+	public void testMightContain_Null() {
+		WordBloomFilter filter = new WordBloomFilter(10);
+		filter.add(null);
+		assertFalse(filter.mightContain(null));
+		assertThat(filter.size(), is(0));
+	}
+	
+	@Test
+	public void testIsFull() {
+		WordBloomFilter filter = new WordBloomFilter(2);
+		filter.add("a");
+		filter.add("b");
+		assertFalse(filter.isFull());
+		
+		filter.add("c");
+		assertTrue(filter.isFull());
+		assertTrue(filter.mightContain("a"));
+		assertTrue(filter.mightContain("c"));
+	}
+	
+	@Test
+	public void testGetBytes() {
+		assertTrue(new WordBloomFilter(10000).getBytes() > new WordBloomFilter(10).getBytes());
+		assertTrue(new WordBloomFilter(0).getBytes() > 0);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testConstructor_NegativeCapacity() {
+		new WordBloomFilter(-1);
+	}
+}
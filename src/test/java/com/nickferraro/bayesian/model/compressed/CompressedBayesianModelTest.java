@@ -0,0 +1,191 @@
+package com.nickferraro.bayesian.model.compressed;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.core.SentenceInput;
+import com.nickferraro.bayesian.model.ILinkVisitor;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.ModelSizeReport;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+
+public class CompressedBayesianModelTest {
+	private enum TestCategory {
+		CATEGORY1,
+		CATEGORY2,
+		CATEGORY3
+	}
+	
+	@Test
+	public void testCopyOf_MatchesSource() {
+		for(ModelMode mode : ModelMode.values()) {
+			BayesianModel<TestCategory> source = createSourceModel(mode);
+			CompressedBayesianModel<TestCategory> model = CompressedBayesianModel.copyOf(source);
+			
+			assertThat(model.getMode(), is(mode));
+			assertThat(model.getTotalRows(), is(source.getTotalRows()));
+			assertThat(model.getUniqueCategories(), is(source.getUniqueCategories()));
+			assertThat(model.getUniqueWords(), is(source.getUniqueWords()));
+			for(TestCategory category : TestCategory.values()) {
+				assertThat(model.countRowsWithCategory(category), is(source.countRowsWithCategory(category)));
+				assertThat(model.countTokensWithCategory(category), is(source.countTokensWithCategory(category)));
+			}
+			for(String word : Arrays.asList("a", "b", "c", "d", "e", "f", "missing")) {
+				assertThat(model.countRowsWithWord(word), is(source.countRowsWithWord(word)));
+				for(TestCategory category : TestCategory.values()) {
+					assertThat(mode + " " + word + " " + category, model.countRowsWithCategoryWithWord(category, word), 
+							is(source.countRowsWithCategoryWithWord(category, word)));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testCountRowsWithCategoryWithWord_AnyOrder() {
+		CompressedBayesianModel<TestCategory> model = CompressedBayesianModel.copyOf(createSourceModel(ModelMode.BERNOULLI));
+		
+		// The thread's cursor resumes going forward and reopens the list going back or switching words
+		assertThat(model.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "a"), is(1));
+		assertThat(model.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "a"), is(2));
+		assertThat(model.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "d"), is(0));
+		assertThat(model.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "a"), is(1));
+		assertThat(model.countRowsWithCategoryWithWord(TestCategory.CATEGORY3, "a"), is(1));
+		assertThat(model.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, new String("a")), is(2));
+		assertThat(model.countRowsWithCategoryWithWord(null, "a"), is(0));
+		assertThat(model.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, null), is(0));
+	}
+	
+	@Test
+	public void testVisitWordLinks() {
+		CompressedBayesianModel<TestCategory> model = CompressedBayesianModel.copyOf(createSourceModel(ModelMode.BERNOULLI));
+		final List<String> visited = new ArrayList<String>();
+		ILinkVisitor<TestCategory> visitor = new ILinkVisitor<TestCategory>() {
+			@Override
+			public void visitLink(TestCategory category, int weight) {
+				visited.add(category + "=" + weight);
+			}
+		};
+		
+		assertThat(model.visitWordLinks("a", visitor), is(3));
+		assertThat(visited, is(Arrays.asList("CATEGORY1=2", "CATEGORY2=1", "CATEGORY3=1")));
+		assertThat(model.visitWordLinks("missing", visitor), is(0));
+		assertThat(model.visitWordLinks(null, visitor), is(0));
+	}
+	
+	@Test
+	public void testClassification_MatchesSource() {
+		for(ModelMode mode : ModelMode.values()) {
+			BayesianModel<TestCategory> source = createSourceModel(mode);
+			BayesianSystem<TestCategory> sourceSystem = new BayesianSystem<TestCategory>(source);
+			BayesianSystem<TestCategory> compressedSystem = new BayesianSystem<TestCategory>(CompressedBayesianModel.copyOf(source));
+			
+			for(String sentence : Arrays.asList("a b", "c d e", "f a f", "missing words")) {
+				List<IClassification<TestCategory>> expected = sourceSystem.classifyRow(new SentenceInput(sentence));
+				List<IClassification<TestCategory>> actual = compressedSystem.classifyRow(new SentenceInput(sentence));
+				assertThat(actual.size(), is(expected.size()));
+				for(int i = 0; i < expected.size(); ++i) {
+					assertThat(actual.get(i).getCategory(), is(expected.get(i).getCategory()));
+					assertEquals(expected.get(i).getProbability(), actual.get(i).getProbability(), 0.0d);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testCopyOf_ManyCategories() {
+		BayesianModel<Integer> source = new BayesianModel<Integer>();
+		for(int category = 0; category < 300; ++category) {
+			source.addDataRow(createMockRow(category, "shared", "word" + category));
+			for(int repeat = 0; repeat < category % 3; ++repeat) {
+				source.addDataRow(createMockRow(category, "shared"));
+			}
+		}
+		CompressedBayesianModel<Integer> model = CompressedBayesianModel.copyOf(source);
+		
+		for(int category = 0; category < 300; ++category) {
+			assertThat(model.countRowsWithCategoryWithWord(category, "shared"), is(1 + category % 3));
+			assertThat(model.countRowsWithCategoryWithWord(category, "word" + category), is(1));
+			assertThat(model.countRowsWithCategoryWithWord(category, "word" + (category + 1)), is(0));
+		}
+	}
+	
+	@Test
+	public void testGetSizeReport() {
+		BayesianModel<TestCategory> source = createSourceModel(ModelMode.BERNOULLI);
+		ModelSizeReport sourceReport = source.getSizeReport();
+		ModelSizeReport report = CompressedBayesianModel.copyOf(source).getSizeReport();
+		
+		assertThat(report.getWords(), is(sourceReport.getWords()));
+		assertThat(report.getCategories(), is(sourceReport.getCategories()));
+		assertThat(report.getLinks(), is(sourceReport.getLinks()));
+		assertThat(report.getHapaxWords(), is(sourceReport.getHapaxWords()));
+		assertTrue(report.getLinkBytes() < sourceReport.getLinkBytes());
+		assertThat(report.getOffHeapBytes(), is(0L));
+	}
+	
+	@Test
+	public void testMightContainWord() {
+		CompressedBayesianModel<TestCategory> model = CompressedBayesianModel.copyOf(createSourceModel(ModelMode.BERNOULLI));
+		for(String word : Arrays.asList("a", "b", "c", "d", "e", "f", "unlinked")) {
+			assertTrue(model.mightContainWord(word));
+		}
+		assertFalse(model.mightContainWord("missing"));
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testAddDataRow_ReadOnly() {
+		CompressedBayesianModel.copyOf(createSourceModel(ModelMode.BERNOULLI)).addDataRow(createMockRow(TestCategory.CATEGORY1, "a"));
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testAddCategory_ReadOnly() {
+		CompressedBayesianModel.copyOf(createSourceModel(ModelMode.BERNOULLI)).addCategory(TestCategory.CATEGORY1);
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testRemoveCategory_ReadOnly() {
+		CompressedBayesianModel.copyOf(createSourceModel(ModelMode.BERNOULLI)).removeCategory(TestCategory.CATEGORY1);
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testCopyOf_Null() {
+		CompressedBayesianModel.copyOf(null);
+	}
+	
+	private BayesianModel<TestCategory> createSourceModel(ModelMode mode) {
+		BayesianModel<TestCategory> source = new BayesianModel<TestCategory>(mode);
+		source.addDataRow(createMockRow(TestCategory.CATEGORY1, "a", "b", "c"));
+		source.addDataRow(createMockRow(TestCategory.CATEGORY2, "a", "d"));
+		source.addDataRow(createMockRow(TestCategory.CATEGORY1, "b", "c", "e", "a"));
+		source.addDataRow(createMockRow(TestCategory.CATEGORY3, "f", "a", "f"));
+		source.addWord("unlinked");
+		
+		return source;
+	}
+	
+	private <T> IDataRow<T> createMockRow(T category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<T> mockRow = (IDataRow<T>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		when(mockRow.getSentenceWords()).thenReturn(Arrays.asList(words));
+		
+		return mockRow;
+	}
+}
@@ -0,0 +1,67 @@
+package com.nickferraro.bayesian.model.compressed.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Test;
+
+public class PostingArenaTest {
+	private final PostingArena arena = new PostingArena();
+	
+	@Test
+	public void testAppend() {
+		assertThat(arena.append(new int[] { 0 }, new int[] { 1 }, 1), is(0));
+		
+		// A single small link takes two bytes
+		assertThat(arena.size(), is(2));
+		assertThat(arena.append(new int[] { 3, 200 }, new int[] { 1, 300 }, 2), is(2));
+		assertThat(arena.size(), is(8));
+	}
+	
+	@Test
+	public void testAppend_Empty() {
+		assertThat(arena.append(new int[0], new int[0], 0), is(0));
+		assertThat(arena.size(), is(0));
+	}
+	
+	@Test
+	public void testAppend_Grows() {
+		int[] indices = new int[1000];
+		int[] weights = new int[1000];
+		for(int i = 0; i < indices.length; ++i) {
+			indices[i] = i * 1000;
+			weights[i] = Integer.MAX_VALUE - i;
+		}
+		
+		arena.append(indices, weights, indices.length);
+		arena.trim();
+		
+		PostingCursor cursor = new PostingCursor();
+		cursor.open(arena, 0, arena.size(), 0);
+		for(int i = 0; i < indices.length; ++i) {
+			assertThat(cursor.next(), is(true));
+			assertThat(cursor.getCategoryIndex(), is(i * 1000));
+			assertThat(cursor.getWeight(), is(Integer.MAX_VALUE - i));
+		}
+		assertThat(cursor.next(), is(false));
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testAppend_UnsortedIndices() {
+		arena.append(new int[] { 2, 1 }, new int[] { 1, 1 }, 2);
+	}
+	
+	@Test
+	public void testAppend_InvalidLeavesArenaUnchanged() {
+		arena.append(new int[] { 1 }, new int[] { 1 }, 1);
+		try {
+			arena.append(new int[] { 2, 3 }, new int[] { 1, 0 }, 2);
+		} catch(InvalidParameterException e) {
+			// Expected
+		}
+		
+		assertThat(arena.size(), is(2));
+	}
+}
@@ -0,0 +1,52 @@
+package com.nickferraro.bayesian.model.compressed.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PostingCursorTest {
+	private final PostingArena arena = new PostingArena();
+	private final PostingCursor cursor = new PostingCursor();
+	private int end;
+	
+	@Before
+	public void setup() {
+		arena.append(new int[] { 9 }, new int[] { 9 }, 1);
+		arena.append(new int[] { 1, 4, 130 }, new int[] { 2, 5, 1 }, 3);
+		end = arena.size();
+		cursor.open(arena, 2, end, 7);
+	}
+	
+	@Test
+	public void testNext() {
+		assertThat(cursor.getOwner(), is(7));
+		assertThat(cursor.getCategoryIndex(), is(-1));
+		assertThat(cursor.next(), is(true));
+		assertThat(cursor.getCategoryIndex(), is(1));
+		assertThat(cursor.getWeight(), is(2));
+		assertThat(cursor.next(), is(true));
+		assertThat(cursor.next(), is(true));
+		assertThat(cursor.getCategoryIndex(), is(130));
+		assertThat(cursor.next(), is(false));
+		assertThat(cursor.getWeight(), is(0));
+	}
+	
+	@Test
+	public void testSeek() {
+		assertThat(cursor.seek(0), is(0));
+		assertThat(cursor.seek(1), is(2));
+		assertThat(cursor.seek(1), is(2));
+		assertThat(cursor.seek(3), is(0));
+		assertThat(cursor.seek(4), is(5));
+		assertThat(cursor.seek(130), is(1));
+		assertThat(cursor.seek(131), is(0));
+	}
+	
+	@Test
+	public void testClose() {
+		cursor.close();
+		assertThat(cursor.getOwner(), is(-1));
+	}
+}
@@ -1,6 +1,7 @@
 package com.nickferraro.bayesian.model.hashed;
 
 import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertFalse;
@@ -8,9 +9,15 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeThat;
 import static org.junit.Assume.assumeTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -20,7 +27,11 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.internal.util.collections.Sets;
 
+import com.nickferraro.bayesian.IBayesianListener;
 import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.CategoryIndex;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.ModelSizeReport;
 
 public class BayesianModelTest {
 	private enum TestCategory {
@@ -106,6 +117,62 @@ public class BayesianModelTest {
 		assertThat(bayesianModel.getUniqueCategories().size(), is(3));
 	}
 	
+	@Test
+	public void testUniqueCategories_OrderedAndImmutable() {
+		bayesianModel.addCategories(Arrays.asList(TestCategory.CATEGORY3, TestCategory.CATEGORY1));
+		Set<TestCategory> categories = bayesianModel.getUniqueCategories();
+		bayesianModel.addCategory(TestCategory.CATEGORY2);
+		
+		assertThat(categories, is(instanceOf(CategoryIndex.class)));
+		assertThat(Arrays.asList(categories.toArray()), is(Arrays.<Object>asList(TestCategory.CATEGORY3, TestCategory.CATEGORY1)));
+		assertThat(((CategoryIndex<TestCategory>)categories).indexOf(TestCategory.CATEGORY1), is(1));
+		assertThat(bayesianModel.getUniqueCategories().size(), is(3));
+		
+		bayesianModel.removeCategory(TestCategory.CATEGORY3);
+		assertThat(((CategoryIndex<TestCategory>)bayesianModel.getUniqueCategories()).indexOf(TestCategory.CATEGORY2), is(1));
+	}
+	
+	@Test
+	public void testUniqueCategories_ManyCategories() {
+		BayesianModel<Integer> manyModel = new BayesianModel<Integer>();
+		List<Integer> removed = new ArrayList<Integer>();
+		for(int i = 0; i < 400; ++i) {
+			manyModel.addCategory(i);
+			if( i % 2 == 0 ) {
+				removed.add(i);
+			}
+		}
+		manyModel.removeCategories(removed);
+		
+		CategoryIndex<Integer> categories = (CategoryIndex<Integer>)manyModel.getUniqueCategories();
+		assertThat(categories.size(), is(200));
+		for(int i = 0; i < 200; ++i) {
+			assertThat(categories.get(i), is(i * 2 + 1));
+			assertThat(categories.indexOf(i * 2 + 1), is(i));
+			assertThat(categories.indexOf(i * 2), is(-1));
+		}
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testUniqueCategories_CannotRemove() {
+		bayesianModel.addCategory(testCategory);
+		bayesianModel.getUniqueCategories().remove(testCategory);
+	}
+	
+	@Test
+	public void testMixedCategories() {
+		BayesianModel<Object> mixedModel = new BayesianModel<Object>();
+		mixedModel.addDataRow(createMixedRow(TestCategory.CATEGORY1, "a"));
+		mixedModel.addDataRow(createMixedRow("category", "a", "b"));
+		mixedModel.addDataRow(createMixedRow(TestCategory.CATEGORY2, "b"));
+		
+		assertThat(mixedModel.getUniqueCategories().size(), is(3));
+		assertThat(mixedModel.countRowsWithCategory(TestCategory.CATEGORY1), is(1));
+		assertThat(mixedModel.countRowsWithCategory("category"), is(1));
+		assertThat(mixedModel.countRowsWithCategoryWithWord("category", "b"), is(1));
+		assertThat(mixedModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "b"), is(1));
+	}
+	
 	@Test
 	public void testAddingWord() {	
 		assertTrue(bayesianModel.addWord(testWord));
@@ -468,6 +535,225 @@ public class BayesianModelTest {
 		assertThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(nullValue()));
 	}
 	
+	@Test
+	public void testGetSizeReport() {
+		@SuppressWarnings("unchecked")
+		List<IDataRow<TestCategory>> dataRows = Arrays.asList(
+				createMockRow(TestCategory.CATEGORY1, "a", "b", "c"),
+				createMockRow(TestCategory.CATEGORY2, "a", "d"),
+				createMockRow(TestCategory.CATEGORY1, "b", "c", "e"));
+		assumeThat(bayesianModel.addDataRows(dataRows), is(3));
+		
+		ModelSizeReport report = bayesianModel.getSizeReport();
+		assertThat(report.getWords(), is(5));
+		assertThat(report.getCategories(), is(2));
+		assertThat(report.getLinks(), is(6));
+		assertThat(report.getHapaxWords(), is(2));
+		assertThat(report.getOffHeapBytes(), is(0L));
+		assertTrue(report.getVocabularyBytes() > 0);
+		assertTrue(report.getMapOverheadBytes() > 0);
+	}
+	
+	@Test
+	public void testGetSizeReport_Empty() {
+		ModelSizeReport report = bayesianModel.getSizeReport();
+		assertThat(report.getWords(), is(0));
+		assertThat(report.getCategories(), is(0));
+		assertThat(report.getLinks(), is(0));
+		assertThat(report.getVocabularyBytes(), is(0L));
+		assertThat(report.getLinkBytes(), is(0L));
+	}
+	
+	@Test
+	public void testGetSizeReport_AfterRemoveCategory() {
+		@SuppressWarnings("unchecked")
+		List<IDataRow<TestCategory>> dataRows = Arrays.asList(
+				createMockRow(TestCategory.CATEGORY1, "a", "b", "c"),
+				createMockRow(TestCategory.CATEGORY2, "a", "d"),
+				createMockRow(TestCategory.CATEGORY1, "b", "c", "e"));
+		assumeThat(bayesianModel.addDataRows(dataRows), is(3));
+		long heapBytes = bayesianModel.getSizeReport().getHeapBytes();
+		assumeThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(TestCategory.CATEGORY1));
+		
+		ModelSizeReport report = bayesianModel.getSizeReport();
+		assertThat(report.getWords(), is(2));
+		assertThat(report.getCategories(), is(1));
+		assertThat(report.getLinks(), is(2));
+		assertThat(report.getHapaxWords(), is(2));
+		assertTrue(report.getHeapBytes() < heapBytes);
+	}
+	
+	@Test
+	public void testGetSizeReport_RepeatedRemoveCategory() {
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "a")), is(true));
+		long mapBytes = bayesianModel.getSizeReport().getMapOverheadBytes();
+		
+		// Removed word nodes are released without compacting, also when they were removed while a snapshot was open
+		for(int i = 0; i < 100; ++i) {
+			assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY2, "removed" + i)), is(true));
+			assumeThat(bayesianModel.removeCategory(TestCategory.CATEGORY2), is(TestCategory.CATEGORY2));
+		}
+		assertThat(bayesianModel.getSizeReport().getMapOverheadBytes(), is(mapBytes));
+		
+		ModelSnapshot<TestCategory> snapshot = bayesianModel.beginSnapshot();
+		for(int i = 0; i < 100; ++i) {
+			assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY2, "removed" + i)), is(true));
+			assumeThat(bayesianModel.removeCategory(TestCategory.CATEGORY2), is(TestCategory.CATEGORY2));
+		}
+		snapshot.close();
+		assertThat(bayesianModel.getSizeReport().getMapOverheadBytes(), is(mapBytes));
+		assertThat(bayesianModel.getSizeReport().getWords(), is(1));
+	}
+	
+	@Test
+	public void testDefaultMode() {
+		assertThat(bayesianModel.getMode(), is(ModelMode.BERNOULLI));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNullMode() {
+		new BayesianModel<TestCategory>(null);
+	}
+	
+	@Test
+	public void testCountTokensWithCategory() {
+		@SuppressWarnings("unchecked")
+		List<IDataRow<TestCategory>> dataRows = Arrays.asList(
+				createMockRow(TestCategory.CATEGORY1, "a", "b", "c"),
+				createMockRow(TestCategory.CATEGORY2, "a", "d"),
+				createMockRow(TestCategory.CATEGORY1, "b", "c", "e"));
+		assumeThat(bayesianModel.addDataRows(dataRows), is(3));
+		assertThat(bayesianModel.countTokensWithCategory(TestCategory.CATEGORY1), is(6));
+		assertThat(bayesianModel.countTokensWithCategory(TestCategory.CATEGORY2), is(2));
+		assertThat(bayesianModel.countTokensWithCategory(TestCategory.CATEGORY3), is(0));
+		assertThat(bayesianModel.countTokensWithCategory(null), is(0));
+	}
+	
+	@Test
+	public void testMultinomialMode() {
+		bayesianModel = new BayesianModel<TestCategory>(ModelMode.MULTINOMIAL);
+		@SuppressWarnings("unchecked")
+		List<IDataRow<TestCategory>> dataRows = Arrays.asList(
+				createMockSentenceRow(TestCategory.CATEGORY1, "a", "b", "a", "a"),
+				createMockSentenceRow(TestCategory.CATEGORY2, "a", "d"),
+				createMockSentenceRow(TestCategory.CATEGORY1, "b", "e"));
+		assumeThat(bayesianModel.addDataRows(dataRows), is(3));
+		assertThat(bayesianModel.getMode(), is(ModelMode.MULTINOMIAL));
+		assertThat(bayesianModel.getTotalRows(), is(3));
+		assertThat(bayesianModel.countRowsWithCategory(TestCategory.CATEGORY1), is(2));
+		assertThat(bayesianModel.countTokensWithCategory(TestCategory.CATEGORY1), is(6));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "a"), is(3));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "b"), is(2));
+		assertThat(bayesianModel.countRowsWithWord("a"), is(4));
+		
+		assertThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(TestCategory.CATEGORY1));
+		assertThat(bayesianModel.countRowsWithWord("a"), is(1));
+		assertThat(bayesianModel.getUniqueWords().size(), is(2));
+	}
+	
+	@Test
+	public void testMultinomialMode_NullWords() {
+		bayesianModel = new BayesianModel<TestCategory>(ModelMode.MULTINOMIAL);
+		IDataRow<TestCategory> mockRow = createMockRow();
+		when(mockRow.getSentenceWords()).thenReturn(null);
+		assertFalse(bayesianModel.addDataRow(mockRow));
+		assertBayesianModelUnchanged(bayesianModel);
+	}
+	
+	@Test
+	public void testMightContainWord() {
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "a", "b")), is(true));
+		assertTrue(bayesianModel.mightContainWord("a"));
+		assertTrue(bayesianModel.mightContainWord("b"));
+		assertFalse(bayesianModel.mightContainWord("missing"));
+		assertFalse(bayesianModel.mightContainWord(null));
+	}
+	
+	@Test
+	public void testMightContainWord_Rebuild() {
+		for(int i = 0; i < 5000; ++i) {
+			assumeThat(bayesianModel.addWord("word" + i), is(true));
+		}
+		
+		for(int i = 0; i < 5000; ++i) {
+			assertTrue(bayesianModel.mightContainWord("word" + i));
+		}
+	}
+	
+	@Test
+	public void testCompact() {
+		for(int i = 0; i < 200; ++i) {
+			assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "removed" + i, "shared")), is(true));
+		}
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY2, "kept", "shared")), is(true));
+		assumeThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(TestCategory.CATEGORY1));
+		long version = bayesianModel.getVersion();
+		long mapBytes = bayesianModel.getSizeReport().getMapOverheadBytes();
+		assertThat(bayesianModel.getRemovedEntries(), is(201));
+		
+		assertTrue(bayesianModel.compact() > 0);
+		
+		assertTrue(bayesianModel.getSizeReport().getMapOverheadBytes() < mapBytes);
+		assertThat(bayesianModel.getRemovedEntries(), is(0));
+		assertThat(bayesianModel.getVersion(), is(version));
+		assertThat(bayesianModel.getTotalRows(), is(1));
+		assertThat(bayesianModel.getUniqueWords().size(), is(2));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "kept"), is(1));
+		assertThat(bayesianModel.countRowsWithWord("shared"), is(1));
+		assertTrue(bayesianModel.mightContainWord("kept"));
+		assertFalse(bayesianModel.mightContainWord("removed0"));
+		
+		// Training continues on the compacted maps
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "shared")), is(true));
+		assertThat(bayesianModel.countRowsWithWord("shared"), is(2));
+	}
+	
+	@Test
+	public void testListener_Training() {
+		IBayesianListener listener = mock(IBayesianListener.class);
+		bayesianModel.setListener(listener);
+		assertThat(bayesianModel.getListener(), is(listener));
+		
+		assertThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "alpha", "beta")), is(true));
+		verify(listener).trained(eq(1), eq(2), eq(2), anyLong(), anyLong());
+		
+		// The second batch reuses one word and links it to a new category
+		@SuppressWarnings("unchecked")
+		List<IDataRow<TestCategory>> dataRows = Arrays.asList(createMockRow(TestCategory.CATEGORY2, "alpha", "gamma"), null);
+		assertThat(bayesianModel.addDataRows(dataRows), is(1));
+		verify(listener).trained(eq(1), eq(1), eq(2), anyLong(), anyLong());
+		assertThat(bayesianModel.countRowsWithWord("alpha"), is(2));
+	}
+	
+	@Test
+	public void testListener_Compact() {
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "alpha", "beta")), is(true));
+		assumeThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(TestCategory.CATEGORY1));
+		IBayesianListener listener = mock(IBayesianListener.class);
+		bayesianModel.setListener(listener);
+		
+		long releasedBytes = bayesianModel.compact();
+		
+		verify(listener).compacted(eq(3), eq(releasedBytes), anyLong());
+	}
+	
+	@Test
+	public void testListener_Removed() {
+		IBayesianListener listener = mock(IBayesianListener.class);
+		bayesianModel.setListener(listener);
+		bayesianModel.setListener(null);
+		
+		assertThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "alpha")), is(true));
+		bayesianModel.compact();
+		verifyZeroInteractions(listener);
+	}
+	
+	@Test
+	public void testCompact_Empty() {
+		assertThat(bayesianModel.compact(), is(0L));
+		assertBayesianModelUnchanged(bayesianModel);
+	}
+	
 	private static void assertBayesianModelUnchanged(BayesianModel<TestCategory> bayesianModel) {
 		assertThat(bayesianModel.getTotalRows(), is(0));
 		assertThat(bayesianModel.getUniqueCategories().size(), is(0));
@@ -500,12 +786,26 @@ public class BayesianModelTest {
 		
 		return mockRow;
 	}
+	private IDataRow<TestCategory> createMockSentenceRow(TestCategory category, String...words) {
+		IDataRow<TestCategory> mockRow = createMockRow(category, words);
+		when(mockRow.getSentenceWords()).thenReturn(Arrays.asList(words));
+		
+		return mockRow;
+	}
 	private IDataRow<TestCategory> createMockRow(TestCategory category, String...words) {
 		@SuppressWarnings("unchecked")
 		IDataRow<TestCategory> mockRow = (IDataRow<TestCategory>)mock(IDataRow.class);
 		when(mockRow.getCategory()).thenReturn(category);
 		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
 		
+		return mockRow;
+	}
+	private IDataRow<Object> createMixedRow(Object category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<Object> mockRow = (IDataRow<Object>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		
 		return mockRow;
 	}
 }
@@ -0,0 +1,199 @@
+package com.nickferraro.bayesian.model.hashed;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.io.ModelDelta;
+import com.nickferraro.bayesian.model.io.ModelSnapshotReader;
+import com.nickferraro.bayesian.model.io.ModelSnapshotWriter;
+import com.nickferraro.bayesian.model.io.StringCategoryCodec;
+
+public class ChangeTrackerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private BayesianModel<String> primary;
+	private BayesianModel<String> replica;
+	
+	@Before
+	public void setup() throws IOException {
+		primary = new BayesianModel<String>();
+		primary.addDataRow(createMockRow("sports", "team", "game", "won"));
+		primary.addDataRow(createMockRow("food", "soup", "hot", "won"));
+		primary.addDataRow(createMockRow("old", "dusty", "won"));
+		primary.startChangeTracking();
+		
+		replica = copy(primary);
+	}
+	
+	@Test
+	public void testReplicate() throws IOException {
+		primary.addDataRow(createMockRow("sports", "team", "lost"));
+		primary.addDataRow(createMockRow("weather", "hot", "rain"));
+		primary.addWord("unlinked");
+		primary.addCategory("empty");
+		
+		List<ModelDelta<String>> deltas = primary.exportDeltas();
+		assertThat(deltas.size(), is(1));
+		assertThat(deltas.get(0).getFromVersion(), is(replica.getVersion()));
+		assertThat(replica.applyDelta(deltas.get(0)), is(true));
+		
+		assertSameCounts(replica, primary);
+		assertThat(replica.getVersion(), is(primary.getVersion()));
+		assertThat(primary.exportDeltas().isEmpty(), is(true));
+	}
+	
+	@Test
+	public void testReplicateRemovals() throws IOException {
+		// Words only linked to removed categories disappear, words trained after the removal come back
+		primary.addDataRow(createMockRow("old", "dusty", "new"));
+		primary.removeCategory("old");
+		primary.addDataRow(createMockRow("food", "dusty"));
+		primary.addDataRow(createMockRow("temporary", "fleeting"));
+		primary.removeCategory("temporary");
+		primary.addDataRow(createMockRow("sports", "team"));
+		primary.removeCategory("sports");
+		primary.addDataRow(createMockRow("sports", "game"));
+		
+		assertThat(replica.applyDelta(encodeAndDecode(primary.exportDeltas().get(0))), is(true));
+		
+		assertSameCounts(replica, primary);
+		assertThat(replica.getUniqueWords().contains("fleeting"), is(false));
+		assertThat(replica.getSizeReport().getLinks(), is(primary.getSizeReport().getLinks()));
+		assertThat(replica.getSizeReport().getHapaxWords(), is(primary.getSizeReport().getHapaxWords()));
+	}
+	
+	@Test
+	public void testSkipAppliedDelta() {
+		primary.addDataRow(createMockRow("sports", "team"));
+		ModelDelta<String> delta = primary.exportDeltas().get(0);
+		
+		assertThat(replica.applyDelta(delta), is(true));
+		assertThat(replica.applyDelta(delta), is(false));
+		assertSameCounts(replica, primary);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testOutOfOrderDelta() {
+		primary.addDataRow(createMockRow("sports", "team"));
+		primary.exportDeltas();
+		primary.addDataRow(createMockRow("sports", "game"));
+		
+		replica.applyDelta(primary.exportDeltas().get(0));
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testExportUntracked() {
+		primary.stopChangeTracking();
+		primary.exportDeltas();
+	}
+	
+	@Test
+	public void testSnapshotEndsDelta() throws IOException {
+		primary.addDataRow(createMockRow("sports", "team"));
+		BayesianModel<String> lateReplica = copy(primary);
+		primary.addDataRow(createMockRow("food", "soup"));
+		
+		// The early replica needs both deltas, the late replica only the one after its snapshot
+		List<ModelDelta<String>> deltas = primary.exportDeltas();
+		assertThat(deltas.size(), is(2));
+		for(ModelDelta<String> delta : deltas) {
+			replica.applyDelta(delta);
+			lateReplica.applyDelta(delta);
+		}
+		
+		assertSameCounts(replica, primary);
+		assertSameCounts(lateReplica, primary);
+	}
+	
+	@Test
+	public void testChainedReplicasThroughFile() throws IOException {
+		replica.startChangeTracking();
+		BayesianModel<String> secondReplica = copy(replica);
+		
+		primary.addDataRow(createMockRow("sports", "team", "lost"));
+		primary.removeCategory("food");
+		File deltaFile = folder.newFile("deltas.bin");
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(deltaFile));
+		for(ModelDelta<String> delta : primary.exportDeltas()) {
+			delta.writeTo(output, new StringCategoryCodec());
+		}
+		output.close();
+		
+		InputStream input = new BufferedInputStream(new FileInputStream(deltaFile));
+		replica.applyDelta(ModelDelta.readFrom(input, new StringCategoryCodec()));
+		input.close();
+		for(ModelDelta<String> delta : replica.exportDeltas()) {
+			secondReplica.applyDelta(delta);
+		}
+		
+		assertSameCounts(secondReplica, primary);
+		assertThat(secondReplica.getVersion(), is(primary.getVersion()));
+	}
+	
+	private BayesianModel<String> copy(BayesianModel<String> source) throws IOException {
+		ModelSnapshot<String> snapshot = source.beginSnapshot();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(bytes, new StringCategoryCodec());
+		snapshot.writeTo(writer);
+		writer.close();
+		snapshot.close();
+		
+		return BayesianModel.readSnapshot(new ModelSnapshotReader<String>(new ByteArrayInputStream(bytes.toByteArray()), new StringCategoryCodec()));
+	}
+	
+	private ModelDelta<String> encodeAndDecode(ModelDelta<String> delta) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		delta.writeTo(bytes, new StringCategoryCodec());
+		
+		return ModelDelta.readFrom(new ByteArrayInputStream(bytes.toByteArray()), new StringCategoryCodec());
+	}
+	
+	private void assertSameCounts(BayesianModel<String> actual, BayesianModel<String> expected) {
+		assertThat(actual.getTotalRows(), is(expected.getTotalRows()));
+		assertThat(actual.getUniqueCategories(), is(expected.getUniqueCategories()));
+		assertThat(actual.getUniqueWords(), is(expected.getUniqueWords()));
+		for(String category : expected.getUniqueCategories()) {
+			assertThat(actual.countRowsWithCategory(category), is(expected.countRowsWithCategory(category)));
+			assertThat(actual.countTokensWithCategory(category), is(expected.countTokensWithCategory(category)));
+			for(String word : expected.getUniqueWords()) {
+				assertThat(actual.countRowsWithCategoryWithWord(category, word), is(expected.countRowsWithCategoryWithWord(category, word)));
+			}
+		}
+		for(String word : expected.getUniqueWords()) {
+			assertThat(actual.countRowsWithWord(word), is(expected.countRowsWithWord(word)));
+		}
+	}
+	
+	private IDataRow<String> createMockRow(String category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = (IDataRow<String>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		when(mockRow.getSentenceWords()).thenReturn(Arrays.asList(words));
+		
+		return mockRow;
+	}
+}
@@ -0,0 +1,195 @@
+package com.nickferraro.bayesian.model.hashed;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IBayesianListener;
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.io.ModelSnapshotReader;
+import com.nickferraro.bayesian.model.io.ModelSnapshotWriter;
+import com.nickferraro.bayesian.model.io.StringCategoryCodec;
+
+public class ModelSnapshotTest {
+	private BayesianModel<String> bayesianModel;
+	
+	@Before
+	public void setup() {
+		bayesianModel = new BayesianModel<String>();
+		bayesianModel.addDataRow(createMockRow("sports", "team", "game", "won"));
+		bayesianModel.addDataRow(createMockRow("sports", "team", "lost"));
+		bayesianModel.addDataRow(createMockRow("food", "soup", "hot", "won"));
+		bayesianModel.addWord("unlinked");
+	}
+	
+	@Test
+	public void testRoundTrip() throws IOException {
+		ModelSnapshot<String> snapshot = bayesianModel.beginSnapshot();
+		BayesianModel<String> restored = roundTrip(snapshot);
+		snapshot.close();
+		
+		assertSameCounts(restored, bayesianModel);
+		assertThat(restored.getSizeReport().getHapaxWords(), is(bayesianModel.getSizeReport().getHapaxWords()));
+		assertThat(restored.getSizeReport().getLinks(), is(bayesianModel.getSizeReport().getLinks()));
+	}
+	
+	@Test
+	public void testPointInTime() throws IOException {
+		// Keep a copy of the model as it is when the snapshot starts
+		ModelSnapshot<String> expectedSnapshot = bayesianModel.beginSnapshot();
+		BayesianModel<String> expected = roundTrip(expectedSnapshot);
+		expectedSnapshot.close();
+		
+		ModelSnapshot<String> snapshot = bayesianModel.beginSnapshot();
+		assertThat(snapshot.getWordCount(), is(7));
+		
+		// Train and remove while the snapshot is open
+		bayesianModel.addDataRow(createMockRow("sports", "team", "new"));
+		bayesianModel.addDataRow(createMockRow("weather", "hot", "rain"));
+		bayesianModel.removeCategory("food");
+		assertTrue(snapshot.getPreservedWordCount() >= 4);
+		
+		BayesianModel<String> restored = roundTrip(snapshot);
+		snapshot.close();
+		
+		assertSameCounts(restored, expected);
+		assertThat(restored.getUniqueCategories().contains("weather"), is(false));
+		assertThat(restored.countRowsWithCategoryWithWord("food", "soup"), is(1));
+		assertThat(restored.countRowsWithWord("team"), is(2));
+	}
+	
+	@Test
+	public void testRemovedBeforeSnapshot() throws IOException {
+		// Removed word nodes are taken out of the word order right away
+		bayesianModel.removeCategory("food");
+		ModelSnapshot<String> snapshot = bayesianModel.beginSnapshot();
+		assertThat(snapshot.getWordCount(), is(5));
+		
+		BayesianModel<String> restored = roundTrip(snapshot);
+		snapshot.close();
+		
+		assertSameCounts(restored, bayesianModel);
+	}
+	
+	@Test
+	public void testReAddedWhileOpen() throws IOException {
+		ModelSnapshot<String> expectedSnapshot = bayesianModel.beginSnapshot();
+		BayesianModel<String> expected = roundTrip(expectedSnapshot);
+		expectedSnapshot.close();
+		
+		// Remove and add back words and categories, and compact in between
+		ModelSnapshot<String> snapshot = bayesianModel.beginSnapshot();
+		bayesianModel.removeCategory("food");
+		bayesianModel.compact();
+		bayesianModel.addDataRow(createMockRow("food", "soup", "cold"));
+		bayesianModel.addDataRow(createMockRow("food", "soup"));
+		
+		BayesianModel<String> restored = roundTrip(snapshot);
+		snapshot.close();
+		
+		assertSameCounts(restored, expected);
+		assertThat(restored.countRowsWithCategory("food"), is(1));
+		assertThat(restored.countRowsWithCategoryWithWord("food", "hot"), is(1));
+		
+		// Closing the snapshot drops the word nodes removed while it was open
+		snapshot = bayesianModel.beginSnapshot();
+		restored = roundTrip(snapshot);
+		snapshot.close();
+		assertSameCounts(restored, bayesianModel);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testOneSnapshotAtATime() {
+		bayesianModel.beginSnapshot();
+		bayesianModel.beginSnapshot();
+	}
+	
+	@Test
+	public void testClose() {
+		ModelSnapshot<String> snapshot = bayesianModel.beginSnapshot();
+		snapshot.close();
+		
+		// Closed snapshots stop preserving words and allow a new snapshot
+		bayesianModel.addDataRow(createMockRow("sports", "team"));
+		assertThat(snapshot.getPreservedWordCount(), is(0));
+		bayesianModel.beginSnapshot().close();
+	}
+	
+	@Test
+	public void testListener() throws IOException {
+		IBayesianListener listener = mock(IBayesianListener.class);
+		bayesianModel.setListener(listener);
+		
+		ModelSnapshot<String> snapshot = bayesianModel.beginSnapshot();
+		verify(listener).snapshotTaken(eq(7), eq(snapshot.getFreezeNanos()));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(bytes, new StringCategoryCodec());
+		snapshot.writeTo(writer);
+		writer.close();
+		snapshot.close();
+		verify(listener).snapshotWritten(eq(7), anyLong());
+		
+		IBayesianListener restoredListener = mock(IBayesianListener.class);
+		BayesianModel<String> restored = BayesianModel.readSnapshot(new ModelSnapshotReader<String>(new ByteArrayInputStream(bytes.toByteArray()), 
+				new StringCategoryCodec()), restoredListener);
+		verify(restoredListener).snapshotRead(eq(7), anyLong());
+		assertThat(restored.getListener(), is(restoredListener));
+		assertSameCounts(restored, bayesianModel);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testWriteClosed() throws IOException {
+		ModelSnapshot<String> snapshot = bayesianModel.beginSnapshot();
+		snapshot.close();
+		
+		snapshot.writeTo(new ModelSnapshotWriter<String>(new ByteArrayOutputStream(), new StringCategoryCodec()));
+	}
+	
+	private BayesianModel<String> roundTrip(ModelSnapshot<String> snapshot) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(bytes, new StringCategoryCodec());
+		snapshot.writeTo(writer);
+		writer.close();
+		
+		return BayesianModel.readSnapshot(new ModelSnapshotReader<String>(new ByteArrayInputStream(bytes.toByteArray()), new StringCategoryCodec()));
+	}
+	
+	private void assertSameCounts(BayesianModel<String> actual, BayesianModel<String> expected) {
+		assertThat(actual.getMode(), is(expected.getMode()));
+		assertThat(actual.getTotalRows(), is(expected.getTotalRows()));
+		assertThat(actual.getUniqueCategories(), is(expected.getUniqueCategories()));
+		assertThat(actual.getUniqueWords(), is(expected.getUniqueWords()));
+		for(String category : expected.getUniqueCategories()) {
+			assertThat(actual.countRowsWithCategory(category), is(expected.countRowsWithCategory(category)));
+			assertThat(actual.countTokensWithCategory(category), is(expected.countTokensWithCategory(category)));
+			for(String word : expected.getUniqueWords()) {
+				assertThat(actual.countRowsWithCategoryWithWord(category, word), is(expected.countRowsWithCategoryWithWord(category, word)));
+			}
+		}
+		for(String word : expected.getUniqueWords()) {
+			assertThat(actual.countRowsWithWord(word), is(expected.countRowsWithWord(word)));
+		}
+	}
+	
+	private IDataRow<String> createMockRow(String category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = (IDataRow<String>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		
+		return mockRow;
+	}
+}
@@ -0,0 +1,128 @@
+package com.nickferraro.bayesian.model.hashed.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.security.InvalidParameterException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AdaptiveLinkMapTest {
+	private final AdaptiveLinkMap<String, Integer> map = new AdaptiveLinkMap<String, Integer>();
+	
+	@Test
+	public void testEmpty() {
+		assertThat(map.size(), is(0));
+		assertThat(map.get("a"), is(nullValue()));
+		assertThat(map.remove("a"), is(nullValue()));
+		assertThat(map.keySet().isEmpty(), is(true));
+		assertThat(map.values().isEmpty(), is(true));
+	}
+	
+	@Test
+	public void testSingleLink() {
+		assertThat(map.put("a", 1), is(nullValue()));
+		assertThat(map.put("a", 2), is(1));
+		
+		assertThat(map.size(), is(1));
+		assertThat(map.get("a"), is(2));
+		assertThat(map.get("b"), is(nullValue()));
+		assertThat(map.keySet().iterator().next(), is("a"));
+		assertThat(map.values().iterator().next(), is(2));
+		assertThat(map.remove("b"), is(nullValue()));
+		assertThat(map.remove("a"), is(2));
+		assertThat(map.size(), is(0));
+	}
+	
+	@Test
+	public void testGrowAndShrink() {
+		// Grow through every layout and back down again
+		for(int i = 0; i < 40; ++i) {
+			assertThat(map.put("word" + i, i), is(nullValue()));
+			assertThat(map.size(), is(i + 1));
+			for(int j = 0; j <= i; ++j) {
+				assertThat(map.get("word" + j), is(j));
+			}
+		}
+		for(int i = 39; i >= 0; --i) {
+			assertThat(map.remove("word" + i), is(i));
+			assertThat(map.size(), is(i));
+			assertThat(map.get("word" + i), is(nullValue()));
+			for(int j = 0; j < i; ++j) {
+				assertThat(map.get("word" + j), is(j));
+			}
+		}
+	}
+	
+	@Test
+	public void testEqualHashCodes() {
+		// "Aa" and "BB" share a hash code
+		assertThat("Aa".hashCode(), is("BB".hashCode()));
+		map.put("Aa", 1);
+		map.put("BB", 2);
+		map.put("C", 3);
+		
+		assertThat(map.get("Aa"), is(1));
+		assertThat(map.get("BB"), is(2));
+		assertThat(map.remove("Aa"), is(1));
+		assertThat(map.get("BB"), is(2));
+		assertThat(map.get("Aa"), is(nullValue()));
+	}
+	
+	@Test
+	public void testMatchesHashMap() {
+		Random random = new Random(42);
+		Map<String, Integer> expected = new HashMap<String, Integer>();
+		for(int step = 0; step < 5000; ++step) {
+			String key = "k" + random.nextInt(24);
+			if( random.nextInt(3) == 0 ) {
+				assertThat(map.remove(key), is(expected.remove(key)));
+			} else {
+				assertThat(map.put(key, step), is(expected.put(key, step)));
+			}
+			
+			assertThat(map.size(), is(expected.size()));
+			assertThat(new HashSet<String>(map.keySet()), is(expected.keySet()));
+			assertThat(new HashSet<Integer>(map.values()), is(new HashSet<Integer>(expected.values())));
+		}
+	}
+	
+	@Test
+	public void testKeySetContains() {
+		map.put("a", 1);
+		map.put("b", 2);
+		
+		assertThat(map.keySet().contains("b"), is(true));
+		assertThat(map.keySet().contains("c"), is(false));
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testViewsAreReadOnly() {
+		map.put("a", 1);
+		Iterator<String> keys = map.keySet().iterator();
+		keys.next();
+		keys.remove();
+	}
+	
+	@Test(expected=InvalidParameterException.class)
+	public void testPutNullKey() {
+		map.put(null, 1);
+	}
+	
+	@Test
+	public void testEstimateBytes() {
+		// A single link costs no more than an empty map, and small maps stay well under a hash map
+		assertThat(AdaptiveLinkMap.estimateBytes(1), is(AdaptiveLinkMap.estimateBytes(0)));
+		for(int size = 1; size < 100; ++size) {
+			assertTrue(AdaptiveLinkMap.estimateBytes(size + 1) >= AdaptiveLinkMap.estimateBytes(size));
+		}
+		assertTrue(AdaptiveLinkMap.estimateBytes(AdaptiveLinkMap.ARRAY_MAX) < AdaptiveLinkMap.estimateBytes(AdaptiveLinkMap.ARRAY_MAX + 1) / 2);
+	}
+}
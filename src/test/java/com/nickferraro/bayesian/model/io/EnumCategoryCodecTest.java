@@ -0,0 +1,31 @@
+package com.nickferraro.bayesian.model.io;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Test;
+
+import com.nickferraro.bayesian.model.ModelMode;
+
+public class EnumCategoryCodecTest {
+	private final EnumCategoryCodec<ModelMode> codec = new EnumCategoryCodec<ModelMode>(ModelMode.class);
+	
+	@Test
+	public void testRoundTrip() {
+		for(ModelMode mode : ModelMode.values()) {
+			assertThat(codec.decode(codec.encode(mode)), is(mode));
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownValue() {
+		codec.decode("UNKNOWN");
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNullClass() {
+		new EnumCategoryCodec<ModelMode>(null);
+	}
+}
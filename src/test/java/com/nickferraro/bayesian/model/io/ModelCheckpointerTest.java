@@ -0,0 +1,116 @@
+package com.nickferraro.bayesian.model.io;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+
+public class ModelCheckpointerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private BayesianModel<String> bayesianModel;
+	private File file;
+	private ModelCheckpointer<String> checkpointer;
+	
+	@Before
+	public void setup() {
+		bayesianModel = new BayesianModel<String>();
+		bayesianModel.addDataRow(createMockRow("sports", "team", "game"));
+		file = new File(folder.getRoot(), "model.snapshot");
+		checkpointer = new ModelCheckpointer<String>(bayesianModel, new StringCategoryCodec(), file);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNullModel() {
+		new ModelCheckpointer<String>(null, new StringCategoryCodec(), file);
+	}
+	
+	@Test
+	public void testCheckpoint() throws IOException {
+		checkpointer.checkpoint();
+		bayesianModel.addDataRow(createMockRow("food", "soup"));
+		checkpointer.checkpoint();
+		
+		assertThat(checkpointer.getCheckpointCount(), is(2L));
+		assertThat(checkpointer.getLastFailure(), is(nullValue()));
+		assertTrue(checkpointer.getLastDurationNanos() >= checkpointer.getLastFreezeNanos());
+		assertFalse(new File(file.getPath() + ".tmp").exists());
+		
+		BayesianModel<String> restored = read();
+		assertThat(restored.getTotalRows(), is(2));
+		assertThat(restored.countRowsWithCategoryWithWord("food", "soup"), is(1));
+	}
+	
+	@Test
+	public void testFailure() {
+		File missing = new File(new File(folder.getRoot(), "missing"), "model.snapshot");
+		ModelCheckpointer<String> failing = new ModelCheckpointer<String>(bayesianModel, new StringCategoryCodec(), missing);
+		
+		try {
+			failing.checkpoint();
+		} catch(IOException e) {
+			assertThat(failing.getLastFailure(), is(e));
+		}
+		assertThat(failing.getCheckpointCount(), is(0L));
+		
+		// The failed checkpoint closed its snapshot
+		bayesianModel.beginSnapshot().close();
+	}
+	
+	@Test
+	public void testBackground() throws Exception {
+		checkpointer.start(5);
+		assertTrue(checkpointer.isRunning());
+		
+		// Keep training while checkpoints are written
+		long deadline = System.currentTimeMillis() + 5000;
+		int rows = 0;
+		while( checkpointer.getCheckpointCount() < 3 && System.currentTimeMillis() < deadline ) {
+			bayesianModel.addDataRow(createMockRow("c" + (rows % 3), "w" + rows, "common"));
+			++rows;
+		}
+		checkpointer.stop();
+		
+		assertFalse(checkpointer.isRunning());
+		assertTrue(checkpointer.getCheckpointCount() >= 3);
+		BayesianModel<String> restored = read();
+		assertThat(restored.countRowsWithWord("team"), is(1));
+		assertTrue(restored.getTotalRows() <= bayesianModel.getTotalRows());
+	}
+	
+	private BayesianModel<String> read() throws IOException {
+		ModelSnapshotReader<String> reader = new ModelSnapshotReader<String>(new FileInputStream(file), new StringCategoryCodec());
+		try {
+			return BayesianModel.readSnapshot(reader);
+		} finally {
+			reader.close();
+		}
+	}
+	
+	private IDataRow<String> createMockRow(String category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = (IDataRow<String>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		
+		return mockRow;
+	}
+}
@@ -0,0 +1,68 @@
+package com.nickferraro.bayesian.model.io;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ModelDeltaTest {
+	@Test
+	public void testRoundTrip() throws IOException {
+		ModelDelta<String> delta = new ModelDelta<String>(4, 9, 2, Arrays.asList("gone"), Arrays.asList("x", "y"), new int[] { 2, 0 },
+				new int[] { 5, -1 }, Arrays.asList(new SnapshotWord("alpha", -3, new int[] { 1, 0 }, new int[] { 1, 200 })));
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		delta.writeTo(bytes, new StringCategoryCodec());
+		delta.writeTo(bytes, new StringCategoryCodec());
+		
+		ByteArrayInputStream input = new ByteArrayInputStream(bytes.toByteArray());
+		for(int i = 0; i < 2; ++i) {
+			ModelDelta<String> read = ModelDelta.readFrom(input, new StringCategoryCodec());
+			assertThat(read.getFromVersion(), is(4L));
+			assertThat(read.getToVersion(), is(9L));
+			assertThat(read.getTotalRows(), is(2));
+			assertThat(read.getRemovedCategories(), is(Arrays.asList("gone")));
+			assertThat(read.getCategories(), is(Arrays.asList("x", "y")));
+			assertThat(read.getCategoryRows(0), is(2));
+			assertThat(read.getCategoryTokens(1), is(-1));
+			assertThat(read.getWords().size(), is(1));
+			assertThat(read.getWords().get(0).getWord(), is("alpha"));
+			assertThat(read.getWords().get(0).getCount(), is(-3));
+			assertThat(read.getWords().get(0).getCategoryIndex(0), is(1));
+			assertThat(read.getWords().get(0).getWeight(1), is(200));
+		}
+		assertThat(input.available(), is(0));
+	}
+	
+	@Test
+	public void testEmpty() {
+		ModelDelta<String> delta = new ModelDelta<String>(1, 1, 0, Collections.<String>emptyList(), Collections.<String>emptyList(), new int[0],
+				new int[0], Collections.<SnapshotWord>emptyList());
+		
+		assertThat(delta.isEmpty(), is(true));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testVersionsOutOfOrder() {
+		new ModelDelta<String>(2, 1, 0, Collections.<String>emptyList(), Collections.<String>emptyList(), new int[0], new int[0],
+				Collections.<SnapshotWord>emptyList());
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testUnknownCategoryIndex() {
+		new ModelDelta<String>(1, 2, 0, Collections.<String>emptyList(), Arrays.asList("x"), new int[1], new int[1],
+				Arrays.asList(new SnapshotWord("alpha", 1, new int[] { 1 }, new int[] { 1 })));
+	}
+	
+	@Test(expected = IOException.class)
+	public void testNotADelta() throws IOException {
+		ModelDelta.readFrom(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5 }), new StringCategoryCodec());
+	}
+}
@@ -0,0 +1,152 @@
+package com.nickferraro.bayesian.model.io;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+import com.nickferraro.bayesian.model.hashed.ModelSnapshot;
+
+public class ModelMergerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void testMergeMatchesSingleModel() throws IOException {
+		assertMergeMatchesSingleModel(ModelMode.BERNOULLI);
+	}
+	
+	@Test
+	public void testMergeMultinomial() throws IOException {
+		assertMergeMatchesSingleModel(ModelMode.MULTINOMIAL);
+	}
+	
+	@Test
+	public void testMergeSingleInput() throws IOException {
+		BayesianModel<String> model = new BayesianModel<String>();
+		model.addDataRow(createMockRow("sports", "team", "won"));
+		File output = folder.newFile("merged.snapshot");
+		
+		long words = new ModelMerger<String>(new StringCategoryCodec()).merge(Arrays.asList(write(model, "only.snapshot")), output);
+		
+		assertThat(words, is(2L));
+		assertSameCounts(read(output), model);
+	}
+	
+	@Test(expected = IOException.class)
+	public void testModeMismatch() throws IOException {
+		BayesianModel<String> bernoulli = new BayesianModel<String>(ModelMode.BERNOULLI);
+		BayesianModel<String> multinomial = new BayesianModel<String>(ModelMode.MULTINOMIAL);
+		
+		new ModelMerger<String>(new StringCategoryCodec()).merge(Arrays.asList(write(bernoulli, "a.snapshot"), write(multinomial, "b.snapshot")), 
+				folder.newFile("merged.snapshot"));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNoInputs() throws IOException {
+		new ModelMerger<String>(new StringCategoryCodec()).merge(Collections.<File>emptyList(), folder.newFile("merged.snapshot"));
+	}
+	
+	private void assertMergeMatchesSingleModel(ModelMode mode) throws IOException {
+		@SuppressWarnings("unchecked")
+		List<IDataRow<String>> rows = Arrays.asList(
+				createMockRow("sports", "team", "game", "won", "won"),
+				createMockRow("sports", "team", "lost"),
+				createMockRow("food", "soup", "hot", "won"),
+				createMockRow("weather", "hot", "rain", "rain"),
+				createMockRow("food", "apple", "pie"),
+				createMockRow("sports", "apple", "team"),
+				createMockRow("weather", "zephyr"));
+		
+		// Split the rows round robin across three partial models
+		BayesianModel<String> single = new BayesianModel<String>(mode);
+		List<BayesianModel<String>> parts = new ArrayList<BayesianModel<String>>();
+		for(int i = 0; i < 3; ++i) {
+			parts.add(new BayesianModel<String>(mode));
+		}
+		for(int i = 0; i < rows.size(); ++i) {
+			single.addDataRow(rows.get(i));
+			parts.get(i % 3).addDataRow(rows.get(i));
+		}
+		parts.get(1).addWord("unlinked");
+		single.addWord("unlinked");
+		
+		List<File> inputs = new ArrayList<File>();
+		for(int i = 0; i < parts.size(); ++i) {
+			inputs.add(write(parts.get(i), "part" + i + ".snapshot"));
+		}
+		File output = folder.newFile("merged.snapshot");
+		long words = new ModelMerger<String>(new StringCategoryCodec()).merge(inputs, output);
+		
+		BayesianModel<String> merged = read(output);
+		assertThat(words, is((long)single.getUniqueWords().size()));
+		assertThat(merged.getMode(), is(mode));
+		assertSameCounts(merged, single);
+		assertThat(merged.getSizeReport().getLinks(), is(single.getSizeReport().getLinks()));
+		assertThat(merged.getSizeReport().getHapaxWords(), is(single.getSizeReport().getHapaxWords()));
+	}
+	
+	private File write(BayesianModel<String> model, String name) throws IOException {
+		File file = folder.newFile(name);
+		ModelSnapshot<String> snapshot = model.beginSnapshot();
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(new FileOutputStream(file), new StringCategoryCodec());
+		snapshot.writeTo(writer);
+		writer.close();
+		snapshot.close();
+		
+		return file;
+	}
+	
+	private BayesianModel<String> read(File file) throws IOException {
+		ModelSnapshotReader<String> reader = new ModelSnapshotReader<String>(new FileInputStream(file), new StringCategoryCodec());
+		try {
+			return BayesianModel.readSnapshot(reader);
+		} finally {
+			reader.close();
+		}
+	}
+	
+	private void assertSameCounts(BayesianModel<String> actual, BayesianModel<String> expected) {
+		assertThat(actual.getTotalRows(), is(expected.getTotalRows()));
+		assertThat(actual.getUniqueCategories(), is(expected.getUniqueCategories()));
+		assertThat(actual.getUniqueWords(), is(expected.getUniqueWords()));
+		for(String category : expected.getUniqueCategories()) {
+			assertThat(actual.countRowsWithCategory(category), is(expected.countRowsWithCategory(category)));
+			assertThat(actual.countTokensWithCategory(category), is(expected.countTokensWithCategory(category)));
+			for(String word : expected.getUniqueWords()) {
+				assertThat(actual.countRowsWithCategoryWithWord(category, word), is(expected.countRowsWithCategoryWithWord(category, word)));
+			}
+		}
+		for(String word : expected.getUniqueWords()) {
+			assertThat(actual.countRowsWithWord(word), is(expected.countRowsWithWord(word)));
+		}
+	}
+	
+	private IDataRow<String> createMockRow(String category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = (IDataRow<String>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		when(mockRow.getSentenceWords()).thenReturn(Arrays.asList(words));
+		
+		return mockRow;
+	}
+}
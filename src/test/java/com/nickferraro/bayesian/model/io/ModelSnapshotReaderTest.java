@@ -0,0 +1,72 @@
+package com.nickferraro.bayesian.model.io;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.nickferraro.bayesian.model.ModelMode;
+
+public class ModelSnapshotReaderTest {
+	@Test
+	public void testRead() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(bytes, new StringCategoryCodec());
+		writer.writeHeader(ModelMode.MULTINOMIAL, 3, Arrays.asList("x", "y"), new int[] { 1, 2 }, new int[] { 4, 5 });
+		writer.writeWord(new SnapshotWord("alpha", 2, new int[] { 0, 1 }, new int[] { 1, 1 }));
+		writer.writeWord(new SnapshotWord("beta", 0, new int[0], new int[0]));
+		writer.close();
+		
+		ModelSnapshotReader<String> reader = new ModelSnapshotReader<String>(new ByteArrayInputStream(bytes.toByteArray()), new StringCategoryCodec());
+		assertThat(reader.getMode(), is(ModelMode.MULTINOMIAL));
+		assertThat(reader.getTotalRows(), is(3));
+		assertThat(reader.getCategories(), is(Arrays.asList("x", "y")));
+		assertThat(reader.getCategoryRows(1), is(2));
+		assertThat(reader.getCategoryTokens(0), is(4));
+		
+		SnapshotWord word = reader.nextWord();
+		assertThat(word.getWord(), is("alpha"));
+		assertThat(word.getCount(), is(2));
+		assertThat(word.getLinkCount(), is(2));
+		assertThat(word.getCategoryIndex(1), is(1));
+		assertThat(word.getWeight(0), is(1));
+		assertThat(reader.nextWord().getLinkCount(), is(0));
+		assertThat(reader.nextWord(), is(nullValue()));
+		assertThat(reader.nextWord(), is(nullValue()));
+		reader.close();
+	}
+	
+	@Test
+	public void testModelVersion() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(bytes, new StringCategoryCodec());
+		writer.writeHeader(ModelMode.BERNOULLI, 42, 0, Arrays.<String>asList(), new int[0], new int[0]);
+		writer.close();
+		
+		ModelSnapshotReader<String> reader = new ModelSnapshotReader<String>(new ByteArrayInputStream(bytes.toByteArray()), new StringCategoryCodec());
+		assertThat(reader.getModelVersion(), is(42L));
+		assertThat(reader.nextWord(), is(nullValue()));
+		reader.close();
+	}
+	
+	@Test(expected = IOException.class)
+	public void testNotASnapshot() throws IOException {
+		new ModelSnapshotReader<String>(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }), new StringCategoryCodec());
+	}
+	
+	@Test(expected = IOException.class)
+	public void testUnknownCategory() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(bytes, new StringCategoryCodec());
+		writer.writeHeader(ModelMode.BERNOULLI, 1, Arrays.asList("MISSING"), new int[] { 1 }, new int[] { 1 });
+		writer.close();
+		
+		new ModelSnapshotReader<ModelMode>(new ByteArrayInputStream(bytes.toByteArray()), new EnumCategoryCodec<ModelMode>(ModelMode.class));
+	}
+}
@@ -0,0 +1,70 @@
+package com.nickferraro.bayesian.model.io;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nickferraro.bayesian.model.ModelMode;
+
+public class ModelSnapshotWriterTest {
+	private ByteArrayOutputStream bytes;
+	private ModelSnapshotWriter<String> writer;
+	
+	@Before
+	public void setup() {
+		bytes = new ByteArrayOutputStream();
+		writer = new ModelSnapshotWriter<String>(bytes, new StringCategoryCodec());
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNullStream() {
+		new ModelSnapshotWriter<String>(null, new StringCategoryCodec());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testWordBeforeHeader() throws IOException {
+		writer.writeWord(new SnapshotWord("a", 1, new int[0], new int[0]));
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testHeaderTwice() throws IOException {
+		writeHeader();
+		writeHeader();
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testWordsOutOfOrder() throws IOException {
+		writeHeader();
+		writer.writeWord(new SnapshotWord("b", 1, new int[0], new int[0]));
+		writer.writeWord(new SnapshotWord("a", 1, new int[0], new int[0]));
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testUnknownCategoryIndex() throws IOException {
+		writeHeader();
+		writer.writeWord(new SnapshotWord("a", 1, new int[] { 2 }, new int[] { 1 }));
+	}
+	
+	@Test
+	public void testFinish() throws IOException {
+		writeHeader();
+		writer.writeWord(new SnapshotWord("a", 1, new int[] { 1 }, new int[] { 1 }));
+		writer.finish();
+		int size = bytes.size();
+		writer.close();
+		
+		// Closing a finished writer does not write a second end marker
+		assertThat(bytes.size(), is(size));
+	}
+	
+	private void writeHeader() throws IOException {
+		writer.writeHeader(ModelMode.BERNOULLI, 3, Arrays.asList("x", "y"), new int[] { 1, 2 }, new int[] { 4, 5 });
+	}
+}
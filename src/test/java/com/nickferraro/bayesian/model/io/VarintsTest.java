@@ -0,0 +1,51 @@
+package com.nickferraro.bayesian.model.io;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class VarintsTest {
+	@Test
+	public void testRoundTrip() throws IOException {
+		long[] values = { 0, 1, 127, 128, 300, Integer.MAX_VALUE, Long.MAX_VALUE, -1, -64, -65, Integer.MIN_VALUE, Long.MIN_VALUE };
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		for(long value : values) {
+			Varints.writeSigned(output, value);
+			Varints.writeUnsigned(output, value);
+		}
+		
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for(long value : values) {
+			assertThat(Varints.readSigned(input), is(value));
+			assertThat(Varints.readUnsigned(input), is(value));
+		}
+	}
+	
+	@Test
+	public void testSmallValuesUseOneByte() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		Varints.writeUnsigned(output, 127);
+		Varints.writeSigned(output, -64);
+		Varints.writeSigned(output, 63);
+		
+		assertThat(bytes.size(), is(3));
+	}
+	
+	@Test(expected = IOException.class)
+	public void testIntOutOfRange() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Varints.writeUnsigned(new DataOutputStream(bytes), 1L << 40);
+		
+		Varints.readUnsignedInt(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+}
@@ -0,0 +1,356 @@
+package com.nickferraro.bayesian.model.offheap;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IBayesianListener;
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.CategoryIndex;
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.ModelSizeReport;
+
+public class OffHeapBayesianModelTest {
+	private enum TestCategory {
+		CATEGORY1,
+		CATEGORY2,
+		CATEGORY3
+	}
+	
+	private OffHeapBayesianModel<TestCategory> bayesianModel = null;
+	
+	@Before
+	public void setup() {
+		bayesianModel = new OffHeapBayesianModel<TestCategory>();
+	}
+	
+	@Test
+	public void testInitialization() {
+		assertThat(bayesianModel.getTotalRows(), is(0));
+		assertThat(bayesianModel.getUniqueCategories().size(), is(0));
+		assertThat(bayesianModel.getUniqueWords().size(), is(0));
+	}
+	
+	@Test
+	public void testAddingCategory() {
+		assertTrue(bayesianModel.addCategory(TestCategory.CATEGORY1));
+		assertFalse(bayesianModel.addCategory(TestCategory.CATEGORY1));
+		assertFalse(bayesianModel.addCategory(null));
+		assertThat(bayesianModel.getUniqueCategories(), hasItem(TestCategory.CATEGORY1));
+		assertThat(bayesianModel.getTotalRows(), is(0));
+	}
+	
+	@Test
+	public void testAddingWords() {
+		assertThat(bayesianModel.addWords(Arrays.asList("a", "b", "a", null)), is(2));
+		assertThat(bayesianModel.getUniqueWords().size(), is(2));
+		assertThat(bayesianModel.countRowsWithWord("a"), is(0));
+	}
+	
+	@Test
+	public void testAddingNullDataRow() {
+		assertFalse(bayesianModel.addDataRow(null));
+		assertThat(bayesianModel.getTotalRows(), is(0));
+	}
+	
+	@Test
+	public void testAddingDataRow_NullUniqueWords() {
+		IDataRow<TestCategory> mockRow = createMockRow(TestCategory.CATEGORY1, "a");
+		when(mockRow.getUniqueSentenceWords()).thenReturn(null);
+		assertFalse(bayesianModel.addDataRow(mockRow));
+		assertThat(bayesianModel.getTotalRows(), is(0));
+	}
+	
+	@Test
+	public void testUniqueCategories_Snapshot() {
+		bayesianModel.addCategories(Arrays.asList(TestCategory.CATEGORY2, TestCategory.CATEGORY1));
+		Set<TestCategory> categories = bayesianModel.getUniqueCategories();
+		bayesianModel.removeCategory(TestCategory.CATEGORY2);
+		
+		assertThat(Arrays.asList(categories.toArray()), is(Arrays.<Object>asList(TestCategory.CATEGORY2, TestCategory.CATEGORY1)));
+		assertThat(Arrays.asList(bayesianModel.getUniqueCategories().toArray()), is(Arrays.<Object>asList(TestCategory.CATEGORY1)));
+	}
+	
+	@Test
+	public void testUniqueCategories_ManyCategories() {
+		OffHeapBayesianModel<Integer> manyModel = new OffHeapBayesianModel<Integer>();
+		List<Integer> removed = new ArrayList<Integer>();
+		for(int i = 0; i < 400; ++i) {
+			manyModel.addCategory(i);
+			if( i % 2 == 0 ) {
+				removed.add(i);
+			}
+		}
+		manyModel.removeCategories(removed);
+		
+		CategoryIndex<Integer> categories = (CategoryIndex<Integer>)manyModel.getUniqueCategories();
+		assertThat(categories.size(), is(200));
+		for(int i = 0; i < 200; ++i) {
+			assertThat(categories.get(i), is(i * 2 + 1));
+			assertThat(categories.indexOf(i * 2 + 1), is(i));
+			assertThat(categories.indexOf(i * 2), is(-1));
+		}
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testUniqueCategories_CannotRemove() {
+		bayesianModel.addCategory(TestCategory.CATEGORY1);
+		bayesianModel.getUniqueCategories().remove(TestCategory.CATEGORY1);
+	}
+	
+	@Test
+	public void testCounts() {
+		assumeThat(bayesianModel.addDataRows(createDataRows()), is(3));
+		assertThat(bayesianModel.getTotalRows(), is(3));
+		assertThat(bayesianModel.getUniqueCategories().size(), is(2));
+		assertThat(bayesianModel.getUniqueWords().size(), is(5));
+		assertThat(bayesianModel.countRowsWithCategory(TestCategory.CATEGORY1), is(2));
+		assertThat(bayesianModel.countRowsWithCategory(TestCategory.CATEGORY3), is(0));
+		assertThat(bayesianModel.countRowsWithCategory(null), is(0));
+		assertThat(bayesianModel.countRowsWithWord("a"), is(2));
+		assertThat(bayesianModel.countRowsWithWord("z"), is(0));
+		assertThat(bayesianModel.countRowsWithWord(null), is(0));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "a"), is(1));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "b"), is(2));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "a"), is(1));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "b"), is(0));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY3, "a"), is(0));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(null, "a"), is(0));
+	}
+	
+	@Test
+	public void testRemoveCategory() {
+		assumeThat(bayesianModel.addDataRows(createDataRows()), is(3));
+		assertThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(TestCategory.CATEGORY1));
+		assertThat(bayesianModel.getTotalRows(), is(1));
+		assertThat(bayesianModel.getUniqueCategories().size(), is(1));
+		assertThat(bayesianModel.getUniqueWords().size(), is(2));
+		assertThat(bayesianModel.countRowsWithWord("a"), is(1));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "b"), is(0));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "d"), is(1));
+	}
+	
+	@Test
+	public void testRemoveCategory_NullAndUnused() {
+		assertThat(bayesianModel.removeCategory(null), is(nullValue()));
+		assertThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(nullValue()));
+	}
+	
+	@Test
+	public void testRemoveCategories() {
+		assumeThat(bayesianModel.addDataRows(createDataRows()), is(3));
+		List<TestCategory> removed = bayesianModel.removeCategories(Arrays.asList(TestCategory.CATEGORY1, TestCategory.CATEGORY2, TestCategory.CATEGORY3));
+		assertThat(removed.size(), is(2));
+		assertThat(bayesianModel.getTotalRows(), is(0));
+		assertThat(bayesianModel.getUniqueWords().size(), is(0));
+	}
+	
+	@Test
+	public void testRemoveCategories_AfterCompact() {
+		assumeThat(bayesianModel.addDataRows(createDataRows()), is(3));
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY3, "a", "f")), is(true));
+		bayesianModel.removeCategory(TestCategory.CATEGORY2);
+		bayesianModel.compact();
+		
+		// Link counts move with the renumbered categories, so the remaining links are still found
+		List<TestCategory> removed = bayesianModel.removeCategories(Arrays.asList(TestCategory.CATEGORY3, TestCategory.CATEGORY1));
+		assertThat(removed, is(Arrays.asList(TestCategory.CATEGORY3, TestCategory.CATEGORY1)));
+		assertThat(bayesianModel.getTotalRows(), is(0));
+		assertThat(bayesianModel.getUniqueWords().size(), is(0));
+		assertThat(bayesianModel.getSizeReport().getLinks(), is(0));
+	}
+	
+	@Test
+	public void testGetSizeReport() {
+		assumeThat(bayesianModel.addDataRows(createDataRows()), is(3));
+		
+		ModelSizeReport report = bayesianModel.getSizeReport();
+		assertThat(report.getWords(), is(5));
+		assertThat(report.getCategories(), is(2));
+		assertThat(report.getLinks(), is(6));
+		assertThat(report.getHapaxWords(), is(2));
+		assertThat(report.getLinkBytes(), is(0L));
+		assertTrue(report.getOffHeapBytes() > 0);
+	}
+	
+	@Test
+	public void testMightContainWord() {
+		assumeThat(bayesianModel.addDataRows(createDataRows()), is(3));
+		assumeThat(bayesianModel.addWord("unlinked"), is(true));
+		for(String word : Arrays.asList("a", "b", "c", "d", "e", "unlinked")) {
+			assertTrue(bayesianModel.mightContainWord(word));
+		}
+		assertFalse(bayesianModel.mightContainWord("missing"));
+		
+		for(int i = 0; i < 5000; ++i) {
+			bayesianModel.addWord("word" + i);
+		}
+		assertTrue(bayesianModel.mightContainWord("a"));
+		assertTrue(bayesianModel.mightContainWord("word4999"));
+	}
+	
+	@Test
+	public void testCompact() {
+		for(int i = 0; i < 2000; ++i) {
+			assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "removed" + i, "shared")), is(true));
+		}
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY2, "kept", "shared")), is(true));
+		assumeThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(TestCategory.CATEGORY1));
+		ModelSizeReport before = bayesianModel.getSizeReport();
+		assertThat(bayesianModel.getRemovedEntries(), is(2001));
+		
+		assertTrue(bayesianModel.compact() > 0);
+		
+		ModelSizeReport after = bayesianModel.getSizeReport();
+		assertTrue(after.getOffHeapBytes() < before.getOffHeapBytes());
+		assertTrue(after.getVocabularyBytes() < before.getVocabularyBytes());
+		assertThat(after.getWords(), is(2));
+		assertThat(after.getLinks(), is(2));
+		assertThat(bayesianModel.getRemovedEntries(), is(0));
+		assertThat(bayesianModel.getTotalRows(), is(1));
+		assertThat(bayesianModel.getUniqueCategories().size(), is(1));
+		assertThat(bayesianModel.countRowsWithCategory(TestCategory.CATEGORY2), is(1));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "kept"), is(1));
+		assertThat(bayesianModel.countRowsWithWord("shared"), is(1));
+		assertThat(bayesianModel.countRowsWithWord("removed0"), is(0));
+		assertFalse(bayesianModel.mightContainWord("removed0"));
+		
+		// Training continues on the renumbered storage
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "shared", "new")), is(true));
+		assertThat(bayesianModel.countRowsWithWord("shared"), is(2));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "new"), is(1));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY2, "new"), is(0));
+	}
+	
+	@Test
+	public void testCompact_ConcurrentReaders() throws InterruptedException {
+		assumeThat(bayesianModel.addDataRows(createDataRows()), is(3));
+		final AtomicBoolean running = new AtomicBoolean(true);
+		final AtomicInteger wrongReads = new AtomicInteger(0);
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while( running.get() ) {
+					if( bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "b") != 2 || bayesianModel.countRowsWithWord("a") != 2 ) {
+						wrongReads.incrementAndGet();
+					}
+				}
+			}
+		});
+		reader.start();
+		
+		for(int i = 0; i < 200; ++i) {
+			bayesianModel.addWord("temporary" + i);
+			bayesianModel.compact();
+		}
+		running.set(false);
+		reader.join();
+		
+		assertThat(wrongReads.get(), is(0));
+	}
+	
+	@Test
+	public void testListener_Training() {
+		IBayesianListener listener = mock(IBayesianListener.class);
+		bayesianModel.setListener(listener);
+		assertThat(bayesianModel.getListener(), is(listener));
+		
+		assertThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "alpha", "beta")), is(true));
+		verify(listener).trained(eq(1), eq(2), eq(2), anyLong(), anyLong());
+		
+		// The second batch reuses one word and links it to a new category
+		@SuppressWarnings("unchecked")
+		List<IDataRow<TestCategory>> dataRows = Arrays.asList(createMockRow(TestCategory.CATEGORY2, "alpha", "gamma"), null);
+		assertThat(bayesianModel.addDataRows(dataRows), is(1));
+		verify(listener).trained(eq(1), eq(1), eq(2), anyLong(), anyLong());
+		assertThat(bayesianModel.countRowsWithWord("alpha"), is(2));
+	}
+	
+	@Test
+	public void testListener_Compact() {
+		assumeThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "alpha", "beta")), is(true));
+		assumeThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(TestCategory.CATEGORY1));
+		IBayesianListener listener = mock(IBayesianListener.class);
+		bayesianModel.setListener(listener);
+		
+		long releasedBytes = bayesianModel.compact();
+		
+		verify(listener).compacted(eq(3), eq(releasedBytes), anyLong());
+	}
+	
+	@Test
+	public void testListener_Removed() {
+		IBayesianListener listener = mock(IBayesianListener.class);
+		bayesianModel.setListener(listener);
+		bayesianModel.setListener(null);
+		
+		assertThat(bayesianModel.addDataRow(createMockRow(TestCategory.CATEGORY1, "alpha")), is(true));
+		bayesianModel.compact();
+		verifyZeroInteractions(listener);
+	}
+	
+	@Test
+	public void testMultinomialMode() {
+		bayesianModel = new OffHeapBayesianModel<TestCategory>(ModelMode.MULTINOMIAL);
+		@SuppressWarnings("unchecked")
+		List<IDataRow<TestCategory>> dataRows = Arrays.asList(
+				createMockSentenceRow(TestCategory.CATEGORY1, "a", "b", "a", "a"),
+				createMockSentenceRow(TestCategory.CATEGORY2, "a", "d"),
+				createMockSentenceRow(TestCategory.CATEGORY1, "b", "e"));
+		assumeThat(bayesianModel.addDataRows(dataRows), is(3));
+		assertThat(bayesianModel.getMode(), is(ModelMode.MULTINOMIAL));
+		assertThat(bayesianModel.countTokensWithCategory(TestCategory.CATEGORY1), is(6));
+		assertThat(bayesianModel.countTokensWithCategory(TestCategory.CATEGORY2), is(2));
+		assertThat(bayesianModel.countRowsWithCategoryWithWord(TestCategory.CATEGORY1, "a"), is(3));
+		assertThat(bayesianModel.countRowsWithWord("a"), is(4));
+		
+		assertThat(bayesianModel.removeCategory(TestCategory.CATEGORY1), is(TestCategory.CATEGORY1));
+		assertThat(bayesianModel.countRowsWithWord("a"), is(1));
+		assertThat(bayesianModel.countTokensWithCategory(TestCategory.CATEGORY1), is(0));
+	}
+	
+	@SuppressWarnings("unchecked")
+	private List<IDataRow<TestCategory>> createDataRows() {
+		return Arrays.asList(
+				createMockRow(TestCategory.CATEGORY1, "a", "b", "c"),
+				createMockRow(TestCategory.CATEGORY2, "a", "d"),
+				createMockRow(TestCategory.CATEGORY1, "b", "c", "e"));
+	}
+	
+	private IDataRow<TestCategory> createMockSentenceRow(TestCategory category, String...words) {
+		IDataRow<TestCategory> mockRow = createMockRow(category, words);
+		when(mockRow.getSentenceWords()).thenReturn(Arrays.asList(words));
+		
+		return mockRow;
+	}
+	
+	private IDataRow<TestCategory> createMockRow(TestCategory category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<TestCategory> mockRow = (IDataRow<TestCategory>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		
+		return mockRow;
+	}
+}
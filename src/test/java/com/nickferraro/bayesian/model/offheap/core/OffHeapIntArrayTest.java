@@ -0,0 +1,52 @@
+package com.nickferraro.bayesian.model.offheap.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapIntArrayTest {
+	private OffHeapIntArray array;
+	
+	@Before
+	public void setup() {
+		array = new OffHeapIntArray(4);
+	}
+	
+	@Test
+	public void testUnwrittenValues() {
+		assertThat(array.get(0), is(0));
+		assertThat(array.get(1000), is(0));
+	}
+	
+	@Test
+	public void testGetSet() {
+		array.set(2, 7);
+		assertThat(array.get(2), is(7));
+	}
+	
+	@Test
+	public void testAdd() {
+		assertThat(array.add(1, 3), is(3));
+		assertThat(array.add(1, -1), is(2));
+		assertThat(array.get(1), is(2));
+	}
+	
+	@Test
+	public void testGrowthKeepsValues() {
+		array.set(3, 5);
+		array.set(100, 9);
+		assertThat(array.getCapacity() >= 101, is(true));
+		assertThat(array.get(3), is(5));
+		assertThat(array.get(100), is(9));
+		assertThat(array.getBytes(), is(array.getCapacity() * 4L));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testInvalidCapacity() {
+		new OffHeapIntArray(0);
+	}
+}
@@ -0,0 +1,96 @@
+package com.nickferraro.bayesian.model.offheap.core;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OffHeapLinkTableTest {
+	private OffHeapLinkTable table;
+	
+	@Before
+	public void setup() {
+		table = new OffHeapLinkTable(4);
+	}
+	
+	@Test
+	public void testInitialization() {
+		assertThat(table.size(), is(0));
+		assertThat(table.getCapacity(), is(4));
+		assertThat(table.get(0, 0), is(0));
+	}
+	
+	@Test
+	public void testCapacityRoundedToPowerOfTwo() {
+		assertThat(new OffHeapLinkTable(5).getCapacity(), is(8));
+	}
+	
+	@Test
+	public void testAdd() {
+		assertThat(table.add(1, 2, 1), is(1));
+		assertThat(table.add(1, 2, 4), is(5));
+		assertThat(table.get(1, 2), is(5));
+		assertThat(table.get(2, 1), is(0));
+		assertThat(table.size(), is(1));
+	}
+	
+	@Test
+	public void testGrowth() {
+		for(int categoryId = 0; categoryId < 20; ++categoryId) {
+			for(int wordId = 0; wordId < 50; ++wordId) {
+				table.add(categoryId, wordId, categoryId + wordId + 1);
+			}
+		}
+		
+		assertThat(table.size(), is(1000));
+		for(int categoryId = 0; categoryId < 20; ++categoryId) {
+			for(int wordId = 0; wordId < 50; ++wordId) {
+				assertThat(table.get(categoryId, wordId), is(categoryId + wordId + 1));
+			}
+		}
+	}
+	
+	@Test
+	public void testRemove() {
+		for(int wordId = 0; wordId < 100; ++wordId) {
+			table.add(wordId % 3, wordId, wordId + 1);
+		}
+		
+		// Remove every category 1 link and check that shifted entries are still reachable
+		for(int wordId = 1; wordId < 100; wordId += 3) {
+			assertThat(table.remove(1, wordId), is(wordId + 1));
+		}
+		assertThat(table.remove(1, 1), is(0));
+		
+		assertThat(table.size(), is(67));
+		for(int wordId = 0; wordId < 100; ++wordId) {
+			assertThat(table.get(wordId % 3, wordId), is(wordId % 3 == 1 ? 0 : wordId + 1));
+		}
+	}
+	
+	@Test
+	public void testSlotScan() {
+		table.add(3, 4, 5);
+		
+		int found = 0;
+		for(int slot = 0; slot < table.getCapacity(); ++slot) {
+			if( !table.isEmpty(slot) ) {
+				assertThat(table.getCategoryIdAt(slot), is(3));
+				assertThat(table.getWordIdAt(slot), is(4));
+				assertThat(table.getWeightAt(slot), is(5));
+				++found;
+			} else {
+				assertThat(table.getCategoryIdAt(slot), is(-1));
+			}
+		}
+		assertThat(found, is(1));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testInvalidCapacity() {
+		new OffHeapLinkTable(0);
+	}
+}
@@ -0,0 +1,135 @@
+package com.nickferraro.bayesian.model.vocabulary;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ArenaVocabularyTest {
+	private ArenaVocabulary vocabulary;
+	
+	@Before
+	public void setup() {
+		vocabulary = new ArenaVocabulary();
+	}
+	
+	@Test
+	public void testInitialization() {
+		assertThat(vocabulary.size(), is(0));
+		assertThat(vocabulary.getIdLimit(), is(0));
+		assertThat(vocabulary.getId("test"), is(-1));
+		assertThat(vocabulary.getId(null), is(-1));
+		assertThat(vocabulary.getWord(0), is(nullValue()));
+	}
+	
+	@Test
+	public void testAdd() {
+		assertThat(vocabulary.add("alpha"), is(0));
+		assertThat(vocabulary.add("beta"), is(1));
+		assertThat(vocabulary.add("alpha"), is(0));
+		assertThat(vocabulary.size(), is(2));
+		assertThat(vocabulary.getArenaSize(), is(9));
+	}
+	
+	@Test
+	public void testLookupFromCharSequence() {
+		vocabulary.add("http://example.com/a");
+		StringBuilder builder = new StringBuilder("http://example.com/");
+		builder.append('a');
+		assertThat(vocabulary.getId(builder), is(0));
+		builder.append('b');
+		assertThat(vocabulary.getId(builder), is(-1));
+	}
+	
+	@Test
+	public void testMultiByteWords() {
+		String[] words = { "caf\u00e9", "\u65e5\u672c", "\ud83d\ude00smile", "plain" };
+		for(int i = 0; i < words.length; ++i) {
+			assertThat(vocabulary.add(words[i]), is(i));
+		}
+		for(int i = 0; i < words.length; ++i) {
+			assertThat(vocabulary.getId(words[i]), is(i));
+			assertThat(vocabulary.getWord(i), is(words[i]));
+		}
+		assertThat(vocabulary.getId("cafe"), is(-1));
+	}
+	
+	@Test
+	public void testPrefixesAreDistinct() {
+		vocabulary.add("abc");
+		vocabulary.add("ab");
+		vocabulary.add("abcd");
+		assertThat(vocabulary.getId("ab"), is(1));
+		assertThat(vocabulary.getId("abc"), is(0));
+		assertThat(vocabulary.getId("abcd"), is(2));
+		assertThat(vocabulary.getId("a"), is(-1));
+	}
+	
+	@Test
+	public void testGrowth() {
+		for(int i = 0; i < 5000; ++i) {
+			assertThat(vocabulary.add("#tag" + i), is(i));
+		}
+		for(int i = 0; i < 5000; ++i) {
+			assertThat(vocabulary.getId("#tag" + i), is(i));
+		}
+		assertThat(vocabulary.size(), is(5000));
+	}
+	
+	@Test
+	public void testRemove() {
+		for(int i = 0; i < 200; ++i) {
+			vocabulary.add("w" + i);
+		}
+		for(int i = 0; i < 200; i += 2) {
+			assertTrue(vocabulary.remove(i));
+		}
+		assertFalse(vocabulary.remove(0));
+		assertFalse(vocabulary.remove(1000));
+		
+		assertThat(vocabulary.size(), is(100));
+		for(int i = 0; i < 200; ++i) {
+			assertThat(vocabulary.getId("w" + i), is(i % 2 == 0 ? -1 : i));
+			assertThat(vocabulary.contains(i), is(i % 2 != 0));
+		}
+		
+		// Removed ids are never reused
+		assertThat(vocabulary.add("w0"), is(200));
+	}
+	
+	@Test
+	public void testAsSet() {
+		vocabulary.add("a");
+		vocabulary.add("b");
+		vocabulary.add("c");
+		vocabulary.remove(1);
+		
+		Set<String> words = vocabulary.asSet();
+		assertThat(words.size(), is(2));
+		assertTrue(words.contains("a"));
+		assertFalse(words.contains("b"));
+		assertFalse(words.contains(null));
+		
+		Set<String> copy = new HashSet<String>(words);
+		assertThat(copy.size(), is(2));
+		assertThat(copy, hasItem("c"));
+	}
+	
+	@Test
+	public void testAsSet_LiveView() {
+		Set<String> words = vocabulary.asSet();
+		vocabulary.add("a");
+		
+		assertThat(words.size(), is(1));
+		assertTrue(words.contains("a"));
+		assertTrue(vocabulary.asSet() == words);
+	}
+}
@@ -0,0 +1,179 @@
+package com.nickferraro.bayesian.server;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.core.Classification;
+import com.nickferraro.bayesian.core.SentenceInput;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+
+public class ClassificationServerTest {
+	private ClassificationServer<String> server;
+	
+	@Before
+	public void setup() throws IOException {
+		BayesianModel<String> bayesianModel = new BayesianModel<String>();
+		bayesianModel.addDataRow(createRow("sports", "the team won the game"));
+		bayesianModel.addDataRow(createRow("sports", "a great game for the team"));
+		bayesianModel.addDataRow(createRow("food", "the soup was hot"));
+		bayesianModel.addDataRow(createRow("food", "a great soup and bread"));
+		
+		server = new ClassificationServer<String>(new BayesianSystem<String>(bayesianModel));
+		server.setBatchWindowMillis(5);
+		server.start();
+	}
+	
+	@After
+	public void teardown() {
+		server.stop();
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNullSystem() {
+		new ClassificationServer<String>(null);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testConfigureRunning() {
+		server.setMaxBatchSize(2);
+	}
+	
+	@Test
+	public void testHealth() throws IOException {
+		HttpURLConnection connection = open("/health");
+		
+		assertThat(connection.getResponseCode(), is(200));
+		assertThat(read(connection.getInputStream()), is("{\"status\":\"UP\"}"));
+	}
+	
+	@Test
+	public void testClassify() throws IOException {
+		HttpURLConnection connection = post("the team game");
+		
+		assertThat(connection.getResponseCode(), is(200));
+		assertTrue(read(connection.getInputStream()).startsWith("[{\"category\":\"sports\",\"probability\":"));
+	}
+	
+	@Test
+	public void testClassify_Get() throws IOException {
+		assertThat(open("/classify").getResponseCode(), is(405));
+	}
+	
+	@Test
+	public void testClassify_Empty() throws IOException {
+		assertThat(post(" ").getResponseCode(), is(400));
+	}
+	
+	@Test
+	public void testConcurrentClassify() throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> responses = new ArrayList<Future<String>>();
+			for(int i = 0; i < 32; ++i) {
+				final String sentence = ( i % 2 == 0 ? "hot soup" : "team game" );
+				responses.add(clients.submit(new Callable<String>() {
+					@Override
+					public String call() throws IOException {
+						return read(post(sentence).getInputStream());
+					}
+				}));
+			}
+			for(int i = 0; i < responses.size(); ++i) {
+				String expected = ( i % 2 == 0 ? "food" : "sports" );
+				assertThat(responses.get(i).get(), containsString("[{\"category\":\"" + expected + "\""));
+			}
+		} finally {
+			clients.shutdown();
+		}
+		
+		assertThat(server.getMetrics().getRequests(), is(32L));
+		assertTrue(server.getMetrics().getBatches() <= 32L);
+		
+		HttpURLConnection connection = open("/metrics");
+		assertThat(connection.getResponseCode(), is(200));
+		assertThat(read(connection.getInputStream()), containsString("bayesian_requests_total 32\n"));
+	}
+	
+	@Test
+	public void testStop() throws IOException {
+		server.stop();
+		
+		assertThat(server.isRunning(), is(false));
+		server.setMaxBatchSize(2);
+		server.start();
+		assertThat(open("/health").getResponseCode(), is(200));
+	}
+	
+	@Test
+	public void testToJson() {
+		List<IClassification<String>> classifications = new ArrayList<IClassification<String>>();
+		classifications.add(new Classification<String>("a\"b\\c\n", 0.5d));
+		classifications.add(new Classification<String>("d", 0.25d));
+		
+		assertThat(ClassificationServer.toJson(classifications),
+				is("[{\"category\":\"a\\\"b\\\\c\\u000a\",\"probability\":0.5},{\"category\":\"d\",\"probability\":0.25}]"));
+	}
+	
+	private HttpURLConnection open(String path) throws IOException {
+		return (HttpURLConnection)new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+	}
+	
+	private HttpURLConnection post(String sentence) throws IOException {
+		HttpURLConnection connection = open("/classify");
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		OutputStream outputStream = connection.getOutputStream();
+		outputStream.write(sentence.getBytes("UTF-8"));
+		outputStream.close();
+		
+		return connection;
+	}
+	
+	private static String read(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int read;
+		while( (read = inputStream.read(buffer)) != -1 ) {
+			bytes.write(buffer, 0, read);
+		}
+		inputStream.close();
+		
+		return new String(bytes.toByteArray(), "UTF-8");
+	}
+	
+	private IDataRow<String> createRow(String category, String sentence) {
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = (IDataRow<String>)mock(IDataRow.class);
+		SentenceInput sentenceInput = new SentenceInput(sentence);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getSentenceWords()).thenReturn(sentenceInput.getSentenceWords());
+		when(mockRow.getUniqueSentenceWords()).thenReturn(sentenceInput.getUniqueSentenceWords());
+		
+		return mockRow;
+	}
+}
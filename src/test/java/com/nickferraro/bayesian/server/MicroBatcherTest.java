@@ -0,0 +1,136 @@
+package com.nickferraro.bayesian.server;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.nickferraro.bayesian.IBayesianSystem;
+import com.nickferraro.bayesian.IClassification;
+import com.nickferraro.bayesian.ISentenceInput;
+import com.nickferraro.bayesian.core.Classification;
+import com.nickferraro.bayesian.core.SentenceInput;
+
+public class MicroBatcherTest {
+	private IBayesianSystem<String> mockSystem;
+	private ServerMetrics metrics;
+	private MicroBatcher<String> batcher;
+	
+	@SuppressWarnings("unchecked")
+	@Before
+	public void setup() {
+		mockSystem = (IBayesianSystem<String>)mock(IBayesianSystem.class);
+		metrics = new ServerMetrics();
+		
+		// Classify every sentence as its own first word
+		when(mockSystem.classifyRows(anyListOf(ISentenceInput.class), anyInt())).thenAnswer(new Answer<List<List<IClassification<String>>>>() {
+			@Override
+			public List<List<IClassification<String>>> answer(InvocationOnMock invocation) {
+				List<ISentenceInput> sentenceInputs = (List<ISentenceInput>)invocation.getArguments()[0];
+				List<List<IClassification<String>>> results = new ArrayList<List<IClassification<String>>>();
+				for(ISentenceInput sentenceInput : sentenceInputs) {
+					IClassification<String> classification = new Classification<String>(sentenceInput.getSentenceWords().get(0), 1.0d);
+					results.add(Collections.singletonList(classification));
+				}
+				return results;
+			}
+		});
+	}
+	
+	@After
+	public void teardown() throws InterruptedException {
+		if( batcher != null ) {
+			batcher.stop();
+		}
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testNullSystem() {
+		new MicroBatcher<String>(null, 1, 1, 1, metrics);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testInvalidBatchSize() {
+		new MicroBatcher<String>(mockSystem, 1, 0, 1, metrics);
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void testSubmit_NotRunning() {
+		new MicroBatcher<String>(mockSystem, 1, 1, 1, metrics).submit(new SentenceInput("a"));
+	}
+	
+	@Test
+	public void testSubmit() throws Exception {
+		batcher = new MicroBatcher<String>(mockSystem, 0, 8, -1, metrics);
+		batcher.start();
+		
+		List<IClassification<String>> classifications = batcher.submit(new SentenceInput("alpha beta")).get(5, TimeUnit.SECONDS);
+		
+		assertThat(classifications.get(0).getCategory(), is("alpha"));
+		assertThat(metrics.getRequests(), is(1L));
+		assertThat(metrics.getBatches(), is(1L));
+	}
+	
+	@Test
+	public void testCoalescesRequests() throws Exception {
+		// A long window with a full batch of queued requests must score them together
+		batcher = new MicroBatcher<String>(mockSystem, 10000, 4, -1, metrics);
+		batcher.start();
+		
+		List<Future<List<IClassification<String>>>> futures = new ArrayList<Future<List<IClassification<String>>>>();
+		for(int i = 0; i < 4; ++i) {
+			futures.add(batcher.submit(new SentenceInput("w" + i)));
+		}
+		for(int i = 0; i < 4; ++i) {
+			assertThat(futures.get(i).get(5, TimeUnit.SECONDS).get(0).getCategory(), is("w" + i));
+		}
+		
+		assertThat(metrics.getBatches(), is(1L));
+		assertThat(metrics.getMaxBatchSize(), is(4L));
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testFailure() throws Exception {
+		when(mockSystem.classifyRows(anyListOf(ISentenceInput.class), anyInt())).thenThrow(new IllegalArgumentException("broken"));
+		batcher = new MicroBatcher<String>(mockSystem, 0, 8, -1, metrics);
+		batcher.start();
+		
+		try {
+			batcher.submit(new SentenceInput("a")).get(5, TimeUnit.SECONDS);
+			fail("Expected the batch to fail");
+		} catch(ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+		assertThat(metrics.getErrors(), is(1L));
+	}
+	
+	@Test
+	public void testStop() throws Exception {
+		batcher = new MicroBatcher<String>(mockSystem, 0, 8, -1, metrics);
+		batcher.start();
+		assertTrue(batcher.isRunning());
+		
+		batcher.stop();
+		
+		assertThat(batcher.isRunning(), is(false));
+	}
+}
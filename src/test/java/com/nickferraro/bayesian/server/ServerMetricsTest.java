@@ -0,0 +1,40 @@
+package com.nickferraro.bayesian.server;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ServerMetricsTest {
+	@Test
+	public void testInitialization() {
+		ServerMetrics metrics = new ServerMetrics();
+		
+		assertThat(metrics.getRequests(), is(0L));
+		assertThat(metrics.getBatches(), is(0L));
+		assertEquals(0.0d, metrics.getAverageBatchSize(), 0.0d);
+		assertEquals(0.0d, metrics.getAverageLatencyNanos(), 0.0d);
+	}
+	
+	@Test
+	public void testRecord() {
+		ServerMetrics metrics = new ServerMetrics();
+		metrics.recordBatch(3);
+		metrics.recordBatch(1);
+		metrics.recordRequest(100);
+		metrics.recordRequest(300);
+		metrics.recordError();
+		
+		assertThat(metrics.getBatches(), is(2L));
+		assertThat(metrics.getBatchedRequests(), is(4L));
+		assertThat(metrics.getMaxBatchSize(), is(3L));
+		assertEquals(2.0d, metrics.getAverageBatchSize(), 0.0d);
+		assertThat(metrics.getRequests(), is(2L));
+		assertThat(metrics.getErrors(), is(1L));
+		assertThat(metrics.getMaxLatencyNanos(), is(300L));
+		assertEquals(200.0d, metrics.getAverageLatencyNanos(), 0.0d);
+		assertThat(metrics.toText(), containsString("bayesian_batches_total 2\n"));
+	}
+}
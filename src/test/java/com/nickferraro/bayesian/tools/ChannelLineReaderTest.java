@@ -0,0 +1,46 @@
+package com.nickferraro.bayesian.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public class ChannelLineReaderTest {
+	@Test
+	public void testReadLines() throws IOException {
+		ChannelLineReader reader = createReader("first\nsecond\r\n\nlast", 4);
+		
+		assertThat(reader.readLine(), is("first"));
+		assertThat(reader.readLine(), is("second"));
+		assertThat(reader.readLine(), is(""));
+		assertThat(reader.readLine(), is("last"));
+		assertThat(reader.readLine(), is(nullValue()));
+		assertThat(reader.readLine(), is(nullValue()));
+	}
+	
+	@Test
+	public void testMultiByteCharactersAcrossBuffers() throws IOException {
+		String line = "caf\u00e9 \u00fcber \u4e2d\u6587";
+		ChannelLineReader reader = createReader(line + "\n" + line + "\n", 3);
+		
+		assertThat(reader.readLine(), is(line));
+		assertThat(reader.readLine(), is(line));
+		assertThat(reader.readLine(), is(nullValue()));
+	}
+	
+	@Test
+	public void testEmptyInput() throws IOException {
+		assertThat(createReader("", 16).readLine(), is(nullValue()));
+	}
+	
+	private ChannelLineReader createReader(String text, int bufferSize) {
+		byte[] bytes = text.getBytes(Charset.forName("UTF-8"));
+		return new ChannelLineReader(Channels.newChannel(new ByteArrayInputStream(bytes)), bufferSize);
+	}
+}
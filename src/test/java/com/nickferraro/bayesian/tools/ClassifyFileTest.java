@@ -0,0 +1,103 @@
+package com.nickferraro.bayesian.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+import com.nickferraro.bayesian.model.hashed.ModelSnapshot;
+import com.nickferraro.bayesian.model.io.ModelSnapshotWriter;
+import com.nickferraro.bayesian.model.io.StringCategoryCodec;
+
+public class ClassifyFileTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private ByteArrayOutputStream err = new ByteArrayOutputStream();
+	
+	@Test
+	public void testClassifyJsonLines() throws IOException {
+		File model = writeModel();
+		File input = writeFile("input.jsonl", "{\"body\":\"won the game\"}\n{\"body\":\"hot soup\"}\n");
+		File output = new File(folder.getRoot(), "output.jsonl");
+		
+		assertThat(run("--format", "jsonl", "--field", "body", "--threads", "2", "--top", "2", model.getPath(), input.getPath(), output.getPath()), 
+				is(ClassifyFile.EXIT_OK));
+		
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(output), "UTF-8"));
+		assertThat(reader.readLine().startsWith("[{\"category\":\"sports\""), is(true));
+		assertThat(reader.readLine().startsWith("[{\"category\":\"food\""), is(true));
+		reader.close();
+	}
+	
+	@Test
+	public void testUsage() {
+		assertThat(run("--threads", "0", "a", "b", "c"), is(ClassifyFile.EXIT_USAGE));
+		assertThat(run("--format", "xml", "a", "b", "c"), is(ClassifyFile.EXIT_USAGE));
+		assertThat(run("a", "b"), is(ClassifyFile.EXIT_USAGE));
+	}
+	
+	@Test
+	public void testMissingModel() throws IOException {
+		File input = writeFile("input.tsv", "team\n");
+		
+		assertThat(run(new File(folder.getRoot(), "missing.snapshot").getPath(), input.getPath(), new File(folder.getRoot(), "out.tsv").getPath()), 
+				is(ClassifyFile.EXIT_FAILED));
+	}
+	
+	private int run(String...args) {
+		return ClassifyFile.run(args, new PrintStream(out), new PrintStream(err));
+	}
+	
+	private File writeModel() throws IOException {
+		BayesianModel<String> bayesianModel = new BayesianModel<String>();
+		bayesianModel.addDataRow(createMockRow("sports", "team", "game", "won"));
+		bayesianModel.addDataRow(createMockRow("food", "soup", "hot"));
+		
+		File file = folder.newFile("model.snapshot");
+		ModelSnapshot<String> snapshot = bayesianModel.beginSnapshot();
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(new FileOutputStream(file), new StringCategoryCodec());
+		snapshot.writeTo(writer);
+		writer.close();
+		snapshot.close();
+		
+		return file;
+	}
+	
+	private File writeFile(String name, String text) throws IOException {
+		File file = folder.newFile(name);
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write(text);
+		writer.close();
+		
+		return file;
+	}
+	
+	private IDataRow<String> createMockRow(String category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = (IDataRow<String>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		
+		return mockRow;
+	}
+}
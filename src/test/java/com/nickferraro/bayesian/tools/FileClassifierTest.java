@@ -0,0 +1,136 @@
+package com.nickferraro.bayesian.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.security.InvalidParameterException;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.internal.util.collections.Sets;
+
+import com.nickferraro.bayesian.IBayesianSystem;
+import com.nickferraro.bayesian.IDataRow;
+import com.nickferraro.bayesian.core.SentenceInput;
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+
+public class FileClassifierTest {
+	private BayesianSystem<String> bayesianSystem;
+	
+	@Before
+	public void setup() {
+		BayesianModel<String> bayesianModel = new BayesianModel<String>();
+		bayesianModel.addDataRow(createMockRow("sports", "team", "game", "won"));
+		bayesianModel.addDataRow(createMockRow("sports", "team", "lost"));
+		bayesianModel.addDataRow(createMockRow("food", "soup", "hot"));
+		bayesianModel.addDataRow(createMockRow("food", "apple", "pie"));
+		bayesianSystem = new BayesianSystem<String>(bayesianModel);
+	}
+	
+	@Test
+	public void testTsvKeepsInputOrder() throws IOException, InterruptedException {
+		StringBuilder input = new StringBuilder();
+		for(int i = 0; i < 500; ++i) {
+			input.append("id").append(i).append('\t').append(( i % 2 == 0 ? "Team game" : "hot SOUP" )).append('\n');
+		}
+		
+		FileClassifier<String> classifier = new FileClassifier<String>(bayesianSystem, FileClassifier.Format.TSV);
+		classifier.setThreads(4);
+		classifier.setChunkLines(7);
+		classifier.setBufferSize(64);
+		String[] lines = classify(classifier, input.toString(), 500);
+		
+		for(int i = 0; i < 500; ++i) {
+			String[] columns = lines[i].split("\t");
+			assertThat(columns.length, is(3));
+			assertThat(columns[0], is("id" + i));
+			assertThat(columns[1], is(( i % 2 == 0 ? "sports" : "food" )));
+		}
+	}
+	
+	@Test
+	public void testTsvWithoutKeyAndAllResults() throws IOException, InterruptedException {
+		FileClassifier<String> classifier = new FileClassifier<String>(bayesianSystem, FileClassifier.Format.TSV);
+		classifier.setMaxResults(0);
+		String[] lines = classify(classifier, "apple pie\n", 1);
+		
+		String[] columns = lines[0].split("\t");
+		assertThat(columns.length, is(4));
+		assertThat(columns[0], is("food"));
+		assertThat(columns[2], is("sports"));
+	}
+	
+	@Test
+	public void testJsonLines() throws IOException, InterruptedException {
+		FileClassifier<String> classifier = new FileClassifier<String>(bayesianSystem, FileClassifier.Format.JSONL);
+		String[] lines = classify(classifier, "{\"id\":[1,{\"x\":\"}\"}],\"text\":\"team \\\"game\\\"\"}\n{\"text\": \"soup\"}\n{\"other\":1}\n", 3);
+		
+		assertThat(lines[0].startsWith("[{\"category\":\"sports\""), is(true));
+		assertThat(lines[1].startsWith("[{\"category\":\"food\""), is(true));
+		assertThat(lines[2].startsWith("[{\"category\":"), is(true));
+	}
+	
+	@Test
+	public void testJsonStringField() {
+		assertThat(FileClassifier.jsonStringField("{\"a\": 12 , \"text\" : \"caf\\u00e9\\n\"}", "text"), is("caf\u00e9\n"));
+		assertThat(FileClassifier.jsonStringField("{\"a\":{\"text\":\"inner\"},\"b\":true}", "text"), is(nullValue()));
+		assertThat(FileClassifier.jsonStringField("{\"text\":5}", "text"), is(nullValue()));
+		assertThat(FileClassifier.jsonStringField("not json", "text"), is(nullValue()));
+		assertThat(FileClassifier.jsonStringField("{}", "text"), is(nullValue()));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testInvalidThreads() {
+		new FileClassifier<String>(bayesianSystem, FileClassifier.Format.TSV).setThreads(0);
+	}
+	
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testWorkerFailureKeepsCause() throws InterruptedException {
+		IllegalStateException failure = new IllegalStateException("model failed");
+		IBayesianSystem<String> failingSystem = mock(IBayesianSystem.class);
+		when(failingSystem.classifyRows(anyListOf(SentenceInput.class), anyInt())).thenThrow(failure);
+		FileClassifier<String> classifier = new FileClassifier<String>(failingSystem, FileClassifier.Format.TSV);
+		classifier.setThreads(2);
+		
+		try {
+			classify(classifier, "id\tteam game\n", 1);
+			fail("Expected the worker failure to be rethrown");
+		} catch(IOException e) {
+			assertThat(e.getCause(), is((Throwable)failure));
+		}
+	}
+	
+	private String[] classify(FileClassifier<String> classifier, String input, int expectedLines) throws IOException, InterruptedException {
+		StringWriter output = new StringWriter();
+		long count = classifier.classify(Channels.newChannel(new ByteArrayInputStream(input.getBytes(Charset.forName("UTF-8")))), output);
+		
+		assertThat(count, is((long)expectedLines));
+		String[] lines = output.toString().split("\n", -1);
+		assertThat(lines.length, is(expectedLines + 1));
+		assertThat(lines[expectedLines], is(""));
+		return Arrays.copyOf(lines, expectedLines);
+	}
+	
+	private IDataRow<String> createMockRow(String category, String...words) {
+		@SuppressWarnings("unchecked")
+		IDataRow<String> mockRow = (IDataRow<String>)mock(IDataRow.class);
+		when(mockRow.getCategory()).thenReturn(category);
+		when(mockRow.getUniqueSentenceWords()).thenReturn(Sets.newSet(words));
+		
+		return mockRow;
+	}
+}
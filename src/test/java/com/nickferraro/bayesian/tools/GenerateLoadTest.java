@@ -0,0 +1,45 @@
+package com.nickferraro.bayesian.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+public class GenerateLoadTest {
+	private ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private ByteArrayOutputStream err = new ByteArrayOutputStream();
+	
+	@Test
+	public void testRun() {
+		assertThat(run("--model", "offheap", "--classifiers", "1", "--trainers", "1", "--duration", "0.2", "--vocabulary", "200",
+				"--categories", "3", "--warm-up", "50"), is(GenerateLoad.EXIT_OK));
+		
+		String report = out.toString();
+		assertTrue(report.startsWith("model offheap"));
+		assertTrue(report.contains("classify_threads 1"));
+		assertTrue(report.contains("classify_latency_p99_micros "));
+		assertTrue(report.contains("train_lock_wait_ms "));
+	}
+	
+	@Test
+	public void testUnknownOption() {
+		assertThat(run("--bogus", "1"), is(GenerateLoad.EXIT_USAGE));
+		assertTrue(err.toString().contains("Usage"));
+	}
+	
+	@Test
+	public void testInvalidValue() {
+		assertThat(run("--classifiers", "-1"), is(GenerateLoad.EXIT_USAGE));
+		assertThat(run("--model", "tree"), is(GenerateLoad.EXIT_USAGE));
+		assertThat(run("--duration"), is(GenerateLoad.EXIT_USAGE));
+		assertThat(run("stray"), is(GenerateLoad.EXIT_USAGE));
+	}
+	
+	private int run(String... args) {
+		return GenerateLoad.run(args, new PrintStream(out), new PrintStream(err));
+	}
+}
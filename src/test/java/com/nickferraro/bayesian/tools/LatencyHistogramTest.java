@@ -0,0 +1,85 @@
+package com.nickferraro.bayesian.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+	@Test
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertThat(histogram.getCount(), is(0L));
+		assertThat(histogram.getMax(), is(0L));
+		assertThat(histogram.getMean(), is(0.0d));
+		assertThat(histogram.getValueAtPercentile(99.0d), is(0L));
+	}
+	
+	@Test
+	public void testSmallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int value = 1; value <= 100; ++value) {
+			histogram.record(value);
+		}
+		
+		assertThat(histogram.getCount(), is(100L));
+		assertThat(histogram.getMax(), is(100L));
+		assertThat(histogram.getMean(), is(50.5d));
+		assertThat(histogram.getValueAtPercentile(50.0d), is(50L));
+		assertThat(histogram.getValueAtPercentile(99.0d), is(99L));
+		assertThat(histogram.getValueAtPercentile(100.0d), is(100L));
+		assertThat(histogram.getValueAtPercentile(0.0d), is(1L));
+	}
+	
+	@Test
+	public void testLargeValuesAreClose() {
+		long[] values = { 200, 1000, 12345, 987654, 1234567890L, Long.MAX_VALUE / 3 };
+		for(long value : values) {
+			LatencyHistogram histogram = new LatencyHistogram();
+			histogram.record(value);
+			histogram.record(value * 2);
+			long reported = histogram.getValueAtPercentile(50.0d);
+			assertTrue(value + " reported as " + reported, reported >= value && reported <= value + value / 60);
+		}
+	}
+	
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 0; i < 990; ++i) {
+			histogram.record(1000);
+		}
+		for(int i = 0; i < 10; ++i) {
+			histogram.record(1000000);
+		}
+		
+		assertTrue(histogram.getValueAtPercentile(99.0d) < 1020);
+		assertTrue(histogram.getValueAtPercentile(99.9d) >= 1000000);
+		assertThat(histogram.getValueAtPercentile(99.9d), is(1000000L));
+	}
+	
+	@Test
+	public void testNegativeAndMax() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE);
+		assertThat(histogram.getValueAtPercentile(50.0d), is(0L));
+		assertThat(histogram.getValueAtPercentile(100.0d), is(Long.MAX_VALUE));
+	}
+	
+	@Test
+	public void testAdd() {
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		first.record(10);
+		second.record(30);
+		second.record(5000);
+		first.add(second);
+		
+		assertThat(first.getCount(), is(3L));
+		assertThat(first.getMax(), is(5000L));
+		assertThat(first.getValueAtPercentile(50.0d), is(30L));
+		assertThat(second.getCount(), is(2L));
+	}
+}
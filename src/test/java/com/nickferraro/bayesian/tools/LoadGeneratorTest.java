@@ -0,0 +1,91 @@
+package com.nickferraro.bayesian.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.security.InvalidParameterException;
+
+import org.junit.Test;
+
+import com.nickferraro.bayesian.core.BayesianSystem;
+import com.nickferraro.bayesian.model.hashed.BayesianModel;
+
+public class LoadGeneratorTest {
+	@Test
+	public void testRun() throws InterruptedException {
+		LoadGenerator generator = newGenerator();
+		generator.setClassifyRate(2000);
+		generator.setTrainRate(200);
+		assertThat(generator.getClassifyStats(), is(nullValue()));
+		
+		BayesianModel<String> bayesianModel = new BayesianModel<String>();
+		generator.run(new BayesianSystem<String>(bayesianModel));
+		
+		OperationStats classify = generator.getClassifyStats();
+		OperationStats train = generator.getTrainStats();
+		assertThat(classify.getThreads(), is(2));
+		assertThat(train.getThreads(), is(1));
+		
+		// 300 ms at 2000/s and 200/s, allowing for a slow machine
+		assertTrue(classify.getOperations() + classify.getBacklog() >= 500);
+		assertTrue(classify.getOperations() <= 610);
+		assertTrue(train.getOperations() + train.getBacklog() >= 50);
+		assertTrue(train.getOperations() <= 61);
+		assertThat(classify.getLatencies().getCount(), is(classify.getOperations()));
+		assertTrue(classify.getLatencies().getMax() > 0);
+		assertTrue(bayesianModel.getTotalRows() >= 100 + train.getOperations());
+		assertTrue(bayesianModel.getUniqueCategories().size() <= 5);
+	}
+	
+	@Test
+	public void testRun_Unthrottled() throws InterruptedException {
+		LoadGenerator generator = newGenerator();
+		generator.setClassifyRate(0);
+		generator.setTrainRate(0);
+		generator.run(new BayesianSystem<String>(new BayesianModel<String>()));
+		
+		assertTrue(generator.getClassifyStats().getOperations() > 0);
+		assertTrue(generator.getTrainStats().getOperations() > 0);
+		assertThat(generator.getClassifyStats().getBacklog(), is(0L));
+	}
+	
+	@Test
+	public void testRun_NoTrainers() throws InterruptedException {
+		LoadGenerator generator = newGenerator();
+		generator.setTrainerThreads(0);
+		generator.run(new BayesianSystem<String>(new BayesianModel<String>()));
+		
+		assertThat(generator.getTrainStats().getThreads(), is(0));
+		assertThat(generator.getTrainStats().getOperations(), is(0L));
+		assertThat(generator.getTrainStats().getThroughput() == 0.0d, is(true));
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testRun_NullSystem() throws InterruptedException {
+		new LoadGenerator().run(null);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testSetClassifyRate_Negative() {
+		new LoadGenerator().setClassifyRate(-1);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testSetWordSkew_NaN() {
+		new LoadGenerator().setWordSkew(Double.NaN);
+	}
+	
+	private static LoadGenerator newGenerator() {
+		LoadGenerator generator = new LoadGenerator();
+		generator.setClassifierThreads(2);
+		generator.setTrainerThreads(1);
+		generator.setDurationMillis(300);
+		generator.setVocabularySize(500);
+		generator.setCategoryCount(5);
+		generator.setSentenceWords(8);
+		generator.setWarmUpRows(100);
+		return generator;
+	}
+}
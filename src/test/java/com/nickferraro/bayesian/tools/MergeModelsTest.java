@@ -0,0 +1,80 @@
+package com.nickferraro.bayesian.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.nickferraro.bayesian.model.ModelMode;
+import com.nickferraro.bayesian.model.io.ModelSnapshotReader;
+import com.nickferraro.bayesian.model.io.ModelSnapshotWriter;
+import com.nickferraro.bayesian.model.io.SnapshotWord;
+import com.nickferraro.bayesian.model.io.StringCategoryCodec;
+
+public class MergeModelsTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private ByteArrayOutputStream err = new ByteArrayOutputStream();
+	
+	@Test
+	public void testMerge() throws IOException {
+		File first = writeSnapshot("first.snapshot", "x", new SnapshotWord("alpha", 1, new int[] { 0 }, new int[] { 1 }));
+		File second = writeSnapshot("second.snapshot", "y", new SnapshotWord("alpha", 1, new int[] { 0 }, new int[] { 1 }), 
+				new SnapshotWord("beta", 1, new int[] { 0 }, new int[] { 1 }));
+		File output = new File(folder.getRoot(), "merged.snapshot");
+		
+		assertThat(run(output.getPath(), first.getPath(), second.getPath()), is(MergeModels.EXIT_OK));
+		
+		ModelSnapshotReader<String> reader = new ModelSnapshotReader<String>(new FileInputStream(output), new StringCategoryCodec());
+		assertThat(reader.getTotalRows(), is(2));
+		assertThat(reader.getCategories(), is(Arrays.asList("x", "y")));
+		SnapshotWord alpha = reader.nextWord();
+		assertThat(alpha.getCount(), is(2));
+		assertThat(alpha.getLinkCount(), is(2));
+		assertThat(reader.nextWord().getWord(), is("beta"));
+		reader.close();
+		assertThat(new File(folder.getRoot(), "merged.snapshot.tmp").exists(), is(false));
+	}
+	
+	@Test
+	public void testUsage() {
+		assertThat(run("only-output.snapshot"), is(MergeModels.EXIT_USAGE));
+		assertThat(err.toString().startsWith("Usage"), is(true));
+	}
+	
+	@Test
+	public void testMissingInput() {
+		File output = new File(folder.getRoot(), "merged.snapshot");
+		
+		assertThat(run(output.getPath(), new File(folder.getRoot(), "missing.snapshot").getPath()), is(MergeModels.EXIT_FAILED));
+		assertThat(output.exists(), is(false));
+	}
+	
+	private int run(String...args) {
+		return MergeModels.run(args, new PrintStream(out), new PrintStream(err));
+	}
+	
+	private File writeSnapshot(String name, String category, SnapshotWord...words) throws IOException {
+		File file = folder.newFile(name);
+		ModelSnapshotWriter<String> writer = new ModelSnapshotWriter<String>(new FileOutputStream(file), new StringCategoryCodec());
+		writer.writeHeader(ModelMode.BERNOULLI, 1, Arrays.asList(category), new int[] { 1 }, new int[] { words.length });
+		for(SnapshotWord word : words) {
+			writer.writeWord(word);
+		}
+		writer.close();
+		
+		return file;
+	}
+}
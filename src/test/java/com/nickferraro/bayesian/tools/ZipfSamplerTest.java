@@ -0,0 +1,60 @@
+package com.nickferraro.bayesian.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.security.InvalidParameterException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ZipfSamplerTest {
+	@Test
+	public void testSkew() {
+		ZipfSampler sampler = new ZipfSampler(1000, 1.0d);
+		Random random = new Random(7);
+		int[] counts = new int[1000];
+		for(int i = 0; i < 100000; ++i) {
+			++counts[sampler.sample(random)];
+		}
+		
+		// Rank 0 is drawn about twice as often as rank 1 and about ten times as often as rank 9
+		assertTrue(counts[0] > counts[1] * 1.7 && counts[0] < counts[1] * 2.3);
+		assertTrue(counts[0] > counts[9] * 8 && counts[0] < counts[9] * 12);
+		assertThat(sampler.size(), is(1000));
+	}
+	
+	@Test
+	public void testUniform() {
+		ZipfSampler sampler = new ZipfSampler(4, 0.0d);
+		Random random = new Random(7);
+		int[] counts = new int[4];
+		for(int i = 0; i < 40000; ++i) {
+			++counts[sampler.sample(random)];
+		}
+		
+		for(int count : counts) {
+			assertTrue(count > 9000 && count < 11000);
+		}
+	}
+	
+	@Test
+	public void testSingleRank() {
+		ZipfSampler sampler = new ZipfSampler(1, 2.0d);
+		Random random = new Random(7);
+		for(int i = 0; i < 100; ++i) {
+			assertThat(sampler.sample(random), is(0));
+		}
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testConstructor_NoRanks() {
+		new ZipfSampler(0, 1.0d);
+	}
+	
+	@Test(expected = InvalidParameterException.class)
+	public void testConstructor_NegativeExponent() {
+		new ZipfSampler(10, -1.0d);
+	}
+}